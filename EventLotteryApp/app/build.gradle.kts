@@ -38,6 +38,13 @@ android {
     buildFeatures {
         viewBinding = true
     }
+
+    testOptions {
+        unitTests.all {
+            // Benchmarks are skipped unless the build is run with -Dbenchmarks=true
+            it.systemProperty("benchmarks", System.getProperty("benchmarks", "false"))
+        }
+    }
 }
 
 dependencies {
@@ -0,0 +1,143 @@
+package com.example.eventlotteryapp.Controllers;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for AutoDrawScheduler against a local Firestore emulator, using a fake clock.
+ * Checks that only events whose registration has closed are drawn, and that
+ * running the scheduler again does not draw them a second time.
+ *
+ * Note: These tests require the Firestore emulator running on the host (port 8080).
+ */
+@RunWith(AndroidJUnit4.class)
+public class AutoDrawSchedulerTest {
+    private static final long FAKE_NOW = 1_900_000_000_000L;
+    private static final long ONE_HOUR = 60 * 60 * 1000L;
+
+    private FirebaseFirestore db;
+    private DocumentReference organizerRef;
+    private AutoDrawScheduler scheduler;
+    private final List<String> committedEventIds = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        FirebaseApp defaultApp = FirebaseApp.initializeApp(context);
+        FirebaseApp app;
+        try {
+            app = FirebaseApp.getInstance("auto-draw-test");
+        } catch (IllegalStateException e) {
+            app = FirebaseApp.initializeApp(context, defaultApp.getOptions(), "auto-draw-test");
+            FirebaseFirestore.getInstance(app).useEmulator("10.0.2.2", 8080);
+        }
+        db = FirebaseFirestore.getInstance(app);
+        organizerRef = db.collection("users").document("auto-draw-organizer-" + UUID.randomUUID());
+
+        LotteryDrawController drawController = new LotteryDrawController(db, new LotteryEngine(new Random(42)));
+        scheduler = new AutoDrawScheduler(db, drawController, () -> FAKE_NOW,
+                (eventId, result) -> committedEventIds.add(eventId));
+    }
+
+    private String createEvent(long registrationCloseDate, boolean autoDrawPending) throws Exception {
+        return createEvent(organizerRef, registrationCloseDate, autoDrawPending);
+    }
+
+    private String createEvent(DocumentReference organizer, long registrationCloseDate, boolean autoDrawPending) throws Exception {
+        String eventId = "auto-draw-" + UUID.randomUUID();
+        Map<String, Object> event = new HashMap<>();
+        event.put("title", "Auto Draw Test");
+        event.put("Organizer", organizer);
+        event.put("registrationCloseDate", new Date(registrationCloseDate));
+        event.put("maxParticipants", 2);
+        event.put("waitingListEntrantIds", Arrays.asList("a", "b", "c"));
+        event.put("selectedEntrantIds", new ArrayList<String>());
+        event.put(LotteryDrawController.AUTO_DRAW_PENDING_FIELD, autoDrawPending);
+        Tasks.await(db.collection("Events").document(eventId).set(event), 10, TimeUnit.SECONDS);
+        return eventId;
+    }
+
+    private DocumentSnapshot load(String eventId) throws Exception {
+        return Tasks.await(db.collection("Events").document(eventId).get(), 10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @Ignore("Requires a running Firestore emulator")
+    public void testDrawsOnlyClosedPendingEventsOnce() throws Exception {
+        String closed = createEvent(FAKE_NOW - ONE_HOUR, true);
+        String open = createEvent(FAKE_NOW + ONE_HOUR, true);
+        String alreadyDrawn = createEvent(FAKE_NOW - ONE_HOUR, false);
+        String otherOrganizers = createEvent(db.collection("users").document("auto-draw-other-" + UUID.randomUUID()),
+                FAKE_NOW - ONE_HOUR, true);
+
+        scheduler.runDueDraws(organizerRef).get(30, TimeUnit.SECONDS);
+
+        DocumentSnapshot closedDoc = load(closed);
+        assertEquals(2, ((List<?>) closedDoc.get("selectedEntrantIds")).size());
+        assertEquals(1, ((List<?>) closedDoc.get("waitingListEntrantIds")).size());
+        assertFalse(LotteryDrawController.isAutoDrawPending(closedDoc));
+        assertTrue(committedEventIds.contains(closed));
+
+        DocumentSnapshot openDoc = load(open);
+        assertTrue(((List<?>) openDoc.get("selectedEntrantIds")).isEmpty());
+        assertTrue(LotteryDrawController.isAutoDrawPending(openDoc));
+
+        assertTrue(((List<?>) load(alreadyDrawn).get("selectedEntrantIds")).isEmpty());
+
+        DocumentSnapshot otherDoc = load(otherOrganizers);
+        assertTrue(((List<?>) otherDoc.get("selectedEntrantIds")).isEmpty());
+        assertTrue(LotteryDrawController.isAutoDrawPending(otherDoc));
+
+        // A second run finds nothing left to draw for these events
+        committedEventIds.clear();
+        scheduler.runDueDraws(organizerRef).get(30, TimeUnit.SECONDS);
+        assertFalse(committedEventIds.contains(closed));
+        assertEquals(2, ((List<?>) load(closed).get("selectedEntrantIds")).size());
+    }
+
+    @Test
+    @Ignore("Requires a running Firestore emulator")
+    public void testEventWithEmptyWaitingListIsMarkedDone() throws Exception {
+        String eventId = "auto-draw-" + UUID.randomUUID();
+        Map<String, Object> event = new HashMap<>();
+        event.put("Organizer", organizerRef);
+        event.put("registrationCloseDate", new Date(FAKE_NOW - ONE_HOUR));
+        event.put("maxParticipants", 2);
+        event.put("waitingListEntrantIds", new ArrayList<String>());
+        event.put(LotteryDrawController.AUTO_DRAW_PENDING_FIELD, true);
+        Tasks.await(db.collection("Events").document(eventId).set(event), 10, TimeUnit.SECONDS);
+
+        scheduler.runDueDraws(organizerRef).get(30, TimeUnit.SECONDS);
+
+        assertFalse(LotteryDrawController.isAutoDrawPending(load(eventId)));
+        assertFalse(committedEventIds.contains(eventId));
+    }
+}
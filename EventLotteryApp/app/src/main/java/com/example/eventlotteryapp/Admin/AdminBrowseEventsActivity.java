@@ -14,6 +14,9 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.eventlotteryapp.Authorization.AuthActivity;
+import com.example.eventlotteryapp.Controllers.EventCounterController;
+import com.example.eventlotteryapp.Controllers.WaitlistController;
+import com.example.eventlotteryapp.Helpers.PosterImages;
 import com.example.eventlotteryapp.R;
 import com.example.eventlotteryapp.data.Event;
 import com.example.eventlotteryapp.organizer.EventAdapter;
@@ -22,6 +25,7 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -122,21 +126,34 @@ public class AdminBrowseEventsActivity extends AppCompatActivity {
     }
 
     /**
-     * Deletes an event document from Firestore and refreshes the list.
+     * Deletes an event document, its poster, waitlist entries and counters from Firestore
+     * and refreshes the list.
      */
     private void deleteEvent(String eventId) {
         progressBar.setVisibility(View.VISIBLE);
 
-        eventsRef.document(eventId)
-                .delete()
-                .addOnSuccessListener(aVoid -> {
-                    Toast.makeText(this, "Event removed", Toast.LENGTH_SHORT).show();
-                    loadAllEvents();
-                })
-                .addOnFailureListener(e -> {
-                    progressBar.setVisibility(View.GONE);
-                    Toast.makeText(this, "Failed to remove event: " + e.getMessage(),
-                            Toast.LENGTH_LONG).show();
-                });
+        // The waitlist can be large, so it is deleted page by page before the event
+        new WaitlistController(firestore).deleteAll(eventId).whenComplete((done, waitlistError) -> runOnUiThread(() -> {
+            if (waitlistError != null) {
+                progressBar.setVisibility(View.GONE);
+                Toast.makeText(this, "Failed to remove event: " + waitlistError.getMessage(),
+                        Toast.LENGTH_LONG).show();
+                return;
+            }
+            WriteBatch batch = firestore.batch();
+            PosterImages.delete(batch, firestore, eventId, false);
+            new EventCounterController(firestore).deleteAll(batch, eventId);
+            batch.delete(eventsRef.document(eventId));
+            batch.commit()
+                    .addOnSuccessListener(aVoid -> {
+                        Toast.makeText(this, "Event removed", Toast.LENGTH_SHORT).show();
+                        loadAllEvents();
+                    })
+                    .addOnFailureListener(e -> {
+                        progressBar.setVisibility(View.GONE);
+                        Toast.makeText(this, "Failed to remove event: " + e.getMessage(),
+                                Toast.LENGTH_LONG).show();
+                    });
+        }));
     }
 }
@@ -10,6 +10,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.eventlotteryapp.Helpers.PosterImages;
 import com.example.eventlotteryapp.R;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.FirebaseFirestore;
@@ -29,7 +30,7 @@ public class AdminBrowseImagesActivity extends AppCompatActivity {
     private AdminImageAdapter adapter;
 
     private final FirebaseFirestore firestore = FirebaseFirestore.getInstance();
-    private final CollectionReference eventsRef = firestore.collection("Events");
+    private final CollectionReference imagesRef = firestore.collection(PosterImages.COLLECTION);
 
     /**
      * Initializes UI components and loads all images from Firestore.
@@ -54,20 +55,20 @@ public class AdminBrowseImagesActivity extends AppCompatActivity {
     }
 
     /**
-     * Retrieves all images from event documents and displays them.
+     * Retrieves every event poster's thumbnail and displays them.
      */
     private void loadImages() {
         progressBar.setVisibility(View.VISIBLE);
 
-        eventsRef.get().addOnSuccessListener(query -> {
+        imagesRef.whereEqualTo(PosterImages.VARIANT_FIELD, PosterImages.THUMBNAIL).get().addOnSuccessListener(query -> {
             List<AdminImageAdapter.ImageItem> imageItems = new ArrayList<>();
 
             for (QueryDocumentSnapshot doc : query) {
-                String eventId = doc.getId();
-                String base64 = doc.getString("Image");
+                String eventId = doc.getString(PosterImages.EVENT_ID_FIELD);
+                String version = doc.getString(PosterImages.POSTER_VERSION_FIELD);
 
-                if (base64 != null && !base64.trim().isEmpty()) {
-                    imageItems.add(new AdminImageAdapter.ImageItem(eventId, base64));
+                if (eventId != null && version != null) {
+                    imageItems.add(new AdminImageAdapter.ImageItem(eventId, version));
                 }
             }
 
@@ -83,10 +84,10 @@ public class AdminBrowseImagesActivity extends AppCompatActivity {
     /**
      * Opens a single image in a dedicated screen for deletion.
      */
-    private void openImage(String eventId, String base64) {
+    private void openImage(String eventId, String posterVersion) {
         Intent intent = new Intent(this, AdminViewImageActivity.class);
         intent.putExtra("eventId", eventId);
-        intent.putExtra("imageBase64", base64);
+        intent.putExtra("posterVersion", posterVersion);
         startActivityForResult(intent, 10);
     }
 
@@ -6,11 +6,15 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.eventlotteryapp.Helpers.ListDiffer;
 import com.example.eventlotteryapp.R;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * RecyclerView adapter used by the admin panel to display
@@ -18,7 +22,11 @@ import java.util.List;
  */
 public class AdminEventAdapter extends RecyclerView.Adapter<AdminEventAdapter.ViewHolder> {
 
-    private final List<AdminEvent> events;
+    /** Payloads naming the fields of a row that changed, for partial binds. */
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_LOCATION = "location";
+
+    private final ListDiffer<AdminEvent> events;
 
     /**
      * Creates a new adapter instance.
@@ -26,7 +34,31 @@ public class AdminEventAdapter extends RecyclerView.Adapter<AdminEventAdapter.Vi
      * @param events A list of events to display.
      */
     public AdminEventAdapter(List<AdminEvent> events) {
-        this.events = events;
+        this.events = new ListDiffer<>(new AdapterListUpdateCallback(this), new ListDiffer.ItemRules<AdminEvent>() {
+            @Override
+            public String idOf(AdminEvent item) {
+                return item.getEventId();
+            }
+
+            @Override
+            public Set<String> changes(AdminEvent oldItem, AdminEvent newItem) {
+                Set<String> changes = new HashSet<>();
+                ListDiffer.compare(changes, FIELD_TITLE, oldItem.getTitle(), newItem.getTitle());
+                ListDiffer.compare(changes, FIELD_LOCATION, oldItem.getLocation(), newItem.getLocation());
+                return changes;
+            }
+        });
+        setHasStableIds(true);
+        this.events.submit(events);
+    }
+
+    /**
+     * Replaces the events shown. Only the rows that changed are rebound.
+     *
+     * @param newEvents The events to display.
+     */
+    public void updateEvents(List<AdminEvent> newEvents) {
+        events.submit(newEvents);
     }
 
     @NonNull
@@ -39,14 +71,38 @@ public class AdminEventAdapter extends RecyclerView.Adapter<AdminEventAdapter.Vi
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        AdminEvent event = events.get(position);
+        AdminEvent event = events.getCurrentList().get(position);
         holder.title.setText(event.getTitle());
         holder.location.setText(event.getLocation());
     }
 
+    /**
+     * Rebinds only the fields named in the payloads.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        Set<String> fields = ListDiffer.changedFields(payloads);
+        if (payloads.isEmpty() || fields == null) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        AdminEvent event = events.getCurrentList().get(position);
+        if (fields.contains(FIELD_TITLE)) {
+            holder.title.setText(event.getTitle());
+        }
+        if (fields.contains(FIELD_LOCATION)) {
+            holder.location.setText(event.getLocation());
+        }
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return events.stableId(events.getCurrentList().get(position));
+    }
+
     @Override
     public int getItemCount() {
-        return events.size();
+        return events.getCurrentList().size();
     }
 
     /**
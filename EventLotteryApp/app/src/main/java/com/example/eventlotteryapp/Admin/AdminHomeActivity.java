@@ -7,8 +7,14 @@ import android.widget.Button;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.eventlotteryapp.Authorization.AuthActivity;
+import com.example.eventlotteryapp.Helpers.PosterMigration;
+import com.example.eventlotteryapp.Notifications.Broadcasts;
+import com.example.eventlotteryapp.Notifications.NotificationCompaction;
+import com.example.eventlotteryapp.Notifications.RetentionPolicy;
+import com.example.eventlotteryapp.Notifications.TimestampMigration;
 import com.example.eventlotteryapp.R;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
 
 /**
  * The main landing screen for administrators.
@@ -72,5 +78,15 @@ public class AdminHomeActivity extends AppCompatActivity {
             startActivity(new Intent(this, AuthActivity.class));
             finish();
         });
+
+        // Convert any notification timestamps still stored as strings; does nothing once all are migrated.
+        // Compaction only finds notifications by native TimeStamp, so it runs afterwards.
+        new TimestampMigration().run()
+            .thenCompose(migrated -> new NotificationCompaction().run())
+            .thenCompose(report -> new NotificationCompaction(FirebaseFirestore.getInstance(),
+                Broadcasts.COLLECTION, RetentionPolicy.defaults(), false).run());
+
+        // Move posters still stored on events into their own image documents; does nothing once all are moved.
+        new PosterMigration().run();
     }
 }
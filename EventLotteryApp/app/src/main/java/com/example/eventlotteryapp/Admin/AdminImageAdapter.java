@@ -1,8 +1,5 @@
 package com.example.eventlotteryapp.Admin;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.util.Base64;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -12,6 +9,8 @@ import android.widget.ImageView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.eventlotteryapp.Helpers.PosterImages;
+import com.example.eventlotteryapp.Helpers.PosterLoader;
 import com.example.eventlotteryapp.R;
 
 import java.util.ArrayList;
@@ -27,19 +26,19 @@ public class AdminImageAdapter extends RecyclerView.Adapter<AdminImageAdapter.Vi
      * Callback interface used to notify when an image entry is clicked.
      */
     public interface OnImageClick {
-        void onClick(String eventId, String base64);
+        void onClick(String eventId, String posterVersion);
     }
 
     /**
-     * Model class representing an event image stored in Firestore.
+     * Model class representing an event poster stored in Firestore.
      */
     public static class ImageItem {
         public String eventId;
-        public String base64Image;
+        public String posterVersion;
 
-        public ImageItem(String eventId, String base64Image) {
+        public ImageItem(String eventId, String posterVersion) {
             this.eventId = eventId;
-            this.base64Image = base64Image;
+            this.posterVersion = posterVersion;
         }
     }
 
@@ -81,17 +80,12 @@ public class AdminImageAdapter extends RecyclerView.Adapter<AdminImageAdapter.Vi
     public void onBindViewHolder(@NonNull AdminImageAdapter.ViewHolder holder, int position) {
         ImageItem item = images.get(position);
 
-        Bitmap bitmap = decodeBase64(item.base64Image);
-
-        if (bitmap != null) {
-            holder.image.setImageBitmap(bitmap);
-        } else {
-            holder.image.setImageResource(R.drawable.placeholder_image);
-        }
+        PosterLoader.get(holder.itemView.getContext())
+                .loadPoster(item.eventId, item.posterVersion, PosterImages.THUMBNAIL, holder.image, R.drawable.placeholder_image);
 
         holder.deleteButton.setOnClickListener(v -> {
             v.setPressed(false); // fixes ripple glitch
-            clickListener.onClick(item.eventId, item.base64Image);
+            clickListener.onClick(item.eventId, item.posterVersion);
         });
     }
 
@@ -100,30 +94,6 @@ public class AdminImageAdapter extends RecyclerView.Adapter<AdminImageAdapter.Vi
         return images.size();
     }
 
-    /**
-     * Converts a Base64 string into a Bitmap for display.
-     */
-    private Bitmap decodeBase64(String base64) {
-        try {
-            if (base64 == null || base64.trim().isEmpty()) return null;
-
-            // Remove prefix data:image/... if present
-            if (base64.startsWith("data")) {
-                int commaIndex = base64.indexOf(",");
-                if (commaIndex != -1) {
-                    base64 = base64.substring(commaIndex + 1);
-                }
-            }
-
-            byte[] bytes = Base64.decode(base64, Base64.DEFAULT);
-            return BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-
     /**
      * ViewHolder representing one image entry in the list.
      */
@@ -9,6 +9,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.eventlotteryapp.Helpers.DateTimeFormat;
 import com.example.eventlotteryapp.R;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.FirebaseFirestore;
@@ -165,22 +166,8 @@ public class AdminNotificationLogsActivity extends AppCompatActivity {
                         }
                         
                         // Handle timestamp - create final copy
-                        Object timestampObj = doc.get("TimeStamp");
-                        java.util.Date timestampValue;
-                        if (timestampObj instanceof java.util.Date) {
-                            timestampValue = (java.util.Date) timestampObj;
-                        } else if (timestampObj instanceof com.google.firebase.Timestamp) {
-                            timestampValue = ((com.google.firebase.Timestamp) timestampObj).toDate();
-                        } else if (timestampObj instanceof String) {
-                            try {
-                                timestampValue = new java.text.SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", java.util.Locale.US).parse((String) timestampObj);
-                            } catch (Exception e) {
-                                timestampValue = new java.util.Date();
-                            }
-                        } else {
-                            timestampValue = new java.util.Date();
-                        }
-                        final java.util.Date timestamp = timestampValue;
+                        java.util.Date timestampValue = DateTimeFormat.fromFirestore(doc.get("TimeStamp"));
+                        final java.util.Date timestamp = (timestampValue != null) ? timestampValue : new java.util.Date();
                         
                         // Process the notification entry directly
                         // Note: Organizers can receive notifications in entrant mode, so we don't filter by role
@@ -1,17 +1,17 @@
 package com.example.eventlotteryapp.Admin;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.Bundle;
-import android.util.Base64;
 import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.eventlotteryapp.Helpers.PosterImages;
+import com.example.eventlotteryapp.Helpers.PosterLoader;
 import com.example.eventlotteryapp.R;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 
 /**
  * Activity that displays a single event image in full screen
@@ -37,38 +37,27 @@ public class AdminViewImageActivity extends AppCompatActivity {
         deleteBtn = findViewById(R.id.adminDeleteImage);
 
         eventId = getIntent().getStringExtra("eventId");
-        String base64 = getIntent().getStringExtra("imageBase64");
+        String posterVersion = getIntent().getStringExtra("posterVersion");
 
-        loadImage(base64);
+        loadImage(posterVersion);
 
         deleteBtn.setOnClickListener(v -> deleteImage());
     }
 
     /**
-     * Decodes Base64 and shows image in the ImageView.
+     * Shows the full-size variant of the poster in the ImageView.
      */
-    private void loadImage(String base64) {
-        if (base64 == null) {
+    private void loadImage(String posterVersion) {
+        if (eventId == null || posterVersion == null) {
             Toast.makeText(this, "Image not found", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        try {
-            if (base64.contains(",")) {
-                base64 = base64.substring(base64.indexOf(",") + 1);
-            }
-
-            byte[] bytes = Base64.decode(base64, Base64.DEFAULT);
-            Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
-            imageFull.setImageBitmap(bitmap);
-
-        } catch (Exception e) {
-            Toast.makeText(this, "Failed to load image", Toast.LENGTH_SHORT).show();
-        }
+        PosterLoader.get(this).loadPoster(eventId, posterVersion, PosterImages.FULL, imageFull, 0);
     }
 
     /**
-     * Deletes the image from its parent Event document in Firestore.
+     * Deletes both variants of the poster and removes it from its parent Event document.
      * Sends a result back so the list can refresh.
      */
     private void deleteImage() {
@@ -77,9 +66,9 @@ public class AdminViewImageActivity extends AppCompatActivity {
             return;
         }
 
-        firestore.collection("Events")
-                .document(eventId)
-                .update("Image", null)
+        WriteBatch batch = firestore.batch();
+        PosterImages.delete(batch, firestore, eventId, true);
+        batch.commit()
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(this, "Image deleted", Toast.LENGTH_SHORT).show();
                     setResult(RESULT_OK);
@@ -0,0 +1,168 @@
+package com.example.eventlotteryapp.Controllers;
+
+import android.util.Log;
+
+import com.example.eventlotteryapp.Helpers.BoundedParallel;
+import com.example.eventlotteryapp.NotificationController;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the lottery draw for every event of one organizer whose registration has closed and
+ * that has not been drawn yet. Due events are found with one query per page of {@link #PAGE_SIZE}
+ * events (they belong to the organizer, have {@code autoDrawPending} set and a
+ * {@code registrationCloseDate} in the past), and each page is drawn with at most
+ * {@link #MAX_PARALLEL_DRAWS} draws in flight.
+ *
+ * Each draw goes through {@link LotteryDrawController#autoDraw(String)}, which clears
+ * {@code autoDrawPending} in the draw's own transaction, so an event is drawn at most once
+ * even if several devices run the scheduler at the same time.
+ *
+ * The clock is injectable so the scheduler can be driven against the Firestore emulator
+ * with a fake time.
+ *
+ * @author Droids Team
+ */
+public class AutoDrawScheduler {
+    private static final String TAG = "AutoDrawScheduler";
+
+    /** Number of due events read per query. */
+    public static final int PAGE_SIZE = 100;
+
+    /** Maximum number of draw transactions in flight at once. */
+    public static final int MAX_PARALLEL_DRAWS = 8;
+
+    /** Stops a second run from starting while one is already going in this process. */
+    private static final AtomicBoolean RUNNING = new AtomicBoolean(false);
+
+    private final FirebaseFirestore db;
+    private final LotteryDrawController drawController;
+    private final LongSupplier clock;
+    private final DrawListener listener;
+
+    /**
+     * Constructs an AutoDrawScheduler using the default Firestore instance and the system clock.
+     * Entrants are notified of each committed draw.
+     */
+    public AutoDrawScheduler() {
+        this(FirebaseFirestore.getInstance(), new LotteryDrawController(), System::currentTimeMillis,
+            notifyingListener(new NotificationController()));
+    }
+
+    /**
+     * Constructs an AutoDrawScheduler.
+     *
+     * @param db the Firestore instance to query for due events
+     * @param drawController the controller that runs each draw
+     * @param clock returns the current time in milliseconds
+     * @param listener called for every committed draw
+     */
+    public AutoDrawScheduler(FirebaseFirestore db, LotteryDrawController drawController,
+                             LongSupplier clock, DrawListener listener) {
+        this.db = db;
+        this.drawController = drawController;
+        this.clock = clock;
+        this.listener = listener;
+    }
+
+    /**
+     * Draws every event of the organizer that is due. Returns straight away with 0 if a run
+     * is already in progress in this process.
+     *
+     * @param organizerRef the organizer's user document; only their events are drawn
+     * @return a CompletableFuture that completes with the number of events drawn
+     */
+    public CompletableFuture<Integer> runDueDraws(DocumentReference organizerRef) {
+        if (!RUNNING.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Date now = new Date(clock.getAsLong());
+        drawPage(dueEvents(organizerRef, now), organizerRef, now, 0, future);
+        return future.whenComplete((drawn, e) -> RUNNING.set(false));
+    }
+
+    private Query dueEvents(DocumentReference organizerRef, Date now) {
+        return db.collection("Events")
+            .whereEqualTo("Organizer", organizerRef)
+            .whereEqualTo(LotteryDrawController.AUTO_DRAW_PENDING_FIELD, true)
+            .whereLessThanOrEqualTo("registrationCloseDate", now)
+            .orderBy("registrationCloseDate")
+            .limit(PAGE_SIZE);
+    }
+
+    /**
+     * Draws one page of due events, then moves on to the page after it.
+     * The cursor is the last document of the page, so events that fail to draw
+     * are not read again in the same run.
+     */
+    private void drawPage(Query query, DocumentReference organizerRef, Date now, int drawnSoFar,
+                          CompletableFuture<Integer> future) {
+        query.get().addOnSuccessListener(snapshot -> {
+            List<DocumentSnapshot> docs = snapshot.getDocuments();
+            List<String> eventIds = new ArrayList<>(docs.size());
+            for (DocumentSnapshot doc : docs) {
+                eventIds.add(doc.getId());
+            }
+
+            BoundedParallel.forEach(eventIds, MAX_PARALLEL_DRAWS, this::drawEvent).thenAccept(drawn -> {
+                int total = drawnSoFar + drawn;
+                if (docs.size() < PAGE_SIZE) {
+                    Log.d(TAG, "Auto-draw run finished, " + total + " event(s) drawn");
+                    future.complete(total);
+                } else {
+                    drawPage(dueEvents(organizerRef, now).startAfter(docs.get(docs.size() - 1)),
+                        organizerRef, now, total, future);
+                }
+            });
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Error querying events due for a draw", e);
+            future.completeExceptionally(e);
+        });
+    }
+
+    private CompletableFuture<Boolean> drawEvent(String eventId) {
+        return drawController.autoDraw(eventId).handle((result, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Auto-draw failed for event " + eventId, e);
+                return false;
+            }
+            if (result.skipped) {
+                return false;
+            }
+            if (result.errorMessage != null) {
+                Log.d(TAG, "Auto-draw for event " + eventId + " drew no one: " + result.errorMessage);
+                return false;
+            }
+            listener.onDrawCommitted(eventId, result);
+            return true;
+        });
+    }
+
+    /**
+     * Returns a listener that notifies the drawn and not-drawn entrants of each draw.
+     *
+     * @param notificationController the controller used to send the notifications
+     * @return the listener
+     */
+    public static DrawListener notifyingListener(NotificationController notificationController) {
+        return (eventId, result) -> LotteryDrawController.notifyEntrants(notificationController, eventId, result);
+    }
+
+    /**
+     * Callback for each draw the scheduler commits.
+     */
+    public interface DrawListener {
+        void onDrawCommitted(String eventId, LotteryDrawController.DrawResult result);
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.eventlotteryapp.Controllers;
+
+import android.util.Log;
+
+import com.example.eventlotteryapp.models.EventCounts;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controller for sharded per-event entrant counters.
+ * Each event has {@link #NUM_SHARDS} counter documents per status in its
+ * {@code Events/{eventId}/counters} subcollection. Writers increment one random shard
+ * in the same batch or transaction as the status change, so concurrent joins do not
+ * contend on a single document, and readers sum a few tiny documents instead of
+ * downloading the event and its entrant arrays.
+ *
+ * Counters are seeded from the event's arrays, and for sharded events its waitlist
+ * subcollection, the first time they are read; the {@code _meta} document marks an
+ * event whose counters have been seeded. New events are marked seeded when created.
+ *
+ * @author Droids Team
+ */
+public class EventCounterController {
+    private static final String TAG = "EventCounterController";
+
+    /** Name of the counters subcollection under each event document. */
+    public static final String SUBCOLLECTION = "counters";
+
+    /** Number of shard documents per status. */
+    public static final int NUM_SHARDS = 10;
+
+    /** ID of the document marking that an event's counters have been seeded. */
+    private static final String META_DOC = "_meta";
+
+    private final FirebaseFirestore db;
+    private final Random random = new Random();
+
+    /**
+     * Constructs a new EventCounterController using the default Firestore instance.
+     */
+    public EventCounterController() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * Constructs a new EventCounterController using the given Firestore instance.
+     *
+     * @param db the Firestore instance to use
+     */
+    public EventCounterController(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Returns the counters subcollection for an event.
+     *
+     * @param eventId the event ID
+     * @return the counters collection reference
+     */
+    public CollectionReference counters(String eventId) {
+        return db.collection("Events").document(eventId).collection(SUBCOLLECTION);
+    }
+
+    private DocumentReference shard(String eventId, String status, int shard) {
+        return counters(eventId).document(status + "_" + shard);
+    }
+
+    private DocumentReference randomShard(String eventId, String status) {
+        return shard(eventId, status, random.nextInt(NUM_SHARDS));
+    }
+
+    private static Map<String, Object> shardIncrement(String status, long delta) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("status", status);
+        data.put("count", FieldValue.increment(delta));
+        return data;
+    }
+
+    /**
+     * Adds the counter increments in a delta to a transaction. Zero deltas are skipped.
+     * The delta must be built from the event and waitlist entries read in the same
+     * transaction, so a status change that lands first forces a retry instead of
+     * being counted twice.
+     *
+     * @param transaction the transaction to add the writes to
+     * @param eventId the event ID
+     * @param delta the per-status changes
+     */
+    public void apply(Transaction transaction, String eventId, Delta delta) {
+        for (Map.Entry<String, Long> change : delta.changes.entrySet()) {
+            if (change.getValue() != 0) {
+                transaction.set(randomShard(eventId, change.getKey()),
+                        shardIncrement(change.getKey(), change.getValue()), SetOptions.merge());
+            }
+        }
+    }
+
+    /**
+     * Reads one status's count inside a transaction by reading each of its shards, so a
+     * transaction that checks a limit against it retries if the count changes first.
+     *
+     * @param transaction the transaction to read in
+     * @param eventId the event ID
+     * @param status one of {@link EventCounts#STATUSES}
+     * @return the count, or -1 if the event's counters have not been seeded yet
+     * @throws FirebaseFirestoreException if a read fails
+     */
+    public long readCount(Transaction transaction, String eventId, String status) throws FirebaseFirestoreException {
+        if (!transaction.get(counters(eventId).document(META_DOC)).exists()) {
+            return -1;
+        }
+        long total = 0;
+        for (int i = 0; i < NUM_SHARDS; i++) {
+            Long count = transaction.get(shard(eventId, status, i)).getLong("count");
+            if (count != null) {
+                total += count;
+            }
+        }
+        return Math.max(0, total);
+    }
+
+    /**
+     * Marks a new event's counters as seeded as part of the batch that creates it, so they
+     * start from zero and are never recounted.
+     *
+     * @param batch the batch creating the event
+     * @param eventId the new event's ID
+     */
+    public void markSeeded(WriteBatch batch, String eventId) {
+        batch.set(counters(eventId).document(META_DOC), Collections.singletonMap("seededAt", FieldValue.serverTimestamp()));
+    }
+
+    /**
+     * Deletes an event's counter shards and {@code _meta} document as part of the batch
+     * deleting the event, since deleting the event document leaves its subcollections behind.
+     * Shard IDs are fixed, so no read is needed.
+     *
+     * @param batch the batch deleting the event
+     * @param eventId the event ID
+     */
+    public void deleteAll(WriteBatch batch, String eventId) {
+        for (String status : EventCounts.STATUSES) {
+            for (int i = 0; i < NUM_SHARDS; i++) {
+                batch.delete(shard(eventId, status, i));
+            }
+        }
+        batch.delete(counters(eventId).document(META_DOC));
+    }
+
+    /**
+     * Reads an event's entrant counts by summing its counter shards.
+     * If the counters have not been seeded yet, counts the event's arrays instead
+     * and seeds the counters for next time.
+     *
+     * @param eventId the event ID
+     * @return a CompletableFuture that completes with the event's counts
+     */
+    public CompletableFuture<EventCounts> getCounts(String eventId) {
+        CompletableFuture<EventCounts> future = new CompletableFuture<>();
+
+        counters(eventId).get().addOnSuccessListener(snapshot -> {
+            boolean seeded = false;
+            EventCounts counts = new EventCounts();
+            for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                if (META_DOC.equals(doc.getId())) {
+                    seeded = true;
+                    continue;
+                }
+                Long value = doc.getLong("count");
+                counts.add(doc.getString("status"), (value != null) ? value : 0L);
+            }
+
+            if (seeded) {
+                future.complete(counts);
+                return;
+            }
+
+            db.collection("Events").document(eventId).get().addOnSuccessListener(eventDoc -> {
+                new WaitlistController(db).countEntries(eventId).whenComplete((waiting, e) -> {
+                    if (e != null) {
+                        future.completeExceptionally(e);
+                        return;
+                    }
+                    future.complete(countMembers(eventDoc, waiting));
+                    seed(eventId);
+                });
+            }).addOnFailureListener(future::completeExceptionally);
+        }).addOnFailureListener(future::completeExceptionally);
+
+        return future;
+    }
+
+    /**
+     * Seeds an event's counters from its entrant arrays and waitlist, overwriting every shard.
+     * Runs in a transaction on the event document, so a status change that lands
+     * while seeding forces a retry instead of being double counted. A sharded event's
+     * waiting list is counted just before the transaction, since transactions cannot
+     * run aggregations.
+     *
+     * @param eventId the event ID
+     * @return a CompletableFuture that completes once the counters are seeded
+     */
+    public CompletableFuture<Void> seed(String eventId) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        new WaitlistController(db).countEntries(eventId).whenComplete((waiting, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Error counting waitlist to seed counters for event " + eventId, e);
+                future.completeExceptionally(e);
+            } else {
+                seedTransaction(eventId, waiting, future);
+            }
+        });
+        return future;
+    }
+
+    private void seedTransaction(String eventId, int waiting, CompletableFuture<Void> future) {
+        DocumentReference eventRef = db.collection("Events").document(eventId);
+        DocumentReference metaRef = counters(eventId).document(META_DOC);
+
+        db.runTransaction((Transaction.Function<Void>) transaction -> {
+            DocumentSnapshot eventDoc = transaction.get(eventRef);
+            DocumentSnapshot meta = transaction.get(metaRef);
+            if (!eventDoc.exists() || meta.exists()) {
+                return null;
+            }
+
+            EventCounts counts = countMembers(eventDoc, waiting);
+            for (String status : EventCounts.STATUSES) {
+                for (int i = 0; i < NUM_SHARDS; i++) {
+                    Map<String, Object> data = new HashMap<>();
+                    data.put("status", status);
+                    data.put("count", (i == 0) ? counts.get(status) : 0L);
+                    transaction.set(shard(eventId, status, i), data);
+                }
+            }
+            transaction.set(metaRef, Collections.singletonMap("seededAt", FieldValue.serverTimestamp()));
+            return null;
+        }).addOnSuccessListener(aVoid -> future.complete(null))
+          .addOnFailureListener(e -> {
+              Log.e(TAG, "Error seeding counters for event " + eventId, e);
+              future.completeExceptionally(e);
+          });
+    }
+
+    /**
+     * Counts an event's entrants from its arrays. A sharded event's waiting list is not
+     * in an array, so its count is passed in instead.
+     *
+     * @param eventDoc the event document
+     * @param shardedWaiting the number of entries in the waitlist subcollection
+     */
+    private static EventCounts countMembers(DocumentSnapshot eventDoc, int shardedWaiting) {
+        EventCounts counts = new EventCounts();
+        for (String status : EventCounts.STATUSES) {
+            if (EventCounts.WAITING.equals(status) && WaitlistController.isSharded(eventDoc)) {
+                counts.add(status, shardedWaiting);
+                continue;
+            }
+            List<String> ids = (List<String>) eventDoc.get(arrayField(status));
+            counts.add(status, (ids != null) ? ids.size() : 0);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the event document array that holds entrants with a status.
+     *
+     * @param status one of the {@link EventCounts} statuses
+     * @return the array field name
+     */
+    public static String arrayField(String status) {
+        return EventCounts.WAITING.equals(status) ? WaitlistController.LEGACY_ARRAY_FIELD : status + "EntrantIds";
+    }
+
+    /**
+     * Builds the per-status counter changes for a set of status moves, using the
+     * event document's arrays, read in the transaction that applies the delta, to tell
+     * which moves actually change membership.
+     * A sharded event's waiting list is not in an array, so moves into or out of it
+     * need the entrants' waitlist entries passed to {@link #waiting(Collection)} first.
+     */
+    public static class Delta {
+        private final DocumentSnapshot eventDoc;
+        private final Map<String, Set<String>> members = new HashMap<>();
+        private final Map<String, Long> changes = new HashMap<>();
+
+        /**
+         * Constructs a Delta against the current state of an event.
+         *
+         * @param eventDoc the event document the status change is based on
+         */
+        public Delta(DocumentSnapshot eventDoc) {
+            this.eventDoc = eventDoc;
+        }
+
+        /**
+         * Sets which of the entrants this delta moves are on a sharded event's waiting list.
+         * Ignored for legacy events, whose array is used instead.
+         *
+         * @param userIds the entrants whose waitlist entries exist, read in the same transaction
+         * @return this Delta
+         */
+        public Delta waiting(Collection<String> userIds) {
+            if (WaitlistController.isSharded(eventDoc)) {
+                members.put(EventCounts.WAITING, new HashSet<>(userIds));
+            }
+            return this;
+        }
+
+        private Set<String> membersOf(String status) {
+            Set<String> ids = members.get(status);
+            if (ids == null) {
+                List<String> list = (List<String>) eventDoc.get(arrayField(status));
+                ids = (list != null) ? new HashSet<>(list) : new HashSet<>();
+                members.put(status, ids);
+            }
+            return ids;
+        }
+
+        /**
+         * Records entrants leaving the given statuses. Only counts entrants who were in them.
+         *
+         * @param userIds the entrants leaving
+         * @param statuses the statuses they are removed from
+         * @return this Delta
+         */
+        public Delta remove(Collection<String> userIds, String... statuses) {
+            for (String status : statuses) {
+                Set<String> current = membersOf(status);
+                for (String userId : userIds) {
+                    if (current.remove(userId)) {
+                        changes.merge(status, -1L, Long::sum);
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Records entrants joining a status. Only counts entrants who were not already in it.
+         *
+         * @param userIds the entrants joining
+         * @param status the status they move to
+         * @return this Delta
+         */
+        public Delta add(Collection<String> userIds, String status) {
+            Set<String> current = membersOf(status);
+            for (String userId : userIds) {
+                if (current.add(userId)) {
+                    changes.merge(status, 1L, Long::sum);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Single-entrant version of {@link #remove(Collection, String...)}.
+         */
+        public Delta remove(String userId, String... statuses) {
+            return remove(Collections.singletonList(userId), statuses);
+        }
+
+        /**
+         * Single-entrant version of {@link #add(Collection, String)}.
+         */
+        public Delta add(String userId, String status) {
+            return add(Collections.singletonList(userId), status);
+        }
+    }
+}
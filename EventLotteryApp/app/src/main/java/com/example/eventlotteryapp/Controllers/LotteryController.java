@@ -1,16 +1,28 @@
 package com.example.eventlotteryapp.Controllers;
 
 import android.util.Log;
+
+import com.example.eventlotteryapp.Helpers.Outbox;
+import com.example.eventlotteryapp.Notifications.EventSummary;
+import com.example.eventlotteryapp.Notifications.NotificationIds;
+import com.example.eventlotteryapp.Notifications.UnreadCounter;
+import com.example.eventlotteryapp.models.EventCounts;
+import com.example.eventlotteryapp.models.WaitlistEntry;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.Transaction;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for managing lottery operations
@@ -21,48 +33,107 @@ import java.util.Map;
  */
 public class LotteryController {
     private static final String TAG = "LotteryController";
+
+    /** Event field that opts an event into replacing declined entrants automatically. */
+    public static final String AUTO_REPLACE_FIELD = "autoReplaceOnDecline";
+
+    /** Most entrants a decline tries before giving up on finding a replacement still on the waiting list. */
+    private static final int MAX_REPLACEMENT_PICKS = 5;
+
+    /** Outbox entry type for an invitation acceptance waiting to be sent. */
+    public static final String OUTBOX_ACCEPT = "accept_invitation";
+
+    /** Outbox entry type for an invitation decline waiting to be sent. */
+    public static final String OUTBOX_DECLINE = "decline_invitation";
+
+    /** Reported when a response arrives after the user has stopped being selected. */
+    private static final String NOT_SELECTED_MESSAGE = "You are no longer selected for this event.";
+
+    private final LotteryEngine lotteryEngine = new LotteryEngine();
     private final FirebaseFirestore db;
 
+    /** Where responses that can't reach Firestore are kept until they can, or null to fail them. */
+    private final Outbox outbox;
+
     /**
      * Constructs a new LotteryController instance.
      * Initializes the Firestore database connection.
      */
     public LotteryController() {
+        this(null);
+    }
+
+    /**
+     * Constructs a new LotteryController instance that saves responses made while
+     * offline to an outbox instead of failing them.
+     *
+     * @param outbox the outbox to save unsent responses to, or null to fail them
+     */
+    public LotteryController(Outbox outbox) {
         this.db = FirebaseFirestore.getInstance();
+        this.outbox = outbox;
     }
 
     /**
      * US 01.05.02: Accept invitation to participate in event
      * Moves user from selectedEntrantIds to acceptedEntrantIds list
+     * The entrant's confirmation and the organizer's notice are written in the same
+     * transaction, so the response costs one round of reads and one commit.
+     * If Firestore can't be reached, the response is saved to the outbox and
+     * {@link AcceptCallback#onQueued()} is called instead of onFailure.
      */
     public void acceptInvitation(String eventId, String userId, AcceptCallback callback) {
+        runAccept(eventId, userId).addOnSuccessListener(accepted -> {
+            if (!accepted) {
+                if (callback != null) callback.onFailure(NOT_SELECTED_MESSAGE);
+                return;
+            }
+            Log.d(TAG, "Invitation accepted successfully");
+            if (callback != null) callback.onSuccess();
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Error accepting invitation", e);
+            if (queueIfOffline(e, OUTBOX_ACCEPT, eventId, userId)) {
+                if (callback != null) callback.onQueued();
+            } else if (callback != null) {
+                callback.onFailure(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Runs the accept transaction. Does nothing if the user is no longer selected, for example
+     * because a response saved to the outbox is replayed after they already answered.
+     *
+     * @return a task that completes with true if the invitation was accepted, or false if the
+     *         user was not selected
+     */
+    private Task<Boolean> runAccept(String eventId, String userId) {
         DocumentReference eventRef = db.collection("Events").document(eventId);
 
-        db.runTransaction((Transaction.Function<String>) transaction -> {
-            // Get current event data
+        return db.runTransaction((Transaction.Function<Boolean>) transaction -> {
+            // Read everything the notifications need up front, since a transaction has to do all of its reads first
             DocumentSnapshot eventDoc = transaction.get(eventRef);
+            if (!isSelected(eventDoc, userId)) {
+                Log.w(TAG, "Not accepting for " + userId + " - no longer selected for event " + eventId);
+                return false;
+            }
+            DocumentSnapshot entrantDoc = transaction.get(db.collection("users").document(userId));
+            String organizerId = organizerIdOf(eventDoc);
+            DocumentSnapshot organizerDoc = (organizerId != null)
+                    ? transaction.get(db.collection("users").document(organizerId))
+                    : null;
+
             List<String> selectedEntrants = (List<String>) eventDoc.get("selectedEntrantIds");
             List<String> acceptedEntrants = (List<String>) eventDoc.get("acceptedEntrantIds");
-            
-            // Try to get organizer ID from DocumentReference or string field
-            String organizerId = null;
-            DocumentReference organizerRef = eventDoc.getDocumentReference("Organizer");
-            if (organizerRef != null) {
-                // Extract organizer ID from DocumentReference path
-                String path = organizerRef.getPath();
-                if (path != null && path.contains("/users/")) {
-                    organizerId = path.substring(path.lastIndexOf("/") + 1);
-                }
-            }
-            
-            // Fallback: try to get organizerId as a string field
-            if (organizerId == null || organizerId.isEmpty()) {
-                organizerId = eventDoc.getString("organizerId");
-            }
 
             if (selectedEntrants == null) selectedEntrants = new ArrayList<>();
             if (acceptedEntrants == null) acceptedEntrants = new ArrayList<>();
 
+            // Work out the counter changes before the lists are modified
+            EventCounterController.Delta counterDelta = new EventCounterController.Delta(eventDoc)
+                    .remove(userId, EventCounts.SELECTED)
+                    .add(userId, EventCounts.ACCEPTED);
+
             // Remove from selected, add to accepted
             selectedEntrants.remove(userId);
             if (!acceptedEntrants.contains(userId)) {
@@ -71,137 +142,129 @@ public class LotteryController {
 
             transaction.update(eventRef, "selectedEntrantIds", selectedEntrants);
             transaction.update(eventRef, "acceptedEntrantIds", acceptedEntrants);
+            new EventCounterController(db).apply(transaction, eventId, counterDelta);
 
+            long round = lotteryRound(eventDoc);
             // Create notification (entrant notification)
-            createNotification(userId, eventId, "invitation_accepted",
-                    "You've successfully accepted the invitation!", "entrant");
+            queueNotification(transaction, entrantDoc, userId,
+                    NotificationIds.of(eventId, userId, "invitation_accepted", round),
+                    eventDoc, "invitation_accepted", "You've successfully accepted the invitation!", "entrant");
+            if (organizerDoc != null) {
+                // Notify the organizer (organizer notification)
+                queueNotification(transaction, organizerDoc, organizerId,
+                        NotificationIds.of(eventId, organizerId, "entrant_accepted", userId, round),
+                        eventDoc, "entrant_accepted",
+                        entrantName(entrantDoc) + " has accepted their invitation for " + eventName(eventDoc) + ".",
+                        "organizer");
+            } else {
+                Log.w(TAG, "Cannot notify organizer: organizerId is null or empty for event " + eventId);
+            }
+            return true;
+        });
+    }
 
-            return organizerId;
-        }).addOnSuccessListener(organizerIdFromTransaction -> {
-            Log.d(TAG, "Invitation accepted successfully");
-            Log.d(TAG, "Organizer ID from transaction: " + organizerIdFromTransaction);
-            
-            // If organizerId is null from transaction, try to get it from the event document
-            String organizerId = organizerIdFromTransaction;
-            if (organizerId == null || organizerId.isEmpty()) {
-                Log.d(TAG, "organizerId is null from transaction, fetching from event document...");
-                eventRef.get().addOnSuccessListener(eventDoc -> {
-                    String fetchedOrganizerId = null;
-                    DocumentReference organizerRef = eventDoc.getDocumentReference("Organizer");
-                    if (organizerRef != null) {
-                        String path = organizerRef.getPath();
-                        if (path != null && path.contains("/users/")) {
-                            fetchedOrganizerId = path.substring(path.lastIndexOf("/") + 1);
-                        } else if (path != null) {
-                            String[] parts = path.split("/");
-                            for (int i = 0; i < parts.length - 1; i++) {
-                                if (parts[i].equals("users") && i + 1 < parts.length) {
-                                    fetchedOrganizerId = parts[i + 1];
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                    if (fetchedOrganizerId == null || fetchedOrganizerId.isEmpty()) {
-                        fetchedOrganizerId = eventDoc.getString("organizerId");
-                    }
-                    Log.d(TAG, "Fetched organizerId from event document: " + fetchedOrganizerId);
-                    notifyOrganizer(fetchedOrganizerId, eventId, userId);
-                }).addOnFailureListener(e -> {
-                    Log.e(TAG, "Error fetching event document for organizerId", e);
-                });
+    /**
+     * US 01.05.03: Decline invitation to participate in event
+     * Moves user from selectedEntrantIds to declinedEntrantIds
+     * If the event has auto-replace on, the same transaction draws a replacement from the
+     * waiting list, moves them to selectedEntrantIds and queues their notification.
+     * Otherwise notifies the organizer that someone declined and suggests they redraw
+     * All notifications are written in the same transaction as the decline.
+     * If Firestore can't be reached, the response is saved to the outbox and
+     * {@link DeclineCallback#onQueued()} is called instead of onFailure.
+     */
+    public void declineInvitation(String eventId, String userId, DeclineCallback callback) {
+        runDecline(eventId, userId).addOnSuccessListener(declined -> {
+            if (!declined) {
+                if (callback != null) callback.onFailure(NOT_SELECTED_MESSAGE);
                 return;
             }
-            
-            // Notify the organizer
-            notifyOrganizer(organizerId, eventId, userId);
-            
+            Log.d(TAG, "Invitation declined successfully");
             if (callback != null) callback.onSuccess();
         }).addOnFailureListener(e -> {
-            Log.e(TAG, "Error accepting invitation", e);
-            if (callback != null) callback.onFailure(e.getMessage());
+            Log.e(TAG, "Error declining invitation", e);
+            if (queueIfOffline(e, OUTBOX_DECLINE, eventId, userId)) {
+                if (callback != null) callback.onQueued();
+            } else if (callback != null) {
+                callback.onFailure(e.getMessage());
+            }
         });
     }
-    
-    private void notifyOrganizer(String organizerId, String eventId, String userId) {
-        if (organizerId != null && !organizerId.isEmpty()) {
-            Log.d(TAG, "Attempting to notify organizer: " + organizerId);
-            DocumentReference eventRef = db.collection("Events").document(eventId);
-            // Get event name and user name for the notification
-            eventRef.get().addOnSuccessListener(eventDoc -> {
-                    String eventNameRaw = eventDoc.getString("Name");
-                    if (eventNameRaw == null || eventNameRaw.isEmpty()) {
-                        eventNameRaw = eventDoc.getString("title");
-                    }
-                    final String eventName = (eventNameRaw != null && !eventNameRaw.isEmpty()) ? eventNameRaw : "your event";
-                    
-                    // Get user name
-                    db.collection("users").document(userId).get().addOnSuccessListener(userDoc -> {
-                        String userNameRaw = userDoc.getString("Name");
-                        if (userNameRaw == null || userNameRaw.isEmpty()) {
-                            userNameRaw = userDoc.getString("name");
-                        }
-                        final String userName = (userNameRaw != null && !userNameRaw.isEmpty()) ? userNameRaw : "An entrant";
-                        
-                        // Create notification message for organizer
-                        String notificationMessage = userName + " has accepted their invitation for " + eventName + ".";
-                        
-                        // Notify organizer directly using the organizer ID (organizer notification)
-                        createNotification(organizerId, eventId, "entrant_accepted", notificationMessage, "organizer");
-                        Log.d(TAG, "Organizer notified about acceptance: " + organizerId);
-                    }).addOnFailureListener(e -> {
-                        Log.e(TAG, "Error getting user document", e);
-                        // Still notify organizer even if we can't get user name
-                        final String fallbackMessage = "An entrant has accepted their invitation for " + eventName + ".";
-                        createNotification(organizerId, eventId, "entrant_accepted", fallbackMessage, "organizer");
-                        Log.d(TAG, "Organizer notified about acceptance (fallback): " + organizerId);
-                    });
-                }).addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting event document for notification", e);
-                    // Still try to notify organizer with minimal info
-                    final String fallbackMessage = "An entrant has accepted their invitation.";
-                    createNotification(organizerId, eventId, "entrant_accepted", fallbackMessage, "organizer");
-                    Log.d(TAG, "Organizer notified about acceptance (minimal info): " + organizerId);
-                });
-        } else {
-            Log.w(TAG, "Cannot notify organizer: organizerId is null or empty for event " + eventId);
-        }
-    }
 
     /**
-     * US 01.05.03: Decline invitation to participate in event
-     * Moves user from selectedEntrantIds to declinedEntrantIds
-     * Notifies the organizer that someone declined and suggests they redraw
+     * Runs the decline transaction. If the event is sharded and replaces declined entrants,
+     * up to {@link #MAX_REPLACEMENT_PICKS} random waitlist entries are read first, since a
+     * transaction cannot query the waitlist subcollection; the replacement is drawn from those,
+     * and the transaction checks their entry is still there.
+     * Does nothing if the user is no longer selected, for example because a response saved
+     * to the outbox is replayed after they already answered.
+     *
+     * @return a task that completes with true if the invitation was declined, or false if the
+     *         user was not selected
      */
-    public void declineInvitation(String eventId, String userId, DeclineCallback callback) {
+    private Task<Boolean> runDecline(String eventId, String userId) {
         DocumentReference eventRef = db.collection("Events").document(eventId);
+        TaskCompletionSource<List<WaitlistEntry>> waitlist = new TaskCompletionSource<>();
+        eventRef.get().addOnSuccessListener(eventDoc -> {
+            if (!eventDoc.exists() || !WaitlistController.isSharded(eventDoc) || !isAutoReplace(eventDoc)) {
+                waitlist.setResult(new ArrayList<>());
+                return;
+            }
+            new WaitlistController(db).loadRandomEntries(eventId, MAX_REPLACEMENT_PICKS).whenComplete((entries, e) -> {
+                if (e != null) {
+                    waitlist.setException((e instanceof Exception) ? (Exception) e : new Exception(e));
+                } else {
+                    waitlist.setResult(entries);
+                }
+            });
+        }).addOnFailureListener(waitlist::setException);
+        return waitlist.getTask().onSuccessTask(entries -> runDecline(eventRef, eventId, userId, entries));
+    }
+
+    private Task<Boolean> runDecline(DocumentReference eventRef, String eventId, String userId, List<WaitlistEntry> candidates) {
+        WaitlistController waitlistController = new WaitlistController(db);
 
-        db.runTransaction((Transaction.Function<String>) transaction -> {
-            // Get current event data
+        return db.runTransaction((Transaction.Function<Boolean>) transaction -> {
+            // Read everything the notifications need up front, since a transaction has to do all of its reads first
             DocumentSnapshot eventDoc = transaction.get(eventRef);
+            if (!isSelected(eventDoc, userId)) {
+                Log.w(TAG, "Not declining for " + userId + " - no longer selected for event " + eventId);
+                return false;
+            }
+            DocumentSnapshot entrantDoc = transaction.get(db.collection("users").document(userId));
+            String organizerId = organizerIdOf(eventDoc);
+            DocumentSnapshot organizerDoc = (organizerId != null)
+                    ? transaction.get(db.collection("users").document(organizerId))
+                    : null;
+            boolean sharded = WaitlistController.isSharded(eventDoc);
+            DocumentSnapshot entrantEntry = sharded ? transaction.get(waitlistController.entry(eventId, userId)) : null;
+            long round = lotteryRound(eventDoc);
+
             List<String> selectedEntrants = (List<String>) eventDoc.get("selectedEntrantIds");
             List<String> declinedEntrants = (List<String>) eventDoc.get("declinedEntrantIds");
-            List<String> waitingListEntrants = (List<String>) eventDoc.get("waitingListEntrantIds");
-            
-            // Try to get organizer ID from DocumentReference or string field
-            String organizerId = null;
-            DocumentReference organizerRef = eventDoc.getDocumentReference("Organizer");
-            if (organizerRef != null) {
-                // Extract organizer ID from DocumentReference path
-                String path = organizerRef.getPath();
-                if (path != null && path.contains("/users/")) {
-                    organizerId = path.substring(path.lastIndexOf("/") + 1);
+            List<String> waitingListEntrants = new ArrayList<>();
+            Map<String, Object> joinRounds = new HashMap<>();
+            if (sharded) {
+                // Only the candidates read before the transaction are drawn from, with their join rounds
+                for (WaitlistEntry entry : candidates) {
+                    waitingListEntrants.add(entry.getUserId());
+                    joinRounds.put(entry.getUserId(), entry.getJoinRound());
                 }
-            }
-            
-            // Fallback: try to get organizerId as a string field
-            if (organizerId == null || organizerId.isEmpty()) {
-                organizerId = eventDoc.getString("organizerId");
+            } else {
+                List<String> legacyWaitingList = (List<String>) eventDoc.get(WaitlistController.LEGACY_ARRAY_FIELD);
+                if (legacyWaitingList != null) waitingListEntrants.addAll(legacyWaitingList);
+                Map<String, Object> legacyJoinRounds = (Map<String, Object>) eventDoc.get("entrantJoinRounds");
+                if (legacyJoinRounds != null) joinRounds.putAll(legacyJoinRounds);
             }
 
             if (selectedEntrants == null) selectedEntrants = new ArrayList<>();
             if (declinedEntrants == null) declinedEntrants = new ArrayList<>();
-            if (waitingListEntrants == null) waitingListEntrants = new ArrayList<>();
+
+            // Who is waitlisted among the entrants this decline moves, for the counters
+            List<String> waiting = new ArrayList<>();
+            if (WaitlistController.isWaiting(eventDoc, entrantEntry, userId)) {
+                waiting.add(userId);
+            }
 
             // Remove from selected and waiting list, add to declined
             selectedEntrants.remove(userId);
@@ -210,155 +273,316 @@ public class LotteryController {
                 declinedEntrants.add(userId);
             }
 
+            // Pick the replacement and read their preferences before any writes
+            String replacementId = null;
+            DocumentSnapshot replacementUser = null;
+            if (isAutoReplace(eventDoc)) {
+                replacementId = pickReplacement(transaction, eventDoc, waitingListEntrants, joinRounds, selectedEntrants.size());
+                if (replacementId != null) {
+                    waiting.add(replacementId);
+                    replacementUser = transaction.get(db.collection("users").document(replacementId));
+                }
+            }
+
+            EventCounterController.Delta counterDelta = new EventCounterController.Delta(eventDoc)
+                    .waiting(waiting)
+                    .remove(userId, EventCounts.SELECTED, EventCounts.WAITING)
+                    .add(userId, EventCounts.DECLINED);
+
+            if (replacementId != null) {
+                waitingListEntrants.remove(replacementId);
+                declinedEntrants.remove(replacementId);
+                selectedEntrants.add(replacementId);
+                counterDelta.remove(replacementId, EventCounts.WAITING, EventCounts.DECLINED)
+                        .add(replacementId, EventCounts.SELECTED);
+                // Drawn entrants have been favoured, so their replacement bonus is used up
+                transaction.update(eventRef, FieldPath.of("entrantWeights", replacementId), FieldValue.delete());
+                waitlistController.removeEntry(transaction, eventId, replacementId);
+                queueSelectionNotification(transaction, replacementUser, eventDoc, organizerId, round);
+            }
+
             transaction.update(eventRef, "selectedEntrantIds", selectedEntrants);
-            transaction.update(eventRef, "waitingListEntrantIds", waitingListEntrants);
+            if (!sharded) {
+                transaction.update(eventRef, WaitlistController.LEGACY_ARRAY_FIELD, waitingListEntrants);
+            }
             transaction.update(eventRef, "declinedEntrantIds", declinedEntrants);
+            waitlistController.removeEntry(transaction, eventId, userId);
+            new EventCounterController(db).apply(transaction, eventId, counterDelta);
 
-            return organizerId;
-        }).addOnSuccessListener(organizerIdFromTransaction -> {
-            Log.d(TAG, "Invitation declined successfully");
-            Log.d(TAG, "Organizer ID from transaction: " + organizerIdFromTransaction);
-            
             // Create notification for the person who declined (entrant notification)
-            createNotification(userId, eventId, "invitation_declined",
+            queueNotification(transaction, entrantDoc, userId,
+                    NotificationIds.of(eventId, userId, "invitation_declined", round),
+                    eventDoc, "invitation_declined",
                     "You've declined the invitation. Thank you for letting us know.", "entrant");
-            
-            // If organizerId is null from transaction, try to get it from the event document
-            String organizerId = organizerIdFromTransaction;
-            if (organizerId == null || organizerId.isEmpty()) {
-                Log.d(TAG, "organizerId is null from transaction, fetching from event document...");
-                eventRef.get().addOnSuccessListener(eventDoc -> {
-                    String fetchedOrganizerId = null;
-                    DocumentReference organizerRef = eventDoc.getDocumentReference("Organizer");
-                    if (organizerRef != null) {
-                        String path = organizerRef.getPath();
-                        if (path != null && path.contains("/users/")) {
-                            fetchedOrganizerId = path.substring(path.lastIndexOf("/") + 1);
-                        } else if (path != null) {
-                            String[] parts = path.split("/");
-                            for (int i = 0; i < parts.length - 1; i++) {
-                                if (parts[i].equals("users") && i + 1 < parts.length) {
-                                    fetchedOrganizerId = parts[i + 1];
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                    if (fetchedOrganizerId == null || fetchedOrganizerId.isEmpty()) {
-                        fetchedOrganizerId = eventDoc.getString("organizerId");
-                    }
-                    Log.d(TAG, "Fetched organizerId from event document: " + fetchedOrganizerId);
-                    notifyOrganizerDeclined(fetchedOrganizerId, eventId, userId);
-                }).addOnFailureListener(e -> {
-                    Log.e(TAG, "Error fetching event document for organizerId", e);
-                });
-                if (callback != null) callback.onSuccess();
-                return;
+            if (organizerDoc != null) {
+                // Notify the organizer (organizer notification)
+                String replacementName = (replacementUser != null) ? replacementUser.getString("name") : null;
+                queueNotification(transaction, organizerDoc, organizerId,
+                        NotificationIds.of(eventId, organizerId, "entrant_declined", userId, round),
+                        eventDoc, "entrant_declined",
+                        entrantName(entrantDoc) + " has declined their invitation for " + eventName(eventDoc) + ". "
+                                + declinedNextStep(replacementId, replacementName),
+                        "organizer");
+            } else {
+                Log.w(TAG, "Cannot notify organizer: organizerId is null or empty for event " + eventId);
             }
-            
-            // Notify the organizer
-            notifyOrganizerDeclined(organizerId, eventId, userId);
-            
-            if (callback != null) callback.onSuccess();
-        }).addOnFailureListener(e -> {
-            Log.e(TAG, "Error declining invitation", e);
-            if (callback != null) callback.onFailure(e.getMessage());
+            if (replacementId != null) {
+                Log.d(TAG, "Replacement drawn automatically: " + replacementId);
+            }
+            return true;
         });
     }
-    
-    private void notifyOrganizerDeclined(String organizerId, String eventId, String userId) {
+
+    /**
+     * Sends a response that was saved to the outbox while offline.
+     *
+     * @param entry the outbox entry
+     * A response for a user who is no longer selected does nothing and is also done with.
+     *
+     * @return a CompletableFuture that completes with true once the entry is done with,
+     *         or false if Firestore still can't be reached and it should stay queued
+     */
+    public CompletableFuture<Boolean> replay(Outbox.Entry entry) {
+        List<String> args = entry.getArgs();
+        Task<?> response = null;
+        if (args.size() == 2 && OUTBOX_ACCEPT.equals(entry.getType())) {
+            response = runAccept(args.get(0), args.get(1));
+        } else if (args.size() == 2 && OUTBOX_DECLINE.equals(entry.getType())) {
+            response = runDecline(args.get(0), args.get(1));
+        }
+        if (response == null) {
+            Log.w(TAG, "Dropping outbox entry of unknown type " + entry.getType());
+            return CompletableFuture.completedFuture(true);
+        }
+
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        response.addOnSuccessListener(result -> done.complete(true))
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error sending saved response " + entry.getKey(), e);
+                done.complete(!isOffline(e));
+            });
+        return done;
+    }
+
+    /**
+     * Saves a response to the outbox if it failed only because Firestore couldn't be reached.
+     * A later response to the same invitation replaces it.
+     *
+     * @return true if the response was saved
+     */
+    private boolean queueIfOffline(Exception e, String type, String eventId, String userId) {
+        if (outbox == null || !isOffline(e)) {
+            return false;
+        }
+        outbox.enqueue("invitation:" + eventId + ":" + userId, type, eventId, userId);
+        return true;
+    }
+
+    /** Whether a failure was down to the connection rather than the request itself. */
+    private static boolean isOffline(Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FirebaseFirestoreException) {
+                FirebaseFirestoreException.Code code = ((FirebaseFirestoreException) cause).getCode();
+                return code == FirebaseFirestoreException.Code.UNAVAILABLE
+                    || code == FirebaseFirestoreException.Code.DEADLINE_EXCEEDED;
+            }
+        }
+        return false;
+    }
+
+    private static String declinedNextStep(String replacementId, String replacementName) {
+        if (replacementId == null) {
+            return "You may want to run another lottery draw to fill the spot, but it's your choice.";
+        }
+        String name = (replacementName == null || replacementName.isEmpty())
+                ? "An entrant from the waiting list"
+                : replacementName;
+        return name + " was drawn automatically to fill the spot.";
+    }
+
+    /**
+     * Gets the organizer's user ID from the event's "Organizer" reference,
+     * falling back to the "organizerId" string field.
+     *
+     * @return the organizer ID, or null if the event has none
+     */
+    private static String organizerIdOf(DocumentSnapshot eventDoc) {
+        String organizerId = null;
+        DocumentReference organizerRef = eventDoc.getDocumentReference("Organizer");
+        if (organizerRef != null) {
+            organizerId = organizerRef.getId();
+        }
+        if (organizerId == null || organizerId.isEmpty()) {
+            organizerId = eventDoc.getString("organizerId");
+        }
+        return (organizerId == null || organizerId.isEmpty()) ? null : organizerId;
+    }
+
+    private static String eventName(DocumentSnapshot eventDoc) {
+        String eventName = EventSummary.titleOf(eventDoc);
+        return (eventName == null) ? "your event" : eventName;
+    }
+
+    private static String entrantName(DocumentSnapshot userDoc) {
+        String userName = userDoc.getString("Name");
+        if (userName == null || userName.isEmpty()) {
+            userName = userDoc.getString("name");
+        }
+        return (userName == null || userName.isEmpty()) ? "An entrant" : userName;
+    }
+
+    private static boolean isAutoReplace(DocumentSnapshot eventDoc) {
+        Boolean autoReplace = eventDoc.getBoolean(AUTO_REPLACE_FIELD);
+        return autoReplace != null && autoReplace;
+    }
+
+    /**
+     * Picks one replacement from the waiting list, the same way a draw would:
+     * weighted if the event's last draw was weighted, uniform otherwise.
+     * For a sharded event the waiting list is a few random entrants read before the
+     * transaction, so each pick's waitlist entry is read to make sure they have not left
+     * since; anyone who has is dropped and another entrant drawn, up to
+     * {@link #MAX_REPLACEMENT_PICKS} times.
+     *
+     * @param transaction the decline transaction, still in its reads
+     * @param eventDoc the event document
+     * @param waitingList the waiting list with the declining entrant already removed
+     * @param joinRounds the round each waiting entrant joined in, for a weighted pick
+     * @param selectedCount the number of selected entrants after the decline
+     * @return the replacement's user ID, or null if there is no one to draw or no open slot
+     */
+    private String pickReplacement(Transaction transaction, DocumentSnapshot eventDoc, List<String> waitingList,
+                                   Map<String, Object> joinRounds, int selectedCount) throws FirebaseFirestoreException {
+        Long maxParticipantsLong = eventDoc.getLong("maxParticipants");
+        int maxParticipants = (maxParticipantsLong != null) ? maxParticipantsLong.intValue() : 0;
+        if (selectedCount >= maxParticipants) {
+            return null;
+        }
+
+        boolean sharded = WaitlistController.isSharded(eventDoc);
+        List<String> candidates = new ArrayList<>(waitingList);
+        for (int pick = 0; pick < MAX_REPLACEMENT_PICKS && !candidates.isEmpty(); pick++) {
+            List<String> drawn;
+            Boolean weighted = eventDoc.getBoolean("weightedLottery");
+            if (weighted != null && weighted) {
+                Long roundLong = eventDoc.getLong("lotteryRound");
+                long round = (roundLong != null) ? roundLong : 0L;
+                Map<String, Object> bonuses = (Map<String, Object>) eventDoc.get("entrantWeights");
+                drawn = lotteryEngine.drawWeighted(candidates,
+                        id -> LotteryDrawController.entrantWeight(id, round, joinRounds, bonuses), 1);
+            } else {
+                drawn = lotteryEngine.draw(candidates, 1);
+            }
+            if (drawn.isEmpty()) {
+                return null;
+            }
+            String candidate = drawn.get(0);
+            if (!sharded || transaction.get(new WaitlistController(db).entry(eventDoc.getId(), candidate)).exists()) {
+                return candidate;
+            }
+            candidates.remove(candidate);
+        }
+        return null;
+    }
+
+    /**
+     * Queues the "you've been selected" notification for a replacement as part of the
+     * decline transaction, so it is written if and only if the replacement is.
+     * Skipped if the replacement has notifications turned off.
+     */
+    private void queueSelectionNotification(Transaction transaction, DocumentSnapshot userDoc,
+                                            DocumentSnapshot eventDoc, String organizerId, long round) {
+        Boolean notificationsEnabled = userDoc.getBoolean("notificationPreference");
+        if (notificationsEnabled != null && !notificationsEnabled) {
+            return;
+        }
+        String eventTitle = eventDoc.getString("title");
+        if (eventTitle == null) eventTitle = eventDoc.getString("Name");
+
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("Message", "Congratulations! You've been selected for " + eventTitle);
+        notification.put("Title", "Lottery Selection");
+        notification.put("EventId", eventDoc.getReference());
+        EventSummary.addTo(notification, eventDoc);
+        notification.put("Type", "MESSAGE");
+        notification.put("TimeStamp", new java.util.Date());
+        notification.put("UserId", userDoc.getId());
+        notification.put("UserType", "entrant");
+        notification.put(UnreadCounter.READ_FIELD, false);
         if (organizerId != null && !organizerId.isEmpty()) {
-            Log.d(TAG, "Attempting to notify organizer: " + organizerId);
-            DocumentReference eventRef = db.collection("Events").document(eventId);
-            // Get event name and user name for the notification
-            eventRef.get().addOnSuccessListener(eventDoc -> {
-                    String eventNameRaw = eventDoc.getString("Name");
-                    if (eventNameRaw == null || eventNameRaw.isEmpty()) {
-                        eventNameRaw = eventDoc.getString("title");
-                    }
-                    final String eventName = (eventNameRaw == null || eventNameRaw.isEmpty()) 
-                            ? "your event" 
-                            : eventNameRaw;
-                    
-                    // Get the user's name who declined
-                    db.collection("users").document(userId).get().addOnSuccessListener(userDoc -> {
-                        String userNameRaw = userDoc.getString("name");
-                        final String userName = (userNameRaw == null || userNameRaw.isEmpty()) 
-                                ? "An entrant" 
-                                : userNameRaw;
-                        
-                        final String notificationMessage = userName + " has declined their invitation for " + eventName + ". " +
-                                "You may want to run another lottery draw to fill the spot, but it's your choice.";
-                        
-                        // Notify organizer directly using the organizer ID (organizer notification)
-                        createNotification(organizerId, eventId, "entrant_declined", notificationMessage, "organizer");
-                        Log.d(TAG, "Organizer notified about decline: " + organizerId);
-                    }).addOnFailureListener(e -> {
-                        Log.e(TAG, "Error getting user document", e);
-                        // Still notify organizer even if we can't get user name
-                        final String fallbackMessage = "An entrant has declined their invitation for " + eventName + ". " +
-                                "You may want to run another lottery draw to fill the spot, but it's your choice.";
-                        createNotification(organizerId, eventId, "entrant_declined", fallbackMessage, "organizer");
-                        Log.d(TAG, "Organizer notified about decline (fallback): " + organizerId);
-                    });
-                }).addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting event document for notification", e);
-                    // Still try to notify organizer with minimal info
-                    final String fallbackMessage = "An entrant has declined their invitation. " +
-                            "You may want to run another lottery draw to fill the spot, but it's your choice.";
-                    createNotification(organizerId, eventId, "entrant_declined", fallbackMessage, "organizer");
-                    Log.d(TAG, "Organizer notified about decline (minimal info): " + organizerId);
-                });
-        } else {
-            Log.w(TAG, "Cannot notify organizer: organizerId is null or empty for event " + eventId);
+            notification.put("OrganizerId", organizerId);
         }
+        String notificationId = NotificationIds.of(eventDoc.getId(), userDoc.getId(), "replacement_selected", round);
+        transaction.set(notificationRef(notificationId), notification);
+        UnreadCounter.add(transaction, db, userDoc.getId(), 1);
+    }
+
+    /** Whether the user is among the event's selected entrants, so can still respond. */
+    private static boolean isSelected(DocumentSnapshot eventDoc, String userId) {
+        List<String> selected = (List<String>) eventDoc.get("selectedEntrantIds");
+        return selected != null && selected.contains(userId);
+    }
+
+    /** The event's lottery round, used to tell apart responses to different draws. */
+    private static long lotteryRound(DocumentSnapshot eventDoc) {
+        Long round = eventDoc.getLong("lotteryRound");
+        return (round != null) ? round : 0L;
+    }
+
+    /** The notification document with the given deterministic ID, from {@link NotificationIds}. */
+    private DocumentReference notificationRef(String notificationId) {
+        return db.collection("Notifications").document(notificationId);
     }
 
     /**
-     * Helper: Create notification for user (only if notifications are enabled)
+     * Helper: Queue a notification for a user as part of a transaction (only if notifications are enabled)
+     * The notification is written with set() under {@code notificationId}, so sending
+     * the same notification again overwrites it instead of adding a duplicate. A response
+     * replayed after it was already applied never gets here, since the user is no longer selected.
+     * @param userDoc The recipient's user document, read earlier in the transaction
+     * @param notificationId The notification's deterministic ID, from {@link NotificationIds}
      * @param userType The type of notification: "entrant" or "organizer". 
      *                 This should be based on the context of the notification, not the recipient's role field.
      */
-    private void createNotification(String userId, String eventId, String type, String message, String userType) {
-        // Check if user has notifications enabled
-        db.collection("users").document(userId).get().addOnSuccessListener(userDoc -> {
-            Boolean notificationsEnabled = userDoc.getBoolean("notificationPreference");
-            // If notificationPreference is null or true, send notification
-            if (notificationsEnabled == null || notificationsEnabled) {
-                Map<String, Object> notification = new HashMap<>();
-                notification.put("UserId", userId);  // Store as string, not DocumentReference
-                notification.put("EventId", db.collection("Events").document(eventId));
-                notification.put("Type", type);
-                notification.put("Message", message);
-                notification.put("TimeStamp", new java.util.Date().toString());
-                notification.put("Read", false);
-                notification.put("UserType", userType); // Use the explicitly provided UserType
-
-                db.collection("Notifications").add(notification)
-                        .addOnSuccessListener(ref -> {
-                            Log.d(TAG, "Notification created successfully: " + ref.getId());
-                            Log.d(TAG, "Notification details - UserId: " + userId + ", EventId: " + eventId + ", Type: " + type + ", UserType: " + userType);
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Error creating notification", e);
-                            Log.e(TAG, "Notification details - UserId: " + userId + ", EventId: " + eventId + ", Type: " + type + ", UserType: " + userType);
-                        });
-            } else {
-                Log.d(TAG, "Notification not sent - user has notifications disabled");
-            }
-        }).addOnFailureListener(e -> {
-            Log.e(TAG, "Error checking notification preference", e);
-        });
+    private void queueNotification(Transaction transaction, DocumentSnapshot userDoc, String userId, String notificationId,
+                                   DocumentSnapshot eventDoc, String type, String message, String userType) {
+        Boolean notificationsEnabled = userDoc.getBoolean("notificationPreference");
+        // If notificationPreference is null or true, send notification
+        if (notificationsEnabled != null && !notificationsEnabled) {
+            Log.d(TAG, "Notification not sent - user has notifications disabled");
+            return;
+        }
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("UserId", userId);  // Store as string, not DocumentReference
+        notification.put("EventId", eventDoc.getReference());
+        EventSummary.addTo(notification, eventDoc);
+        notification.put("Type", type);
+        notification.put("Message", message);
+        notification.put("TimeStamp", new java.util.Date());
+        notification.put(UnreadCounter.READ_FIELD, false);
+        notification.put("UserType", userType); // Use the explicitly provided UserType
+        transaction.set(notificationRef(notificationId), notification);
+        UnreadCounter.add(transaction, db, userId, 1);
     }
 
     // Callback interfaces
     public interface AcceptCallback {
         void onSuccess();
         void onFailure(String error);
+
+        /** Called when the response was saved to be sent once back online. */
+        default void onQueued() {
+            onSuccess();
+        }
     }
 
     public interface DeclineCallback {
         void onSuccess();
         void onFailure(String error);
+
+        /** Called when the response was saved to be sent once back online. */
+        default void onQueued() {
+            onSuccess();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,373 @@
+package com.example.eventlotteryapp.Controllers;
+
+import com.example.eventlotteryapp.NotificationController;
+import com.example.eventlotteryapp.models.EventCounts;
+import com.example.eventlotteryapp.models.WaitlistEntry;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controller that runs an event's lottery draw and commits it in one Firestore transaction.
+ * Shared by the organizer's manual draw in RunLotteryActivity and by {@link AutoDrawScheduler},
+ * so both go through the same slot checks, weighting and list updates.
+ *
+ * Every draw records itself on the event by clearing {@code autoDrawPending} and setting
+ * {@code lotteryDrawnAt}, so the scheduler never draws an event twice.
+ *
+ * @author Droids Team
+ */
+public class LotteryDrawController {
+
+    /** Event field that is true while an event is still waiting for its automatic draw. */
+    public static final String AUTO_DRAW_PENDING_FIELD = "autoDrawPending";
+
+    /** Event field holding the time the event's last draw was committed. */
+    public static final String DRAWN_AT_FIELD = "lotteryDrawnAt";
+
+    /** Most times a draw redraws slots left by entrants who turned out to have left, before committing short. */
+    private static final int MAX_DRAW_ATTEMPTS = 5;
+
+    private final FirebaseFirestore db;
+    private final LotteryEngine lotteryEngine;
+    private final WaitlistController waitlistController;
+    private final EventCounterController eventCounterController;
+
+    /**
+     * Constructs a new LotteryDrawController using the default Firestore instance.
+     */
+    public LotteryDrawController() {
+        this(FirebaseFirestore.getInstance(), new LotteryEngine());
+    }
+
+    /**
+     * Constructs a new LotteryDrawController using the given Firestore instance and engine.
+     *
+     * @param db the Firestore instance to use
+     * @param lotteryEngine the engine used to pick entrants
+     */
+    public LotteryDrawController(FirebaseFirestore db, LotteryEngine lotteryEngine) {
+        this.db = db;
+        this.lotteryEngine = lotteryEngine;
+        this.waitlistController = new WaitlistController(db);
+        this.eventCounterController = new EventCounterController(db);
+    }
+
+    /**
+     * Runs a draw requested by the organizer.
+     *
+     * @param eventId the event ID
+     * @param participantsToDraw the number of participants the organizer asked for
+     * @param weighted whether to favour entrants who have lost earlier draws
+     * @param replacementForEntrantId the selected entrant being replaced, or null for a normal draw
+     * @return a CompletableFuture that completes with the outcome of the draw
+     */
+    public CompletableFuture<DrawResult> draw(String eventId, int participantsToDraw, boolean weighted,
+                                              String replacementForEntrantId) {
+        return loadAndDraw(eventId, participantsToDraw, weighted, replacementForEntrantId, false);
+    }
+
+    /**
+     * Runs an event's automatic draw at registration close, filling every open slot
+     * using the event's last draw mode. Does nothing if the event no longer has
+     * {@code autoDrawPending} set, so repeated or concurrent calls draw at most once.
+     * An event that cannot be drawn (no entrants or no open slots) is still marked done.
+     *
+     * @param eventId the event ID
+     * @return a CompletableFuture that completes with the outcome of the draw
+     */
+    public CompletableFuture<DrawResult> autoDraw(String eventId) {
+        return loadAndDraw(eventId, Integer.MAX_VALUE, null, null, true);
+    }
+
+    private CompletableFuture<DrawResult> loadAndDraw(String eventId, int participantsToDraw, Boolean weighted,
+                                                      String replacementForEntrantId, boolean auto) {
+        // Transactions cannot run queries, so page through the waitlist subcollection first
+        CompletableFuture<DrawResult> future = new CompletableFuture<>();
+        db.collection("Events").document(eventId).get()
+            .addOnSuccessListener(document -> {
+                if (!document.exists()) {
+                    future.complete(DrawResult.error("Event not found"));
+                    return;
+                }
+                if (auto && !isAutoDrawPending(document)) {
+                    future.complete(DrawResult.skipped());
+                    return;
+                }
+                waitlistController.loadEntries(document)
+                    .thenCompose(entries -> runDrawTransaction(eventId, participantsToDraw, weighted,
+                        replacementForEntrantId, auto, entries))
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            future.completeExceptionally(e);
+                        } else {
+                            future.complete(result);
+                        }
+                    });
+            })
+            .addOnFailureListener(future::completeExceptionally);
+        return future;
+    }
+
+    /**
+     * Draws from the waiting list and commits the result in one transaction.
+     * Only the drawn IDs are written, so the write size scales with the draw, not the waiting list.
+     */
+    private CompletableFuture<DrawResult> runDrawTransaction(String eventId, int participantsToDraw, Boolean weightedOverride,
+                                                             String replacementForEntrantId, boolean auto,
+                                                             List<WaitlistEntry> entries) {
+        CompletableFuture<DrawResult> future = new CompletableFuture<>();
+        DocumentReference eventRef = db.collection("Events").document(eventId);
+        List<String> loadedIds = new ArrayList<>(entries.size());
+        Map<String, Object> loadedJoinRounds = new HashMap<>();
+        for (WaitlistEntry entry : entries) {
+            loadedIds.add(entry.getUserId());
+            loadedJoinRounds.put(entry.getUserId(), entry.getJoinRound());
+        }
+
+        // The transaction body runs off the main thread, so the draw happens there too.
+        db.runTransaction((Transaction.Function<DrawResult>) transaction -> {
+            DocumentSnapshot document = transaction.get(eventRef);
+            if (auto && !isAutoDrawPending(document)) {
+                return DrawResult.skipped();
+            }
+            boolean sharded = WaitlistController.isSharded(document);
+            List<String> waitingList = sharded ? loadedIds : (List<String>) document.get(WaitlistController.LEGACY_ARRAY_FIELD);
+            Map<String, Object> joinRounds = sharded ? loadedJoinRounds : (Map<String, Object>) document.get("entrantJoinRounds");
+            List<String> selectedEntrants = (List<String>) document.get("selectedEntrantIds");
+            Long maxParticipantsLong = document.getLong("maxParticipants");
+            int maxParticipants = (maxParticipantsLong != null) ? maxParticipantsLong.intValue() : 0;
+            Boolean lastWeighted = document.getBoolean("weightedLottery");
+            boolean weighted = (weightedOverride != null) ? weightedOverride : (lastWeighted != null && lastWeighted);
+
+            if (waitingList == null || waitingList.isEmpty()) {
+                return finishWithoutDraw(transaction, eventRef, auto, "No entrants in waiting list");
+            }
+            if (selectedEntrants == null) {
+                selectedEntrants = new ArrayList<>();
+            }
+
+            // Check available slots
+            int slotsRemaining = maxParticipants - selectedEntrants.size();
+            if (slotsRemaining <= 0) {
+                return finishWithoutDraw(transaction, eventRef, auto, "All slots are already filled");
+            }
+
+            // Limit participantsToDraw to available slots and waiting list size
+            int actualDrawCount = Math.min(participantsToDraw, Math.min(slotsRemaining, waitingList.size()));
+            Long roundLong = document.getLong("lotteryRound");
+            long round = (roundLong != null) ? roundLong : 0L;
+            Map<String, Object> bonuses = (Map<String, Object>) document.get("entrantWeights");
+            List<String> newlySelected = new ArrayList<>(actualDrawCount);
+            Set<String> left = new HashSet<>();
+            List<String> pool = waitingList;
+            // Entrants of a sharded event may have left since the waitlist was loaded. Those
+            // drawn are checked inside the transaction, and the slots of any who left are
+            // drawn again from the rest of the list.
+            for (int attempt = 0; attempt < MAX_DRAW_ATTEMPTS && newlySelected.size() < actualDrawCount; attempt++) {
+                int missing = actualDrawCount - newlySelected.size();
+                List<String> drawn = weighted
+                    ? lotteryEngine.drawWeighted(pool, id -> entrantWeight(id, round, joinRounds, bonuses), missing)
+                    : lotteryEngine.draw(pool, missing);
+                if (drawn.isEmpty()) {
+                    break;
+                }
+                Set<String> drawnThisAttempt = new HashSet<>(drawn);
+                for (String id : drawn) {
+                    if (!sharded || transaction.get(waitlistController.entry(eventId, id)).exists()) {
+                        newlySelected.add(id);
+                    } else {
+                        left.add(id);
+                    }
+                }
+                if (!sharded) {
+                    break;
+                }
+                List<String> rest = new ArrayList<>(pool.size() - drawn.size());
+                for (String id : pool) {
+                    if (!drawnThisAttempt.contains(id)) {
+                        rest.add(id);
+                    }
+                }
+                pool = rest;
+            }
+            Object[] drawnIds = newlySelected.toArray();
+
+            // Every draw starts a new round; entrants still waiting afterwards have lost one more draw
+            transaction.update(eventRef, "lotteryRound", FieldValue.increment(1),
+                "weightedLottery", weighted,
+                AUTO_DRAW_PENDING_FIELD, false,
+                DRAWN_AT_FIELD, FieldValue.serverTimestamp());
+            // Drawn entrants have been favoured, so their replacement bonus is used up
+            for (String id : newlySelected) {
+                transaction.update(eventRef, FieldPath.of("entrantWeights", id), FieldValue.delete());
+            }
+
+            // Move the drawn entrants to selected. They need to accept again, so
+            // also clear them from accepted/declined/cancelled.
+            transaction.update(eventRef, "selectedEntrantIds", FieldValue.arrayUnion(drawnIds));
+            if (!sharded) {
+                transaction.update(eventRef, WaitlistController.LEGACY_ARRAY_FIELD, FieldValue.arrayRemove(drawnIds));
+            }
+            transaction.update(eventRef, "acceptedEntrantIds", FieldValue.arrayRemove(drawnIds));
+            transaction.update(eventRef, "declinedEntrantIds", FieldValue.arrayRemove(drawnIds));
+            transaction.update(eventRef, "cancelledEntrantIds", FieldValue.arrayRemove(drawnIds));
+            for (String id : newlySelected) {
+                waitlistController.removeEntry(transaction, eventId, id);
+            }
+            // Everyone drawn was checked to still be on the waiting list
+            EventCounterController.Delta counterDelta = new EventCounterController.Delta(document)
+                .waiting(newlySelected)
+                .remove(newlySelected, EventCounts.WAITING, EventCounts.ACCEPTED, EventCounts.DECLINED, EventCounts.CANCELLED)
+                .add(newlySelected, EventCounts.SELECTED);
+
+            Set<String> drawnSet = new HashSet<>(newlySelected);
+            ArrayList<String> remaining = new ArrayList<>(waitingList.size());
+            for (String id : waitingList) {
+                if (!drawnSet.contains(id) && !left.contains(id)) {
+                    remaining.add(id);
+                }
+            }
+
+            // If this is a replacement draw, remove the original participant AFTER drawing
+            // and put them back on the waiting list
+            if (replacementForEntrantId != null && !replacementForEntrantId.isEmpty()) {
+                transaction.update(eventRef, "selectedEntrantIds", FieldValue.arrayRemove(replacementForEntrantId));
+                transaction.update(eventRef, "cancelledEntrantIds", FieldValue.arrayRemove(replacementForEntrantId));
+                transaction.update(eventRef, "declinedEntrantIds", FieldValue.arrayRemove(replacementForEntrantId));
+                transaction.update(eventRef, "acceptedEntrantIds", FieldValue.arrayRemove(replacementForEntrantId));
+                if (!sharded) {
+                    transaction.update(eventRef, WaitlistController.LEGACY_ARRAY_FIELD, FieldValue.arrayUnion(replacementForEntrantId));
+                }
+                transaction.update(eventRef, FieldPath.of("entrantWeights", replacementForEntrantId), FieldValue.increment(1));
+                // They rejoin after this draw's round, so they have not lost any draws yet
+                waitlistController.addEntry(transaction, eventId, replacementForEntrantId, round + 1);
+                counterDelta
+                    .remove(replacementForEntrantId, EventCounts.SELECTED, EventCounts.CANCELLED, EventCounts.DECLINED, EventCounts.ACCEPTED)
+                    .add(replacementForEntrantId, EventCounts.WAITING);
+                if (!remaining.contains(replacementForEntrantId)) {
+                    remaining.add(replacementForEntrantId);
+                }
+            }
+            eventCounterController.apply(transaction, eventId, counterDelta);
+
+            String eventTitle = document.getString("title");
+            if (eventTitle == null) eventTitle = document.getString("Name");
+
+            return new DrawResult(null, participantsToDraw, new ArrayList<>(newlySelected), remaining, eventTitle, false);
+        }).addOnSuccessListener(future::complete)
+          .addOnFailureListener(future::completeExceptionally);
+
+        return future;
+    }
+
+    /**
+     * Ends a draw that has nothing to draw. An automatic draw still records itself
+     * as done so the scheduler does not pick the event up again.
+     */
+    private static DrawResult finishWithoutDraw(Transaction transaction, DocumentReference eventRef,
+                                                boolean auto, String message) {
+        if (auto) {
+            transaction.update(eventRef, AUTO_DRAW_PENDING_FIELD, false,
+                DRAWN_AT_FIELD, FieldValue.serverTimestamp());
+        }
+        return DrawResult.error(message);
+    }
+
+    /**
+     * Notifies the drawn entrants that they were selected, and everyone still on the
+     * waiting list that they were not.
+     *
+     * @param notificationController the controller used to send the notifications
+     * @param eventId the event ID
+     * @param result the outcome of a committed draw
+     */
+    public static void notifyEntrants(NotificationController notificationController, String eventId, DrawResult result) {
+        // Notify selected entrants
+        notificationController.sendToSelectedEntrants(eventId,
+            "Lottery Selection",
+            "Congratulations! You've been selected for " + result.eventTitle);
+
+        // Notify non-selected entrants (those still in waiting list) - rejection notification
+        notificationController.sendToWaitingList(eventId,
+            "Lottery Results - Not Selected",
+            "The lottery draw for " + result.eventTitle + " has been completed. Unfortunately, you were not selected in this lottery draw. You remain on the waiting list in case spots become available.");
+    }
+
+    /**
+     * Whether an event is still waiting for its automatic draw.
+     *
+     * @param eventDoc the event document
+     * @return true if the event has {@code autoDrawPending} set
+     */
+    public static boolean isAutoDrawPending(DocumentSnapshot eventDoc) {
+        Boolean pending = eventDoc.getBoolean(AUTO_DRAW_PENDING_FIELD);
+        return pending != null && pending;
+    }
+
+    /**
+     * Computes an entrant's weight for a weighted draw: 1, plus one for every draw they
+     * have lost since joining the waiting list, plus any bonus from being replaced.
+     *
+     * @param entrantId the entrant to weigh
+     * @param round the number of draws run so far for this event
+     * @param joinRounds the round each entrant joined the waiting list in
+     * @param bonuses extra weight per entrant from replacement draws
+     * @return the entrant's weight (always at least 1)
+     */
+    static double entrantWeight(String entrantId, long round,
+                                Map<String, Object> joinRounds, Map<String, Object> bonuses) {
+        double weight = 1.0;
+        Object joinRound = (joinRounds != null) ? joinRounds.get(entrantId) : null;
+        if (joinRound instanceof Number) {
+            weight += Math.max(0, round - ((Number) joinRound).longValue());
+        }
+        Object bonus = (bonuses != null) ? bonuses.get(entrantId) : null;
+        if (bonus instanceof Number) {
+            weight += Math.max(0, ((Number) bonus).doubleValue());
+        }
+        return weight;
+    }
+
+    /**
+     * Outcome of a draw: either an error message to show, or the drawn and remaining entrants.
+     * An automatic draw that found its event already drawn is marked as skipped.
+     */
+    public static class DrawResult {
+        public final String errorMessage;
+        public final int requestedCount;
+        public final ArrayList<String> selected;
+        public final ArrayList<String> remaining;
+        public final String eventTitle;
+        public final boolean skipped;
+
+        DrawResult(String errorMessage, int requestedCount, ArrayList<String> selected,
+                   ArrayList<String> remaining, String eventTitle, boolean skipped) {
+            this.errorMessage = errorMessage;
+            this.requestedCount = requestedCount;
+            this.selected = selected;
+            this.remaining = remaining;
+            this.eventTitle = eventTitle;
+            this.skipped = skipped;
+        }
+
+        static DrawResult error(String message) {
+            return new DrawResult(message, 0, new ArrayList<>(), new ArrayList<>(), null, false);
+        }
+
+        static DrawResult skipped() {
+            return new DrawResult(null, 0, new ArrayList<>(), new ArrayList<>(), null, true);
+        }
+    }
+}
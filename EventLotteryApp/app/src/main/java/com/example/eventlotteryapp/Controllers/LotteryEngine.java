@@ -0,0 +1,180 @@
+package com.example.eventlotteryapp.Controllers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Pure-Java lottery draw engine with no Android or Firestore dependencies.
+ * Samples k entrants out of n using a partial Fisher-Yates shuffle over a sparse
+ * swap map, so a draw costs O(k) time and memory no matter how long the waiting list is.
+ * Weighted draws use Efraimidis-Spirakis A-Res reservoir sampling with a k-sized heap,
+ * which costs O(n log k) time and O(k) memory.
+ * The random source is injectable so draws can be replayed with a fixed seed.
+ *
+ * @author Droids Team
+ */
+public class LotteryEngine {
+
+    /** Shared background executor so draws never run on the UI thread. */
+    private static final Executor DEFAULT_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final Random random;
+    private final Executor executor;
+
+    /**
+     * Constructs a LotteryEngine with an unseeded random source.
+     */
+    public LotteryEngine() {
+        this(new Random());
+    }
+
+    /**
+     * Constructs a LotteryEngine with the given random source.
+     *
+     * @param random the random source used for draws (pass a seeded instance to replay a draw)
+     */
+    public LotteryEngine(Random random) {
+        this(random, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Constructs a LotteryEngine with the given random source and executor.
+     *
+     * @param random the random source used for draws
+     * @param executor the executor that {@link #drawAsync(List, int)} runs on
+     */
+    public LotteryEngine(Random random, Executor executor) {
+        if (random == null || executor == null) {
+            throw new IllegalArgumentException("random and executor must not be null");
+        }
+        this.random = random;
+        this.executor = executor;
+    }
+
+    /**
+     * Draws up to {@code count} distinct entrants from the pool, uniformly at random.
+     * The pool is never copied or modified; only the touched positions are tracked.
+     *
+     * @param pool the entrant IDs to draw from (should support fast random access)
+     * @param count the number of entrants to draw
+     * @return the drawn entrant IDs in draw order; fewer than {@code count} if the pool is smaller
+     */
+    public List<String> draw(List<String> pool, int count) {
+        if (pool == null || pool.isEmpty() || count <= 0) {
+            return Collections.emptyList();
+        }
+
+        int n = pool.size();
+        int k = Math.min(count, n);
+        List<String> selected = new ArrayList<>(k);
+
+        // Positions that have been swapped away from their original index.
+        // Anything not in this map still holds its original pool index.
+        Map<Integer, Integer> swapped = new HashMap<>(k * 2);
+
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            int atJ = swapped.containsKey(j) ? swapped.get(j) : j;
+            int atI = swapped.containsKey(i) ? swapped.get(i) : i;
+            swapped.put(j, atI);
+            selected.add(pool.get(atJ));
+        }
+
+        return selected;
+    }
+
+    /**
+     * Draws up to {@code count} distinct entrants where each entrant's chance of being
+     * picked is proportional to its weight. Entrants with a weight of zero or less are never drawn.
+     * Each entrant gets the key log(u) / weight for a uniform u in (0, 1], and the
+     * {@code count} largest keys are kept in a min-heap.
+     *
+     * @param pool the entrant IDs to draw from
+     * @param weightOf returns the weight of an entrant
+     * @param count the number of entrants to draw
+     * @return the drawn entrant IDs, highest key first
+     */
+    public List<String> drawWeighted(List<String> pool, ToDoubleFunction<String> weightOf, int count) {
+        if (pool == null || pool.isEmpty() || count <= 0) {
+            return Collections.emptyList();
+        }
+
+        int k = Math.min(count, pool.size());
+        PriorityQueue<KeyedEntrant> heap = new PriorityQueue<>(k);
+
+        for (String entrantId : pool) {
+            double weight = weightOf.applyAsDouble(entrantId);
+            if (!(weight > 0) || Double.isInfinite(weight)) {
+                continue;
+            }
+            double key = Math.log(1.0 - random.nextDouble()) / weight;
+            if (heap.size() < k) {
+                heap.add(new KeyedEntrant(entrantId, key));
+            } else if (key > heap.peek().key) {
+                heap.poll();
+                heap.add(new KeyedEntrant(entrantId, key));
+            }
+        }
+
+        List<String> selected = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            selected.add(heap.poll().entrantId);
+        }
+        Collections.reverse(selected);
+        return selected;
+    }
+
+    /**
+     * Weighted variant of {@link #draw(List, int)} keyed by a weight map.
+     * Entrants missing from the map get a weight of 1.
+     *
+     * @param pool the entrant IDs to draw from
+     * @param weights the weight of each entrant
+     * @param count the number of entrants to draw
+     * @return the drawn entrant IDs
+     */
+    public List<String> drawWeighted(List<String> pool, Map<String, Double> weights, int count) {
+        return drawWeighted(pool, id -> {
+            Double weight = (weights != null) ? weights.get(id) : null;
+            return (weight != null) ? weight : 1.0;
+        }, count);
+    }
+
+    /**
+     * Runs {@link #draw(List, int)} on this engine's executor.
+     *
+     * @param pool the entrant IDs to draw from
+     * @param count the number of entrants to draw
+     * @return a CompletableFuture that completes with the drawn entrant IDs
+     */
+    public CompletableFuture<List<String>> drawAsync(List<String> pool, int count) {
+        return CompletableFuture.supplyAsync(() -> draw(pool, count), executor);
+    }
+
+    /**
+     * An entrant paired with its A-Res key, ordered so the smallest key is at the head of the heap.
+     */
+    private static class KeyedEntrant implements Comparable<KeyedEntrant> {
+        final String entrantId;
+        final double key;
+
+        KeyedEntrant(String entrantId, double key) {
+            this.entrantId = entrantId;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(KeyedEntrant other) {
+            return Double.compare(key, other.key);
+        }
+    }
+}
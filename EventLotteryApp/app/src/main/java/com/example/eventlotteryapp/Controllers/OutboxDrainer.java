@@ -0,0 +1,72 @@
+package com.example.eventlotteryapp.Controllers;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import com.example.eventlotteryapp.Helpers.Outbox;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Owns the app's outbox of invitation responses made while offline, and sends them
+ * whenever a network connection becomes available.
+ *
+ * @author Droids Team
+ */
+public class OutboxDrainer {
+    private static final String TAG = "OutboxDrainer";
+
+    /** Name of the outbox log file in the app's private files directory. */
+    public static final String FILE_NAME = "outbox.log";
+
+    private static Outbox outbox;
+    private static boolean watchingNetwork;
+
+    /**
+     * Gets the app's outbox, opening it on first use.
+     *
+     * @param context any context from the app
+     * @return the outbox
+     */
+    public static synchronized Outbox outbox(Context context) {
+        if (outbox == null) {
+            outbox = new Outbox(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+        }
+        return outbox;
+    }
+
+    /**
+     * Sends anything already waiting, and starts watching for the network coming back
+     * so later entries are sent too. Safe to call from every screen that may queue entries.
+     *
+     * @param context any context from the app
+     */
+    public static synchronized void start(Context context) {
+        Outbox box = outbox(context);
+        if (!watchingNetwork) {
+            ConnectivityManager connectivity = context.getApplicationContext().getSystemService(ConnectivityManager.class);
+            if (connectivity != null) {
+                connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                    @Override
+                    public void onAvailable(Network network) {
+                        drain(box);
+                    }
+                });
+                watchingNetwork = true;
+            }
+        }
+        drain(box);
+    }
+
+    private static CompletableFuture<Integer> drain(Outbox box) {
+        if (box.size() == 0) {
+            return CompletableFuture.completedFuture(0);
+        }
+        LotteryController lotteryController = new LotteryController(box);
+        return box.drain(lotteryController::replay).whenComplete((delivered, e) ->
+            Log.d(TAG, "Outbox drained " + delivered + " entry(ies): " + box.getMetrics()));
+    }
+}
@@ -0,0 +1,546 @@
+package com.example.eventlotteryapp.Controllers;
+
+import android.util.Log;
+
+import com.example.eventlotteryapp.models.WaitlistEntry;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controller for an event's waiting list stored as one document per entrant in the
+ * {@code Events/{eventId}/waitlist} subcollection, rather than as one array on the event document.
+ * This keeps the event document small no matter how many entrants join, and lets
+ * readers page through the waiting list instead of downloading it in one piece.
+ *
+ * Events created before the subcollection existed are copied across by {@link #migrate(String)};
+ * the event's {@code waitlistSharded} flag marks when the subcollection is complete.
+ * Until then readers fall back to the {@code waitingListEntrantIds} array, which writers
+ * keep updating alongside the subcollection. Once an event is sharded the array is no
+ * longer written or read, so the event document no longer grows with its waiting list.
+ *
+ * @author Droids Team
+ */
+public class WaitlistController {
+    private static final String TAG = "WaitlistController";
+
+    /** Name of the waitlist subcollection under each event document. */
+    public static final String SUBCOLLECTION = "waitlist";
+
+    /** Event field set to true once the waitlist subcollection holds every waitlisted entrant. */
+    public static final String SHARDED_FIELD = "waitlistSharded";
+
+    /** Event field holding the legacy waiting list array, only used until an event is sharded. */
+    public static final String LEGACY_ARRAY_FIELD = "waitingListEntrantIds";
+
+    /** Number of entries read per page, and written per migration transaction. */
+    public static final int PAGE_SIZE = 500;
+
+    /**
+     * Entry field holding when the entrant joined, as a server timestamp. Broadcasts to the
+     * waiting list sent before this time are not shown to them.
+     */
+    public static final String JOINED_AT_FIELD = "joinedAt";
+
+    /**
+     * Entry field holding a random number in [0, 1), so that a few random entrants can be
+     * read with a bounded query instead of loading the whole waiting list.
+     */
+    public static final String RANDOM_KEY_FIELD = "randomKey";
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Constructs a new WaitlistController using the default Firestore instance.
+     */
+    public WaitlistController() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * Constructs a new WaitlistController using the given Firestore instance.
+     *
+     * @param db the Firestore instance to use
+     */
+    public WaitlistController(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Returns the waitlist subcollection for an event.
+     *
+     * @param eventId the event ID
+     * @return the waitlist collection reference
+     */
+    public CollectionReference waitlist(String eventId) {
+        return db.collection("Events").document(eventId).collection(SUBCOLLECTION);
+    }
+
+    /**
+     * Returns the waitlist entry document for one entrant.
+     *
+     * @param eventId the event ID
+     * @param userId the entrant's user ID
+     * @return the entry document reference
+     */
+    public DocumentReference entry(String eventId, String userId) {
+        return waitlist(eventId).document(userId);
+    }
+
+    /**
+     * Whether an event's waitlist subcollection is complete and should be read instead of the array.
+     *
+     * @param eventDoc the event document
+     * @return true if the event has been migrated to the subcollection
+     */
+    public static boolean isSharded(DocumentSnapshot eventDoc) {
+        Boolean sharded = eventDoc.getBoolean(SHARDED_FIELD);
+        return sharded != null && sharded;
+    }
+
+    /**
+     * Whether an entrant is on an event's waiting list, given their entry document for a
+     * sharded event. Legacy events are checked against the array instead.
+     *
+     * @param eventDoc the event document
+     * @param entryDoc the entrant's waitlist entry, read with {@link #entry(String, String)}
+     * @param userId the entrant's user ID
+     * @return true if the entrant is waitlisted
+     */
+    public static boolean isWaiting(DocumentSnapshot eventDoc, DocumentSnapshot entryDoc, String userId) {
+        if (isSharded(eventDoc)) {
+            return entryDoc != null && entryDoc.exists();
+        }
+        List<String> waitingList = (List<String>) eventDoc.get(LEGACY_ARRAY_FIELD);
+        return waitingList != null && waitingList.contains(userId);
+    }
+
+    private static Map<String, Object> entryData(String userId, long joinRound) {
+        Map<String, Object> data = copiedEntryData(userId, joinRound);
+        data.put(JOINED_AT_FIELD, FieldValue.serverTimestamp());
+        return data;
+    }
+
+    /**
+     * The fields of an entry copied from the legacy array, which does not say when the
+     * entrant joined; an entry already written alongside the array keeps its join time.
+     */
+    private static Map<String, Object> copiedEntryData(String userId, long joinRound) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", userId);
+        data.put("joinRound", joinRound);
+        data.put(RANDOM_KEY_FIELD, Math.random());
+        return data;
+    }
+
+    /**
+     * Adds an entrant to the waitlist as part of a batch.
+     *
+     * @param batch the batch to add the write to
+     * @param eventId the event ID
+     * @param userId the entrant's user ID
+     * @param joinRound the lottery round the entrant is joining in
+     */
+    public void addEntry(WriteBatch batch, String eventId, String userId, long joinRound) {
+        batch.set(entry(eventId, userId), entryData(userId, joinRound));
+    }
+
+    /**
+     * Adds an entrant to the waitlist as part of a transaction.
+     *
+     * @param transaction the transaction to add the write to
+     * @param eventId the event ID
+     * @param userId the entrant's user ID
+     * @param joinRound the lottery round the entrant is joining in
+     */
+    public void addEntry(Transaction transaction, String eventId, String userId, long joinRound) {
+        transaction.set(entry(eventId, userId), entryData(userId, joinRound));
+    }
+
+    /**
+     * Removes an entrant from the waitlist as part of a batch.
+     *
+     * @param batch the batch to add the delete to
+     * @param eventId the event ID
+     * @param userId the entrant's user ID
+     */
+    public void removeEntry(WriteBatch batch, String eventId, String userId) {
+        batch.delete(entry(eventId, userId));
+    }
+
+    /**
+     * Removes an entrant from the waitlist as part of a transaction.
+     *
+     * @param transaction the transaction to add the delete to
+     * @param eventId the event ID
+     * @param userId the entrant's user ID
+     */
+    public void removeEntry(Transaction transaction, String eventId, String userId) {
+        transaction.delete(entry(eventId, userId));
+    }
+
+    /**
+     * Deletes every entry in an event's waitlist, one batch per page, so the entries are
+     * not left behind when the event is deleted. Deleting the event document alone does
+     * not delete its subcollections.
+     *
+     * @param eventId the event ID
+     * @return a CompletableFuture that completes once the waitlist is empty
+     */
+    public CompletableFuture<Void> deleteAll(String eventId) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        deletePage(eventId, future);
+        return future;
+    }
+
+    private void deletePage(String eventId, CompletableFuture<Void> future) {
+        waitlist(eventId).limit(PAGE_SIZE).get().addOnSuccessListener(snapshot -> {
+            if (snapshot.isEmpty()) {
+                future.complete(null);
+                return;
+            }
+            WriteBatch batch = db.batch();
+            for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                batch.delete(doc.getReference());
+            }
+            batch.commit()
+                    .addOnSuccessListener(aVoid -> {
+                        if (snapshot.size() < PAGE_SIZE) {
+                            future.complete(null);
+                        } else {
+                            deletePage(eventId, future);
+                        }
+                    })
+                    .addOnFailureListener(future::completeExceptionally);
+        }).addOnFailureListener(future::completeExceptionally);
+    }
+
+    /**
+     * Streams an event's waitlist one page at a time, in document ID order.
+     *
+     * @param eventId the event ID
+     * @param callback receives each page, then completion or failure
+     */
+    public void streamEntries(String eventId, PageCallback callback) {
+        Query firstPage = waitlist(eventId).orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+        fetchPage(firstPage, eventId, 0, callback);
+    }
+
+    private void fetchPage(Query query, String eventId, int loadedSoFar, PageCallback callback) {
+        query.get().addOnSuccessListener(snapshot -> {
+            List<WaitlistEntry> page = new ArrayList<>(snapshot.size());
+            for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                Long joinRound = doc.getLong("joinRound");
+                page.add(new WaitlistEntry(doc.getId(), (joinRound != null) ? joinRound : 0L));
+            }
+            int loaded = loadedSoFar + page.size();
+            if (!page.isEmpty()) {
+                callback.onPage(page);
+            }
+
+            if (snapshot.size() < PAGE_SIZE) {
+                callback.onComplete(loaded);
+            } else {
+                DocumentSnapshot last = snapshot.getDocuments().get(snapshot.size() - 1);
+                Query next = waitlist(eventId).orderBy(FieldPath.documentId()).startAfter(last).limit(PAGE_SIZE);
+                fetchPage(next, eventId, loaded, callback);
+            }
+        }).addOnFailureListener(callback::onFailure);
+    }
+
+    /**
+     * Loads every waitlist entry for an event. Reads the subcollection if the event
+     * has been migrated, otherwise falls back to the legacy array on the event document.
+     *
+     * @param eventDoc the event document
+     * @return a CompletableFuture that completes with the waitlist entries
+     */
+    public CompletableFuture<List<WaitlistEntry>> loadEntries(DocumentSnapshot eventDoc) {
+        CompletableFuture<List<WaitlistEntry>> future = new CompletableFuture<>();
+
+        if (!isSharded(eventDoc)) {
+            List<String> waitingList = (List<String>) eventDoc.get(LEGACY_ARRAY_FIELD);
+            Map<String, Object> joinRounds = (Map<String, Object>) eventDoc.get("entrantJoinRounds");
+            List<WaitlistEntry> entries = new ArrayList<>();
+            if (waitingList != null) {
+                for (String userId : waitingList) {
+                    entries.add(new WaitlistEntry(userId, joinRoundOf(joinRounds, userId)));
+                }
+            }
+            future.complete(entries);
+            return future;
+        }
+
+        List<WaitlistEntry> entries = new ArrayList<>();
+        streamEntries(eventDoc.getId(), new PageCallback() {
+            @Override
+            public void onPage(List<WaitlistEntry> page) {
+                entries.addAll(page);
+            }
+
+            @Override
+            public void onComplete(int total) {
+                future.complete(entries);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Loads up to {@code limit} random entrants from a sharded event's waitlist, reading only
+     * those entries: the query starts at a random point in {@link #RANDOM_KEY_FIELD} order and
+     * wraps around to the start if it runs off the end. If none of the entries have a random
+     * key, any {@code limit} entries are read instead.
+     *
+     * @param eventId the event ID
+     * @param limit the most entries to read
+     * @return a CompletableFuture that completes with the entries, empty if the waitlist is
+     */
+    public CompletableFuture<List<WaitlistEntry>> loadRandomEntries(String eventId, int limit) {
+        double start = Math.random();
+        Query byKey = waitlist(eventId).orderBy(RANDOM_KEY_FIELD);
+        return loadQuery(byKey.startAt(start).limit(limit)).thenCompose(entries -> {
+            if (entries.size() >= limit) {
+                return CompletableFuture.completedFuture(entries);
+            }
+            return loadQuery(byKey.endBefore(start).limit(limit - entries.size())).thenCompose(wrapped -> {
+                entries.addAll(wrapped);
+                if (!entries.isEmpty()) {
+                    return CompletableFuture.completedFuture(entries);
+                }
+                return loadQuery(waitlist(eventId).limit(limit));
+            });
+        });
+    }
+
+    private CompletableFuture<List<WaitlistEntry>> loadQuery(Query query) {
+        CompletableFuture<List<WaitlistEntry>> future = new CompletableFuture<>();
+        query.get().addOnSuccessListener(snapshot -> {
+            List<WaitlistEntry> entries = new ArrayList<>(snapshot.size());
+            for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                Long joinRound = doc.getLong("joinRound");
+                entries.add(new WaitlistEntry(doc.getId(), (joinRound != null) ? joinRound : 0L));
+            }
+            future.complete(entries);
+        }).addOnFailureListener(future::completeExceptionally);
+        return future;
+    }
+
+    /**
+     * Loads the user IDs of every waitlisted entrant for an event.
+     *
+     * @param eventDoc the event document
+     * @return a CompletableFuture that completes with the waitlisted user IDs
+     */
+    public CompletableFuture<List<String>> loadEntrantIds(DocumentSnapshot eventDoc) {
+        return loadEntries(eventDoc).thenApply(entries -> {
+            List<String> ids = new ArrayList<>(entries.size());
+            for (WaitlistEntry entry : entries) {
+                ids.add(entry.getUserId());
+            }
+            return ids;
+        });
+    }
+
+    /**
+     * Loads whether an entrant is on an event's waiting list and how many entrants are on it.
+     * For sharded events this reads the entrant's entry and a server-side count, never the
+     * whole waiting list.
+     *
+     * @param eventDoc the event document
+     * @param userId the entrant's user ID, or null to only count
+     * @return a CompletableFuture that completes with the entrant's waitlist status
+     */
+    public CompletableFuture<Status> loadStatus(DocumentSnapshot eventDoc, String userId) {
+        if (!isSharded(eventDoc)) {
+            List<String> waitingList = (List<String>) eventDoc.get(LEGACY_ARRAY_FIELD);
+            boolean waiting = userId != null && waitingList != null && waitingList.contains(userId);
+            return CompletableFuture.completedFuture(new Status(waiting, (waitingList != null) ? waitingList.size() : 0));
+        }
+
+        CompletableFuture<Boolean> waiting = new CompletableFuture<>();
+        if (userId == null) {
+            waiting.complete(false);
+        } else {
+            entry(eventDoc.getId(), userId).get()
+                    .addOnSuccessListener(entryDoc -> waiting.complete(entryDoc.exists()))
+                    .addOnFailureListener(waiting::completeExceptionally);
+        }
+        return waiting.thenCombine(countEntries(eventDoc.getId()), Status::new);
+    }
+
+    /**
+     * Finds the sharded events an entrant is waitlisted for, with a collection group query
+     * over every event's waitlist. Legacy events are found through their arrays instead.
+     * Needs the single-field index on {@code userId} enabled for the waitlist collection group.
+     *
+     * @param userId the entrant's user ID
+     * @return a CompletableFuture that completes with the IDs of the events
+     */
+    public CompletableFuture<List<String>> loadWaitlistedEventIds(String userId) {
+        return loadJoinTimes(userId).thenApply(joinTimes -> new ArrayList<>(joinTimes.keySet()));
+    }
+
+    /**
+     * Finds the events an entrant has a waitlist entry for, and when they joined each one,
+     * with the same collection group query as {@link #loadWaitlistedEventIds(String)}.
+     *
+     * @param userId the entrant's user ID
+     * @return a CompletableFuture that completes with the join time by event ID; the time is
+     *         null for entries copied from a legacy array, which did not record it
+     */
+    public CompletableFuture<Map<String, Timestamp>> loadJoinTimes(String userId) {
+        CompletableFuture<Map<String, Timestamp>> future = new CompletableFuture<>();
+        db.collectionGroup(SUBCOLLECTION).whereEqualTo("userId", userId).get()
+                .addOnSuccessListener(snapshot -> {
+                    Map<String, Timestamp> joinTimes = new LinkedHashMap<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        DocumentReference eventRef = doc.getReference().getParent().getParent();
+                        if (eventRef != null) {
+                            joinTimes.put(eventRef.getId(), doc.getTimestamp(JOINED_AT_FIELD));
+                        }
+                    }
+                    future.complete(joinTimes);
+                })
+                .addOnFailureListener(future::completeExceptionally);
+        return future;
+    }
+
+    /**
+     * Counts an event's waitlisted entrants with a server-side aggregation,
+     * without downloading any entries.
+     *
+     * @param eventId the event ID
+     * @return a CompletableFuture that completes with the number of waitlisted entrants
+     */
+    public CompletableFuture<Integer> countEntries(String eventId) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        waitlist(eventId).count().get(AggregateSource.SERVER)
+                .addOnSuccessListener(snapshot -> future.complete((int) snapshot.getCount()))
+                .addOnFailureListener(future::completeExceptionally);
+        return future;
+    }
+
+    /**
+     * Copies an event's legacy waitingListEntrantIds array into the waitlist subcollection,
+     * one transaction per {@link #PAGE_SIZE} entrants, then sets {@code waitlistSharded}.
+     * Each transaction re-reads the event so entrants who left mid-migration are not copied back.
+     * Entries are merged into any already written alongside the array, so those keep their join time.
+     * Does nothing if the event is already migrated.
+     *
+     * @param eventId the event ID
+     * @return a CompletableFuture that completes once the event is migrated
+     */
+    public CompletableFuture<Void> migrate(String eventId) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        migrateChunk(eventId, "", future);
+        return future;
+    }
+
+    /**
+     * Copies the next chunk of entrants, in user ID order, after the given cursor.
+     * Using an ID cursor rather than an array index means entrants leaving between
+     * chunks cannot shift anyone else out of the migration.
+     */
+    private void migrateChunk(String eventId, String afterUserId, CompletableFuture<Void> future) {
+        DocumentReference eventRef = db.collection("Events").document(eventId);
+
+        db.runTransaction((Transaction.Function<String>) transaction -> {
+            DocumentSnapshot eventDoc = transaction.get(eventRef);
+            if (!eventDoc.exists() || isSharded(eventDoc)) {
+                return null;
+            }
+
+            List<String> waitingList = (List<String>) eventDoc.get(LEGACY_ARRAY_FIELD);
+            Map<String, Object> joinRounds = (Map<String, Object>) eventDoc.get("entrantJoinRounds");
+            TreeSet<String> remaining = new TreeSet<>();
+            if (waitingList != null) {
+                remaining.addAll(waitingList);
+            }
+
+            // Leave room in the transaction for the flag update
+            String lastCopied = null;
+            int copied = 0;
+            for (String userId : remaining.tailSet(afterUserId, false)) {
+                if (copied == PAGE_SIZE - 1) {
+                    return lastCopied;
+                }
+                transaction.set(entry(eventId, userId), copiedEntryData(userId, joinRoundOf(joinRounds, userId)),
+                        SetOptions.merge());
+                lastCopied = userId;
+                copied++;
+            }
+
+            // The subcollection now holds everyone, so the arrays are dropped from the event
+            transaction.update(eventRef, SHARDED_FIELD, true,
+                    LEGACY_ARRAY_FIELD, FieldValue.delete(),
+                    "entrantJoinRounds", FieldValue.delete());
+            return null;
+        }).addOnSuccessListener(nextCursor -> {
+            if (nextCursor == null) {
+                Log.d(TAG, "Waitlist migrated for event " + eventId);
+                future.complete(null);
+            } else {
+                migrateChunk(eventId, nextCursor, future);
+            }
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Error migrating waitlist for event " + eventId, e);
+            future.completeExceptionally(e);
+        });
+    }
+
+    private static long joinRoundOf(Map<String, Object> joinRounds, String userId) {
+        Object joinRound = (joinRounds != null) ? joinRounds.get(userId) : null;
+        return (joinRound instanceof Number) ? ((Number) joinRound).longValue() : 0L;
+    }
+
+    /**
+     * Whether one entrant is on an event's waiting list, and how long the list is.
+     */
+    public static class Status {
+        private final boolean waiting;
+        private final int size;
+
+        Status(boolean waiting, int size) {
+            this.waiting = waiting;
+            this.size = size;
+        }
+
+        /** @return true if the entrant is on the waiting list */
+        public boolean isWaiting() { return waiting; }
+
+        /** @return the number of entrants on the waiting list */
+        public int getSize() { return size; }
+    }
+
+    /**
+     * Callback for {@link #streamEntries(String, PageCallback)}.
+     */
+    public interface PageCallback {
+        void onPage(List<WaitlistEntry> page);
+        void onComplete(int total);
+        void onFailure(Exception e);
+    }
+}
@@ -9,9 +9,13 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 import androidx.viewpager2.widget.ViewPager2;
+import com.example.eventlotteryapp.Controllers.OutboxDrainer;
+import com.example.eventlotteryapp.Notifications.UnreadCounter;
 import com.example.eventlotteryapp.R;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.Objects;
 
@@ -24,6 +28,9 @@ import java.util.Objects;
  * @author Droids Team
  */
 public class EntrantHomePageActivity extends AppCompatActivity {
+    /** Position of the Notifications tab, which shows the unread badge. */
+    private static final int NOTIFICATIONS_TAB = 2;
+
     /** TabLayout for displaying and selecting tabs. */
     TabLayout tabLayout;
     
@@ -33,6 +40,9 @@ public class EntrantHomePageActivity extends AppCompatActivity {
     /** Adapter for managing fragments in the ViewPager2. */
     EntrantViewPagerAdapter viewPagerAdapter;
 
+    /** Keeps the unread badge on the Notifications tab up to date. */
+    private ListenerRegistration unreadBadge;
+
     /**
      * Called when the activity is first created.
      * Initializes edge-to-edge display, sets up the ViewPager2 and TabLayout,
@@ -48,6 +58,8 @@ public class EntrantHomePageActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_entrant_home_page);
+        // Send any invitation responses saved while offline
+        OutboxDrainer.start(this);
         ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.main), (v, insets) -> {
             Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
             v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
@@ -89,6 +101,19 @@ public class EntrantHomePageActivity extends AppCompatActivity {
             Objects.requireNonNull(tabLayout.getTabAt(tabToOpen)).select();
         }
 
+        String userId = FirebaseAuth.getInstance().getUid();
+        TabLayout.Tab notificationsTab = tabLayout.getTabAt(NOTIFICATIONS_TAB);
+        if (userId != null && notificationsTab != null) {
+            unreadBadge = UnreadCounter.showOn(notificationsTab, userId);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (unreadBadge != null) {
+            unreadBadge.remove();
+        }
     }
 
 }
\ No newline at end of file
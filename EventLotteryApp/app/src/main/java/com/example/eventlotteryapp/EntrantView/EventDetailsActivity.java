@@ -1,7 +1,6 @@
 package com.example.eventlotteryapp.EntrantView;
 
 import android.content.Intent;
-import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.text.SpannableString;
@@ -22,19 +21,31 @@ import androidx.constraintlayout.widget.ConstraintLayout;
 import androidx.core.content.ContextCompat;
 
 import com.example.eventlotteryapp.Controllers.LotteryController;
+import com.example.eventlotteryapp.Controllers.EventCounterController;
+import com.example.eventlotteryapp.Controllers.OutboxDrainer;
+import com.example.eventlotteryapp.Controllers.WaitlistController;
+import com.example.eventlotteryapp.Helpers.PosterLoader;
 import com.example.eventlotteryapp.R;
+import com.example.eventlotteryapp.models.EventCounts;
 import com.example.eventlotteryapp.EntrantView.JoinConfirmationFragment;
 import com.example.eventlotteryapp.EntrantView.LeaveConfirmationFragment;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.Transaction;
 import com.example.eventlotteryapp.NotificationController;
+import com.example.eventlotteryapp.Notifications.EventSummary;
+import com.example.eventlotteryapp.Notifications.NotificationIds;
+import com.example.eventlotteryapp.Notifications.UnreadCounter;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -125,29 +136,22 @@ public class EventDetailsActivity extends AppCompatActivity {
                             // Check waiting list limit
                             Boolean limitWaitingList = documentSnapshot.getBoolean("limitWaitingList");
                             boolean isLimitEnabled = (limitWaitingList != null && limitWaitingList);
+                            Long waitingListSizeLong = documentSnapshot.getLong("waitingListSize");
+                            int waitingListLimit = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
                             
-                            if (isLimitEnabled) {
-                                Long waitingListSizeLong = documentSnapshot.getLong("waitingListSize");
-                                int waitingListLimit = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
-                                
-                                // If limit is 0 or not set, treat as infinite (no limit)
-                                if (waitingListLimit > 0) {
-                                    List<String> waitingListEntrantIds = (List<String>) documentSnapshot.get("waitingListEntrantIds");
-                                    int currentWaitingListSize = (waitingListEntrantIds != null) ? waitingListEntrantIds.size() : 0;
-                                    
-                                    if (currentWaitingListSize >= waitingListLimit) {
-                                        Toast.makeText(this, "The waiting list is full. Maximum " + waitingListLimit + " entrants allowed.", Toast.LENGTH_LONG).show();
-                                        return;
-                                    }
-                                }
+                            // If limit is 0 or not set, treat as infinite (no limit)
+                            if (!isLimitEnabled || waitingListLimit <= 0) {
+                                showJoinConfirmation();
+                                return;
                             }
-                            
-                            JoinConfirmationFragment confirmation = new JoinConfirmationFragment().newInstance(eventId);
-                            confirmation.show(getSupportFragmentManager(), confirmation.getTag());
-                            // Send notification to organizer about the new entrant
-                            notificationController.sendToOrganizer(eventId,
-                                    "New Entrant",
-                                    "A user has joined the waiting list for your event.");
+                            new WaitlistController(db).loadStatus(documentSnapshot, null).whenComplete((waitlistStatus, e) -> {
+                                // Still show dialog if the count fails (fail open); joining checks again
+                                if (e == null && waitlistStatus.getSize() >= waitingListLimit) {
+                                    Toast.makeText(this, "The waiting list is full. Maximum " + waitingListLimit + " entrants allowed.", Toast.LENGTH_LONG).show();
+                                    return;
+                                }
+                                showJoinConfirmation();
+                            });
                         }
                     })
                     .addOnFailureListener(e -> {
@@ -204,7 +208,9 @@ public class EventDetailsActivity extends AppCompatActivity {
 
         acceptInvitationButton = findViewById(R.id.accept_invitation_button);
         declineInvitationButton = findViewById(R.id.decline_invitation_button);
-        lotteryController = new LotteryController();
+        // Responses made while offline are saved and sent once the connection is back
+        OutboxDrainer.start(this);
+        lotteryController = new LotteryController(OutboxDrainer.outbox(this));
 
         acceptInvitationButton.setOnClickListener(v -> {
             acceptInvitation();
@@ -233,6 +239,16 @@ public class EventDetailsActivity extends AppCompatActivity {
         populateUI();
     }
 
+    /** Shows the join confirmation and tells the organizer about the new entrant */
+    private void showJoinConfirmation() {
+        JoinConfirmationFragment confirmation = new JoinConfirmationFragment().newInstance(eventId);
+        confirmation.show(getSupportFragmentManager(), confirmation.getTag());
+        // Send notification to organizer about the new entrant
+        notificationController.sendToOrganizer(eventId,
+                "New Entrant",
+                "A user has joined the waiting list for your event.");
+    }
+
     /** Checks if current user is organizer and updates UI accordingly */
     private void showOrganizerControlsIfOwner(DocumentReference organizerRef) {
         FirebaseAuth auth = FirebaseAuth.getInstance();
@@ -285,470 +301,257 @@ public class EventDetailsActivity extends AppCompatActivity {
         Log.d("Firestore", "Checking waitlist for eventId=" + eventId + ", userId=" + userId);
 
         // Use server source if forcing a fresh read, otherwise use default (cache first)
-        if (forceServerRead) {
-            db.collection("Events").document(eventId)
-                    .get(Source.SERVER)
-                    .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        // Check all status arrays
-                        List<String> waitingListEntrantIds = (List<String>) documentSnapshot.get("waitingListEntrantIds");
-                        List<String> selectedEntrantIds = (List<String>) documentSnapshot.get("selectedEntrantIds");
-                        List<String> acceptedEntrantIds = (List<String>) documentSnapshot.get("acceptedEntrantIds");
-                        List<String> cancelledEntrantIds = (List<String>) documentSnapshot.get("cancelledEntrantIds");
-                        List<String> declinedEntrantIds = (List<String>) documentSnapshot.get("declinedEntrantIds");
-
-                        // Check if event is closed (registrationCloseDate has passed)
-                        Date registrationCloseDate = documentSnapshot.getDate("registrationCloseDate");
-                        Date registrationOpenDate = documentSnapshot.getDate("registrationOpenDate");
-                        Date now = new Date();
-                        boolean isEventClosed = (registrationCloseDate != null && now.after(registrationCloseDate));
-                        boolean isRegistrationOpen = (registrationOpenDate == null || now.after(registrationOpenDate) || now.equals(registrationOpenDate));
-
-                        Button join_button = findViewById(R.id.join_waitlist_button);
-                        Button leave_button = findViewById(R.id.leave_waitlist_button);
-
-                        // Check user status
-                        boolean isInWaitingList = (waitingListEntrantIds != null && waitingListEntrantIds.contains(userId));
-                        boolean isSelected = (selectedEntrantIds != null && selectedEntrantIds.contains(userId));
-                        boolean isAccepted = (acceptedEntrantIds != null && acceptedEntrantIds.contains(userId));
-                        boolean isCancelled = (cancelledEntrantIds != null && cancelledEntrantIds.contains(userId));
-                        boolean isDeclined = (declinedEntrantIds != null && declinedEntrantIds.contains(userId));
-
-                        // Check if lottery has run and user was selected (cannot leave waitlist)
-                        boolean lotteryRanAndUserSelected = isEventClosed && isSelected;
-                        
-                        // Check if lottery has run and user was NOT selected (rejected)
-                        boolean lotteryRanAndUserNotSelected = isEventClosed && isInWaitingList && !isSelected && !isAccepted && !isCancelled && !isDeclined;
-
-                        Log.d("Firestore", "Status check - waiting: " + isInWaitingList +
-                                ", selected: " + isSelected +
-                                ", accepted: " + isAccepted +
-                                ", cancelled: " + isCancelled +
-                                ", declined: " + isDeclined +
-                                ", eventClosed: " + isEventClosed +
-                                ", lotteryRanAndUserSelected: " + lotteryRanAndUserSelected +
-                                ", lotteryRanAndUserNotSelected: " + lotteryRanAndUserNotSelected);
-                        
-                            // Update status message to show rejection if applicable
-                            updateStatusMessage(isEventClosed, isSelected, isAccepted, isInWaitingList, isCancelled, isDeclined);
-                            
-                            // Show/hide menu button based on registration status
-                            // Only show if user is registered (in waiting list, selected, or accepted)
-                            ImageView menuButton = findViewById(R.id.menu_button);
-                            if (menuButton != null) {
-                                boolean isRegistered = isInWaitingList || isSelected || isAccepted;
-                                menuButton.setVisibility(isRegistered ? View.VISIBLE : View.GONE);
-                            }
-                            
-                            // Show appropriate buttons based on status
-                            if (isSelected) {
-                            // User is SELECTED - show Accept/Decline buttons
-                            join_button.setVisibility(Button.GONE);
-                            leave_button.setVisibility(Button.GONE);
-                            acceptInvitationButton.setVisibility(Button.VISIBLE);
-                            declineInvitationButton.setVisibility(Button.VISIBLE);
-                            // Show "You've Been Selected!" status text
-                            if (tvSelectedStatus != null) {
-                                tvSelectedStatus.setVisibility(View.VISIBLE);
-                            }
-                            // Adjust event name margin when selected status is visible
-                            TextView eventName = findViewById(R.id.event_name);
-                            if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
-                                ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
-                                params.topMargin = (int) (4 * getResources().getDisplayMetrics().density); // 4dp
-                                eventName.setLayoutParams(params);
-                            }
-                        } else if (isAccepted && !isCancelled) {
-                            // User has ACCEPTED (and NOT cancelled) - show confirmation message
-                            join_button.setVisibility(Button.GONE);
-                            leave_button.setVisibility(Button.GONE);
-                            acceptInvitationButton.setVisibility(Button.GONE);
-                            declineInvitationButton.setVisibility(Button.GONE);
-                            // Hide selected status text
-                            if (tvSelectedStatus != null) {
-                                tvSelectedStatus.setVisibility(View.GONE);
-                            }
-                            // Reset event name margin when selected status is hidden
-                            TextView eventName = findViewById(R.id.event_name);
-                            if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
-                                ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
-                                params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
-                                eventName.setLayoutParams(params);
-                            }
-                            // Optionally show a "You're registered!" message
-                        } else if (isDeclined || isCancelled) {
-                            // User has DECLINED or CANCELLED - show Join Waitlist button to rejoin (only if event not closed)
-                            leave_button.setVisibility(Button.GONE);
-                            if (isEventClosed) {
-                                join_button.setVisibility(Button.GONE);
-                            } else {
-                                // Check waiting list limit
-                                Boolean limitWaitingList = documentSnapshot.getBoolean("limitWaitingList");
-                                boolean isLimitEnabled = (limitWaitingList != null && limitWaitingList);
-                                boolean canJoin = true;
-                                
-                                if (isLimitEnabled) {
-                                    Long waitingListSizeLong = documentSnapshot.getLong("waitingListSize");
-                                    int waitingListLimit = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
-                                    
-                                    // If limit is 0 or not set, treat as infinite (no limit)
-                                    if (waitingListLimit > 0) {
-                                        int currentWaitingListSize = (waitingListEntrantIds != null) ? waitingListEntrantIds.size() : 0;
-                                        if (currentWaitingListSize >= waitingListLimit) {
-                                            canJoin = false;
-                                        }
-                                    }
-                                }
-                                
-                                if (!canJoin) {
-                                    join_button.setVisibility(Button.GONE);
-                                } else {
-                                    join_button.setVisibility(Button.VISIBLE);
-                                    // Disable button if registration hasn't opened yet
-                                    join_button.setEnabled(isRegistrationOpen);
-                                    // Update button text and background color based on registration status
-                                    if (!isRegistrationOpen) {
-                                        join_button.setText("Registration is not open");
-                                        join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
-                                                ContextCompat.getColor(this, R.color.medium_grey)));
-                                    } else {
-                                        join_button.setText("Join Waiting List");
-                                        join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
-                                                ContextCompat.getColor(this, R.color.selected_tab_color)));
-                                    }
-                                }
-                            }
-                            acceptInvitationButton.setVisibility(Button.GONE);
-                            declineInvitationButton.setVisibility(Button.GONE);
-                            // Hide selected status text
-                            if (tvSelectedStatus != null) {
-                                tvSelectedStatus.setVisibility(View.GONE);
-                            }
-                            // Reset event name margin when selected status is hidden
-                            TextView eventName = findViewById(R.id.event_name);
-                            if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
-                                ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
-                                params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
-                                eventName.setLayoutParams(params);
-                            }
-                        } else if (isInWaitingList) {
-                            // User is in waiting list - show Leave button (only if lottery hasn't run or user wasn't selected)
-                            join_button.setVisibility(Button.GONE);
-                            if (lotteryRanAndUserSelected) {
-                                // Cannot leave if lottery ran and user was selected
-                                leave_button.setVisibility(Button.GONE);
-                            } else {
-                                leave_button.setVisibility(Button.VISIBLE);
-                            }
-                            acceptInvitationButton.setVisibility(Button.GONE);
-                            declineInvitationButton.setVisibility(Button.GONE);
-                            // Hide selected status text
-                            if (tvSelectedStatus != null) {
-                                tvSelectedStatus.setVisibility(View.GONE);
-                            }
-                            // Reset event name margin when selected status is hidden
-                            TextView eventName = findViewById(R.id.event_name);
-                            if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
-                                ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
-                                params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
-                                eventName.setLayoutParams(params);
-                            }
-                        } else {
-                            // User is NOT enrolled - show Join button (only if event is not closed and waiting list not full)
-                            if (isEventClosed) {
-                                join_button.setVisibility(Button.GONE);
-                            } else {
-                                // Check waiting list limit
-                                Boolean limitWaitingList = documentSnapshot.getBoolean("limitWaitingList");
-                                boolean isLimitEnabled = (limitWaitingList != null && limitWaitingList);
-                                boolean canJoin = true;
-                                
-                                if (isLimitEnabled) {
-                                    Long waitingListSizeLong = documentSnapshot.getLong("waitingListSize");
-                                    int waitingListLimit = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
-                                    
-                                    // If limit is 0 or not set, treat as infinite (no limit)
-                                    if (waitingListLimit > 0) {
-                                        int currentWaitingListSize = (waitingListEntrantIds != null) ? waitingListEntrantIds.size() : 0;
-                                        if (currentWaitingListSize >= waitingListLimit) {
-                                            canJoin = false;
-                                        }
-                                    }
-                                }
-                                
-                                // Show button but disable it if registration hasn't opened yet
-                                // Hide button if waitlist is full
-                                if (!canJoin) {
-                                    join_button.setVisibility(Button.GONE);
-                                } else {
-                                    join_button.setVisibility(Button.VISIBLE);
-                                    // Disable button if registration hasn't opened yet
-                                    join_button.setEnabled(isRegistrationOpen);
-                                    // Update button text and background color based on registration status
-                                    if (!isRegistrationOpen) {
-                                        join_button.setText("Registration is not open");
-                                        // Set button background to grey when registration is not open
-                                        join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
-                                                ContextCompat.getColor(this, R.color.medium_grey)));
-                                    } else {
-                                        join_button.setText("Join Waiting List");
-                                        // Set button background to purple when registration is open
-                                        join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
-                                                ContextCompat.getColor(this, R.color.selected_tab_color)));
-                                    }
-                                }
-                            }
-                            leave_button.setVisibility(Button.GONE);
-                            acceptInvitationButton.setVisibility(Button.GONE);
-                            declineInvitationButton.setVisibility(Button.GONE);
-                            // Hide selected status text
-                            if (tvSelectedStatus != null) {
-                                tvSelectedStatus.setVisibility(View.GONE);
-                            }
-                            // Reset event name margin when selected status is hidden
-                            TextView eventName = findViewById(R.id.event_name);
-                            if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
-                                ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
-                                params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
-                                eventName.setLayoutParams(params);
-                            }
-                        }
+        DocumentReference eventRef = db.collection("Events").document(eventId);
+        Task<DocumentSnapshot> eventRead = forceServerRead ? eventRef.get(Source.SERVER) : eventRef.get();
+        eventRead.addOnSuccessListener(documentSnapshot -> {
+                    if (!documentSnapshot.exists()) {
+                        return;
                     }
-                    })
-                    .addOnFailureListener(e -> Log.e("Firestore", "Error reading waitlist", e));
-        } else {
-            db.collection("Events").document(eventId)
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            // Check all status arrays
-                            List<String> waitingListEntrantIds = (List<String>) documentSnapshot.get("waitingListEntrantIds");
-                            List<String> selectedEntrantIds = (List<String>) documentSnapshot.get("selectedEntrantIds");
-                            List<String> acceptedEntrantIds = (List<String>) documentSnapshot.get("acceptedEntrantIds");
-                            List<String> cancelledEntrantIds = (List<String>) documentSnapshot.get("cancelledEntrantIds");
-                            List<String> declinedEntrantIds = (List<String>) documentSnapshot.get("declinedEntrantIds");
+                    // Sharded events keep the waiting list in a subcollection, so look up
+                    // the user's entry and the list size there
+                    new WaitlistController(db).loadStatus(documentSnapshot, userId).whenComplete((waitlistStatus, e) -> {
+                        if (e != null) {
+                            Log.e("Firestore", "Error reading waitlist", e);
+                            return;
+                        }
+                        showWaitlistStatus(documentSnapshot, userId, waitlistStatus);
+                    });
+                })
+                .addOnFailureListener(e -> Log.e("Firestore", "Error reading waitlist", e));
+    }
 
-                            // Check if event is closed (registrationCloseDate has passed)
-                            Date registrationCloseDate = documentSnapshot.getDate("registrationCloseDate");
-                            Date registrationOpenDate = documentSnapshot.getDate("registrationOpenDate");
-                            Date now = new Date();
-                            boolean isEventClosed = (registrationCloseDate != null && now.after(registrationCloseDate));
-                            boolean isRegistrationOpen = (registrationOpenDate == null || now.after(registrationOpenDate) || now.equals(registrationOpenDate));
+    /**
+     * Shows the buttons and status text for the user's place in the event.
+     *
+     * @param documentSnapshot the event document
+     * @param userId the current user's ID
+     * @param waitlistStatus whether the user is waitlisted, and the waiting list size
+     */
+    private void showWaitlistStatus(DocumentSnapshot documentSnapshot, String userId, WaitlistController.Status waitlistStatus) {
+        // Check all status arrays
+        List<String> selectedEntrantIds = (List<String>) documentSnapshot.get("selectedEntrantIds");
+        List<String> acceptedEntrantIds = (List<String>) documentSnapshot.get("acceptedEntrantIds");
+        List<String> cancelledEntrantIds = (List<String>) documentSnapshot.get("cancelledEntrantIds");
+        List<String> declinedEntrantIds = (List<String>) documentSnapshot.get("declinedEntrantIds");
+
+        // Check if event is closed (registrationCloseDate has passed)
+        Date registrationCloseDate = documentSnapshot.getDate("registrationCloseDate");
+        Date registrationOpenDate = documentSnapshot.getDate("registrationOpenDate");
+        Date now = new Date();
+        boolean isEventClosed = (registrationCloseDate != null && now.after(registrationCloseDate));
+        boolean isRegistrationOpen = (registrationOpenDate == null || now.after(registrationOpenDate) || now.equals(registrationOpenDate));
 
-                            Button join_button = findViewById(R.id.join_waitlist_button);
-                            Button leave_button = findViewById(R.id.leave_waitlist_button);
+        Button join_button = findViewById(R.id.join_waitlist_button);
+        Button leave_button = findViewById(R.id.leave_waitlist_button);
 
-                            // Check user status
-                            boolean isInWaitingList = (waitingListEntrantIds != null && waitingListEntrantIds.contains(userId));
-                            boolean isSelected = (selectedEntrantIds != null && selectedEntrantIds.contains(userId));
-                            boolean isAccepted = (acceptedEntrantIds != null && acceptedEntrantIds.contains(userId));
-                            boolean isCancelled = (cancelledEntrantIds != null && cancelledEntrantIds.contains(userId));
-                            boolean isDeclined = (declinedEntrantIds != null && declinedEntrantIds.contains(userId));
+        // Check user status
+        boolean isInWaitingList = waitlistStatus.isWaiting();
+        boolean isSelected = (selectedEntrantIds != null && selectedEntrantIds.contains(userId));
+        boolean isAccepted = (acceptedEntrantIds != null && acceptedEntrantIds.contains(userId));
+        boolean isCancelled = (cancelledEntrantIds != null && cancelledEntrantIds.contains(userId));
+        boolean isDeclined = (declinedEntrantIds != null && declinedEntrantIds.contains(userId));
 
-                            // Check if lottery has run and user was selected (cannot leave waitlist)
-                            boolean lotteryRanAndUserSelected = isEventClosed && isSelected;
-                            
-                            // Check if lottery has run and user was NOT selected (rejected)
-                            boolean lotteryRanAndUserNotSelected = isEventClosed && isInWaitingList && !isSelected && !isAccepted && !isCancelled && !isDeclined;
-
-                            Log.d("Firestore", "Status check - waiting: " + isInWaitingList +
-                                    ", selected: " + isSelected +
-                                    ", accepted: " + isAccepted +
-                                    ", cancelled: " + isCancelled +
-                                    ", declined: " + isDeclined +
-                                    ", eventClosed: " + isEventClosed +
-                                    ", lotteryRanAndUserSelected: " + lotteryRanAndUserSelected +
-                                    ", lotteryRanAndUserNotSelected: " + lotteryRanAndUserNotSelected);
-                            
-                            // Update status message to show rejection if applicable
-                            updateStatusMessage(isEventClosed, isSelected, isAccepted, isInWaitingList, isCancelled, isDeclined);
-
-                            // Show/hide menu button based on registration status
-                            // Only show if user is registered (in waiting list, selected, or accepted)
-                            ImageView menuButton = findViewById(R.id.menu_button);
-                            if (menuButton != null) {
-                                boolean isRegistered = isInWaitingList || isSelected || isAccepted;
-                                menuButton.setVisibility(isRegistered ? View.VISIBLE : View.GONE);
-                            }
+        // Check if lottery has run and user was selected (cannot leave waitlist)
+        boolean lotteryRanAndUserSelected = isEventClosed && isSelected;
+        
+        // Check if lottery has run and user was NOT selected (rejected)
+        boolean lotteryRanAndUserNotSelected = isEventClosed && isInWaitingList && !isSelected && !isAccepted && !isCancelled && !isDeclined;
+
+        Log.d("Firestore", "Status check - waiting: " + isInWaitingList +
+                ", selected: " + isSelected +
+                ", accepted: " + isAccepted +
+                ", cancelled: " + isCancelled +
+                ", declined: " + isDeclined +
+                ", eventClosed: " + isEventClosed +
+                ", lotteryRanAndUserSelected: " + lotteryRanAndUserSelected +
+                ", lotteryRanAndUserNotSelected: " + lotteryRanAndUserNotSelected);
+        
+        // Update status message to show rejection if applicable
+        updateStatusMessage(isEventClosed, isSelected, isAccepted, isInWaitingList, isCancelled, isDeclined);
 
-                            // Show appropriate buttons based on status
-                            if (isSelected) {
-                                // User is SELECTED - show Accept/Decline buttons
-                                join_button.setVisibility(Button.GONE);
-                                leave_button.setVisibility(Button.GONE);
-                                acceptInvitationButton.setVisibility(Button.VISIBLE);
-                                declineInvitationButton.setVisibility(Button.VISIBLE);
-                                // Show "You've Been Selected!" status text
-                                if (tvSelectedStatus != null) {
-                                    tvSelectedStatus.setVisibility(View.VISIBLE);
-                                }
-                                // Adjust event name margin when selected status is visible
-                                TextView eventName = findViewById(R.id.event_name);
-                                if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
-                                    ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
-                                    params.topMargin = (int) (4 * getResources().getDisplayMetrics().density); // 4dp
-                                    eventName.setLayoutParams(params);
-                                }
-                            } else if (isAccepted && !isCancelled) {
-                                // User has ACCEPTED (and NOT cancelled) - show confirmation message
-                                join_button.setVisibility(Button.GONE);
-                                leave_button.setVisibility(Button.GONE);
-                                acceptInvitationButton.setVisibility(Button.GONE);
-                                declineInvitationButton.setVisibility(Button.GONE);
-                                // Hide selected status text
-                                if (tvSelectedStatus != null) {
-                                    tvSelectedStatus.setVisibility(View.GONE);
-                                }
-                                // Reset event name margin when selected status is hidden
-                                TextView eventName = findViewById(R.id.event_name);
-                                if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
-                                    ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
-                                    params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
-                                    eventName.setLayoutParams(params);
-                                }
-                                // Optionally show a "You're registered!" message
-                            } else if (isDeclined || isCancelled) {
-                                // User has DECLINED or CANCELLED - show Join Waitlist button to rejoin (only if event not closed)
-                                leave_button.setVisibility(Button.GONE);
-                                if (isEventClosed) {
-                                    join_button.setVisibility(Button.GONE);
-                                } else {
-                                    // Check waiting list limit
-                                    Boolean limitWaitingList = documentSnapshot.getBoolean("limitWaitingList");
-                                    boolean isLimitEnabled = (limitWaitingList != null && limitWaitingList);
-                                    boolean canJoin = true;
-                                    
-                                    if (isLimitEnabled) {
-                                        Long waitingListSizeLong = documentSnapshot.getLong("waitingListSize");
-                                        int waitingListLimit = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
-                                        
-                                        // If limit is 0 or not set, treat as infinite (no limit)
-                                        if (waitingListLimit > 0) {
-                                            int currentWaitingListSize = (waitingListEntrantIds != null) ? waitingListEntrantIds.size() : 0;
-                                            if (currentWaitingListSize >= waitingListLimit) {
-                                                canJoin = false;
-                                            }
-                                        }
-                                    }
-                                    
-                                    if (!canJoin) {
-                                        join_button.setVisibility(Button.GONE);
-                                    } else {
-                                        join_button.setVisibility(Button.VISIBLE);
-                                        // Disable button if registration hasn't opened yet
-                                        join_button.setEnabled(isRegistrationOpen);
-                                        // Update button text and background color based on registration status
-                                        if (!isRegistrationOpen) {
-                                            join_button.setText("Registration is not open");
-                                            join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
-                                                    ContextCompat.getColor(this, R.color.medium_grey)));
-                                        } else {
-                                            join_button.setText("Join Waiting List");
-                                            join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
-                                                    ContextCompat.getColor(this, R.color.selected_tab_color)));
-                                        }
-                                    }
-                                }
-                                acceptInvitationButton.setVisibility(Button.GONE);
-                                declineInvitationButton.setVisibility(Button.GONE);
-                                // Hide selected status text
-                                if (tvSelectedStatus != null) {
-                                    tvSelectedStatus.setVisibility(View.GONE);
-                                }
-                                // Reset event name margin when selected status is hidden
-                                TextView eventName = findViewById(R.id.event_name);
-                                if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
-                                    ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
-                                    params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
-                                    eventName.setLayoutParams(params);
-                                }
-                            } else if (isInWaitingList) {
-                                // User is in waiting list - show Leave button (only if lottery hasn't run or user wasn't selected)
-                                join_button.setVisibility(Button.GONE);
-                                if (lotteryRanAndUserSelected) {
-                                    // Cannot leave if lottery ran and user was selected
-                                    leave_button.setVisibility(Button.GONE);
-                                } else {
-                                    leave_button.setVisibility(Button.VISIBLE);
-                                }
-                                acceptInvitationButton.setVisibility(Button.GONE);
-                                declineInvitationButton.setVisibility(Button.GONE);
-                                // Hide selected status text
-                                if (tvSelectedStatus != null) {
-                                    tvSelectedStatus.setVisibility(View.GONE);
-                                }
-                                // Reset event name margin when selected status is hidden
-                                TextView eventName = findViewById(R.id.event_name);
-                                if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
-                                    ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
-                                    params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
-                                    eventName.setLayoutParams(params);
-                                }
-                            } else {
-                                // User is NOT enrolled - show Join button (only if event is not closed and waiting list not full)
-                                if (isEventClosed) {
-                                    join_button.setVisibility(Button.GONE);
-                                } else {
-                                    // Check waiting list limit
-                                    Boolean limitWaitingList = documentSnapshot.getBoolean("limitWaitingList");
-                                    boolean isLimitEnabled = (limitWaitingList != null && limitWaitingList);
-                                    boolean canJoin = true;
-                                    
-                                    if (isLimitEnabled) {
-                                        Long waitingListSizeLong = documentSnapshot.getLong("waitingListSize");
-                                        int waitingListLimit = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
-                                        
-                                        // If limit is 0 or not set, treat as infinite (no limit)
-                                        if (waitingListLimit > 0) {
-                                            int currentWaitingListSize = (waitingListEntrantIds != null) ? waitingListEntrantIds.size() : 0;
-                                            if (currentWaitingListSize >= waitingListLimit) {
-                                                canJoin = false;
-                                            }
-                                        }
-                                    }
-                                    
-                                    // Show button but disable it if registration hasn't opened yet
-                                    // Hide button if waitlist is full
-                                    if (!canJoin) {
-                                        join_button.setVisibility(Button.GONE);
-                                    } else {
-                                        join_button.setVisibility(Button.VISIBLE);
-                                        // Disable button if registration hasn't opened yet
-                                        join_button.setEnabled(isRegistrationOpen);
-                                        // Update button text and background color based on registration status
-                                        if (!isRegistrationOpen) {
-                                            join_button.setText("Registration is not open");
-                                            // Set button background to grey when registration is not open
-                                            join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
-                                                    ContextCompat.getColor(this, R.color.medium_grey)));
-                                        } else {
-                                            join_button.setText("Join Waiting List");
-                                            // Set button background to purple when registration is open
-                                            join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
-                                                    ContextCompat.getColor(this, R.color.selected_tab_color)));
-                                        }
-                                    }
-                                }
-                                leave_button.setVisibility(Button.GONE);
-                                acceptInvitationButton.setVisibility(Button.GONE);
-                                declineInvitationButton.setVisibility(Button.GONE);
-                                // Hide selected status text
-                                if (tvSelectedStatus != null) {
-                                    tvSelectedStatus.setVisibility(View.GONE);
-                                }
-                                // Reset event name margin when selected status is hidden
-                                TextView eventName = findViewById(R.id.event_name);
-                                if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
-                                    ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
-                                    params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
-                                    eventName.setLayoutParams(params);
-                                }
-                            }
+        // Show/hide menu button based on registration status
+        // Only show if user is registered (in waiting list, selected, or accepted)
+        ImageView menuButton = findViewById(R.id.menu_button);
+        if (menuButton != null) {
+            boolean isRegistered = isInWaitingList || isSelected || isAccepted;
+            menuButton.setVisibility(isRegistered ? View.VISIBLE : View.GONE);
+        }
+
+        // Show appropriate buttons based on status
+        if (isSelected) {
+            // User is SELECTED - show Accept/Decline buttons
+            join_button.setVisibility(Button.GONE);
+            leave_button.setVisibility(Button.GONE);
+            acceptInvitationButton.setVisibility(Button.VISIBLE);
+            declineInvitationButton.setVisibility(Button.VISIBLE);
+            // Show "You've Been Selected!" status text
+            if (tvSelectedStatus != null) {
+                tvSelectedStatus.setVisibility(View.VISIBLE);
+            }
+            // Adjust event name margin when selected status is visible
+            TextView eventName = findViewById(R.id.event_name);
+            if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
+                ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
+                params.topMargin = (int) (4 * getResources().getDisplayMetrics().density); // 4dp
+                eventName.setLayoutParams(params);
+            }
+        } else if (isAccepted && !isCancelled) {
+            // User has ACCEPTED (and NOT cancelled) - show confirmation message
+            join_button.setVisibility(Button.GONE);
+            leave_button.setVisibility(Button.GONE);
+            acceptInvitationButton.setVisibility(Button.GONE);
+            declineInvitationButton.setVisibility(Button.GONE);
+            // Hide selected status text
+            if (tvSelectedStatus != null) {
+                tvSelectedStatus.setVisibility(View.GONE);
+            }
+            // Reset event name margin when selected status is hidden
+            TextView eventName = findViewById(R.id.event_name);
+            if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
+                ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
+                params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
+                eventName.setLayoutParams(params);
+            }
+            // Optionally show a "You're registered!" message
+        } else if (isDeclined || isCancelled) {
+            // User has DECLINED or CANCELLED - show Join Waitlist button to rejoin (only if event not closed)
+            leave_button.setVisibility(Button.GONE);
+            if (isEventClosed) {
+                join_button.setVisibility(Button.GONE);
+            } else {
+                // Check waiting list limit
+                Boolean limitWaitingList = documentSnapshot.getBoolean("limitWaitingList");
+                boolean isLimitEnabled = (limitWaitingList != null && limitWaitingList);
+                boolean canJoin = true;
+                
+                if (isLimitEnabled) {
+                    Long waitingListSizeLong = documentSnapshot.getLong("waitingListSize");
+                    int waitingListLimit = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
+                    
+                    // If limit is 0 or not set, treat as infinite (no limit)
+                    if (waitingListLimit > 0) {
+                        int currentWaitingListSize = waitlistStatus.getSize();
+                        if (currentWaitingListSize >= waitingListLimit) {
+                            canJoin = false;
                         }
-                    })
-                    .addOnFailureListener(e -> Log.e("Firestore", "Error reading waitlist", e));
+                    }
+                }
+                
+                if (!canJoin) {
+                    join_button.setVisibility(Button.GONE);
+                } else {
+                    join_button.setVisibility(Button.VISIBLE);
+                    // Disable button if registration hasn't opened yet
+                    join_button.setEnabled(isRegistrationOpen);
+                    // Update button text and background color based on registration status
+                    if (!isRegistrationOpen) {
+                        join_button.setText("Registration is not open");
+                        join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
+                                ContextCompat.getColor(this, R.color.medium_grey)));
+                    } else {
+                        join_button.setText("Join Waiting List");
+                        join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
+                                ContextCompat.getColor(this, R.color.selected_tab_color)));
+                    }
+                }
+            }
+            acceptInvitationButton.setVisibility(Button.GONE);
+            declineInvitationButton.setVisibility(Button.GONE);
+            // Hide selected status text
+            if (tvSelectedStatus != null) {
+                tvSelectedStatus.setVisibility(View.GONE);
+            }
+            // Reset event name margin when selected status is hidden
+            TextView eventName = findViewById(R.id.event_name);
+            if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
+                ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
+                params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
+                eventName.setLayoutParams(params);
+            }
+        } else if (isInWaitingList) {
+            // User is in waiting list - show Leave button (only if lottery hasn't run or user wasn't selected)
+            join_button.setVisibility(Button.GONE);
+            if (lotteryRanAndUserSelected) {
+                // Cannot leave if lottery ran and user was selected
+                leave_button.setVisibility(Button.GONE);
+            } else {
+                leave_button.setVisibility(Button.VISIBLE);
+            }
+            acceptInvitationButton.setVisibility(Button.GONE);
+            declineInvitationButton.setVisibility(Button.GONE);
+            // Hide selected status text
+            if (tvSelectedStatus != null) {
+                tvSelectedStatus.setVisibility(View.GONE);
+            }
+            // Reset event name margin when selected status is hidden
+            TextView eventName = findViewById(R.id.event_name);
+            if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
+                ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
+                params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
+                eventName.setLayoutParams(params);
+            }
+        } else {
+            // User is NOT enrolled - show Join button (only if event is not closed and waiting list not full)
+            if (isEventClosed) {
+                join_button.setVisibility(Button.GONE);
+            } else {
+                // Check waiting list limit
+                Boolean limitWaitingList = documentSnapshot.getBoolean("limitWaitingList");
+                boolean isLimitEnabled = (limitWaitingList != null && limitWaitingList);
+                boolean canJoin = true;
+                
+                if (isLimitEnabled) {
+                    Long waitingListSizeLong = documentSnapshot.getLong("waitingListSize");
+                    int waitingListLimit = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
+                    
+                    // If limit is 0 or not set, treat as infinite (no limit)
+                    if (waitingListLimit > 0) {
+                        int currentWaitingListSize = waitlistStatus.getSize();
+                        if (currentWaitingListSize >= waitingListLimit) {
+                            canJoin = false;
+                        }
+                    }
+                }
+                
+                // Show button but disable it if registration hasn't opened yet
+                // Hide button if waitlist is full
+                if (!canJoin) {
+                    join_button.setVisibility(Button.GONE);
+                } else {
+                    join_button.setVisibility(Button.VISIBLE);
+                    // Disable button if registration hasn't opened yet
+                    join_button.setEnabled(isRegistrationOpen);
+                    // Update button text and background color based on registration status
+                    if (!isRegistrationOpen) {
+                        join_button.setText("Registration is not open");
+                        // Set button background to grey when registration is not open
+                        join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
+                                ContextCompat.getColor(this, R.color.medium_grey)));
+                    } else {
+                        join_button.setText("Join Waiting List");
+                        // Set button background to purple when registration is open
+                        join_button.setBackgroundTintList(android.content.res.ColorStateList.valueOf(
+                                ContextCompat.getColor(this, R.color.selected_tab_color)));
+                    }
+                }
+            }
+            leave_button.setVisibility(Button.GONE);
+            acceptInvitationButton.setVisibility(Button.GONE);
+            declineInvitationButton.setVisibility(Button.GONE);
+            // Hide selected status text
+            if (tvSelectedStatus != null) {
+                tvSelectedStatus.setVisibility(View.GONE);
+            }
+            // Reset event name margin when selected status is hidden
+            TextView eventName = findViewById(R.id.event_name);
+            if (eventName != null && eventName.getLayoutParams() instanceof ConstraintLayout.LayoutParams) {
+                ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) eventName.getLayoutParams();
+                params.topMargin = (int) (16 * getResources().getDisplayMetrics().density); // 16dp
+                eventName.setLayoutParams(params);
+            }
         }
     }
+
     protected void populateUI() {
         if (eventId != null) {
             db.collection("Events").document(eventId).get()
@@ -757,7 +560,6 @@ public class EventDetailsActivity extends AppCompatActivity {
                             String name = documentSnapshot.getString("Name");
                             String cost = documentSnapshot.getString("Cost");
                             DocumentReference organizer = documentSnapshot.getDocumentReference("Organizer");
-                            String image = documentSnapshot.getString("Image");
                             String lotteryInfo = documentSnapshot.getString("LotteryInfo");
                             String description = documentSnapshot.getString("description");
                             String location = documentSnapshot.getString("location");
@@ -770,10 +572,6 @@ public class EventDetailsActivity extends AppCompatActivity {
                             Integer maxParticipants = documentSnapshot.get("maxParticipants") != null ? 
                                 documentSnapshot.getLong("maxParticipants").intValue() : 0;
                             
-                            // Get waitlist count (new system - waitingListEntrantIds)
-                            List<String> waitingListEntrantIds = (List<String>) documentSnapshot.get("waitingListEntrantIds");
-                            int waitlistSize = waitingListEntrantIds != null ? waitingListEntrantIds.size() : 0;
-                            
                             // Get selected entrants count (new system)
                             List<String> selectedEntrants = (List<String>) documentSnapshot.get("selectedEntrantIds");
                             int selectedCount = selectedEntrants != null ? selectedEntrants.size() : 0;
@@ -800,7 +598,7 @@ public class EventDetailsActivity extends AppCompatActivity {
                             
                             // Image
                             ImageView imageView = findViewById(R.id.event_poster);
-                            populateImage(image, imageView);
+                            populateImage(documentSnapshot, imageView);
                             
                             // Description
                             TextView descriptionView = findViewById(R.id.event_description);
@@ -846,20 +644,22 @@ public class EventDetailsActivity extends AppCompatActivity {
                             
                             // Status tag - show waitlist count vs waiting list size (like organizer view)
                             TextView statusTag = findViewById(R.id.event_status_tag);
-                            updateStatusTag(statusTag, documentSnapshot, waitlistSize);
-                            
                             // Registration info
                             TextView registrationInfo = findViewById(R.id.registration_info);
-                            // Check if user is in waitlist (check both old and new systems)
                             FirebaseAuth auth = FirebaseAuth.getInstance();
-                            boolean userInWaitlist = false;
-                            if (auth.getCurrentUser() != null) {
-                                String userId = auth.getCurrentUser().getUid();
-                                
-                                // Check new system (waitingListEntrantIds)
-                                if (waitingListEntrantIds != null && waitingListEntrantIds.contains(userId)) {
-                                    userInWaitlist = true;
-                                } else {
+                            String userId = (auth.getCurrentUser() != null) ? auth.getCurrentUser().getUid() : null;
+                            // Sharded events keep the waiting list in a subcollection, so its
+                            // size and the user's entry are read from there
+                            new WaitlistController(db).loadStatus(documentSnapshot, userId).whenComplete((waitlistStatus, e) -> {
+                                if (e != null) {
+                                    Log.e("EventDetails", "Error reading waitlist", e);
+                                    return;
+                                }
+                                updateStatusTag(statusTag, documentSnapshot, waitlistStatus.getSize());
+
+                                // Check if user is in waitlist (check both old and new systems)
+                                boolean userInWaitlist = waitlistStatus.isWaiting();
+                                if (!userInWaitlist && userId != null) {
                                     // Check old system (Waitlist) for backward compatibility
                                     List<DocumentReference> waitlist = (List<DocumentReference>) documentSnapshot.get("Waitlist");
                                     if (waitlist != null) {
@@ -867,8 +667,8 @@ public class EventDetailsActivity extends AppCompatActivity {
                                         userInWaitlist = waitlist.contains(user_ref);
                                     }
                                 }
-                            }
-                            updateRegistrationInfo(registrationInfo, registrationOpenDate, registrationCloseDate, userInWaitlist);
+                                updateRegistrationInfo(registrationInfo, registrationOpenDate, registrationCloseDate, userInWaitlist);
+                            });
                             
                             // Hide waitlist count
                             tvWaitlistCount.setVisibility(View.GONE);
@@ -983,27 +783,9 @@ public class EventDetailsActivity extends AppCompatActivity {
         });
     }
 
-    protected void populateImage(String base64Image, ImageView holder) {
-        if (base64Image != null && !base64Image.isEmpty()) {
-            try {
-                // Remove the "data:image/jpeg;base64," or similar prefix
-                if (base64Image.startsWith("data:image")) {
-                    base64Image = base64Image.substring(base64Image.indexOf(",") + 1);
-                }
-
-                byte[] decodedBytes = android.util.Base64.decode(base64Image, android.util.Base64.DEFAULT);
-                Bitmap bitmap = android.graphics.BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length);
-
-                holder.setImageBitmap(bitmap);
-            } catch (Exception e) {
-                Log.e("EventAdapter", "Failed to decode image: " + e.getMessage());
-                // Set placeholder if image fails to load
-                holder.setImageResource(R.drawable.event_placeholder);
-            }
-        } else {
-            // Set placeholder if no image
-            holder.setImageResource(R.drawable.event_placeholder);
-        }
+    protected void populateImage(DocumentSnapshot eventDoc, ImageView holder) {
+        // Loaded off the main thread; the placeholder shows meanwhile, or if there is no usable image
+        PosterLoader.get(this).loadPoster(eventDoc, holder, R.drawable.event_placeholder);
     }
 
     /**
@@ -1130,6 +912,11 @@ public class EventDetailsActivity extends AppCompatActivity {
                 userInWaitlist();
             }
 
+            @Override
+            public void onQueued() {
+                Toast.makeText(EventDetailsActivity.this, "You're offline. Your acceptance will be sent when you reconnect.", Toast.LENGTH_LONG).show();
+            }
+
             @Override
             public void onFailure(String error) {
                 // Re-enable buttons on error
@@ -1181,6 +968,11 @@ public class EventDetailsActivity extends AppCompatActivity {
                             userInWaitlist();
                         }
 
+                        @Override
+                        public void onQueued() {
+                            Toast.makeText(EventDetailsActivity.this, "You're offline. Your decline will be sent when you reconnect.", Toast.LENGTH_LONG).show();
+                        }
+
                         @Override
                         public void onFailure(String error) {
                             // Re-enable buttons on error
@@ -1253,136 +1045,166 @@ public class EventDetailsActivity extends AppCompatActivity {
 
         String userId = auth.getCurrentUser().getUid();
         DocumentReference eventRef = db.collection("Events").document(eventId);
+        WaitlistController waitlistController = new WaitlistController(db);
+
+        // Read the event, and the user's entry for sharded events, in the transaction that moves
+        // them, so the counter changes match the lists they are applied with.
+        db.runTransaction((Transaction.Function<DocumentSnapshot>) transaction -> {
+            DocumentSnapshot eventDoc = transaction.get(eventRef);
+            DocumentSnapshot entryDoc = WaitlistController.isSharded(eventDoc)
+                    ? transaction.get(waitlistController.entry(eventId, userId)) : null;
 
-        // Get current event data to check if user is registered and was accepted
-        eventRef.get().addOnSuccessListener(eventDoc -> {
-            List<String> waitingListIds = (List<String>) eventDoc.get("waitingListEntrantIds");
             List<String> acceptedIds = (List<String>) eventDoc.get("acceptedEntrantIds");
             List<String> selectedIds = (List<String>) eventDoc.get("selectedEntrantIds");
-            List<String> cancelledIds = (List<String>) eventDoc.get("cancelledEntrantIds");
-
-            if (waitingListIds == null) waitingListIds = new ArrayList<>();
-            if (acceptedIds == null) acceptedIds = new ArrayList<>();
-            if (selectedIds == null) selectedIds = new ArrayList<>();
-            if (cancelledIds == null) cancelledIds = new ArrayList<>();
 
             // Validate that user is actually registered (in waiting list, selected, or accepted)
-            boolean isInWaitingList = waitingListIds.contains(userId);
-            boolean isSelected = selectedIds.contains(userId);
-            boolean isAccepted = acceptedIds.contains(userId);
-            boolean isRegistered = isInWaitingList || isSelected || isAccepted;
+            boolean isInWaitingList = WaitlistController.isWaiting(eventDoc, entryDoc, userId);
+            boolean isSelected = selectedIds != null && selectedIds.contains(userId);
+            boolean isAccepted = acceptedIds != null && acceptedIds.contains(userId);
+            if (!isInWaitingList && !isSelected && !isAccepted) {
+                return null;
+            }
 
-            if (!isRegistered) {
+            // Remove from all lists and add to cancelled
+            transaction.update(eventRef,
+                    "acceptedEntrantIds", FieldValue.arrayRemove(userId),
+                    "selectedEntrantIds", FieldValue.arrayRemove(userId),
+                    "cancelledEntrantIds", FieldValue.arrayUnion(userId));
+            if (!WaitlistController.isSharded(eventDoc)) {
+                transaction.update(eventRef, WaitlistController.LEGACY_ARRAY_FIELD, FieldValue.arrayRemove(userId));
+            }
+            waitlistController.removeEntry(transaction, eventId, userId);
+            new EventCounterController(db).apply(transaction, eventId, new EventCounterController.Delta(eventDoc)
+                    .waiting(isInWaitingList ? Collections.singletonList(userId) : Collections.emptyList())
+                    .remove(userId, EventCounts.WAITING, EventCounts.ACCEPTED, EventCounts.SELECTED)
+                    .add(userId, EventCounts.CANCELLED));
+            return eventDoc;
+        }).addOnSuccessListener(eventDoc -> {
+            if (eventDoc == null) {
                 Toast.makeText(this, "You are not registered for this event.", Toast.LENGTH_SHORT).show();
                 Log.w("EventDetails", "User attempted to cancel registration but is not registered. userId: " + userId);
                 return;
             }
+            onRegistrationCancelled(eventDoc, userId);
+        }).addOnFailureListener(e -> {
+            Log.e("EventDetails", "Error cancelling registration", e);
+            Toast.makeText(this, "Error cancelling registration: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        });
+    }
 
-            // Check if user was accepted (to send notification)
-            boolean wasAccepted = isAccepted;
-
-            // Remove from all lists
-            waitingListIds.remove(userId);
-            acceptedIds.remove(userId);
-            selectedIds.remove(userId);
-
-            // Add to cancelled if not already there
-            if (!cancelledIds.contains(userId)) {
-                cancelledIds.add(userId);
-            }
+    /**
+     * Updates the UI after a cancellation and notifies the organizer if the user had accepted.
+     *
+     * @param eventDoc the event document as it was read before the cancellation
+     * @param userId the current user's ID
+     */
+    private void onRegistrationCancelled(DocumentSnapshot eventDoc, String userId) {
+        DocumentReference eventRef = eventDoc.getReference();
+        List<String> acceptedIds = (List<String>) eventDoc.get("acceptedEntrantIds");
+        boolean wasAccepted = acceptedIds != null && acceptedIds.contains(userId);
 
-            // Update Firestore
-            eventRef.update(
-                    "waitingListEntrantIds", waitingListIds,
-                    "acceptedEntrantIds", acceptedIds,
-                    "selectedEntrantIds", selectedIds,
-                    "cancelledEntrantIds", cancelledIds
-            ).addOnSuccessListener(aVoid -> {
-                Toast.makeText(this, "You've cancelled your registration for this event.", Toast.LENGTH_SHORT).show();
-                
-                // Send notification to organizer only if user was accepted
-                if (wasAccepted) {
-                    // Get organizer ID
-                    String organizerId = null;
-                    DocumentReference organizerRef = eventDoc.getDocumentReference("Organizer");
-                    if (organizerRef != null) {
-                        String path = organizerRef.getPath();
-                        if (path != null && path.contains("/users/")) {
-                            organizerId = path.substring(path.lastIndexOf("/") + 1);
-                        } else if (path != null) {
-                            String[] parts = path.split("/");
-                            for (int i = 0; i < parts.length - 1; i++) {
-                                if (parts[i].equals("users") && i + 1 < parts.length) {
-                                    organizerId = parts[i + 1];
-                                    break;
-                                }
-                            }
+        Toast.makeText(this, "You've cancelled your registration for this event.", Toast.LENGTH_SHORT).show();
+        
+        // Send notification to organizer only if user was accepted
+        if (wasAccepted) {
+            // Get organizer ID
+            String organizerId = null;
+            DocumentReference organizerRef = eventDoc.getDocumentReference("Organizer");
+            if (organizerRef != null) {
+                String path = organizerRef.getPath();
+                if (path != null && path.contains("/users/")) {
+                    organizerId = path.substring(path.lastIndexOf("/") + 1);
+                } else if (path != null) {
+                    String[] parts = path.split("/");
+                    for (int i = 0; i < parts.length - 1; i++) {
+                        if (parts[i].equals("users") && i + 1 < parts.length) {
+                            organizerId = parts[i + 1];
+                            break;
                         }
                     }
-                    if (organizerId == null || organizerId.isEmpty()) {
-                        organizerId = eventDoc.getString("organizerId");
-                    }
-
-                    // Make final copy for use in lambda
-                    final String finalOrganizerId = organizerId;
+                }
+            }
+            if (organizerId == null || organizerId.isEmpty()) {
+                organizerId = eventDoc.getString("organizerId");
+            }
 
-                    if (finalOrganizerId != null && !finalOrganizerId.isEmpty()) {
-                        // Get event name and user name for notification
-                        String eventNameRaw = eventDoc.getString("Name");
-                        if (eventNameRaw == null || eventNameRaw.isEmpty()) {
-                            eventNameRaw = eventDoc.getString("title");
-                        }
-                        final String eventName = (eventNameRaw != null && !eventNameRaw.isEmpty()) ? eventNameRaw : "your event";
+            // Make final copy for use in lambda
+            final String finalOrganizerId = organizerId;
 
-                        db.collection("users").document(userId).get().addOnSuccessListener(userDoc -> {
-                            String userNameRaw = userDoc.getString("Name");
-                            if (userNameRaw == null || userNameRaw.isEmpty()) {
-                                userNameRaw = userDoc.getString("name");
-                            }
-                            final String userName = (userNameRaw != null && !userNameRaw.isEmpty()) ? userNameRaw : "An entrant";
-
-                            String notificationMessage = userName + " has cancelled their registration for " + eventName + ".";
-
-                            // Create notification for organizer
-                            Map<String, Object> notification = new HashMap<>();
-                            notification.put("UserId", finalOrganizerId);
-                            notification.put("EventId", eventRef);
-                            notification.put("Type", "entrant_cancelled");
-                            notification.put("Message", notificationMessage);
-                            notification.put("TimeStamp", new java.util.Date().toString());
-                            notification.put("Read", false);
-                            notification.put("UserType", "organizer");
-
-                            db.collection("Notifications").add(notification)
-                                    .addOnSuccessListener(ref -> Log.d("EventDetails", "Organizer notified about cancellation: " + ref.getId()))
-                                    .addOnFailureListener(e -> Log.e("EventDetails", "Error notifying organizer", e));
-                        }).addOnFailureListener(e -> {
-                            Log.e("EventDetails", "Error getting user document for notification", e);
-                            // Still notify with fallback message
-                            String fallbackMessage = "An entrant has cancelled their registration for " + eventName + ".";
-                            Map<String, Object> notification = new HashMap<>();
-                            notification.put("UserId", finalOrganizerId);
-                            notification.put("EventId", eventRef);
-                            notification.put("Type", "entrant_cancelled");
-                            notification.put("Message", fallbackMessage);
-                            notification.put("TimeStamp", new java.util.Date().toString());
-                            notification.put("Read", false);
-                            notification.put("UserType", "organizer");
-                            db.collection("Notifications").add(notification);
-                        });
-                    }
+            if (finalOrganizerId != null && !finalOrganizerId.isEmpty()) {
+                // Get event name and user name for notification
+                String eventNameRaw = eventDoc.getString("Name");
+                if (eventNameRaw == null || eventNameRaw.isEmpty()) {
+                    eventNameRaw = eventDoc.getString("title");
                 }
+                final String eventName = (eventNameRaw != null && !eventNameRaw.isEmpty()) ? eventNameRaw : "your event";
+                // Keyed by entrant and lottery round so a repeated cancel doesn't notify twice
+                Long lotteryRound = eventDoc.getLong("lotteryRound");
+                final String notificationId = NotificationIds.of(eventId, finalOrganizerId, "entrant_cancelled",
+                        userId, (lotteryRound != null) ? lotteryRound : 0L);
+
+                db.collection("users").document(userId).get().addOnSuccessListener(userDoc -> {
+                    String userNameRaw = userDoc.getString("Name");
+                    if (userNameRaw == null || userNameRaw.isEmpty()) {
+                        userNameRaw = userDoc.getString("name");
+                    }
+                    final String userName = (userNameRaw != null && !userNameRaw.isEmpty()) ? userNameRaw : "An entrant";
+
+                    String notificationMessage = userName + " has cancelled their registration for " + eventName + ".";
+
+                    // Create notification for organizer
+                    Map<String, Object> notification = new HashMap<>();
+                    notification.put("UserId", finalOrganizerId);
+                    notification.put("EventId", eventRef);
+                    EventSummary.addTo(notification, eventDoc);
+                    notification.put("Type", "entrant_cancelled");
+                    notification.put("Message", notificationMessage);
+                    notification.put("TimeStamp", new java.util.Date());
+                    notification.put("Read", false);
+                    notification.put("UserType", "organizer");
+
+                    createOrganizerNotification(notificationId, finalOrganizerId, notification);
+                }).addOnFailureListener(e -> {
+                    Log.e("EventDetails", "Error getting user document for notification", e);
+                    // Still notify with fallback message
+                    String fallbackMessage = "An entrant has cancelled their registration for " + eventName + ".";
+                    Map<String, Object> notification = new HashMap<>();
+                    notification.put("UserId", finalOrganizerId);
+                    notification.put("EventId", eventRef);
+                    EventSummary.addTo(notification, eventDoc);
+                    notification.put("Type", "entrant_cancelled");
+                    notification.put("Message", fallbackMessage);
+                    notification.put("TimeStamp", new java.util.Date());
+                    notification.put("Read", false);
+                    notification.put("UserType", "organizer");
+                    createOrganizerNotification(notificationId, finalOrganizerId, notification);
+                });
+            }
+        }
 
-                // Update UI immediately
-                updateStatusMessage(false, false, false, false, true, false);
-                userInWaitlist();
-            }).addOnFailureListener(e -> {
-                Log.e("EventDetails", "Error cancelling registration", e);
-                Toast.makeText(this, "Error cancelling registration: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            });
-        }).addOnFailureListener(e -> {
-            Log.e("EventDetails", "Error loading event data", e);
-            Toast.makeText(this, "Error loading event data", Toast.LENGTH_SHORT).show();
-        });
+        // Update UI immediately
+        updateStatusMessage(false, false, false, false, true, false);
+        userInWaitlist();
+    }
+
+    /**
+     * Creates the organizer's cancellation notice and counts it unread, unless a notice with
+     * the same ID already exists, so a repeated cancel neither overwrites nor recounts it.
+     *
+     * @param notificationId the deterministic notification ID
+     * @param organizerId the organizer's user ID
+     * @param notification the notification fields
+     */
+    private void createOrganizerNotification(String notificationId, String organizerId, Map<String, Object> notification) {
+        DocumentReference notificationRef = db.collection("Notifications").document(notificationId);
+        db.runTransaction((Transaction.Function<Void>) transaction -> {
+            if (!transaction.get(notificationRef).exists()) {
+                transaction.set(notificationRef, notification);
+                UnreadCounter.add(transaction, db, organizerId, 1);
+            }
+            return null;
+        })
+                .addOnSuccessListener(aVoid -> Log.d("EventDetails", "Organizer notified about cancellation: " + notificationId))
+                .addOnFailureListener(e -> Log.e("EventDetails", "Error notifying organizer", e));
     }
 }
\ No newline at end of file
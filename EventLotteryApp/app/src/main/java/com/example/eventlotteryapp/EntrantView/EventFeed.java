@@ -0,0 +1,259 @@
+package com.example.eventlotteryapp.EntrantView;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Pages through the events shown on the discovery screen, ordered by start date, so
+ * opening the screen reads one page of events however many there are.
+ *
+ * Each page is read once with {@code limit}/{@code startAfter}, which fixes the range of
+ * start dates it covers. Pages near what the user is looking at are then kept up to date
+ * with a listener on exactly that range, so an event created, changed or deleted inside
+ * it shows up in the right place without pages overlapping. Listeners on pages the user
+ * has scrolled away from are removed. The last page is left open-ended once there are no
+ * more events, so new events at the end still appear.
+ *
+ * By default only events whose registration has not closed are shown.
+ *
+ * @author Droids Team
+ */
+public class EventFeed {
+    private static final String TAG = "EventFeed";
+
+    /** Number of events read per page. */
+    public static final int PAGE_SIZE = 20;
+
+    /** How close to the end of the list the user gets before the next page is read. */
+    public static final int PREFETCH_DISTANCE = 6;
+
+    /** Number of pages either side of the visible ones that are kept up to date. */
+    private static final int LIVE_MARGIN = 1;
+
+    /** Told the events currently loaded, in order, whenever they change. */
+    public interface Listener {
+        void onEvents(List<EventItem> events);
+    }
+
+    /** One page of events and the listener keeping it up to date, if it has one. */
+    private static class Page {
+        List<EventItem> items = new ArrayList<>();
+        DocumentSnapshot last;
+        boolean openEnded;
+        ListenerRegistration registration;
+    }
+
+    private final FirebaseFirestore db;
+    private final boolean openOnly;
+    private final Listener listener;
+    private final Date now = new Date();
+    private final List<Page> pages = new ArrayList<>();
+
+    private boolean loading;
+    private boolean exhausted;
+    private boolean stopped;
+    private int firstVisiblePage;
+    private int lastVisiblePage;
+
+    /**
+     * Constructs an EventFeed.
+     *
+     * @param db the Firestore instance holding the events
+     * @param openOnly true to show only events whose registration has not closed
+     * @param listener told the loaded events whenever they change
+     */
+    public EventFeed(FirebaseFirestore db, boolean openOnly, Listener listener) {
+        this.db = db;
+        this.openOnly = openOnly;
+        this.listener = listener;
+    }
+
+    private Query base() {
+        Query query = db.collection("Events");
+        if (openOnly) {
+            // Needs a composite index on eventStartDate and registrationCloseDate
+            query = query.whereGreaterThan("registrationCloseDate", now);
+        }
+        return query.orderBy("eventStartDate");
+    }
+
+    /**
+     * Reads the next page, unless one is already being read or there are no more events.
+     */
+    public void loadNextPage() {
+        if (loading || exhausted || stopped) {
+            return;
+        }
+        loading = true;
+        Query query = base().limit(PAGE_SIZE);
+        Page previous = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        if (previous != null) {
+            query = query.startAfter(previous.last);
+        }
+        query.get().addOnSuccessListener(snapshot -> {
+            loading = false;
+            if (stopped) {
+                return;
+            }
+            List<DocumentSnapshot> docs = snapshot.getDocuments();
+            exhausted = docs.size() < PAGE_SIZE;
+            if (docs.isEmpty()) {
+                if (previous != null) {
+                    // Reopen the last page so events added after it still appear
+                    previous.openEnded = true;
+                    relisten(pages.size() - 1);
+                } else {
+                    Page empty = new Page();
+                    empty.openEnded = true;
+                    pages.add(empty);
+                    relisten(0);
+                }
+                publish();
+                return;
+            }
+
+            Page page = new Page();
+            page.items = toItems(docs);
+            page.last = docs.get(docs.size() - 1);
+            page.openEnded = exhausted;
+            pages.add(page);
+            // The user is at the end of the list, which is where the new page goes
+            lastVisiblePage = pages.size() - 1;
+            firstVisiblePage = Math.min(firstVisiblePage, lastVisiblePage);
+            updateListeners();
+            publish();
+        }).addOnFailureListener(e -> {
+            loading = false;
+            Log.e(TAG, "Error loading events", e);
+        });
+    }
+
+    /**
+     * Tells the feed which events are on screen, so it reads the next page when the user
+     * nears the end and only keeps nearby pages up to date.
+     *
+     * @param firstVisible the first event on screen, or null if none
+     * @param lastVisible the last event on screen, or null if none
+     * @param remaining how many events are listed after the last one on screen
+     */
+    public void onVisibleRange(EventItem firstVisible, EventItem lastVisible, int remaining) {
+        int first = pageOf(firstVisible);
+        int last = pageOf(lastVisible);
+        if (first != -1 && last != -1 && (first != firstVisiblePage || last != lastVisiblePage)) {
+            firstVisiblePage = first;
+            lastVisiblePage = last;
+            updateListeners();
+        }
+        if (remaining <= PREFETCH_DISTANCE) {
+            loadNextPage();
+        }
+    }
+
+    /**
+     * Tells whether every page has been read.
+     *
+     * @return true if there are no more events to read
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Removes every listener and stops reading pages. Call when the screen goes away.
+     */
+    public void stop() {
+        stopped = true;
+        for (Page page : pages) {
+            if (page.registration != null) {
+                page.registration.remove();
+                page.registration = null;
+            }
+        }
+    }
+
+    private int pageOf(EventItem event) {
+        if (event == null) {
+            return -1;
+        }
+        for (int i = 0; i < pages.size(); i++) {
+            if (pages.get(i).items.contains(event)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Listens to the pages near the visible ones, and stops listening to the rest. */
+    private void updateListeners() {
+        for (int i = 0; i < pages.size(); i++) {
+            boolean live = i >= firstVisiblePage - LIVE_MARGIN && i <= lastVisiblePage + LIVE_MARGIN;
+            Page page = pages.get(i);
+            if (live && page.registration == null) {
+                listen(i);
+            } else if (!live && page.registration != null) {
+                page.registration.remove();
+                page.registration = null;
+            }
+        }
+    }
+
+    private void relisten(int index) {
+        Page page = pages.get(index);
+        if (page.registration != null) {
+            page.registration.remove();
+            page.registration = null;
+        }
+        listen(index);
+    }
+
+    /** Listens to the range of start dates a page covers: after the previous page, up to its own last event. */
+    private void listen(int index) {
+        Page page = pages.get(index);
+        Query query = base();
+        if (index > 0) {
+            query = query.startAfter(pages.get(index - 1).last);
+        }
+        if (!page.openEnded) {
+            query = query.endAt(page.last);
+        }
+        page.registration = query.addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Error listening for events", e);
+                return;
+            }
+            if (snapshot == null || stopped) {
+                return;
+            }
+            page.items = toItems(snapshot.getDocuments());
+            publish();
+        });
+    }
+
+    private static List<EventItem> toItems(List<DocumentSnapshot> docs) {
+        List<EventItem> items = new ArrayList<>();
+        for (DocumentSnapshot doc : docs) {
+            EventItem event = doc.toObject(EventItem.class);
+            if (event != null) {
+                event.setId(doc.getId());
+                items.add(event);
+            }
+        }
+        return items;
+    }
+
+    private void publish() {
+        List<EventItem> events = new ArrayList<>();
+        for (Page page : pages) {
+            events.addAll(page.items);
+        }
+        listener.onEvents(events);
+    }
+}
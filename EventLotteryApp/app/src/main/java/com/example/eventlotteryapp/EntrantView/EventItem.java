@@ -6,7 +6,7 @@ import java.util.Date;
 
 /**
  * Represents an event item for display in entrant views.
- * Contains event information including name, cost, organizer, dates, and images.
+ * Contains event information including name, cost, organizer, dates, and the poster version.
  * This class is used for Firestore deserialization and display in RecyclerViews.
  * 
  * @author Droids Team
@@ -24,8 +24,8 @@ public class EventItem {
     /** The cost of the event as a formatted string (e.g., "$10.00" or "Free"). */
     private String Cost;
     
-    /** The event poster image as a base64-encoded string. */
-    private String Image;
+    /** The version of the event's poster in EventImages, or null if it has none. */
+    private String PosterVersion;
     
     /** The date and time when the event starts. */
     private Date eventStartDate;
@@ -45,6 +45,9 @@ public class EventItem {
     /** A detailed description of the event. */
     private String description;
 
+    /** Where the event takes place. */
+    private String location;
+
     /**
      * Default constructor required for Firestore deserialization.
      */
@@ -79,12 +82,12 @@ public class EventItem {
     }
 
     /**
-     * Gets the event poster image as a base64-encoded string.
+     * Gets the version of the event's poster, which is stored in its own image documents.
      * 
-     * @return the base64-encoded image string, or null if no image
+     * @return the poster version, or null if no poster
      */
-    public String getImage() {
-        return Image;
+    public String getPosterVersion() {
+        return PosterVersion;
     }
     
     /**
@@ -110,6 +113,15 @@ public class EventItem {
         return description;
     }
     
+    /**
+     * Gets where the event takes place.
+     * 
+     * @return the event location, or null if not set
+     */
+    public String getLocation() {
+        return location;
+    }
+    
     /**
      * Gets the event start date and time.
      * 
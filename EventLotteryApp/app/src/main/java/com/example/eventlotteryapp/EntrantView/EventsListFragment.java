@@ -12,7 +12,6 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
@@ -26,23 +25,21 @@ import android.widget.TextView;
 import com.example.eventlotteryapp.R;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
- * A fragment representing a list of Items. Load the event from the database
- * and display it in a RecyclerView.
+ * A fragment representing a list of Items. Load the events from the database
+ * a page at a time and display them in a RecyclerView.
  */
 public class EventsListFragment extends Fragment {
 
     private static final String ARG_COLUMN_COUNT = "column-count";
     private int mColumnCount = 1;
     private EventsListRecyclerViewAdapter adapter; // Adapter is now a fragment field
+    private EventFeed feed;
 
     /**
      * Mandatory empty constructor for the fragment manager to instantiate the
@@ -100,12 +97,24 @@ public class EventsListFragment extends Fragment {
 
         setupSearchBar(searchBar, adapter);
 
-        loadEventsFromFirestore(adapter, progressBar);
+        loadEventsFromFirestore(recyclerView, adapter, progressBar);
         setupFilters(view, adapter);
 
         return view;
     }
 
+    /**
+     * Stops listening for events once the view is gone.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (feed != null) {
+            feed.stop();
+            feed = null;
+        }
+    }
+
     /**
      * Setup RecyclerView with GridLayoutManager and Adapter
      */
@@ -153,6 +162,7 @@ public class EventsListFragment extends Fragment {
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 adapter.filter(s.toString());
+                loadRestIfFiltered(adapter);
             }
 
             @Override
@@ -177,32 +187,50 @@ public class EventsListFragment extends Fragment {
     }
 
     /**
-     * Load events from Firestore and update adapter
+     * Load open events from Firestore a page at a time and update adapter,
+     * reading the next page as the user scrolls near the end of the grid,
+     * or straight away while a search or filter is narrowing the list
      */
-    private void loadEventsFromFirestore(EventsListRecyclerViewAdapter adapter, ProgressBar progressBar) {
+    private void loadEventsFromFirestore(RecyclerView recyclerView, EventsListRecyclerViewAdapter adapter, ProgressBar progressBar) {
         progressBar.setVisibility(View.VISIBLE);
 
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        db.collection("Events")
-                .addSnapshotListener((queryDocumentSnapshots, e) -> {
-                    progressBar.setVisibility(View.GONE);
-
-                    if (e != null) {
-                        Log.e("Firestore", "Error loading events", e);
-                        return;
-                    }
-
-                    if (queryDocumentSnapshots != null) {
-                        List<EventItem> newEvents = new ArrayList<>();
-                        for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                            EventItem event = doc.toObject(EventItem.class);
-                            event.setId(doc.getId());
-                            newEvents.add(event);
-                        }
-                        adapter.updateList(newEvents);
-                    }
-                });
+        feed = new EventFeed(FirebaseFirestore.getInstance(), true, events -> {
+            progressBar.setVisibility(View.GONE);
+            adapter.updateList(events);
+            loadRestIfFiltered(adapter);
+        });
+        feed.loadNextPage();
+
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (feed == null) {
+                    return;
+                }
+                GridLayoutManager layoutManager = (GridLayoutManager) recyclerView.getLayoutManager();
+                List<EventItem> shown = adapter.getFilteredList();
+                int first = layoutManager.findFirstVisibleItemPosition();
+                int last = layoutManager.findLastVisibleItemPosition();
+                if (first == RecyclerView.NO_POSITION || last >= shown.size()) {
+                    return;
+                }
+                feed.onVisibleRange(shown.get(first), shown.get(last), shown.size() - 1 - last);
+            }
+        });
     }
+
+    /**
+     * While a search or filter is active, keeps reading pages until the feed runs out. A
+     * filtered list can be too short to scroll, so waiting for the user to near its end
+     * would leave matching events in pages that are never read. Each page that arrives
+     * calls this again through the feed's listener.
+     */
+    private void loadRestIfFiltered(EventsListRecyclerViewAdapter adapter) {
+        if (feed != null && !feed.isExhausted() && adapter.isFiltered()) {
+            feed.loadNextPage();
+        }
+    }
+
     private void setupFilters(View root, EventsListRecyclerViewAdapter adapter) {
         MaterialButton allBtn = root.findViewById(R.id.all_filter);
         MaterialButton sportsBtn = root.findViewById(R.id.sports_filter);
@@ -221,6 +249,7 @@ public class EventsListFragment extends Fragment {
             // update adapter
             String category = (String) selected.getTag(); // we'll set tags in XML
             adapter.applyCategoryFilter(category);
+            loadRestIfFiltered(adapter);
 
             // update button styles
             updateFilterButtonStyles(buttons, selected);
@@ -302,6 +331,7 @@ public class EventsListFragment extends Fragment {
                 requireContext(),
                 (year, month, dayOfMonth) -> {
                     adapter.applyDateFilter(year, month, dayOfMonth);
+                    loadRestIfFiltered(adapter);
                 },
                 today,
                 today // min date
@@ -1,6 +1,7 @@
 package com.example.eventlotteryapp.EntrantView;
 
-import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -10,20 +11,36 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.eventlotteryapp.Helpers.ListDiffer;
+import com.example.eventlotteryapp.Helpers.PosterImages;
+import com.example.eventlotteryapp.Helpers.PosterLoader;
+import com.example.eventlotteryapp.Helpers.SearchIndex;
 import com.example.eventlotteryapp.R;
 import com.google.firebase.firestore.DocumentReference;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RecyclerView adapter for displaying a list of events in the EventsListFragment.
  * Supports filtering by search query, category, and date. Maintains separate lists
- * for original events and filtered events. Handles asynchronous loading of organizer
- * names and event images from Firestore.
+ * for original events and filtered events; changes to the filtered list are diffed in
+ * the background so only changed rows, and only their changed fields, are rebound.
+ * Searches run against a {@link SearchIndex} on a background thread, once typing pauses,
+ * and the index is updated with only the events that changed whenever the list updates.
+ * Handles asynchronous loading of organizer names and event images from Firestore.
  * 
  * @author Droids Team
  */
@@ -43,17 +60,81 @@ public class EventsListRecyclerViewAdapter extends RecyclerView.Adapter<EventsLi
     /** The complete list of all events (unfiltered). */
     protected final List<EventItem> originalList;
     
-    /** The filtered list of events currently displayed. */
-    private final List<EventItem> filteredList;
+    /** The filtered list of events currently displayed, diffed in the background. */
+    private final ListDiffer<EventItem> differ;
+
+    /** Organizer names already looked up, by organizer document path. */
+    private final Map<String, String> organizerNames = new HashMap<>();
     
     /** Click listener for handling event item clicks. */
     private final onEventClickListener listener;
 
+    /** Payloads naming the fields of a row that changed, for partial binds. */
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_COST = "cost";
+    private static final String FIELD_ORGANIZER = "organizer";
+    private static final String FIELD_POSTER = "poster";
+
+    /** Keeps the search index and runs searches, one at a time, off the main thread. */
+    private static final ScheduledExecutorService SEARCH = Executors.newSingleThreadScheduledExecutor();
+
+    /** How long typing has to pause before a search runs. */
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+
+    /**
+     * Index over the titles, descriptions and locations of the events the feed has loaded,
+     * not every event in Firestore; only used on SEARCH.
+     */
+    private final SearchIndex searchIndex = new SearchIndex();
+
+    /** The events in searchIndex, in list order; only used on SEARCH. */
+    private List<EventItem> indexedEvents = new ArrayList<>();
+
+    /** Posts search results back to the main thread. */
+    private final Handler mainThread = new Handler(Looper.getMainLooper());
+
+    /** The search waiting for typing to pause, if any. */
+    private ScheduledFuture<?> pendingSearch;
+
+    /** Bumped by every filter, so results of a search that was overtaken are dropped. */
+    private int filterGeneration;
+
+    /** The search query in effect, reapplied when more events load. */
+    private String activeQuery = "";
+
+    /** The category filter in effect, or null if none. */
+    private String activeCategory;
+
+    /** The date filter in effect as {year, month, day}, or null if none. */
+    private int[] activeDate;
+
     public EventsListRecyclerViewAdapter(List<EventItem> eventList,
                                          onEventClickListener listener) {
         this.originalList = new ArrayList<>(eventList);
-        this.filteredList = new ArrayList<>(eventList);
+        this.differ = new ListDiffer<>(new AdapterListUpdateCallback(this), new ListDiffer.ItemRules<EventItem>() {
+            @Override
+            public String idOf(EventItem item) {
+                return item.getId();
+            }
+
+            @Override
+            public Set<String> changes(EventItem oldItem, EventItem newItem) {
+                Set<String> changes = new HashSet<>();
+                ListDiffer.compare(changes, FIELD_NAME, oldItem.getName(), newItem.getName());
+                ListDiffer.compare(changes, FIELD_COST, oldItem.getCost(), newItem.getCost());
+                ListDiffer.compare(changes, FIELD_ORGANIZER, organizerPath(oldItem), organizerPath(newItem));
+                ListDiffer.compare(changes, FIELD_POSTER, oldItem.getPosterVersion(), newItem.getPosterVersion());
+                return changes;
+            }
+        });
         this.listener = listener;
+        setHasStableIds(true);
+        differ.submit(eventList);
+        index(originalList);
+    }
+
+    private static String organizerPath(EventItem item) {
+        return (item.getOrganizer() != null) ? item.getOrganizer().getPath() : null;
     }
 
     @NonNull
@@ -66,126 +147,203 @@ public class EventsListRecyclerViewAdapter extends RecyclerView.Adapter<EventsLi
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        EventItem event = filteredList.get(position);
+        EventItem event = differ.getCurrentList().get(position);
 
-        // --- CRITICAL: Clear recycled content ---
-        holder.imageView.setImageDrawable(null);
-        holder.organizerView.setText("Organized by: Loading...");
-        holder.nameView.setText("");
-        holder.costView.setText("");
-
-        // --- Set simple fields ---
         holder.nameView.setText(event.getName());
         holder.costView.setText(event.getCost());
+        bindOrganizer(holder, event);
+        bindPoster(holder, event);
+    }
 
-        // --- Load organizer safely ---
-        DocumentReference organizerRef = event.getOrganizer();
-        if (organizerRef != null) {
-            organizerRef.get().addOnSuccessListener(userSnapshot -> {
-                // Ensure this row is still the same position after an async load
-                int currentPos = holder.getBindingAdapterPosition();
-                if (currentPos == RecyclerView.NO_POSITION) return;
-
-                if (userSnapshot.exists()) {
-                    String organizerName = userSnapshot.getString("name");
-                    holder.organizerView.setText("Organized by: " + organizerName);
-                } else {
-                    holder.organizerView.setText("Organized by: Unknown");
-                }
+    /**
+     * Rebinds only the fields named in the payloads, so a change to one event does not
+     * re-run the organizer lookup or poster load of its row.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        Set<String> fields = ListDiffer.changedFields(payloads);
+        if (payloads.isEmpty() || fields == null) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        EventItem event = differ.getCurrentList().get(position);
+        if (fields.contains(FIELD_NAME)) {
+            holder.nameView.setText(event.getName());
+        }
+        if (fields.contains(FIELD_COST)) {
+            holder.costView.setText(event.getCost());
+        }
+        if (fields.contains(FIELD_ORGANIZER)) {
+            bindOrganizer(holder, event);
+        }
+        if (fields.contains(FIELD_POSTER)) {
+            bindPoster(holder, event);
+        }
+    }
 
-            }            ).addOnFailureListener(e ->
-                    Log.e("EventAdapter", "Error loading organizer", e)
-            );
-        } else {
+    private void bindOrganizer(ViewHolder holder, EventItem event) {
+        DocumentReference organizerRef = event.getOrganizer();
+        if (organizerRef == null) {
             holder.organizerView.setText("Organized by: Unknown");
+            return;
         }
+        String path = organizerRef.getPath();
+        String known = organizerNames.get(path);
+        if (known != null) {
+            holder.organizerView.setText("Organized by: " + known);
+            return;
+        }
+        // --- CRITICAL: Clear recycled content ---
+        holder.organizerView.setText("Organized by: Loading...");
+        holder.organizerView.setTag(path);
+        organizerRef.get().addOnSuccessListener(userSnapshot -> {
+            String organizerName = userSnapshot.exists() ? userSnapshot.getString("name") : null;
+            String shown = (organizerName != null) ? organizerName : "Unknown";
+            organizerNames.put(path, shown);
+            // Ensure this row still shows the same organizer after an async load
+            if (path.equals(holder.organizerView.getTag())) {
+                holder.organizerView.setText("Organized by: " + shown);
+            }
+        }).addOnFailureListener(e ->
+                Log.e("EventAdapter", "Error loading organizer", e)
+        );
+    }
 
-        // --- Load image safely ---
-        String base64Image = event.getImage();
-        if (base64Image != null && !base64Image.isEmpty()) {
-            try {
-                if (base64Image.startsWith("data:image")) {
-                    base64Image = base64Image.substring(base64Image.indexOf(",") + 1);
-                }
-
-                byte[] decodedBytes = android.util.Base64.decode(base64Image, android.util.Base64.DEFAULT);
-                Bitmap bitmap = android.graphics.BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length);
-
-                // Again: verify row hasn't been recycled before applying bitmap
-                int currentPos = holder.getAdapterPosition();
-                if (currentPos != RecyclerView.NO_POSITION) {
-                    holder.imageView.setImageBitmap(bitmap);
-                }
+    private void bindPoster(ViewHolder holder, EventItem event) {
+        // --- Load image off the main thread; a recycled row only ever shows its latest poster ---
+        PosterLoader.get(holder.itemView.getContext())
+                .loadPoster(event.getId(), event.getPosterVersion(), PosterImages.THUMBNAIL, holder.imageView, R.drawable.placeholder_image);
+    }
 
-            } catch (Exception e) {
-                Log.e("EventAdapter", "Failed to decode image: " + e.getMessage());
-                holder.imageView.setImageResource(R.drawable.placeholder_image);
-            }
-        } else {
-            holder.imageView.setImageResource(R.drawable.placeholder_image);
-        }
+    @Override
+    public long getItemId(int position) {
+        return differ.stableId(differ.getCurrentList().get(position));
     }
 
     @Override
     public int getItemCount() {
-        return filteredList.size();
+        return differ.getCurrentList().size();
     }
 
     /**
      * Filters events by search query with title priority.
      * Events matching the query in the title appear first, followed by
-     * events matching in the description.
+     * events matching in the description, then in the location. The search
+     * runs in the background once the query has stopped changing for a moment.
      * 
      * @param query the search query string (case-insensitive)
      */
     public void filter(String query) {
-        query = query.toLowerCase();
-        filteredList.clear();
-
+        activeQuery = query;
+        activeCategory = null;
+        activeDate = null;
         if (query.isEmpty()) {
-            filteredList.addAll(originalList);
+            newFilter();
+            differ.submit(originalList);
         } else {
-            List<EventItem> titleMatches = new ArrayList<>();
-            List<EventItem> descriptionMatches = new ArrayList<>();
+            search(query, SEARCH_DEBOUNCE_MS);
+        }
+    }
 
-            for (EventItem item : originalList) {
-                String title = item.getName() != null ? item.getName().toLowerCase() : "";
-                String desc = item.getDescription() != null ? item.getDescription().toLowerCase() : "";
+    /**
+     * Cancels any pending search and starts a new filter generation.
+     *
+     * @return the new generation
+     */
+    private int newFilter() {
+        if (pendingSearch != null) {
+            pendingSearch.cancel(false);
+            pendingSearch = null;
+        }
+        return ++filterGeneration;
+    }
 
-                if (title.contains(query)) {
-                    titleMatches.add(item);
-                } else if (desc.contains(query)) {
-                    descriptionMatches.add(item);
+    /**
+     * Searches the index after a delay and shows the results, ranked by the field they
+     * matched in, unless another filter was applied in the meantime.
+     */
+    private void search(String query, long delayMs) {
+        int generation = newFilter();
+        pendingSearch = SEARCH.schedule(() -> {
+            Map<String, Integer> hits = searchIndex.search(query);
+            List<List<EventItem>> ranked = new ArrayList<>();
+            for (int field = SearchIndex.TITLE; field <= SearchIndex.LOCATION; field++) {
+                ranked.add(new ArrayList<>());
+            }
+            for (EventItem item : indexedEvents) {
+                Integer field = hits.get(item.getId());
+                if (field != null) {
+                    ranked.get(field).add(item);
                 }
             }
+            List<EventItem> filteredList = new ArrayList<>();
+            for (List<EventItem> matches : ranked) {
+                filteredList.addAll(matches);
+            }
+            mainThread.post(() -> {
+                if (generation == filterGeneration) {
+                    differ.submit(filteredList);
+                }
+            });
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
 
-            filteredList.addAll(titleMatches);
-            filteredList.addAll(descriptionMatches);
-        }
-
-        notifyDataSetChanged();
+    /**
+     * Brings the search index up to date with a list of events in the background. Only
+     * events whose searchable fields changed are reindexed.
+     */
+    private void index(List<EventItem> events) {
+        List<EventItem> snapshot = new ArrayList<>(events);
+        SEARCH.execute(() -> {
+            List<String> ids = new ArrayList<>();
+            for (EventItem item : snapshot) {
+                ids.add(item.getId());
+                searchIndex.put(item.getId(), item.getName(), item.getDescription(), item.getLocation());
+            }
+            searchIndex.retainAll(ids);
+            indexedEvents = snapshot;
+        });
     }
+
     /**
      * Updates the adapter with a new list of events.
-     * Replaces both the original and filtered lists with the new data.
+     * Replaces the original list and applies the filter in effect to it, so
+     * events loading in while a filter is on do not clear the filter.
      * 
      * @param newList the new list of events to display
      */
     public void updateList(List<? extends EventItem> newList) {
         originalList.clear();
         originalList.addAll(newList);
-        filteredList.clear();
-        filteredList.addAll(newList);
-        notifyDataSetChanged();
+        index(originalList);
+        if (activeDate != null) {
+            applyDateFilter(activeDate[0], activeDate[1], activeDate[2]);
+        } else if (activeCategory != null) {
+            applyCategoryFilter(activeCategory);
+        } else if (!activeQuery.isEmpty()) {
+            // The index update above runs first, so the search sees the new events
+            search(activeQuery, 0);
+        } else {
+            filter(activeQuery);
+        }
     }
 
     /**
-     * Gets the current filtered list of events.
+     * Tells whether a search, category or date filter is narrowing the list.
+     *
+     * @return true if some loaded events may be hidden by a filter
+     */
+    public boolean isFiltered() {
+        return !activeQuery.isEmpty() || (activeCategory != null && !"all".equals(activeCategory)) || activeDate != null;
+    }
+
+    /**
+     * Gets the filtered list of events currently displayed. Adapter positions refer to it.
      * 
      * @return the filtered list of events
      */
     public List<EventItem> getFilteredList() {
-        return filteredList;
+        return differ.getCurrentList();
     }
     
     /**
@@ -196,7 +354,15 @@ public class EventsListRecyclerViewAdapter extends RecyclerView.Adapter<EventsLi
      *                   "free", "community", or "all" (case-sensitive)
      */
     public void applyCategoryFilter(String filterType) {
-        filteredList.clear();
+        activeQuery = "";
+        activeCategory = filterType;
+        activeDate = null;
+        newFilter();
+        if ("all".equals(filterType)) {
+            differ.submit(originalList);
+            return;
+        }
+        List<EventItem> filteredList = new ArrayList<>();
         for (EventItem item : originalList) {
             String title = item.getName().toLowerCase();
             String description = "";
@@ -242,14 +408,13 @@ public class EventsListRecyclerViewAdapter extends RecyclerView.Adapter<EventsLi
                         filteredList.add(item);
                     break;
 
-                case "all":
                 default:
-                    filteredList.addAll(originalList);
+                    filteredList.add(item);
                     break;
             }
         }
 
-        notifyDataSetChanged();
+        differ.submit(filteredList);
     }
     /**
      * Applies a date filter to show only events on or after the specified date.
@@ -260,6 +425,10 @@ public class EventsListRecyclerViewAdapter extends RecyclerView.Adapter<EventsLi
      * @param day the day of the month to filter by
      */
     public void applyDateFilter(int year, int month, int day) {
+        activeQuery = "";
+        activeCategory = null;
+        activeDate = new int[] {year, month, day};
+        newFilter();
 
         Calendar selected = Calendar.getInstance();
         selected.set(year, month, day, 0, 0, 0);
@@ -267,7 +436,7 @@ public class EventsListRecyclerViewAdapter extends RecyclerView.Adapter<EventsLi
 
         long selectedMillis = selected.getTimeInMillis();
 
-        filteredList.clear(); // filter into this
+        List<EventItem> filteredList = new ArrayList<>(); // filter into this
 
         for (EventItem e : originalList) {
             if (e.getEventStartDate() == null) continue;
@@ -284,7 +453,7 @@ public class EventsListRecyclerViewAdapter extends RecyclerView.Adapter<EventsLi
             }
         }
 
-        notifyDataSetChanged();
+        differ.submit(filteredList);
     }
 
 
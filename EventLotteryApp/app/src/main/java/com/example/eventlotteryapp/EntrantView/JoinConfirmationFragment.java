@@ -24,11 +24,16 @@ import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.TextView;
 
+import com.example.eventlotteryapp.Controllers.EventCounterController;
+import com.example.eventlotteryapp.Controllers.WaitlistController;
+import com.example.eventlotteryapp.models.EventCounts;
 import com.example.eventlotteryapp.R;
 import com.example.eventlotteryapp.databinding.FragmentJoinConfirmationListDialogBinding;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.WriteBatch;
+import com.google.firebase.firestore.Transaction;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -226,8 +231,8 @@ public class JoinConfirmationFragment extends BottomSheetDialogFragment {
     }
     
     /**
-     * Adds the current user to the event's waiting list.
-     * Updates both the event's waitingListEntrantIds array and the user's JoinedEvents array.
+     * Adds the current user to the event's waiting list, if it is open and not full.
+     * Updates both the event's waiting list and the user's JoinedEvents array.
      * Optionally stores the user's join location if latitude and longitude are provided.
      * 
      * @param latitude the latitude of the user's location when joining (null if not available)
@@ -244,7 +249,6 @@ public class JoinConfirmationFragment extends BottomSheetDialogFragment {
 
         FirebaseFirestore db = FirebaseFirestore.getInstance();
         String userId = auth.getCurrentUser().getUid();
-        DocumentReference user_ref = db.collection("users").document(userId);
         DocumentReference event_ref = db.collection("Events").document(eventId);
         
         // Check if event is closed before allowing join
@@ -269,75 +273,33 @@ public class JoinConfirmationFragment extends BottomSheetDialogFragment {
                             return;
                         }
                         
-                        // Check waiting list limit
-                        Boolean limitWaitingList = eventDoc.getBoolean("limitWaitingList");
-                        boolean isLimitEnabled = (limitWaitingList != null && limitWaitingList);
-                        
-                        if (isLimitEnabled) {
-                            Long waitingListSizeLong = eventDoc.getLong("waitingListSize");
-                            int waitingListLimit = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
-                            
-                            // If limit is 0 or not set, treat as infinite (no limit)
-                            if (waitingListLimit > 0) {
-                                List<String> waitingListEntrantIds = (List<String>) eventDoc.get("waitingListEntrantIds");
-                                int currentWaitingListSize = (waitingListEntrantIds != null) ? waitingListEntrantIds.size() : 0;
-                                
-                                // Check if user is already in the waiting list
-                                boolean userAlreadyInList = (waitingListEntrantIds != null && waitingListEntrantIds.contains(userId));
-                                
-                                if (!userAlreadyInList && currentWaitingListSize >= waitingListLimit) {
+                        // Check waiting list limit. Sharded events count their waitlist
+                        // subcollection instead of downloading it.
+                        new WaitlistController(db).loadStatus(eventDoc, userId).whenComplete((status, e) -> {
+                            if (e != null) {
+                                Log.e("Firestore", "Error checking waiting list", e);
+                                Toast.makeText(requireContext(), "Error checking event status. Please try again.", Toast.LENGTH_SHORT).show();
+                                dismiss();
+                                return;
+                            }
+
+                            Boolean limitWaitingList = eventDoc.getBoolean("limitWaitingList");
+                            boolean isLimitEnabled = (limitWaitingList != null && limitWaitingList);
+
+                            if (isLimitEnabled) {
+                                Long waitingListSizeLong = eventDoc.getLong("waitingListSize");
+                                int waitingListLimit = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
+
+                                // If limit is 0 or not set, treat as infinite (no limit)
+                                if (waitingListLimit > 0 && !status.isWaiting() && status.getSize() >= waitingListLimit) {
                                     Toast.makeText(requireContext(), "The waiting list is full. Maximum " + waitingListLimit + " entrants allowed.", Toast.LENGTH_LONG).show();
                                     dismiss();
                                     return;
                                 }
                             }
-                        }
-                        
-                        // Add user to waiting list and remove from declined/cancelled/accepted lists (if they were in any of those)
-                        // When rejoining, they should start fresh on the waitlist
-                        // Use batch update to ensure all operations succeed together
-                        WriteBatch batch = db.batch();
-                        batch.update(event_ref, "waitingListEntrantIds", com.google.firebase.firestore.FieldValue.arrayUnion(userId));
-                        batch.update(event_ref, "declinedEntrantIds", com.google.firebase.firestore.FieldValue.arrayRemove(userId));
-                        batch.update(event_ref, "cancelledEntrantIds", com.google.firebase.firestore.FieldValue.arrayRemove(userId));
-                        batch.update(event_ref, "acceptedEntrantIds", com.google.firebase.firestore.FieldValue.arrayRemove(userId));
-                        batch.update(event_ref, "selectedEntrantIds", com.google.firebase.firestore.FieldValue.arrayRemove(userId));
-                        batch.update(user_ref, "JoinedEvents", com.google.firebase.firestore.FieldValue.arrayUnion(event_ref));
-                        
-                        batch.commit()
-                                .addOnSuccessListener(aVoid -> {
-                                    Log.d("Firestore", "User added to waiting list and removed from declined list");
-                                    
-                                    // Store location if available
-                                    if (latitude != null && longitude != null) {
-                                        Map<String, Object> locationData = new HashMap<>();
-                                        locationData.put("latitude", latitude);
-                                        locationData.put("longitude", longitude);
-                                        locationData.put("timestamp", com.google.firebase.firestore.FieldValue.serverTimestamp());
-                                        
-                                        db.collection("Events").document(eventId)
-                                            .collection("joinLocations").document(userId)
-                                            .set(locationData)
-                                            .addOnSuccessListener(aVoid2 -> {
-                                                Log.d("Firestore", "Location saved for user");
-                                            })
-                                            .addOnFailureListener(e -> {
-                                                Log.e("Firestore", "Error saving location", e);
-                                            });
-                                    }
-
-                                    // Handle join action
-                                    Intent intent = new Intent(getContext(), EntrantHomePageActivity.class);
-                                    intent.putExtra("open_tab", 1); // e.g. 0 = Home, 1 = MyEvents, 2 = Notifications
-                                    startActivity(intent);
 
-                                    dismiss(); // close modal
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e("Firestore", "Error updating waitlist/declined status", e);
-                                    Toast.makeText(requireContext(), "Error joining waiting list. Please try again.", Toast.LENGTH_SHORT).show();
-                                    dismiss();
-                                });
+                            addToWaitingList(db, userId, status.getSize(), latitude, longitude);
+                        });
                     }
                 })
                 .addOnFailureListener(e -> {
@@ -347,5 +309,118 @@ public class JoinConfirmationFragment extends BottomSheetDialogFragment {
                 });
     }
 
+    /**
+     * Writes the current user onto the event's waiting list, in its waitlist subcollection
+     * and, for events not yet sharded, its waitingListEntrantIds array.
+     * Runs in a transaction that reads the event and the user's entry, so the counter
+     * changes and the waiting list limit are checked against what is actually committed.
+     *
+     * @param db the Firestore instance
+     * @param userId the current user's ID
+     * @param countedSize the waiting list size counted before joining, used for the limit
+     *                    if the event's counters have not been seeded yet
+     * @param latitude the latitude of the user's location when joining (null if not available)
+     * @param longitude the longitude of the user's location when joining (null if not available)
+     */
+    private void addToWaitingList(FirebaseFirestore db, String userId, int countedSize,
+                                  Double latitude, Double longitude) {
+        DocumentReference user_ref = db.collection("users").document(userId);
+        DocumentReference event_ref = db.collection("Events").document(eventId);
+        WaitlistController waitlistController = new WaitlistController(db);
+        EventCounterController eventCounterController = new EventCounterController(db);
+
+        db.runTransaction((Transaction.Function<Boolean>) transaction -> {
+            DocumentSnapshot eventDoc = transaction.get(event_ref);
+            boolean sharded = WaitlistController.isSharded(eventDoc);
+            DocumentSnapshot entryDoc = sharded ? transaction.get(waitlistController.entry(eventId, userId)) : null;
+            boolean alreadyWaiting = WaitlistController.isWaiting(eventDoc, entryDoc, userId);
+
+            // Check the waiting list limit again against the committed count
+            Boolean limitWaitingList = eventDoc.getBoolean("limitWaitingList");
+            Long waitingListSizeLong = eventDoc.getLong("waitingListSize");
+            int waitingListLimit = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
+            if (limitWaitingList != null && limitWaitingList && waitingListLimit > 0 && !alreadyWaiting) {
+                long size;
+                if (sharded) {
+                    size = eventCounterController.readCount(transaction, eventId, EventCounts.WAITING);
+                    if (size < 0) {
+                        size = countedSize;
+                    }
+                } else {
+                    List<String> waitingList = (List<String>) eventDoc.get(WaitlistController.LEGACY_ARRAY_FIELD);
+                    size = (waitingList != null) ? waitingList.size() : 0;
+                }
+                if (size >= waitingListLimit) {
+                    return false;
+                }
+            }
+
+            // Add user to waiting list and remove from declined/cancelled/accepted lists (if they were in any of those)
+            // When rejoining, they should start fresh on the waitlist
+            if (!sharded) {
+                transaction.update(event_ref, WaitlistController.LEGACY_ARRAY_FIELD, com.google.firebase.firestore.FieldValue.arrayUnion(userId));
+            }
+            transaction.update(event_ref, "declinedEntrantIds", com.google.firebase.firestore.FieldValue.arrayRemove(userId));
+            transaction.update(event_ref, "cancelledEntrantIds", com.google.firebase.firestore.FieldValue.arrayRemove(userId));
+            transaction.update(event_ref, "acceptedEntrantIds", com.google.firebase.firestore.FieldValue.arrayRemove(userId));
+            transaction.update(event_ref, "selectedEntrantIds", com.google.firebase.firestore.FieldValue.arrayRemove(userId));
+            transaction.update(user_ref, "JoinedEvents", com.google.firebase.firestore.FieldValue.arrayUnion(event_ref));
+
+            // Add their waitlist entry, recording which lottery round they joined in
+            // so weighted draws can favour entrants who keep losing
+            Long lotteryRoundLong = eventDoc.getLong("lotteryRound");
+            long lotteryRound = (lotteryRoundLong != null) ? lotteryRoundLong : 0L;
+            waitlistController.addEntry(transaction, eventId, userId, lotteryRound);
+            if (!sharded) {
+                transaction.update(event_ref, com.google.firebase.firestore.FieldPath.of("entrantJoinRounds", userId), lotteryRound);
+            }
+
+            // Keep the per-status counters in step with the lists
+            eventCounterController.apply(transaction, eventId, new EventCounterController.Delta(eventDoc)
+                    .waiting(alreadyWaiting ? Collections.singletonList(userId) : Collections.emptyList())
+                    .remove(userId, EventCounts.DECLINED, EventCounts.CANCELLED, EventCounts.ACCEPTED, EventCounts.SELECTED)
+                    .add(userId, EventCounts.WAITING));
+            return true;
+        })
+                .addOnSuccessListener(joined -> {
+                    if (!joined) {
+                        Toast.makeText(requireContext(), "The waiting list is full.", Toast.LENGTH_LONG).show();
+                        dismiss();
+                        return;
+                    }
+                    Log.d("Firestore", "User added to waiting list and removed from declined list");
+                    
+                    // Store location if available
+                    if (latitude != null && longitude != null) {
+                        Map<String, Object> locationData = new HashMap<>();
+                        locationData.put("latitude", latitude);
+                        locationData.put("longitude", longitude);
+                        locationData.put("timestamp", com.google.firebase.firestore.FieldValue.serverTimestamp());
+                        
+                        db.collection("Events").document(eventId)
+                            .collection("joinLocations").document(userId)
+                            .set(locationData)
+                            .addOnSuccessListener(aVoid2 -> {
+                                Log.d("Firestore", "Location saved for user");
+                            })
+                            .addOnFailureListener(e -> {
+                                Log.e("Firestore", "Error saving location", e);
+                            });
+                    }
+
+                    // Handle join action
+                    Intent intent = new Intent(getContext(), EntrantHomePageActivity.class);
+                    intent.putExtra("open_tab", 1); // e.g. 0 = Home, 1 = MyEvents, 2 = Notifications
+                    startActivity(intent);
+
+                    dismiss(); // close modal
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("Firestore", "Error updating waitlist/declined status", e);
+                    Toast.makeText(requireContext(), "Error joining waiting list. Please try again.", Toast.LENGTH_SHORT).show();
+                    dismiss();
+                });
+    }
+
 
 }
\ No newline at end of file
@@ -17,11 +17,16 @@ import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.example.eventlotteryapp.Controllers.EventCounterController;
+import com.example.eventlotteryapp.Controllers.WaitlistController;
+import com.example.eventlotteryapp.models.EventCounts;
 import com.example.eventlotteryapp.R;
 import com.example.eventlotteryapp.databinding.FragmentJoinConfirmationListDialogBinding;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.WriteBatch;
+import com.google.firebase.firestore.Transaction;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -126,19 +131,32 @@ public class LeaveConfirmationFragment extends BottomSheetDialogFragment {
                                 return;
                             }
                             
-                            // Remove user from waiting list and also from declined list if they're in it
-                            // Use a batch update to ensure both operations succeed together
-                            WriteBatch batch = db.batch();
-                            batch.update(event_ref, "waitingListEntrantIds", com.google.firebase.firestore.FieldValue.arrayRemove(userId));
-                            batch.update(event_ref, "declinedEntrantIds", com.google.firebase.firestore.FieldValue.arrayRemove(userId));
-                            
-                            batch.commit()
+                            // Remove user from waiting list and also from declined list if they're in it.
+                            // The user's entry is read in the same transaction, so the counters only
+                            // change if this leave is the one that removes them.
+                            WaitlistController waitlistController = new WaitlistController(db);
+                            db.runTransaction((Transaction.Function<Void>) transaction -> {
+                                DocumentSnapshot currentEvent = transaction.get(event_ref);
+                                boolean sharded = WaitlistController.isSharded(currentEvent);
+                                DocumentSnapshot entryDoc = sharded ? transaction.get(waitlistController.entry(eventId, userId)) : null;
+
+                                if (!sharded) {
+                                    transaction.update(event_ref, WaitlistController.LEGACY_ARRAY_FIELD, com.google.firebase.firestore.FieldValue.arrayRemove(userId));
+                                }
+                                transaction.update(event_ref, "declinedEntrantIds", com.google.firebase.firestore.FieldValue.arrayRemove(userId));
+                                waitlistController.removeEntry(transaction, eventId, userId);
+                                new EventCounterController(db).apply(transaction, eventId, new EventCounterController.Delta(currentEvent)
+                                        .waiting(WaitlistController.isWaiting(currentEvent, entryDoc, userId)
+                                                ? Collections.singletonList(userId) : Collections.emptyList())
+                                        .remove(userId, EventCounts.WAITING, EventCounts.DECLINED));
+                                return null;
+                            })
                                     .addOnSuccessListener(aVoid -> {
                                         Log.d("Firestore", "User removed from waiting list and declined list");
-                                        
+                                    
                                         Toast.makeText(requireContext(), "Left waiting list", Toast.LENGTH_SHORT).show();
                                         dismiss(); // close modal
-                                        
+                                    
                                         // Refresh the parent activity UI after the update completes
                                         // Add a small delay to ensure Firestore cache is updated
                                         if (getActivity() != null && getActivity() instanceof EventDetailsActivity) {
@@ -153,7 +171,7 @@ public class LeaveConfirmationFragment extends BottomSheetDialogFragment {
                                         Log.e("Firestore", "Error removing user from waiting list", e);
                                         Toast.makeText(requireContext(), "Error leaving waiting list. Please try again.", Toast.LENGTH_SHORT).show();
                                     });
-                            
+
                             // Remove from user's JoinedEvents (if user document exists)
                             user_ref.update("JoinedEvents", com.google.firebase.firestore.FieldValue.arrayRemove(event_ref))
                                     .addOnSuccessListener(aVoid -> {
@@ -19,6 +19,7 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.eventlotteryapp.Controllers.WaitlistController;
 import com.example.eventlotteryapp.R;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.auth.FirebaseAuth;
@@ -179,7 +180,7 @@ public class MyEventsFragment extends Fragment {
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
 
         adapter = new MyEventsListRecyclerViewAdapter(eventList, position -> {
-            MyEventItem clickedEvent = eventList.get(position);
+            MyEventItem clickedEvent = adapter.getItem(position);
             Intent intent = new Intent(getContext(), EventDetailsActivity.class);
             intent.putExtra("eventId", clickedEvent.getId());
             startActivity(intent);
@@ -369,7 +370,7 @@ public class MyEventsFragment extends Fragment {
 
     /**
      * Loads all events for the current user from Firestore.
-     * Queries multiple collections: JoinedEvents, waitingListEntrantIds, selectedEntrantIds, acceptedEntrantIds.
+     * Queries multiple collections: JoinedEvents, waitlist entries, waitingListEntrantIds, selectedEntrantIds, acceptedEntrantIds.
      * NOTE: cancelledEntrantIds is excluded - cancelled users should not see events in My Events.
      */
     private void loadEvents() {
@@ -387,7 +388,7 @@ public class MyEventsFragment extends Fragment {
 
         Log.d(TAG, "Lists cleared. Starting queries...");
 
-        final int totalQueries = 4; // JoinedEvents + 3 waitlist queries (waitingList, selected, accepted) - cancelled excluded
+        final int totalQueries = 5; // JoinedEvents + waitlist entries + 3 array queries (waitingList, selected, accepted) - cancelled excluded
 
         // Helper to check if all queries and status loads are done
         java.util.function.Consumer<Void> checkAllDone = (v) -> {
@@ -544,8 +545,11 @@ public class MyEventsFragment extends Fragment {
                     }
                 });
 
-        // Query for events where user is in waitingListEntrantIds
-        queryEventsWhere("waitingListEntrantIds", loadEvent, checkAllDone);
+        // Query for sharded events where user has a waitlist entry
+        queryWaitlistedEvents(loadEvent, checkAllDone);
+
+        // Query for events not yet sharded where user is in waitingListEntrantIds
+        queryEventsWhere(WaitlistController.LEGACY_ARRAY_FIELD, loadEvent, checkAllDone);
 
         // Query for events where user is in selectedEntrantIds
         queryEventsWhere("selectedEntrantIds", loadEvent, checkAllDone);
@@ -585,6 +589,40 @@ public class MyEventsFragment extends Fragment {
                 });
     }
 
+    /**
+     * Loads the sharded events the user has a waitlist entry for.
+     *
+     * @param loadEvent Consumer to load each event document
+     * @param checkAllDone Consumer to check if all queries are complete
+     */
+    private void queryWaitlistedEvents(java.util.function.Consumer<DocumentSnapshot> loadEvent,
+                                       java.util.function.Consumer<Void> checkAllDone) {
+        new WaitlistController(db).loadWaitlistedEventIds(userId).whenComplete((eventIds, e) -> {
+            if (e != null || eventIds.isEmpty()) {
+                if (e != null) {
+                    Log.e(TAG, "Error querying waitlist entries", e);
+                }
+                completedQueries[0]++;
+                checkAllDone.accept(null);
+                return;
+            }
+            Log.d(TAG, "Waitlist entries found: " + eventIds.size() + " events");
+            final int[] fetched = {0};
+            for (String eventId : eventIds) {
+                db.collection("Events").document(eventId).get()
+                        .addOnSuccessListener(loadEvent::accept)
+                        .addOnFailureListener(e2 -> Log.e(TAG, "Error loading waitlisted event " + eventId, e2))
+                        .addOnCompleteListener(task -> {
+                            fetched[0]++;
+                            if (fetched[0] >= eventIds.size()) {
+                                completedQueries[0]++;
+                                checkAllDone.accept(null);
+                            }
+                        });
+            }
+        });
+    }
+
     /**
      * Refreshes the entire event list by reloading all data from Firestore.
      * Called when the fragment resumes to ensure data is current.
@@ -635,8 +673,14 @@ public class MyEventsFragment extends Fragment {
         DocumentReference eventRef = db.collection("Events").document(event.getId());
 
         eventRef.get().addOnSuccessListener(eventDoc -> {
-            MyEventItem.Status status = determineStatus(eventDoc, userId);
-            callback.onStatusRetrieved(status);
+            if (!WaitlistController.isSharded(eventDoc)) {
+                callback.onStatusRetrieved(determineStatus(eventDoc, null, userId));
+                return;
+            }
+            // Sharded events keep the waiting list in a subcollection
+            new WaitlistController(db).entry(event.getId(), userId).get()
+                    .addOnSuccessListener(entryDoc -> callback.onStatusRetrieved(determineStatus(eventDoc, entryDoc, userId)))
+                    .addOnFailureListener(e -> callback.onStatusRetrieved(determineStatus(eventDoc, null, userId)));
         });
     }
 
@@ -644,15 +688,15 @@ public class MyEventsFragment extends Fragment {
      * Determines the user's status for an event based on which array they're in.
      *
      * @param eventDoc The event document snapshot
+     * @param entryDoc The user's waitlist entry for a sharded event, or null
      * @param userId The user's ID
      * @return The status (SELECTED, NOT_SELECTED, PENDING, or UNKNOWN)
      */
-    private static MyEventItem.Status determineStatus(DocumentSnapshot eventDoc, String userId) {
+    private static MyEventItem.Status determineStatus(DocumentSnapshot eventDoc, DocumentSnapshot entryDoc, String userId) {
         List<String> selectedEntrants = (List<String>) eventDoc.get("selectedEntrantIds");
         List<String> acceptedEntrants = (List<String>) eventDoc.get("acceptedEntrantIds");
         List<String> declinedEntrants = (List<String>) eventDoc.get("declinedEntrantIds");
         List<String> cancelledEntrants = (List<String>) eventDoc.get("cancelledEntrantIds");
-        List<String> waitingListEntrants = (List<String>) eventDoc.get("waitingListEntrantIds");
 
         // Check cancelled FIRST - cancelled users should not show as accepted/selected
         if (cancelledEntrants != null && cancelledEntrants.contains(userId)) {
@@ -666,7 +710,7 @@ public class MyEventsFragment extends Fragment {
 
         // Check waiting list SECOND - if user is on waitlist, they're PENDING (even if also in accepted/selected)
         // This handles the case where user rejoined waitlist but might still be in acceptedEntrantIds
-        if (waitingListEntrants != null && waitingListEntrants.contains(userId)) {
+        if (WaitlistController.isWaiting(eventDoc, entryDoc, userId)) {
             // Check if lottery has run (registration closed) and user was not selected/accepted
             java.util.Date registrationCloseDate = eventDoc.getDate("registrationCloseDate");
             java.util.Date now = new java.util.Date();
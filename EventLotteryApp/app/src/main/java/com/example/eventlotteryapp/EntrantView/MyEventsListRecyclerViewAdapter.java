@@ -1,6 +1,5 @@
 package com.example.eventlotteryapp.EntrantView;
 
-import android.graphics.Bitmap;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -9,14 +8,20 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.eventlotteryapp.Helpers.ListDiffer;
+import com.example.eventlotteryapp.Helpers.PosterImages;
+import com.example.eventlotteryapp.Helpers.PosterLoader;
 import com.example.eventlotteryapp.R;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 /**
  * Adapter for displaying MyEventItems in a RecyclerView.
@@ -28,19 +33,50 @@ public class MyEventsListRecyclerViewAdapter extends RecyclerView.Adapter<MyEven
         void onItemClick(int position);
     }
 
-    private List<MyEventItem> eventList;
+    /** Payloads naming the fields of a row that changed, for partial binds. */
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_DATE = "date";
+    private static final String FIELD_COST = "cost";
+    private static final String FIELD_POSTER = "poster";
+
+    /** The events shown, diffed in the background. */
+    private final ListDiffer<MyEventItem> differ;
     private final onEventClickListener listener;
 
     public MyEventsListRecyclerViewAdapter(List<? extends EventItem> list, onEventClickListener listener) {
-        this.eventList = new ArrayList<>();
+        this.differ = new ListDiffer<>(new AdapterListUpdateCallback(this), new ListDiffer.ItemRules<MyEventItem>() {
+            @Override
+            public String idOf(MyEventItem item) {
+                return item.getId();
+            }
+
+            @Override
+            public Set<String> changes(MyEventItem oldItem, MyEventItem newItem) {
+                Set<String> changes = new HashSet<>();
+                ListDiffer.compare(changes, FIELD_NAME, oldItem.getName(), newItem.getName());
+                ListDiffer.compare(changes, FIELD_STATUS, oldItem.getStatus(), newItem.getStatus());
+                ListDiffer.compare(changes, FIELD_DATE, oldItem.getEventStartDate(), newItem.getEventStartDate());
+                ListDiffer.compare(changes, FIELD_COST, oldItem.getCost(), newItem.getCost());
+                ListDiffer.compare(changes, FIELD_POSTER, oldItem.getPosterVersion(), newItem.getPosterVersion());
+                return changes;
+            }
+        });
+        this.listener = listener;
+        setHasStableIds(true);
+        differ.submit(myEvents(list));
+    }
+
+    private static List<MyEventItem> myEvents(List<? extends EventItem> list) {
+        List<MyEventItem> events = new ArrayList<>();
         if (list != null) {
             for (EventItem item : list) {
                 if (item instanceof MyEventItem) {
-                    this.eventList.add((MyEventItem) item);
+                    events.add((MyEventItem) item);
                 }
             }
         }
-        this.listener = listener;
+        return events;
     }
 
     @NonNull
@@ -53,13 +89,53 @@ public class MyEventsListRecyclerViewAdapter extends RecyclerView.Adapter<MyEven
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Log.d("MyEventsAdapter", "onBindViewHolder called for position: " + position);
-        MyEventItem event = eventList.get(position);
-        Log.d("MyEventsAdapter", "Binding event: " + event.getName() + " with status: " + event.getStatus());
+        MyEventItem event = getItem(position);
 
         // Set event name
         holder.nameView.setText(event.getName());
 
+        bindStatus(holder, event);
+        bindDate(holder, event);
+
+        // Set location
+        holder.locationView.setText("Location TBD");
+
+        // Set cost
+        holder.costView.setText(event.getCost());
+
+        bindPoster(holder, event);
+    }
+
+    /**
+     * Rebinds only the fields named in the payloads, so a status change does not reload
+     * the row's poster.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        Set<String> fields = ListDiffer.changedFields(payloads);
+        if (payloads.isEmpty() || fields == null) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        MyEventItem event = getItem(position);
+        if (fields.contains(FIELD_NAME)) {
+            holder.nameView.setText(event.getName());
+        }
+        if (fields.contains(FIELD_STATUS)) {
+            bindStatus(holder, event);
+        }
+        if (fields.contains(FIELD_DATE)) {
+            bindDate(holder, event);
+        }
+        if (fields.contains(FIELD_COST)) {
+            holder.costView.setText(event.getCost());
+        }
+        if (fields.contains(FIELD_POSTER)) {
+            bindPoster(holder, event);
+        }
+    }
+
+    private void bindStatus(ViewHolder holder, MyEventItem event) {
         // Set status with emoji
         if (event.getStatus() == MyEventItem.Status.PENDING) {
             holder.statusView.setText("🟡 Pending");
@@ -70,7 +146,9 @@ public class MyEventsListRecyclerViewAdapter extends RecyclerView.Adapter<MyEven
         } else {
             holder.statusView.setText("Unknown");
         }
+    }
 
+    private void bindDate(ViewHolder holder, MyEventItem event) {
         // Format and set date
         if (event.getEventStartDate() != null) {
             SimpleDateFormat dateFormat = new SimpleDateFormat("MMMM d, yyyy", Locale.getDefault());
@@ -78,53 +156,43 @@ public class MyEventsListRecyclerViewAdapter extends RecyclerView.Adapter<MyEven
         } else {
             holder.dateView.setText("Date TBD");
         }
+    }
 
-        // Set location
-        holder.locationView.setText("Location TBD");
-
-        // Set cost
-        holder.costView.setText(event.getCost());
-
+    private void bindPoster(ViewHolder holder, MyEventItem event) {
         // Load and set image
-        String base64Image = event.getImage();
-        if (base64Image != null && !base64Image.isEmpty()) {
-            try {
-                if (base64Image.startsWith("data:image")) {
-                    base64Image = base64Image.substring(base64Image.indexOf(",") + 1);
-                }
-
-                byte[] decodedBytes = android.util.Base64.decode(base64Image, android.util.Base64.DEFAULT);
-                Bitmap bitmap = android.graphics.BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length);
+        PosterLoader.get(holder.itemView.getContext())
+                .loadPoster(event.getId(), event.getPosterVersion(), PosterImages.THUMBNAIL, holder.imageView, R.drawable.placeholder_image);
+    }
 
-                holder.imageView.setImageBitmap(bitmap);
-            } catch (Exception e) {
-                Log.e("MyEventsAdapter", "Failed to decode image: " + e.getMessage());
-            }
-        }
+    @Override
+    public long getItemId(int position) {
+        return differ.stableId(getItem(position));
     }
 
     @Override
     public int getItemCount() {
-        Log.d("MyEventsAdapter", "getItemCount() called. Returning: " + eventList.size());
-        return eventList.size();
+        return differ.getCurrentList().size();
+    }
+
+    /**
+     * Gets the event shown at a position.
+     *
+     * @param position the adapter position
+     * @return the event
+     */
+    public MyEventItem getItem(int position) {
+        return differ.getCurrentList().get(position);
     }
 
     /**
-     * Updates the adapter with a new list of events.
+     * Updates the adapter with a new list of events. Only the rows that changed are rebound.
      *
      * @param newList The new list of events to display
      */
     public void updateList(List<? extends EventItem> newList) {
-        this.eventList.clear();
-        if (newList != null) {
-            for (EventItem item : newList) {
-                if (item instanceof MyEventItem) {
-                    this.eventList.add((MyEventItem) item);
-                }
-            }
-        }
-        Log.d("MyEventsAdapter", "updateList called. New size: " + eventList.size());
-        notifyDataSetChanged();
+        List<MyEventItem> events = myEvents(newList);
+        Log.d("MyEventsAdapter", "updateList called. New size: " + events.size());
+        differ.submit(events);
     }
 
     public class ViewHolder extends RecyclerView.ViewHolder {
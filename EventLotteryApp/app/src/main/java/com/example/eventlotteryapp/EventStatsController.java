@@ -1,8 +1,8 @@
 package com.example.eventlotteryapp;
 
+import com.example.eventlotteryapp.Controllers.EventCounterController;
+import com.example.eventlotteryapp.models.EventCounts;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.DocumentSnapshot;
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -16,22 +16,29 @@ public class EventStatsController {
     /** Firestore database instance for querying event data. */
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
 
+    /** Controller for the per-event sharded entrant counters. */
+    private final EventCounterController counterController = new EventCounterController(db);
+
     /**
      * Returns the number of entrants currently on the waiting list for a given event.
+     * Sums the event's counter shards instead of downloading the event document.
      * 
      * @param eventId the unique identifier of the event
      * @return a CompletableFuture that will complete with the waiting list count,
      *         or complete exceptionally if an error occurs
      */
     public CompletableFuture<Integer> getWaitingListCount(String eventId) {
-        CompletableFuture<Integer> future = new CompletableFuture<>();
-
-        db.collection("Events").document(eventId).get().addOnSuccessListener(doc -> {
-            List<String> waitingList = (List<String>) doc.get("waitingListEntrantIds");
-            int count = (waitingList == null) ? 0 : waitingList.size();
-            future.complete(count);
-        }).addOnFailureListener(future::completeExceptionally);
+        return getEntrantCounts(eventId).thenApply(EventCounts::getWaiting);
+    }
 
-        return future;
+    /**
+     * Returns the number of entrants in each status for a given event.
+     * 
+     * @param eventId the unique identifier of the event
+     * @return a CompletableFuture that will complete with the event's counts,
+     *         or complete exceptionally if an error occurs
+     */
+    public CompletableFuture<EventCounts> getEntrantCounts(String eventId) {
+        return counterController.getCounts(eventId);
     }
 }
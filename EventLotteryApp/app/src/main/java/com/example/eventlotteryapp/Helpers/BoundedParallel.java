@@ -0,0 +1,96 @@
+package com.example.eventlotteryapp.Helpers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Utility class for running asynchronous tasks over a list with a cap on how many
+ * are in flight at once. Each finished task starts the next one, so there is no
+ * polling and no thread is blocked while waiting.
+ *
+ * @author Droids Team
+ */
+public class BoundedParallel {
+
+    /**
+     * Runs a task for every item, with at most {@code parallelism} tasks running at once.
+     * A task that fails, or throws while starting, counts as unsuccessful and does not
+     * stop the remaining items.
+     *
+     * @param items the items to run the task for
+     * @param parallelism the maximum number of tasks in flight
+     * @param task starts the task for one item; completes with true if it succeeded
+     * @param <T> the item type
+     * @return a CompletableFuture that completes with the number of successful tasks once every task has finished
+     */
+    public static <T> CompletableFuture<Integer> forEach(List<T> items, int parallelism,
+                                                         Function<T, CompletableFuture<Boolean>> task) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        CompletableFuture<Integer> done = new CompletableFuture<>();
+        if (items == null || items.isEmpty()) {
+            done.complete(0);
+            return done;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger succeeded = new AtomicInteger();
+        int workers = Math.min(parallelism, items.size());
+        AtomicInteger workersLeft = new AtomicInteger(workers);
+        for (int i = 0; i < workers; i++) {
+            runNext(items, task, next, succeeded, workersLeft, done);
+        }
+        return done;
+    }
+
+    /**
+     * Starts items one after another on this worker. Tasks that are already finished
+     * when they return are handled in the loop rather than by recursion, so a long
+     * list of synchronous tasks cannot overflow the stack.
+     */
+    private static <T> void runNext(List<T> items, Function<T, CompletableFuture<Boolean>> task,
+                                    AtomicInteger next, AtomicInteger succeeded,
+                                    AtomicInteger workersLeft, CompletableFuture<Integer> done) {
+        while (true) {
+            int index = next.getAndIncrement();
+            if (index >= items.size()) {
+                if (workersLeft.decrementAndGet() == 0) {
+                    done.complete(succeeded.get());
+                }
+                return;
+            }
+
+            CompletableFuture<Boolean> running;
+            try {
+                running = task.apply(items.get(index));
+            } catch (RuntimeException e) {
+                running = new CompletableFuture<>();
+                running.completeExceptionally(e);
+            }
+            if (running == null) {
+                running = CompletableFuture.completedFuture(false);
+            }
+
+            if (!running.isDone()) {
+                running.whenComplete((ok, e) -> {
+                    record(ok, e, succeeded);
+                    runNext(items, task, next, succeeded, workersLeft, done);
+                });
+                return;
+            }
+            running.handle((ok, e) -> {
+                record(ok, e, succeeded);
+                return null;
+            });
+        }
+    }
+
+    private static void record(Boolean ok, Throwable e, AtomicInteger succeeded) {
+        if (e == null && Boolean.TRUE.equals(ok)) {
+            succeeded.incrementAndGet();
+        }
+    }
+}
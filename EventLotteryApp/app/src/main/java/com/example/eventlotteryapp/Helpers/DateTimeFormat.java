@@ -1,10 +1,10 @@
 package com.example.eventlotteryapp.Helpers;
 
-import com.google.type.DateTime;
+import com.google.firebase.Timestamp;
 
 import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
-import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.Locale;
 
@@ -12,17 +12,37 @@ import java.util.Locale;
  * Utility class for converting between Date objects and Firebase-compatible string formats.
  * Provides methods to format dates for storage in Firestore and parse them back to Date objects.
  * Uses a consistent date format: "EEE MMM dd HH:mm:ss z yyyy" with Canadian locale.
+ * Each thread reuses one formatter, since SimpleDateFormat is costly to build and not thread-safe.
  * 
  * @author Droids Team
  */
 public class DateTimeFormat {
+    /** One formatter per thread, configured for Firebase date storage. */
+    private static final ThreadLocal<SimpleDateFormat> FORMATTER = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("EEE MMM dd HH:mm:ss z yyyy", Locale.CANADA);
+        }
+    };
+
+    /**
+     * One formatter per thread matching {@link Date#toString()}, which is always in US English
+     * and may differ from the Canadian formatter's abbreviations.
+     */
+    private static final ThreadLocal<SimpleDateFormat> DATE_TO_STRING_FORMATTER = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
+        }
+    };
+
     /**
-     * Gets a SimpleDateFormat formatter configured for Firebase date storage.
+     * Gets this thread's SimpleDateFormat formatter configured for Firebase date storage.
      * 
      * @return a SimpleDateFormat instance with format "EEE MMM dd HH:mm:ss z yyyy" and Canadian locale
      */
     private static SimpleDateFormat getFormatter() {
-        return new SimpleDateFormat("EEE MMM dd HH:mm:ss z yyyy", Locale.CANADA);
+        return FORMATTER.get();
     }
 
     /**
@@ -32,8 +52,7 @@ public class DateTimeFormat {
      * @return formatted date string in "EEE MMM dd HH:mm:ss z yyyy" format
      */
     public static String toFireBaseDate(Date ts) {
-        SimpleDateFormat formatter = getFormatter();
-        return formatter.format(ts);
+        return getFormatter().format(ts);
     }
 
     /**
@@ -44,12 +63,52 @@ public class DateTimeFormat {
      * @throws RuntimeException if the date string cannot be parsed
      */
     public static Date toDate(String date) {
-        SimpleDateFormat formatter = getFormatter();
-        try {
-            return formatter.parse(date);
-        } catch (ParseException e) {
-            throw new RuntimeException(e);
+        Date parsed = parseOrNull(date);
+        if (parsed == null) {
+            throw new RuntimeException(new ParseException("Unparseable date: \"" + date + "\"", 0));
+        }
+        return parsed;
+    }
+
+    /**
+     * Converts a Firebase timestamp string back to a Date object without throwing.
+     * Also accepts the output of {@link Date#toString()}, which older notifications stored.
+     *
+     * @param date the date string, may be null
+     * @return the parsed Date object, or null if the string cannot be parsed
+     */
+    public static Date parseOrNull(String date) {
+        if (date == null || date.isEmpty()) {
+            return null;
+        }
+        Date parsed = parse(getFormatter(), date);
+        return (parsed != null) ? parsed : parse(DATE_TO_STRING_FORMATTER.get(), date);
+    }
+
+    private static Date parse(SimpleDateFormat formatter, String date) {
+        ParsePosition position = new ParsePosition(0);
+        Date parsed = formatter.parse(date, position);
+        return (position.getErrorIndex() >= 0) ? null : parsed;
+    }
+
+    /**
+     * Reads a timestamp field from a Firestore document, whatever type it was stored as:
+     * a native Timestamp, a Date, or a string from before timestamps were stored natively.
+     *
+     * @param value the raw field value, e.g. from {@code doc.get("TimeStamp")}
+     * @return the Date, or null if the value is missing or cannot be read
+     */
+    public static Date fromFirestore(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toDate();
+        }
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof String) {
+            return parseOrNull((String) value);
         }
+        return null;
     }
 
 }
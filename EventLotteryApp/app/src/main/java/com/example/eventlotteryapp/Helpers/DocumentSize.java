@@ -0,0 +1,98 @@
+package com.example.eventlotteryapp.Helpers;
+
+import com.google.firebase.firestore.DocumentReference;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility class for estimating how much storage a Firestore document takes, following
+ * Firestore's published storage size rules: strings take their UTF-8 length plus one byte,
+ * numbers and timestamps eight bytes, and each document 32 bytes on top of its name and fields.
+ * Used to report how much space removing documents frees up.
+ *
+ * @author Droids Team
+ */
+public class DocumentSize {
+    /** Fixed overhead of every document. */
+    public static final int DOCUMENT_OVERHEAD = 32;
+
+    /** Fixed overhead of every document name. */
+    public static final int NAME_OVERHEAD = 16;
+
+    /**
+     * Estimates the storage size of a document.
+     *
+     * @param path the document's path, e.g. "Notifications/abc123"
+     * @param fields the document's fields
+     * @return the size in bytes
+     */
+    public static long of(String path, Map<String, Object> fields) {
+        long size = nameSize(path) + DOCUMENT_OVERHEAD;
+        if (fields != null) {
+            size += mapSize(fields);
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the storage size of a document name.
+     *
+     * @param path the document's path, e.g. "Notifications/abc123"
+     * @return the size in bytes
+     */
+    public static long nameSize(String path) {
+        long size = NAME_OVERHEAD;
+        for (String segment : path.split("/")) {
+            size += stringSize(segment);
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the storage size of a field value.
+     * Values of a type not listed in Firestore's rules count as eight bytes.
+     *
+     * @param value the value
+     * @return the size in bytes
+     */
+    public static long valueSize(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof String) {
+            return stringSize((String) value);
+        }
+        if (value instanceof DocumentReference) {
+            return nameSize(((DocumentReference) value).getPath());
+        }
+        if (value instanceof Map) {
+            return mapSize((Map<?, ?>) value);
+        }
+        if (value instanceof List) {
+            long size = 0;
+            for (Object element : (List<?>) value) {
+                size += valueSize(element);
+            }
+            return size;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        // Numbers, Dates and Timestamps
+        return 8;
+    }
+
+    private static long mapSize(Map<?, ?> map) {
+        long size = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            size += stringSize(String.valueOf(entry.getKey())) + valueSize(entry.getValue());
+        }
+        return size;
+    }
+
+    private static long stringSize(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length + 1;
+    }
+}
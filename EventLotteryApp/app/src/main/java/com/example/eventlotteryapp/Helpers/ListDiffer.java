@@ -0,0 +1,220 @@
+package com.example.eventlotteryapp.Helpers;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Holds the list a RecyclerView adapter shows and moves it to new lists with the smallest
+ * set of item changes, so only the rows that changed are rebound.
+ *
+ * The diff is worked out on a background thread and applied on the main thread, and only
+ * the latest list submitted is ever applied. Each changed row is given the names of the
+ * fields that changed as its payload, so the adapter can rebind just those. Filling an
+ * empty list or emptying a full one needs no diff and happens straight away.
+ *
+ * Items are matched by an ID, which also gives each one a stable numeric ID for
+ * {@code getItemId}.
+ *
+ * @param <T> the type of item in the list
+ * @author Droids Team
+ */
+public class ListDiffer<T> {
+
+    /** Tells the differ how to match and compare items. */
+    public interface ItemRules<T> {
+        /**
+         * @param item an item
+         * @return the ID that identifies it across lists, e.g. its Firestore document ID
+         */
+        String idOf(T item);
+
+        /**
+         * Names the shown fields that differ between two versions of the same item.
+         *
+         * @param oldItem the item as shown
+         * @param newItem the item as submitted
+         * @return the changed fields, empty if the row looks the same
+         */
+        Set<String> changes(T oldItem, T newItem);
+    }
+
+    private static final Executor DIFFER = Executors.newSingleThreadExecutor();
+    private static Executor mainThread;
+
+    private final ListUpdateCallback callback;
+    private final ItemRules<T> rules;
+    private final Executor background;
+    private final Executor main;
+    private final Map<String, Long> stableIds = new HashMap<>();
+
+    private List<T> current = Collections.emptyList();
+    private int generation;
+
+    /**
+     * Constructs a ListDiffer that diffs on a shared background thread.
+     *
+     * @param callback told about the changes, usually {@code new AdapterListUpdateCallback(adapter)}
+     * @param rules how to match and compare items
+     */
+    public ListDiffer(ListUpdateCallback callback, ItemRules<T> rules) {
+        this(callback, rules, DIFFER, null);
+    }
+
+    /**
+     * Constructs a ListDiffer.
+     *
+     * @param callback told about the changes
+     * @param rules how to match and compare items
+     * @param background runs the diffs
+     * @param main applies the results, or null for the main thread
+     */
+    public ListDiffer(ListUpdateCallback callback, ItemRules<T> rules, Executor background, Executor main) {
+        this.callback = callback;
+        this.rules = rules;
+        this.background = background;
+        this.main = main;
+    }
+
+    /**
+     * Gets the list currently shown. Positions the adapter is asked about refer to it.
+     *
+     * @return the list, which must not be modified
+     */
+    public List<T> getCurrentList() {
+        return current;
+    }
+
+    /**
+     * Gets a numeric ID for an item that stays the same for as long as the differ lives.
+     *
+     * @param item an item
+     * @return its stable ID
+     */
+    public long stableId(T item) {
+        String id = rules.idOf(item);
+        Long stable = stableIds.get(id);
+        if (stable == null) {
+            stable = (long) stableIds.size();
+            stableIds.put(id, stable);
+        }
+        return stable;
+    }
+
+    /**
+     * Moves to a new list. Call on the main thread.
+     *
+     * @param items the new list, which is copied
+     */
+    public void submit(Collection<? extends T> items) {
+        int submitted = ++generation;
+        List<T> previous = current;
+        List<T> next = Collections.unmodifiableList(new ArrayList<>(items));
+        if (previous.isEmpty() || next.isEmpty()) {
+            current = next;
+            if (!previous.isEmpty()) {
+                callback.onRemoved(0, previous.size());
+            }
+            if (!next.isEmpty()) {
+                callback.onInserted(0, next.size());
+            }
+            return;
+        }
+        background.execute(() -> {
+            DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                @Override
+                public int getOldListSize() {
+                    return previous.size();
+                }
+
+                @Override
+                public int getNewListSize() {
+                    return next.size();
+                }
+
+                @Override
+                public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                    return Objects.equals(rules.idOf(previous.get(oldPosition)), rules.idOf(next.get(newPosition)));
+                }
+
+                @Override
+                public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                    return rules.changes(previous.get(oldPosition), next.get(newPosition)).isEmpty();
+                }
+
+                @Override
+                public Object getChangePayload(int oldPosition, int newPosition) {
+                    return rules.changes(previous.get(oldPosition), next.get(newPosition));
+                }
+            });
+            mainExecutor().execute(() -> {
+                // A newer list was submitted while this one was diffed; it replaces this one
+                if (submitted != generation) {
+                    return;
+                }
+                current = next;
+                result.dispatchUpdatesTo(callback);
+            });
+        });
+    }
+
+    private Executor mainExecutor() {
+        if (main != null) {
+            return main;
+        }
+        synchronized (ListDiffer.class) {
+            if (mainThread == null) {
+                mainThread = new Handler(Looper.getMainLooper())::post;
+            }
+            return mainThread;
+        }
+    }
+
+    /**
+     * Adds a field to a set of changes if its two values differ. For use in
+     * {@link ItemRules#changes}.
+     *
+     * @param changes the changes found so far
+     * @param field the field's name
+     * @param oldValue the value shown
+     * @param newValue the value submitted
+     */
+    public static void compare(Set<String> changes, String field, Object oldValue, Object newValue) {
+        if (!Objects.equals(oldValue, newValue)) {
+            changes.add(field);
+        }
+    }
+
+    /**
+     * Collects the fields named in the payloads of a partial bind.
+     *
+     * @param payloads the payloads given to {@code onBindViewHolder}
+     * @return the changed fields, or null if any payload is unknown and the row needs a full bind
+     */
+    public static Set<String> changedFields(List<Object> payloads) {
+        Set<String> fields = new HashSet<>();
+        for (Object payload : payloads) {
+            if (!(payload instanceof Set)) {
+                return null;
+            }
+            for (Object field : (Set<?>) payload) {
+                fields.add(String.valueOf(field));
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.eventlotteryapp.Helpers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Durable queue of writes that could not reach Firestore, kept in an append-only file so
+ * that it survives the process being killed. Each entry has a key; queuing an entry under
+ * a key that is already waiting replaces the older one, so repeated attempts at the same
+ * write collapse into the latest. {@link #drain} hands entries to a handler oldest first,
+ * {@link #DRAIN_BATCH_SIZE} at a time, and stops at the first batch with a failure so the
+ * rest can wait for the connection to come back.
+ *
+ * The file is a log of "put" and "delete" lines. It is replayed when the outbox is opened
+ * (a line cut short by the process dying is ignored) and rewritten once it holds
+ * {@link #COMPACT_THRESHOLD} more lines than there are waiting entries.
+ *
+ * @author Droids Team
+ */
+public class Outbox {
+
+    /** Maximum number of entries handed to the handler in one batch. */
+    public static final int DRAIN_BATCH_SIZE = 20;
+
+    /** Maximum number of entries being delivered at once within a batch. */
+    public static final int MAX_IN_FLIGHT = 4;
+
+    /** Number of stale log lines tolerated before the file is rewritten. */
+    public static final int COMPACT_THRESHOLD = 64;
+
+    private static final String PUT = "P";
+    private static final String DELETE = "D";
+
+    /**
+     * Delivers one entry when the outbox drains.
+     */
+    public interface Handler {
+        /**
+         * Attempts to deliver an entry.
+         *
+         * @param entry the entry to deliver
+         * @return a CompletableFuture that completes with true if the entry is done with
+         *         (delivered, or failed in a way retrying will not fix), or false to keep it queued
+         */
+        CompletableFuture<Boolean> deliver(Entry entry);
+    }
+
+    /**
+     * One queued write.
+     */
+    public static final class Entry {
+        private final String key;
+        private final String type;
+        private final List<String> args;
+        private final long enqueuedAtMillis;
+
+        Entry(String key, String type, List<String> args, long enqueuedAtMillis) {
+            this.key = key;
+            this.type = type;
+            this.args = Collections.unmodifiableList(new ArrayList<>(args));
+            this.enqueuedAtMillis = enqueuedAtMillis;
+        }
+
+        /** @return the key later writes of the same thing replace this entry under */
+        public String getKey() { return key; }
+
+        /** @return what kind of write this is, used by the handler to replay it */
+        public String getType() { return type; }
+
+        /** @return the values the write needs, e.g. an event and user ID */
+        public List<String> getArgs() { return args; }
+
+        /** @return when the entry was queued, in milliseconds */
+        public long getEnqueuedAtMillis() { return enqueuedAtMillis; }
+    }
+
+    private final File file;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private int logLines;
+
+    private int enqueued;
+    private int coalesced;
+    private int delivered;
+    private int failedAttempts;
+    private long lastDrainLatencyMillis = -1;
+    private long maxDrainLatencyMillis = -1;
+
+    /**
+     * Opens the outbox stored in a file, replaying whatever is already queued there.
+     *
+     * @param file the log file; created when the first entry is queued
+     */
+    public Outbox(File file) {
+        this(file, System::currentTimeMillis);
+    }
+
+    /**
+     * Opens the outbox stored in a file, replaying whatever is already queued there.
+     *
+     * @param file the log file; created when the first entry is queued
+     * @param clock the current time in milliseconds
+     */
+    public Outbox(File file, LongSupplier clock) {
+        this.file = file;
+        this.clock = clock;
+        replay();
+        if (logLines > entries.size() + COMPACT_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Queues a write, replacing any entry already waiting under the same key.
+     * The entry is kept in memory even if it cannot be written to the file, so it still
+     * drains while the process lives.
+     *
+     * @param key identifies the write, e.g. the invitation being answered
+     * @param type what kind of write this is
+     * @param args the values the write needs
+     * @return true if the entry was saved to the file
+     */
+    public synchronized boolean enqueue(String key, String type, String... args) {
+        Entry entry = new Entry(key, type, Arrays.asList(args), clock.getAsLong());
+        if (entries.remove(key) != null) {
+            coalesced++;
+        }
+        entries.put(key, entry);
+        enqueued++;
+        return append(encode(PUT, entry));
+    }
+
+    /** @return the number of entries waiting */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** @return the entries waiting, oldest first */
+    public synchronized List<Entry> pending() {
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * Delivers waiting entries in batches until the outbox is empty or a batch has an
+     * entry that is kept. Does nothing if a drain is already running.
+     *
+     * @param handler delivers each entry
+     * @return a CompletableFuture that completes with the number of entries delivered
+     */
+    public CompletableFuture<Integer> drain(Handler handler) {
+        if (!draining.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(0);
+        }
+        CompletableFuture<Integer> done = new CompletableFuture<>();
+        drainBatch(handler, 0, done);
+        return done.whenComplete((count, e) -> draining.set(false));
+    }
+
+    private void drainBatch(Handler handler, int deliveredSoFar, CompletableFuture<Integer> done) {
+        List<Entry> batch;
+        synchronized (this) {
+            batch = new ArrayList<>();
+            for (Entry entry : entries.values()) {
+                if (batch.size() == DRAIN_BATCH_SIZE) {
+                    break;
+                }
+                batch.add(entry);
+            }
+        }
+        if (batch.isEmpty()) {
+            done.complete(deliveredSoFar);
+            return;
+        }
+
+        BoundedParallel.forEach(batch, MAX_IN_FLIGHT, entry -> handler.deliver(entry).handle((ok, e) -> {
+            if (e == null && ok != null && ok) {
+                markDelivered(entry);
+                return true;
+            }
+            synchronized (this) {
+                failedAttempts++;
+            }
+            return false;
+        })).whenComplete((succeeded, error) -> {
+            int total = deliveredSoFar + ((succeeded != null) ? succeeded : 0);
+            if (succeeded != null && succeeded == batch.size()) {
+                drainBatch(handler, total, done);
+            } else {
+                done.complete(total);
+            }
+        });
+    }
+
+    private synchronized void markDelivered(Entry entry) {
+        long latency = Math.max(0, clock.getAsLong() - entry.enqueuedAtMillis);
+        lastDrainLatencyMillis = latency;
+        maxDrainLatencyMillis = Math.max(maxDrainLatencyMillis, latency);
+        delivered++;
+        // A newer write queued under the same key while this one was out still needs delivering
+        if (entries.get(entry.key) != entry) {
+            return;
+        }
+        entries.remove(entry.key);
+        append(DELETE + "\t" + escape(entry.key));
+        if (logLines > entries.size() + COMPACT_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Gets a snapshot of the outbox's counters.
+     *
+     * @return the current metrics
+     */
+    public synchronized Metrics getMetrics() {
+        return new Metrics(entries.size(), enqueued, coalesced, delivered, failedAttempts,
+            lastDrainLatencyMillis, maxDrainLatencyMillis);
+    }
+
+    /**
+     * Counters for an outbox since it was opened.
+     */
+    public static final class Metrics {
+        private final int depth;
+        private final int enqueued;
+        private final int coalesced;
+        private final int delivered;
+        private final int failedAttempts;
+        private final long lastDrainLatencyMillis;
+        private final long maxDrainLatencyMillis;
+
+        Metrics(int depth, int enqueued, int coalesced, int delivered, int failedAttempts,
+                long lastDrainLatencyMillis, long maxDrainLatencyMillis) {
+            this.depth = depth;
+            this.enqueued = enqueued;
+            this.coalesced = coalesced;
+            this.delivered = delivered;
+            this.failedAttempts = failedAttempts;
+            this.lastDrainLatencyMillis = lastDrainLatencyMillis;
+            this.maxDrainLatencyMillis = maxDrainLatencyMillis;
+        }
+
+        /** @return the number of entries waiting */
+        public int getDepth() { return depth; }
+
+        /** @return the number of entries queued */
+        public int getEnqueued() { return enqueued; }
+
+        /** @return the number of entries that replaced one already waiting under the same key */
+        public int getCoalesced() { return coalesced; }
+
+        /** @return the number of entries delivered */
+        public int getDelivered() { return delivered; }
+
+        /** @return the number of deliveries that failed and left their entry queued */
+        public int getFailedAttempts() { return failedAttempts; }
+
+        /** @return time from queuing to delivery of the last entry delivered, or -1 if none has been */
+        public long getLastDrainLatencyMillis() { return lastDrainLatencyMillis; }
+
+        /** @return the longest time from queuing to delivery, or -1 if nothing has been delivered */
+        public long getMaxDrainLatencyMillis() { return maxDrainLatencyMillis; }
+
+        @Override
+        public String toString() {
+            return "depth=" + depth + ", enqueued=" + enqueued + ", coalesced=" + coalesced
+                + ", delivered=" + delivered + ", failedAttempts=" + failedAttempts
+                + ", lastDrainLatencyMillis=" + lastDrainLatencyMillis
+                + ", maxDrainLatencyMillis=" + maxDrainLatencyMillis;
+        }
+    }
+
+    private void replay() {
+        if (!file.exists()) {
+            return;
+        }
+        String log;
+        try (FileInputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            log = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return;
+        }
+
+        // Only lines ending in a newline were written completely; a last line without one
+        // was cut short by the process dying, and its write was never acknowledged
+        int lineStart = 0;
+        int lineEnd;
+        while ((lineEnd = log.indexOf('\n', lineStart)) != -1) {
+            replayLine(log.substring(lineStart, lineEnd));
+            lineStart = lineEnd + 1;
+            logLines++;
+        }
+    }
+
+    private void replayLine(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields[0].equals(PUT) && fields.length >= 4) {
+            try {
+                List<String> args = new ArrayList<>();
+                for (int i = 4; i < fields.length; i++) {
+                    args.add(unescape(fields[i]));
+                }
+                Entry entry = new Entry(unescape(fields[1]), unescape(fields[2]), args, Long.parseLong(fields[3]));
+                entries.remove(entry.key);
+                entries.put(entry.key, entry);
+            } catch (NumberFormatException e) {
+                // Not a line this class wrote; skip it
+            }
+        } else if (fields[0].equals(DELETE) && fields.length == 2) {
+            entries.remove(unescape(fields[1]));
+        }
+    }
+
+    private boolean append(String line) {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            writer.write(line);
+            writer.write('\n');
+            logLines++;
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Rewrites the file with just the waiting entries, replacing it in one rename. */
+    private void compact() {
+        File rewritten = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(rewritten, false), StandardCharsets.UTF_8)) {
+            for (Entry entry : entries.values()) {
+                writer.write(encode(PUT, entry));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            rewritten.delete();
+            return;
+        }
+        if (rewritten.renameTo(file)) {
+            logLines = entries.size();
+        }
+    }
+
+    private static String encode(String op, Entry entry) {
+        StringBuilder line = new StringBuilder(op)
+            .append('\t').append(escape(entry.key))
+            .append('\t').append(escape(entry.type))
+            .append('\t').append(entry.enqueuedAtMillis);
+        for (String arg : entry.args) {
+            line.append('\t').append(escape(arg));
+        }
+        return line.toString();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                out.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.eventlotteryapp.Helpers;
+
+/**
+ * Utility class with the pure parts of handling event posters: naming cache entries and
+ * versions, and picking how far to downsample or scale a poster.
+ *
+ * @author Droids Team
+ */
+public class PosterDecoding {
+
+    /**
+     * Removes a "data:image/...;base64," prefix, if there is one.
+     *
+     * @param image the poster as stored on the event
+     * @return the bare Base64 data
+     */
+    public static String stripDataUri(String image) {
+        if (image.startsWith("data:")) {
+            int comma = image.indexOf(',');
+            if (comma != -1) {
+                return image.substring(comma + 1);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Names the cache entry for a poster decoded for one size of view. The name changes
+     * whenever the poster's content does, so a replaced poster is never served stale,
+     * and it is safe to use as a file name.
+     *
+     * @param eventId the event the poster belongs to, or null if unknown
+     * @param image the poster as stored on the event
+     * @param width the width the poster is decoded for, in pixels
+     * @param height the height the poster is decoded for, in pixels
+     * @return the cache key
+     */
+    public static String cacheKey(String eventId, String image, int width, int height) {
+        String owner = (eventId != null) ? eventId.replaceAll("[^A-Za-z0-9_-]", "_") : "none";
+        return owner + "_" + version(image) + "_" + width + "x" + height;
+    }
+
+    /**
+     * Names a version of a poster after its content, so anything keyed by it changes
+     * whenever the poster does.
+     *
+     * @param image the poster's Base64 data
+     * @return a short hex string
+     */
+    public static String version(String image) {
+        return Integer.toHexString(image.hashCode()) + Integer.toHexString(image.length());
+    }
+
+    /**
+     * Works out the size that fits an image within a square of the given edge, keeping
+     * its aspect ratio. Images already small enough keep their size.
+     *
+     * @param sourceWidth the width of the image
+     * @param sourceHeight the height of the image
+     * @param maxEdge the longest either side may be, in pixels
+     * @return the width and height, each at least 1
+     */
+    public static int[] fitWithin(int sourceWidth, int sourceHeight, int maxEdge) {
+        int longest = Math.max(sourceWidth, sourceHeight);
+        if (longest <= maxEdge) {
+            return new int[] {sourceWidth, sourceHeight};
+        }
+        double scale = (double) maxEdge / longest;
+        return new int[] {
+            Math.max(1, (int) Math.round(sourceWidth * scale)),
+            Math.max(1, (int) Math.round(sourceHeight * scale))
+        };
+    }
+
+    /**
+     * Picks the largest power-of-two sample size that still leaves the decoded image at
+     * least as large as the view in both dimensions, as BitmapFactory expects.
+     *
+     * @param sourceWidth the width of the encoded image
+     * @param sourceHeight the height of the encoded image
+     * @param width the width of the view, or 0 if unknown
+     * @param height the height of the view, or 0 if unknown
+     * @return the sample size, at least 1
+     */
+    public static int inSampleSize(int sourceWidth, int sourceHeight, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return 1;
+        }
+        int sampleSize = 1;
+        while (sourceWidth / (sampleSize * 2) >= width && sourceHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+}
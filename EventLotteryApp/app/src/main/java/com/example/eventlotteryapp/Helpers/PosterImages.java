@@ -0,0 +1,164 @@
+package com.example.eventlotteryapp.Helpers;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Base64;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stores event posters in image documents of their own, so reading an event no longer
+ * downloads its poster.
+ *
+ * Each poster is kept in two variants, {@code EventImages/{eventId}_thumbnail} for lists
+ * and {@code EventImages/{eventId}_full} for detail screens, both generated when the
+ * poster is saved. The event itself only holds the poster's {@link #VERSION_FIELD}, which
+ * tells screens whether there is a poster and changes whenever the poster does, so cached
+ * copies of an old poster are never shown.
+ *
+ * @author Droids Team
+ */
+public class PosterImages {
+
+    /** Collection holding the poster variants. */
+    public static final String COLLECTION = "EventImages";
+
+    /** Event field holding the version of its poster, absent if it has none. */
+    public static final String VERSION_FIELD = "PosterVersion";
+
+    /** Event field that held the whole poster before posters had documents of their own. */
+    public static final String LEGACY_IMAGE_FIELD = "Image";
+
+    /** Image document field holding the variant as a "data:image/webp;base64," URI. */
+    public static final String IMAGE_FIELD = "Image";
+
+    /** Image document field holding the event the poster belongs to. */
+    public static final String EVENT_ID_FIELD = "EventId";
+
+    /** Image document field holding which variant it is. */
+    public static final String VARIANT_FIELD = "Variant";
+
+    /** Image document field holding the poster's version. */
+    public static final String POSTER_VERSION_FIELD = "Version";
+
+    /** The small variant shown in lists. */
+    public static final String THUMBNAIL = "thumbnail";
+
+    /** The large variant shown on detail screens. */
+    public static final String FULL = "full";
+
+    /** Longest edge of the thumbnail variant, in pixels. */
+    public static final int THUMBNAIL_EDGE = 480;
+
+    /** Longest edge of the full variant, in pixels. */
+    public static final int FULL_EDGE = 1600;
+
+    private static final int THUMBNAIL_QUALITY = 70;
+    private static final int FULL_QUALITY = 80;
+
+    private static final ExecutorService ENCODER = Executors.newSingleThreadExecutor();
+
+    /**
+     * Gets the document holding one variant of an event's poster.
+     *
+     * @param db the Firestore instance
+     * @param eventId the event
+     * @param variant {@link #THUMBNAIL} or {@link #FULL}
+     * @return the document reference
+     */
+    public static DocumentReference ref(FirebaseFirestore db, String eventId, String variant) {
+        return db.collection(COLLECTION).document(eventId + "_" + variant);
+    }
+
+    /**
+     * Generates the thumbnail and full variants of a poster on a background thread.
+     *
+     * @param image the poster as picked, optionally prefixed with "data:image/...;base64,"
+     * @return a CompletableFuture with the data URI of each variant by variant name,
+     *         or null if the poster cannot be decoded
+     */
+    public static CompletableFuture<Map<String, String>> encode(String image) {
+        return CompletableFuture.supplyAsync(() -> {
+            byte[] bytes = Base64.decode(PosterDecoding.stripDataUri(image), Base64.DEFAULT);
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+            options.inSampleSize = PosterDecoding.inSampleSize(options.outWidth, options.outHeight, FULL_EDGE, FULL_EDGE);
+            options.inJustDecodeBounds = false;
+            Bitmap source = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+            if (source == null) {
+                return null;
+            }
+            Map<String, String> variants = new LinkedHashMap<>();
+            variants.put(THUMBNAIL, compress(source, THUMBNAIL_EDGE, THUMBNAIL_QUALITY));
+            variants.put(FULL, compress(source, FULL_EDGE, FULL_QUALITY));
+            source.recycle();
+            return variants;
+        }, ENCODER);
+    }
+
+    private static String compress(Bitmap source, int maxEdge, int quality) {
+        int[] size = PosterDecoding.fitWithin(source.getWidth(), source.getHeight(), maxEdge);
+        Bitmap scaled = Bitmap.createScaledBitmap(source, size[0], size[1], true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        scaled.compress(Bitmap.CompressFormat.WEBP, quality, out);
+        if (scaled != source) {
+            scaled.recycle();
+        }
+        return "data:image/webp;base64," + Base64.encodeToString(out.toByteArray(), Base64.NO_WRAP);
+    }
+
+    /**
+     * Writes a poster's variants as part of a batch. The caller stores the returned
+     * version on the event in the same batch.
+     *
+     * @param batch the batch saving the event
+     * @param db the Firestore instance
+     * @param eventId the event
+     * @param variants the variants from {@link #encode}
+     * @return the poster's version
+     */
+    public static String put(WriteBatch batch, FirebaseFirestore db, String eventId, Map<String, String> variants) {
+        String version = PosterDecoding.version(variants.get(FULL));
+        for (Map.Entry<String, String> variant : variants.entrySet()) {
+            Map<String, Object> data = new HashMap<>();
+            data.put(IMAGE_FIELD, variant.getValue());
+            data.put(EVENT_ID_FIELD, eventId);
+            data.put(VARIANT_FIELD, variant.getKey());
+            data.put(POSTER_VERSION_FIELD, version);
+            batch.set(ref(db, eventId, variant.getKey()), data);
+        }
+        return version;
+    }
+
+    /**
+     * Deletes an event's poster as part of a batch: both variants, and the poster fields
+     * on the event unless the event itself is being deleted.
+     *
+     * @param batch the batch
+     * @param db the Firestore instance
+     * @param eventId the event
+     * @param clearEvent true to also remove the poster fields from the event
+     */
+    public static void delete(WriteBatch batch, FirebaseFirestore db, String eventId, boolean clearEvent) {
+        batch.delete(ref(db, eventId, THUMBNAIL));
+        batch.delete(ref(db, eventId, FULL));
+        if (clearEvent) {
+            Map<String, Object> fields = new HashMap<>();
+            fields.put(VERSION_FIELD, FieldValue.delete());
+            fields.put(LEGACY_IMAGE_FIELD, FieldValue.delete());
+            batch.update(db.collection("Events").document(eventId), fields);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.eventlotteryapp.Helpers;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+
+import com.example.eventlotteryapp.R;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Loads event posters into ImageViews without decoding on the main thread.
+ *
+ * Posters are stored as Base64 text in {@link PosterImages}, or on events not yet moved
+ * there. Fetching and decoding one is slow, so each poster is loaded once per view size
+ * on a background executor, downsampled to the view with {@code inSampleSize}, and kept
+ * in two caches: an in-memory LRU bounded in bytes, and on-disk thumbnails in the app's
+ * cache directory that outlive the process. Entries are keyed by event ID and the
+ * poster's version or a hash of its content (see {@link PosterDecoding#cacheKey}), so
+ * changing a poster never shows the old one.
+ *
+ * A view that is rebound to another poster before the first one finishes loading only
+ * ever shows the poster it was last asked for.
+ *
+ * @author Droids Team
+ */
+public class PosterLoader {
+    private static final String TAG = "PosterLoader";
+
+    /** Share of the app's heap the in-memory cache may use. */
+    private static final int MEMORY_CACHE_FRACTION = 8;
+
+    /** Largest total size of the thumbnails kept on disk. */
+    public static final long DISK_CACHE_BYTES = 32L * 1024 * 1024;
+
+    /** JPEG quality of the thumbnails kept on disk. */
+    private static final int DISK_QUALITY = 85;
+
+    /** Number of posters decoded at once. */
+    private static final int DECODE_THREADS = 2;
+
+    private static PosterLoader instance;
+
+    private final LruCache<String, Bitmap> memoryCache;
+    private final File diskDir;
+    private final ExecutorService decoder = Executors.newFixedThreadPool(DECODE_THREADS);
+    private final Handler mainThread = new Handler(Looper.getMainLooper());
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+
+    /** Loads in progress, so views asking for the same poster share one load. */
+    private final Map<String, CompletableFuture<Bitmap>> inFlight = new ConcurrentHashMap<>();
+
+    private PosterLoader(Context context) {
+        int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / MEMORY_CACHE_FRACTION, Integer.MAX_VALUE);
+        memoryCache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+        diskDir = new File(context.getCacheDir(), "posters");
+    }
+
+    /**
+     * Gets the app's poster loader, creating it on first use.
+     *
+     * @param context any context from the app
+     * @return the loader
+     */
+    public static synchronized PosterLoader get(Context context) {
+        if (instance == null) {
+            instance = new PosterLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Shows one variant of an event's stored poster in a view, sized to the view. The
+     * variant is only fetched from {@link PosterImages} if neither cache has it. Shows the
+     * placeholder while the poster loads, or if the event has no poster.
+     *
+     * @param eventId the event the poster belongs to
+     * @param version the event's {@link PosterImages#VERSION_FIELD}, or null if it has no poster
+     * @param variant {@link PosterImages#THUMBNAIL} or {@link PosterImages#FULL}
+     * @param view the view to show it in
+     * @param placeholder the drawable shown meanwhile, or 0 to leave the view as it is
+     */
+    public void loadPoster(String eventId, String version, String variant, ImageView view, @DrawableRes int placeholder) {
+        if (eventId == null || version == null || version.isEmpty()) {
+            view.setTag(R.id.poster_loader_key, null);
+            showPlaceholder(view, placeholder);
+            return;
+        }
+        int[] size = targetSize(view);
+        String key = PosterDecoding.cacheKey(eventId, variant + ":" + version, size[0], size[1]);
+        show(key, eventId, view, placeholder, k -> CompletableFuture
+            .supplyAsync(() -> fromDisk(k), decoder)
+            .thenCompose(bitmap -> (bitmap != null) ? CompletableFuture.completedFuture(bitmap)
+                : fetch(eventId, variant).thenApplyAsync(
+                    image -> (image != null) ? decode(k, image, size[0], size[1]) : null, decoder)));
+    }
+
+    /**
+     * Shows an event's poster on a detail screen, from its full variant, or from the
+     * poster stored on the event itself for events not yet moved to {@link PosterImages}.
+     *
+     * @param eventDoc the event
+     * @param view the view to show it in
+     * @param placeholder the drawable shown meanwhile, or 0 to leave the view as it is
+     */
+    public void loadPoster(DocumentSnapshot eventDoc, ImageView view, @DrawableRes int placeholder) {
+        String version = eventDoc.getString(PosterImages.VERSION_FIELD);
+        if (version == null) {
+            load(eventDoc.getId(), eventDoc.getString(PosterImages.LEGACY_IMAGE_FIELD), view, placeholder);
+        } else {
+            loadPoster(eventDoc.getId(), version, PosterImages.FULL, view, placeholder);
+        }
+    }
+
+    /**
+     * Shows a poster given as Base64 in a view, sized to the view. Shows the placeholder
+     * while the poster is decoded, or if there is no poster or it cannot be decoded.
+     *
+     * @param eventId the event the poster belongs to
+     * @param image the poster, optionally prefixed with "data:image/...;base64,", or null
+     * @param view the view to show it in
+     * @param placeholder the drawable shown meanwhile, or 0 to leave the view as it is
+     */
+    public void load(String eventId, String image, ImageView view, @DrawableRes int placeholder) {
+        if (image == null || image.trim().isEmpty()) {
+            view.setTag(R.id.poster_loader_key, null);
+            showPlaceholder(view, placeholder);
+            return;
+        }
+        int[] size = targetSize(view);
+        String key = PosterDecoding.cacheKey(eventId, image, size[0], size[1]);
+        show(key, eventId, view, placeholder, k -> CompletableFuture.supplyAsync(() -> {
+            Bitmap bitmap = fromDisk(k);
+            return (bitmap != null) ? bitmap : decode(k, image, size[0], size[1]);
+        }, decoder));
+    }
+
+    /**
+     * Shows the bitmap cached under a key, or the placeholder until the loader produces it.
+     * Views asking for the same key at once share one load.
+     */
+    private void show(String key, String eventId, ImageView view, @DrawableRes int placeholder,
+                      Function<String, CompletableFuture<Bitmap>> loader) {
+        view.setTag(R.id.poster_loader_key, key);
+
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            view.setImageBitmap(cached);
+            return;
+        }
+        showPlaceholder(view, placeholder);
+
+        // Claim the key before starting the load, and only touch the map again once the
+        // claim has returned: removing it from inside computeIfAbsent can throw if the
+        // load completes synchronously
+        CompletableFuture<Bitmap> claim = new CompletableFuture<>();
+        CompletableFuture<Bitmap> loading = inFlight.putIfAbsent(key, claim);
+        if (loading == null) {
+            loading = claim;
+            CompletableFuture<Bitmap> load;
+            try {
+                load = loader.apply(key);
+            } catch (RuntimeException e) {
+                load = new CompletableFuture<>();
+                load.completeExceptionally(e);
+            }
+            load.whenComplete((bitmap, e) -> {
+                inFlight.remove(key, claim);
+                if (e != null) {
+                    claim.completeExceptionally(e);
+                } else {
+                    claim.complete(bitmap);
+                }
+            });
+        }
+        loading.whenComplete((bitmap, e) -> mainThread.post(() -> {
+            // The view may have been rebound to another poster in the meantime
+            if (!key.equals(view.getTag(R.id.poster_loader_key))) {
+                return;
+            }
+            if (bitmap != null) {
+                view.setImageBitmap(bitmap);
+            } else {
+                if (e != null) {
+                    Log.e(TAG, "Failed to load poster for event " + eventId, e);
+                }
+                showPlaceholder(view, placeholder);
+            }
+        }));
+    }
+
+    private static void showPlaceholder(ImageView view, @DrawableRes int placeholder) {
+        if (placeholder != 0) {
+            view.setImageResource(placeholder);
+        }
+    }
+
+    /**
+     * The size to decode for: the view's laid out size, or before layout its requested
+     * size, falling back to the screen width for a view that fills its parent.
+     */
+    private static int[] targetSize(ImageView view) {
+        int width = view.getWidth();
+        int height = view.getHeight();
+        if (width <= 0 || height <= 0) {
+            int screen = view.getResources().getDisplayMetrics().widthPixels;
+            width = (view.getLayoutParams() != null && view.getLayoutParams().width > 0)
+                ? view.getLayoutParams().width : screen;
+            height = (view.getLayoutParams() != null && view.getLayoutParams().height > 0)
+                ? view.getLayoutParams().height : width;
+        }
+        return new int[] {width, height};
+    }
+
+    /** Runs on the decoder: the thumbnail kept on disk for a key, if there is one. */
+    private Bitmap fromDisk(String key) {
+        File file = new File(diskDir, key + ".jpg");
+        if (!file.exists()) {
+            return null;
+        }
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+        if (bitmap != null) {
+            file.setLastModified(System.currentTimeMillis());
+            memoryCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /** Fetches one variant of a stored poster, completing with null if there is none. */
+    private CompletableFuture<String> fetch(String eventId, String variant) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        PosterImages.ref(db, eventId, variant).get()
+            .addOnSuccessListener(decoder, doc -> future.complete(doc.getString(PosterImages.IMAGE_FIELD)))
+            .addOnFailureListener(decoder, future::completeExceptionally);
+        return future;
+    }
+
+    /** Runs on the decoder: decodes a Base64 poster downsampled to the view, and caches it. */
+    private Bitmap decode(String key, String image, int width, int height) {
+        byte[] bytes = Base64.decode(PosterDecoding.stripDataUri(image), Base64.DEFAULT);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        options.inSampleSize = PosterDecoding.inSampleSize(options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+        Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        if (bitmap == null) {
+            return null;
+        }
+        memoryCache.put(key, bitmap);
+        writeToDisk(new File(diskDir, key + ".jpg"), bitmap);
+        return bitmap;
+    }
+
+    private void writeToDisk(File file, Bitmap bitmap) {
+        if (!diskDir.exists() && !diskDir.mkdirs()) {
+            return;
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, DISK_QUALITY, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not cache poster thumbnail " + file.getName(), e);
+            file.delete();
+            return;
+        }
+        trimDisk();
+    }
+
+    /** Deletes the least recently used thumbnails until the disk cache fits its limit. */
+    private synchronized void trimDisk() {
+        File[] files = diskDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= DISK_CACHE_BYTES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= DISK_CACHE_BYTES) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.eventlotteryapp.Helpers;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves posters still stored on events as a Base64 {@code Image} field into
+ * {@link PosterImages}, generating their thumbnail and full variants, and removes the
+ * field from the event.
+ *
+ * A range filter only matches values of its own type, so querying for Images
+ * {@code >= ""} finds exactly the events that still hold a poster string. Every event
+ * read is rewritten, dropping it out of that query, which makes the migration resumable:
+ * each page simply reads the first events that are left. Posters that cannot be decoded
+ * could never be shown, so they are removed without variants.
+ *
+ * @author Droids Team
+ */
+public class PosterMigration {
+    private static final String TAG = "PosterMigration";
+
+    /** Number of events migrated per batch; kept small because each one holds a whole poster. */
+    public static final int PAGE_SIZE = 10;
+
+    /** Stops a second run from starting while one is already going in this process. */
+    private static final AtomicBoolean RUNNING = new AtomicBoolean(false);
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Constructs a PosterMigration using the default Firestore instance.
+     */
+    public PosterMigration() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * Constructs a PosterMigration.
+     *
+     * @param db the Firestore instance holding the events
+     */
+    public PosterMigration(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Migrates every poster still stored on an event. Returns straight away with 0 if a
+     * run is already in progress in this process.
+     *
+     * @return a CompletableFuture that completes with the number of posters moved
+     */
+    public CompletableFuture<Integer> run() {
+        if (!RUNNING.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(0);
+        }
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        migratePage(0, future);
+        return future.whenComplete((migrated, e) -> RUNNING.set(false));
+    }
+
+    private Query eventsWithPosters() {
+        return db.collection("Events")
+            .whereGreaterThanOrEqualTo(PosterImages.LEGACY_IMAGE_FIELD, "")
+            .limit(PAGE_SIZE);
+    }
+
+    /**
+     * Encodes one page of posters, then writes their variants and strips the events in
+     * one batch, and moves on to the events that are left.
+     */
+    private void migratePage(int migratedSoFar, CompletableFuture<Integer> future) {
+        eventsWithPosters().get().addOnSuccessListener(snapshot -> {
+            List<DocumentSnapshot> docs = snapshot.getDocuments();
+            if (docs.isEmpty()) {
+                Log.d(TAG, "Poster migration finished, " + migratedSoFar + " poster(s) moved");
+                future.complete(migratedSoFar);
+                return;
+            }
+
+            List<CompletableFuture<Map<String, String>>> encoding = new ArrayList<>();
+            for (DocumentSnapshot doc : docs) {
+                String image = doc.getString(PosterImages.LEGACY_IMAGE_FIELD);
+                encoding.add((image == null || image.trim().isEmpty())
+                    ? CompletableFuture.completedFuture(null)
+                    : PosterImages.encode(image).exceptionally(e -> null));
+            }
+
+            CompletableFuture.allOf(encoding.toArray(new CompletableFuture[0])).thenRun(() -> {
+                WriteBatch batch = db.batch();
+                int migrated = 0;
+                for (int i = 0; i < docs.size(); i++) {
+                    DocumentSnapshot doc = docs.get(i);
+                    Map<String, String> variants = encoding.get(i).join();
+                    Map<String, Object> fields = new HashMap<>();
+                    fields.put(PosterImages.LEGACY_IMAGE_FIELD, FieldValue.delete());
+                    if (variants != null) {
+                        fields.put(PosterImages.VERSION_FIELD, PosterImages.put(batch, db, doc.getId(), variants));
+                        migrated++;
+                    } else {
+                        Log.w(TAG, "Removing unreadable poster from event " + doc.getId());
+                    }
+                    batch.update(doc.getReference(), fields);
+                }
+
+                int total = migratedSoFar + migrated;
+                batch.commit()
+                    .addOnSuccessListener(aVoid -> {
+                        if (docs.size() < PAGE_SIZE) {
+                            Log.d(TAG, "Poster migration finished, " + total + " poster(s) moved");
+                            future.complete(total);
+                        } else {
+                            migratePage(total, future);
+                        }
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Error moving event posters", e);
+                        future.completeExceptionally(e);
+                    });
+            });
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Error querying events with posters", e);
+            future.completeExceptionally(e);
+        });
+    }
+}
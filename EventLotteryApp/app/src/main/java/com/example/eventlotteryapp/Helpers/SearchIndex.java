@@ -0,0 +1,258 @@
+package com.example.eventlotteryapp.Helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A trigram inverted index over the title, description and location of events, for
+ * case-insensitive substring search that does not scan every event.
+ *
+ * Every three-character sequence in an event's fields points to the events containing
+ * it. A query of three or more characters intersects the lists of its own trigrams, and
+ * only the few events left are checked with {@code contains}, so results are exactly the
+ * events whose fields contain the query. Shorter queries have no trigrams and fall back
+ * to checking every event.
+ *
+ * Events are added, changed and removed one at a time as their snapshots change. An
+ * event that changes is re-added under a new number and its old entries are skipped
+ * until enough have piled up to rebuild the index.
+ *
+ * Not thread-safe; use it from one thread at a time.
+ *
+ * @author Droids Team
+ */
+public class SearchIndex {
+
+    /** Match in the title, ranked first. */
+    public static final int TITLE = 0;
+
+    /** Match in the description, ranked after title matches. */
+    public static final int DESCRIPTION = 1;
+
+    /** Match in the location, ranked last. */
+    public static final int LOCATION = 2;
+
+    /** Removed entries tolerated before the index is rebuilt, if they also outnumber live ones. */
+    private static final int REBUILD_THRESHOLD = 1024;
+
+    /** Event number by event ID. */
+    private final Map<String, Integer> numbers = new HashMap<>();
+
+    /** Event ID by event number, null once removed. */
+    private final List<String> ids = new ArrayList<>();
+
+    /** Lowercased fields by event number, null once removed. */
+    private final List<String[]> texts = new ArrayList<>();
+
+    /** Ascending event numbers by trigram. */
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    private int removed;
+
+    /**
+     * Adds an event, or updates it if it is already indexed. Does nothing if none of its
+     * fields changed.
+     *
+     * @param id the event's ID
+     * @param title its title, or null
+     * @param description its description, or null
+     * @param location its location, or null
+     */
+    public void put(String id, String title, String description, String location) {
+        String[] fields = {normalize(title), normalize(description), normalize(location)};
+        Integer existing = numbers.get(id);
+        if (existing != null) {
+            if (Arrays.equals(texts.get(existing), fields)) {
+                return;
+            }
+            remove(id);
+        }
+        int number = ids.size();
+        ids.add(id);
+        texts.add(fields);
+        numbers.put(id, number);
+        addPostings(number, fields);
+    }
+
+    /**
+     * Removes an event, if it is indexed.
+     *
+     * @param id the event's ID
+     */
+    public void remove(String id) {
+        Integer number = numbers.remove(id);
+        if (number == null) {
+            return;
+        }
+        ids.set(number, null);
+        texts.set(number, null);
+        removed++;
+        if (removed > REBUILD_THRESHOLD && removed > numbers.size()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Removes every event not in the given IDs.
+     *
+     * @param keep the IDs of the events to keep
+     */
+    public void retainAll(Collection<String> keep) {
+        Set<String> kept = new HashSet<>(keep);
+        for (String id : new ArrayList<>(numbers.keySet())) {
+            if (!kept.contains(id)) {
+                remove(id);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of events indexed.
+     *
+     * @return the number of events
+     */
+    public int size() {
+        return numbers.size();
+    }
+
+    /**
+     * Finds the events whose title, description or location contains the query, ignoring case.
+     *
+     * @param query the text to look for
+     * @return the matching event IDs, each with the first field it matched in:
+     *         {@link #TITLE}, {@link #DESCRIPTION} or {@link #LOCATION}
+     */
+    public Map<String, Integer> search(String query) {
+        String needle = normalize(query);
+        Map<String, Integer> hits = new LinkedHashMap<>();
+        if (needle.length() < 3) {
+            for (int number = 0; number < ids.size(); number++) {
+                check(number, needle, hits);
+            }
+            return hits;
+        }
+
+        Set<Long> grams = new HashSet<>();
+        addTrigrams(needle, grams);
+        List<IntList> lists = new ArrayList<>();
+        for (Long gram : grams) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                return hits;
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        IntList candidates = lists.get(0);
+        for (int i = 1; i < lists.size() && candidates.size > 0; i++) {
+            candidates = candidates.intersect(lists.get(i));
+        }
+        for (int i = 0; i < candidates.size; i++) {
+            check(candidates.values[i], needle, hits);
+        }
+        return hits;
+    }
+
+    /** Records an event as a hit under the first field that contains the query. */
+    private void check(int number, String needle, Map<String, Integer> hits) {
+        String[] fields = texts.get(number);
+        if (fields == null) {
+            return;
+        }
+        for (int field = TITLE; field <= LOCATION; field++) {
+            if (fields[field].contains(needle)) {
+                hits.put(ids.get(number), field);
+                return;
+            }
+        }
+    }
+
+    private void addPostings(int number, String[] fields) {
+        Set<Long> grams = new HashSet<>();
+        for (String field : fields) {
+            addTrigrams(field, grams);
+        }
+        for (Long gram : grams) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                list = new IntList();
+                postings.put(gram, list);
+            }
+            list.add(number);
+        }
+    }
+
+    /** Renumbers the live events from 0, dropping every entry of removed ones. */
+    private void rebuild() {
+        List<String> liveIds = new ArrayList<>();
+        List<String[]> liveTexts = new ArrayList<>();
+        for (int number = 0; number < ids.size(); number++) {
+            if (ids.get(number) != null) {
+                liveIds.add(ids.get(number));
+                liveTexts.add(texts.get(number));
+            }
+        }
+        ids.clear();
+        texts.clear();
+        numbers.clear();
+        postings.clear();
+        removed = 0;
+        for (int i = 0; i < liveIds.size(); i++) {
+            ids.add(liveIds.get(i));
+            texts.add(liveTexts.get(i));
+            numbers.put(liveIds.get(i), i);
+            addPostings(i, liveTexts.get(i));
+        }
+    }
+
+    private static String normalize(String text) {
+        return (text != null) ? text.toLowerCase(Locale.ROOT) : "";
+    }
+
+    /** Packs each run of three characters into a long, 16 bits per character. */
+    private static void addTrigrams(String text, Set<Long> grams) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+    }
+
+    /** A growable list of ascending ints. */
+    private static class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        IntList intersect(IntList other) {
+            IntList result = new IntList();
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (values[i] < other.values[j]) {
+                    i++;
+                } else if (values[i] > other.values[j]) {
+                    j++;
+                } else {
+                    result.add(values[i]);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -1,52 +1,446 @@
 package com.example.eventlotteryapp;
 
+import android.util.Log;
+
+import com.example.eventlotteryapp.Controllers.WaitlistController;
+import com.example.eventlotteryapp.Helpers.BoundedParallel;
+import com.example.eventlotteryapp.Notifications.Audience;
+import com.example.eventlotteryapp.Notifications.BroadcastFeed;
+import com.example.eventlotteryapp.Notifications.Broadcasts;
+import com.example.eventlotteryapp.Notifications.EventSummary;
+import com.example.eventlotteryapp.Notifications.FanOutReport;
+import com.example.eventlotteryapp.Notifications.FirestorePushTokenSource;
+import com.example.eventlotteryapp.Notifications.FirestorePushTransport;
 import com.example.eventlotteryapp.Notifications.Notification;
+import com.example.eventlotteryapp.Notifications.NotificationDigest;
+import com.example.eventlotteryapp.Notifications.NotificationIds;
+import com.example.eventlotteryapp.Notifications.PushDispatcher;
+import com.example.eventlotteryapp.Notifications.UnreadCounter;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.messaging.FirebaseMessaging;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller for managing and sending notifications to users.
  * Handles bulk notification sending to different groups of entrants
  * (waiting list, selected, cancelled) while respecting user notification preferences.
  * Notifications are saved to Firestore and can be sent via FCM (Firebase Cloud Messaging).
+ * Entrant notifications are held for a short coalescing window, so several messages to
+ * the same user about the same event within it arrive as a single digest.
  * 
  * @author Droids Team
  */
 public class NotificationController {
+    private static final String TAG = "NotificationController";
 
     /** Firestore database instance for saving notifications and checking user preferences. */
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
 
+    /** Maximum number of user IDs Firestore accepts in one {@code whereIn} filter. */
+    public static final int PREFERENCE_CHUNK_SIZE = 30;
+
+    /** Maximum number of writes Firestore accepts in one WriteBatch. */
+    public static final int WRITE_BATCH_SIZE = 500;
+
+    /** Maximum number of preference queries in flight at once during a bulk send. */
+    public static final int MAX_QUERIES_IN_FLIGHT = 4;
+
+    /** Default time entrant notifications for an event are held so they can be merged. */
+    public static final long DEFAULT_COALESCING_WINDOW_MILLIS = 2000;
+
+    /** Notification field holding how many messages a digest merged, when more than one. */
+    public static final String DIGEST_COUNT_FIELD = "DigestCount";
+
+    /** Closes coalescing windows once they have been open long enough. */
+    private static final ScheduledExecutorService WINDOW_TIMER = Executors.newSingleThreadScheduledExecutor();
+
+    private static final Coalescer COALESCER = new Coalescer();
+
+    /** Delivers the push for each written notification; shared so cached tokens outlive a screen. */
+    private static final PushDispatcher PUSH = new PushDispatcher(new FirestorePushTransport(), new FirestorePushTokenSource());
+
+    private static volatile long coalescingWindowMillis = DEFAULT_COALESCING_WINDOW_MILLIS;
+
     /**
      * Sends notifications to all entrants in a list, respecting their opt-out preferences.
-     * Only sends notifications to users who have notifications enabled.
+     * Only sends notifications to users who have notifications enabled; users without a
+     * profile document are skipped.
      * Always sets UserType to "entrant" for entrant notifications, regardless of recipient's role.
+     *
+     * Preferences are read {@link #PREFERENCE_CHUNK_SIZE} users per query, with at most
+     * {@link #MAX_QUERIES_IN_FLIGHT} queries running at once. Notifications are then held for
+     * the coalescing window, merged with any other message to the same user about the same
+     * event, and written in batches of up to {@link #WRITE_BATCH_SIZE}. A failed query or
+     * batch marks just its own users as failed in the report; the rest of the send carries on.
+     * A broadcast skips all that and writes one {@link Broadcasts} document for the event's list.
      * 
-     * @param entrantIds the list of entrant user IDs to send notifications to
+     * @param recipients the entrant user IDs to send notifications to, each once, from {@link Audience#resolve}
      * @param title the notification title
      * @param message the notification message body
-     * @param eventId the ID of the event this notification is related to
+     * @param audience the entrant list being notified, or null if the send covers several
+     * @param eventDoc the event this notification is related to
      * @param organizerId the ID of the organizer sending the notification (for admin logs)
+     * @param listener told about progress as recipients are processed, or null
+     * @param broadcast whether to write one shared broadcast instead of a notification per user
+     * @return a CompletableFuture that completes with the report once every notification is written
      */
-    private void sendBulkNotifications(List<String> entrantIds, String title, String message, String eventId, String organizerId) {
-        if (entrantIds == null || entrantIds.isEmpty()) return;
-
-        for (String userId : entrantIds) {
-            db.collection("users").document(userId).get().addOnSuccessListener(userDoc -> {
-                Boolean notificationsEnabled = userDoc.getBoolean("notificationPreference");
-                if (notificationsEnabled == null || notificationsEnabled) {
-                    System.out.println("Sending notification to user: " + userId);
-                    // Always set UserType to "entrant" for entrant notifications, regardless of recipient's role
-                    sendNotificationToUser(userDoc, title, message, eventId, organizerId, "entrant");
-                }
+    private CompletableFuture<FanOutReport> sendBulkNotifications(List<String> recipients, String title, String message,
+                                                                  String audience, DocumentSnapshot eventDoc, String organizerId,
+                                                                  FanOutListener listener, boolean broadcast) {
+        BulkSend send = new BulkSend(new FanOutReport(recipients.size(), System.currentTimeMillis()),
+            title, message, audience, eventDoc, organizerId, listener, broadcast);
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < recipients.size(); i += PREFERENCE_CHUNK_SIZE) {
+            chunks.add(recipients.subList(i, Math.min(i + PREFERENCE_CHUNK_SIZE, recipients.size())));
+        }
+
+        return BoundedParallel.forEach(chunks, MAX_QUERIES_IN_FLIGHT, send::readChunk)
+            .thenCompose(ok -> send.flushAndAwait())
+            .thenApply(ignored -> {
+                send.report.finish(System.currentTimeMillis());
+                Log.d(TAG, "Bulk send for event " + eventDoc.getId() + ": " + send.report.getSent() + " sent, "
+                    + send.report.getSkipped() + " skipped, " + send.report.getFailed() + " failed in "
+                    + send.report.getElapsedMillis() + "ms");
+                return send.report;
             });
+    }
+
+    /**
+     * State for one bulk send: the report, and the coalescing batches its recipients'
+     * notifications were queued into, or for a broadcast, the audience collected so far.
+     */
+    private class BulkSend {
+        final FanOutReport report;
+        private final String title;
+        private final String message;
+        private final String audience;
+        private final DocumentSnapshot eventDoc;
+        private final String organizerId;
+        private final FanOutListener listener;
+        private final Map<CompletableFuture<Boolean>, List<String>> queuedByBatch = new LinkedHashMap<>();
+        private final List<String> broadcastAudience;
+
+        BulkSend(FanOutReport report, String title, String message, String audience, DocumentSnapshot eventDoc,
+                 String organizerId, FanOutListener listener, boolean broadcast) {
+            this.report = report;
+            this.title = title;
+            this.message = message;
+            this.audience = audience;
+            this.eventDoc = eventDoc;
+            this.organizerId = organizerId;
+            this.listener = listener;
+            this.broadcastAudience = broadcast ? new ArrayList<>() : null;
+        }
+
+        /** Reads the preferences of one chunk of users and queues notifications for those opted in. */
+        CompletableFuture<Boolean> readChunk(List<String> userIds) {
+            CompletableFuture<Boolean> done = new CompletableFuture<>();
+            db.collection("users").whereIn(FieldPath.documentId(), userIds).get()
+                .addOnSuccessListener(snapshot -> {
+                    int skipped = userIds.size() - snapshot.size();
+                    for (DocumentSnapshot userDoc : snapshot.getDocuments()) {
+                        Boolean notificationsEnabled = userDoc.getBoolean("notificationPreference");
+                        if (notificationsEnabled == null || notificationsEnabled) {
+                            queue(userDoc.getId());
+                        } else {
+                            skipped++;
+                        }
+                    }
+                    report.recordSkipped(skipped);
+                    reportProgress();
+                    done.complete(true);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error reading notification preferences", e);
+                    report.recordFailed(userIds);
+                    reportProgress();
+                    done.complete(false);
+                });
+            return done;
+        }
+
+        private synchronized void queue(String userId) {
+            if (broadcastAudience != null) {
+                broadcastAudience.add(userId);
+                return;
+            }
+            CompletableFuture<Boolean> batch = COALESCER.add(userId, eventDoc, organizerId, title, message, audience);
+            queuedByBatch.computeIfAbsent(batch, b -> new ArrayList<>()).add(userId);
+        }
+
+        /** Waits for every coalescing batch holding this send's notifications to be written. */
+        synchronized CompletableFuture<Void> flushAndAwait() {
+            if (broadcastAudience != null) {
+                return writeBroadcast();
+            }
+            List<CompletableFuture<Void>> recorded = new ArrayList<>();
+            for (Map.Entry<CompletableFuture<Boolean>, List<String>> entry : queuedByBatch.entrySet()) {
+                List<String> userIds = entry.getValue();
+                recorded.add(entry.getKey().thenAccept(written -> {
+                    if (written) {
+                        report.recordSent(userIds.size());
+                    } else {
+                        report.recordFailed(userIds);
+                    }
+                    reportProgress();
+                }));
+            }
+            return CompletableFuture.allOf(recorded.toArray(new CompletableFuture[0]));
+        }
+
+        /**
+         * Writes one broadcast document naming the event and the entrant list, without the
+         * recipients; each entrant's inbox finds it through their own membership (see
+         * {@link BroadcastFeed}). Push notifications still go to the opted-in recipients.
+         */
+        private CompletableFuture<Void> writeBroadcast() {
+            List<String> recipients = new ArrayList<>(broadcastAudience);
+            if (recipients.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            Map<String, Object> broadcast = buildNotification(null, title, message, eventDoc, organizerId, "entrant");
+            broadcast.remove("UserId");
+            broadcast.remove(UnreadCounter.READ_FIELD);
+            broadcast.put(Broadcasts.AUDIENCE_FIELD, audience);
+            // Compared with the server-set join times of waitlist entries, so set on the server too
+            broadcast.put("TimeStamp", FieldValue.serverTimestamp());
+
+            CompletableFuture<Void> committed = new CompletableFuture<>();
+            db.collection(Broadcasts.COLLECTION).document().set(broadcast)
+                .addOnSuccessListener(aVoid -> {
+                    report.recordSent(recipients.size());
+                    reportProgress();
+                    dispatchPush(recipients, title, message, eventDoc.getId());
+                    committed.complete(null);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error saving broadcast for event " + eventDoc.getId(), e);
+                    report.recordFailed(recipients);
+                    reportProgress();
+                    committed.complete(null);
+                });
+            return committed;
+        }
+
+        private void reportProgress() {
+            if (listener != null) {
+                listener.onProgress(report);
+            }
+        }
+    }
+
+    /**
+     * Holds entrant notifications for {@link #getCoalescingWindowMillis()} after the first one
+     * for an event is queued, so that every message to the same user about that event in the
+     * meantime is written as one {@link NotificationDigest}. Shared by all controllers, since
+     * e.g. a draw's selected and waiting list sends each use their own call.
+     *
+     * Each digest is set under a deterministic ID for its window and user, so writing the
+     * same window again replaces its digests instead of adding duplicates.
+     */
+    private static final class Coalescer {
+        /** Each digest takes two writes: the notification and the recipient's unread count. */
+        private static final int USERS_PER_BATCH = WRITE_BATCH_SIZE / 2;
+
+        private final Map<String, Window> windows = new HashMap<>();
+
+        /** The notifications queued for one event while its window is open. */
+        private static final class Window {
+            /** Tells this window's digests apart from those of earlier windows for the event. */
+            final String token = UUID.randomUUID().toString();
+            final Map<String, Pending> byUser = new LinkedHashMap<>();
+            final List<CompletableFuture<Boolean>> batchCommits = new ArrayList<>();
+        }
+
+        /** One user's digest, and the write batch it will go out in. */
+        private static final class Pending {
+            final String userId;
+            final NotificationDigest digest = new NotificationDigest();
+            final int batch;
+            DocumentSnapshot eventDoc;
+            String organizerId;
+
+            Pending(String userId, int batch) {
+                this.userId = userId;
+                this.batch = batch;
+            }
+        }
+
+        /**
+         * Queues a message for a user, merging it into any message already queued for the
+         * same user and event.
+         *
+         * @return a future that completes with whether the batch holding the user's digest was written
+         */
+        synchronized CompletableFuture<Boolean> add(String userId, DocumentSnapshot eventDoc, String organizerId,
+                                                    String title, String message, String audience) {
+            String eventId = eventDoc.getId();
+            Window window = windows.get(eventId);
+            if (window == null) {
+                window = new Window();
+                windows.put(eventId, window);
+                WINDOW_TIMER.schedule(() -> flush(eventId), coalescingWindowMillis, TimeUnit.MILLISECONDS);
+            }
+
+            Pending pending = window.byUser.get(userId);
+            if (pending == null) {
+                pending = new Pending(userId, window.byUser.size() / USERS_PER_BATCH);
+                window.byUser.put(userId, pending);
+                if (pending.batch == window.batchCommits.size()) {
+                    window.batchCommits.add(new CompletableFuture<>());
+                }
+            }
+            pending.digest.add(title, message, audience);
+            pending.eventDoc = eventDoc;
+            if (pending.organizerId == null) {
+                pending.organizerId = organizerId;
+            }
+            return window.batchCommits.get(pending.batch);
+        }
+
+        /** Closes an event's window and writes its digests, up to {@link #USERS_PER_BATCH} per batch. */
+        private void flush(String eventId) {
+            Window window;
+            synchronized (this) {
+                window = windows.remove(eventId);
+            }
+            if (window == null) {
+                return;
+            }
+
+            FirebaseFirestore db = FirebaseFirestore.getInstance();
+            List<WriteBatch> batches = new ArrayList<>();
+            int messages = 0;
+            for (Pending pending : window.byUser.values()) {
+                if (pending.batch == batches.size()) {
+                    batches.add(db.batch());
+                }
+                NotificationDigest digest = pending.digest;
+                Map<String, Object> notification = buildNotification(pending.userId, digest.getTitle(), digest.getMessage(),
+                    pending.eventDoc, pending.organizerId, "entrant");
+                if (digest.size() > 1) {
+                    notification.put(DIGEST_COUNT_FIELD, digest.size());
+                }
+                DocumentReference ref = db.collection("Notifications")
+                    .document(NotificationIds.of(eventId, pending.userId, "digest-" + window.token, 0));
+                batches.get(pending.batch).set(ref, notification);
+                UnreadCounter.add(batches.get(pending.batch), db, pending.userId, 1);
+                messages += digest.size();
+            }
+            Log.d(TAG, "Coalesced " + messages + " message(s) for event " + eventId + " into "
+                + window.byUser.size() + " notification(s)");
+
+            for (int i = 0; i < batches.size(); i++) {
+                CompletableFuture<Boolean> committed = window.batchCommits.get(i);
+                int batch = i;
+                batches.get(i).commit()
+                    .addOnSuccessListener(aVoid -> {
+                        committed.complete(true);
+                        push(window, batch);
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Error saving notifications for event " + eventId, e);
+                        committed.complete(false);
+                    });
+            }
+        }
+
+        /**
+         * Pushes the digests of one written batch. Recipients whose digests read the same
+         * share one dispatch, so a broadcast goes out in multicasts rather than per user.
+         */
+        private void push(Window window, int batch) {
+            Map<List<String>, List<String>> usersByText = new LinkedHashMap<>();
+            String eventId = null;
+            for (Pending pending : window.byUser.values()) {
+                if (pending.batch != batch) {
+                    continue;
+                }
+                eventId = pending.eventDoc.getId();
+                List<String> text = Arrays.asList(pending.digest.getTitle(), pending.digest.getMessage());
+                usersByText.computeIfAbsent(text, t -> new ArrayList<>()).add(pending.userId);
+            }
+            for (Map.Entry<List<String>, List<String>> entry : usersByText.entrySet()) {
+                dispatchPush(entry.getValue(), entry.getKey().get(0), entry.getKey().get(1), eventId);
+            }
+        }
+    }
+
+    /**
+     * Pushes a notification that has been written to a group of users' devices.
+     */
+    private static void dispatchPush(List<String> userIds, String title, String message, String eventId) {
+        Map<String, String> payload = new HashMap<>();
+        payload.put("title", title);
+        payload.put("body", message);
+        if (eventId != null) {
+            payload.put("eventId", eventId);
+        }
+        PUSH.dispatch(userIds, payload).thenAccept(result -> Log.d(TAG, "Push for event " + eventId + ": "
+            + result.getDelivered() + " delivered, " + result.getInvalid() + " invalid, "
+            + result.getWithoutToken() + " without a token, " + result.getFailed() + " failed in "
+            + result.getRequests() + " request(s)"));
+    }
+
+    /**
+     * Forgets the push token cached for a user, so the next push looks it up again.
+     * Call this after changing a user's "fcmToken".
+     *
+     * @param userId the user whose device token changed
+     */
+    public static void invalidatePushToken(String userId) {
+        PUSH.invalidate(userId);
+    }
+
+    /**
+     * Builds the Firestore document for one notification.
+     * The event's title and location are copied onto it so the inbox doesn't have to read the event.
+     *
+     * @param userId the ID of the recipient
+     * @param title the notification title
+     * @param message the notification message body
+     * @param eventDoc the event this notification is related to
+     * @param organizerId the ID of the organizer sending the notification (for admin logs), or null
+     * @param userType the type of notification: "entrant" or "organizer"
+     * @return the notification fields
+     */
+    private static Map<String, Object> buildNotification(String userId, String title, String message, DocumentSnapshot eventDoc,
+                                                  String organizerId, String userType) {
+        Map<String, Object> notifData = new HashMap<>();
+        notifData.put("Message", message);
+        notifData.put("Title", title);
+        notifData.put("EventId", eventDoc.getReference());
+        EventSummary.addTo(notifData, eventDoc);
+        notifData.put("Type", "MESSAGE");
+        notifData.put("TimeStamp", new Date());
+        notifData.put("UserId", userId);
+        notifData.put("UserType", userType); // Separate logs for entrants and organizers based on notification context
+        notifData.put(UnreadCounter.READ_FIELD, false);
+        // Store organizerId for admin review logs
+        if (organizerId != null && !organizerId.isEmpty()) {
+            notifData.put("OrganizerId", organizerId);
         }
+        return notifData;
     }
 
     /**
@@ -58,74 +452,45 @@ public class NotificationController {
      * @param userDoc the Firestore document snapshot of the user
      * @param title the notification title
      * @param message the notification message body
-     * @param eventId the ID of the event this notification is related to
+     * @param eventDoc the event this notification is related to
      * @param organizerId the ID of the organizer sending the notification (for admin logs)
      */
-    private void sendNotificationToUser(DocumentSnapshot userDoc, String title, String message, String eventId, String organizerId) {
+    private void sendNotificationToUser(DocumentSnapshot userDoc, String title, String message, DocumentSnapshot eventDoc, String organizerId) {
         // Default: determine UserType from recipient's role
         String role = userDoc.getString("role");
         String userType = (role != null && role.equals("organizer")) ? "organizer" : "entrant";
-        sendNotificationToUser(userDoc, title, message, eventId, organizerId, userType);
+        sendNotificationToUser(userDoc, title, message, eventDoc, organizerId, userType);
     }
 
     /**
      * Actually sends a notification and logs it in Firestore with explicit UserType.
-     * Creates a notification document in the "Notifications" collection and prepares
-     * an FCM payload for push notification delivery.
+     * Creates a notification document in the "Notifications" collection and, once it is
+     * saved, pushes it to the user's device.
      * 
      * @param userDoc the Firestore document snapshot of the user
      * @param title the notification title
      * @param message the notification message body
-     * @param eventId the ID of the event this notification is related to
+     * @param eventDoc the event this notification is related to
      * @param organizerId the ID of the organizer sending the notification (for admin logs)
      * @param userType the type of notification: "entrant" or "organizer" (based on context, not recipient's role)
      */
-    private void sendNotificationToUser(DocumentSnapshot userDoc, String title, String message, String eventId, String organizerId, String userType) {
-        System.out.println("Notification.....");
-
-        // 1. Make sure the user has an FCM token (device registered)
-        String fcmToken = userDoc.getString("fcmToken");
-//        if (fcmToken == null) {
-//            extracted();
-//            return; // No device token = cannot send push notification
-//        }
-        System.out.println("Notification1111");
-
-        // 3. Build a notification object to save
-        Map<String, Object> notifData = new HashMap<>();
-        notifData.put("Message", message);
-        notifData.put("Title", title);
-        notifData.put("EventId", db.collection("Events").document(eventId));
-        notifData.put("Type", "MESSAGE");
-        notifData.put("TimeStamp", new Date());
-        notifData.put("UserId", userDoc.getId());
-        notifData.put("UserType", userType); // Separate logs for entrants and organizers based on notification context
-        // Store organizerId for admin review logs
-        if (organizerId != null && !organizerId.isEmpty()) {
-            notifData.put("OrganizerId", organizerId);
-        }
+    private void sendNotificationToUser(DocumentSnapshot userDoc, String title, String message, DocumentSnapshot eventDoc, String organizerId, String userType) {
+        // 1. Build a notification object to save
+        Map<String, Object> notifData = buildNotification(userDoc.getId(), title, message, eventDoc, organizerId, userType);
 
-        // 3. Save into Firestore under /notifications
-        db.collection("Notifications")
-                .add(notifData)
-                .addOnSuccessListener(docRef -> {
-                    // Optional: log success
-                    System.out.println("Notification saved: " + docRef.getId());
+        // 2. Save into Firestore under /notifications with the user's unread count, then push it to the user's device
+        DocumentReference docRef = db.collection("Notifications").document();
+        WriteBatch batch = db.batch();
+        batch.set(docRef, notifData);
+        UnreadCounter.add(batch, db, userDoc.getId(), 1);
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Notification saved: " + docRef.getId());
+                    dispatchPush(Collections.singletonList(userDoc.getId()), title, message, eventDoc.getId());
                 })
                 .addOnFailureListener(e -> {
-                    System.err.println("Error saving notification: " + e.getMessage());
+                    Log.e(TAG, "Error saving notification", e);
                 });
-
-        // 4. Send push notification via FCM
-        Map<String, String> fcmPayload = new HashMap<>();
-        fcmPayload.put("title", title);
-        fcmPayload.put("body", message);
-
-        // Here you would send using your backend or Cloud Function
-    }
-
-    private static void extracted() {
-        return;
     }
 
     /**
@@ -154,19 +519,51 @@ public class NotificationController {
         return organizerId;
     }
 
+    /**
+     * Sets how long entrant notifications for an event are held so that messages to the
+     * same user can be merged into one digest. Notifications held when the app is killed
+     * are lost, so keep this short. Applies to windows opened after the call.
+     *
+     * @param windowMillis the window in milliseconds; 0 writes each send as soon as its
+     *                     preferences are read, merging only within the send
+     */
+    public static void setCoalescingWindowMillis(long windowMillis) {
+        coalescingWindowMillis = Math.max(0, windowMillis);
+    }
+
+    /** @return how long entrant notifications are held for merging, in milliseconds */
+    public static long getCoalescingWindowMillis() {
+        return coalescingWindowMillis;
+    }
+
     /**
      * Sends notifications to all entrants currently on the waiting list for an event.
      * 
      * @param eventId the ID of the event
      * @param title the notification title
      * @param message the notification message body
+     * @return a CompletableFuture that completes with the report of the send
      */
-    public void sendToWaitingList(String eventId, String title, String message) {
-        db.collection("Events").document(eventId).get().addOnSuccessListener(eventDoc -> {
-            List<String> waitingList = (List<String>) eventDoc.get("waitingListEntrantIds");
-            String organizerId = extractOrganizerId(eventDoc);
-            sendBulkNotifications(waitingList, title, message, eventId, organizerId);
-        });
+    public CompletableFuture<FanOutReport> sendToWaitingList(String eventId, String title, String message) {
+        return sendToWaitingList(eventId, title, message, null);
+    }
+
+    /**
+     * Sends notifications to all entrants currently on the waiting list for an event.
+     * The waiting list can be long, so this writes one {@link Broadcasts} document for the
+     * whole list rather than a notification per entrant. It names only the event and the
+     * list, and each entrant's inbox finds it from their own waitlist membership, where
+     * entrants who are also selected or accepted are no longer listed. Entrants who join
+     * after it is sent don't see it.
+     *
+     * @param eventId the ID of the event
+     * @param title the notification title
+     * @param message the notification message body
+     * @param listener told about progress as recipients are processed, or null
+     * @return a CompletableFuture that completes with the report of the send
+     */
+    public CompletableFuture<FanOutReport> sendToWaitingList(String eventId, String title, String message, FanOutListener listener) {
+        return loadEvent(eventId).thenCompose(eventDoc -> send(eventDoc, Audience.waitingList(), title, message, listener, true));
     }
 
     /**
@@ -175,13 +572,23 @@ public class NotificationController {
      * @param eventId the ID of the event
      * @param title the notification title
      * @param message the notification message body
+     * @return a CompletableFuture that completes with the report of the send
      */
-    public void sendToSelectedEntrants(String eventId, String title, String message) {
-        db.collection("Events").document(eventId).get().addOnSuccessListener(eventDoc -> {
-            List<String> selected = (List<String>) eventDoc.get("selectedEntrantIds");
-            String organizerId = extractOrganizerId(eventDoc);
-            sendBulkNotifications(selected, title, message, eventId, organizerId);
-        });
+    public CompletableFuture<FanOutReport> sendToSelectedEntrants(String eventId, String title, String message) {
+        return sendToSelectedEntrants(eventId, title, message, null);
+    }
+
+    /**
+     * Sends notifications to all entrants who were selected in the lottery.
+     *
+     * @param eventId the ID of the event
+     * @param title the notification title
+     * @param message the notification message body
+     * @param listener told about progress as recipients are processed, or null
+     * @return a CompletableFuture that completes with the report of the send
+     */
+    public CompletableFuture<FanOutReport> sendToSelectedEntrants(String eventId, String title, String message, FanOutListener listener) {
+        return sendToAudience(eventId, Audience.of(Audience.SELECTED), title, message, listener);
     }
 
     /**
@@ -190,13 +597,23 @@ public class NotificationController {
      * @param eventId the ID of the event
      * @param title the notification title
      * @param message the notification message body
+     * @return a CompletableFuture that completes with the report of the send
      */
-    public void sendToCancelledEntrants(String eventId, String title, String message) {
-        db.collection("Events").document(eventId).get().addOnSuccessListener(eventDoc -> {
-            List<String> cancelled = (List<String>) eventDoc.get("cancelledEntrantIds");
-            String organizerId = extractOrganizerId(eventDoc);
-            sendBulkNotifications(cancelled, title, message, eventId, organizerId);
-        });
+    public CompletableFuture<FanOutReport> sendToCancelledEntrants(String eventId, String title, String message) {
+        return sendToCancelledEntrants(eventId, title, message, null);
+    }
+
+    /**
+     * Sends notifications to all entrants who cancelled their registration.
+     *
+     * @param eventId the ID of the event
+     * @param title the notification title
+     * @param message the notification message body
+     * @param listener told about progress as recipients are processed, or null
+     * @return a CompletableFuture that completes with the report of the send
+     */
+    public CompletableFuture<FanOutReport> sendToCancelledEntrants(String eventId, String title, String message, FanOutListener listener) {
+        return sendToAudience(eventId, Audience.of(Audience.CANCELLED), title, message, listener);
     }
 
     /**
@@ -205,39 +622,117 @@ public class NotificationController {
      * @param eventId the ID of the event
      * @param title the notification title
      * @param message the notification message body
+     * @return a CompletableFuture that completes with the report of the send
      */
-    public void sendToAcceptedEntrants(String eventId, String title, String message) {
-        db.collection("Events").document(eventId).get().addOnSuccessListener(eventDoc -> {
-            List<String> accepted = (List<String>) eventDoc.get("acceptedEntrantIds");
-            String organizerId = extractOrganizerId(eventDoc);
-            sendBulkNotifications(accepted, title, message, eventId, organizerId);
-        });
+    public CompletableFuture<FanOutReport> sendToAcceptedEntrants(String eventId, String title, String message) {
+        return sendToAcceptedEntrants(eventId, title, message, null);
+    }
+
+    /**
+     * Sends notifications to all entrants who accepted their invitation.
+     *
+     * @param eventId the ID of the event
+     * @param title the notification title
+     * @param message the notification message body
+     * @param listener told about progress as recipients are processed, or null
+     * @return a CompletableFuture that completes with the report of the send
+     */
+    public CompletableFuture<FanOutReport> sendToAcceptedEntrants(String eventId, String title, String message, FanOutListener listener) {
+        return sendToAudience(eventId, Audience.of(Audience.ACCEPTED), title, message, listener);
     }
 
     /**
      * Sends notifications to all entrants who signed up for the event.
      * This includes waiting list, selected, and accepted entrants.
+     * An entrant found in more than one list is notified once.
      * 
      * @param eventId the ID of the event
      * @param title the notification title
      * @param message the notification message body
+     * @return a CompletableFuture that completes with the report of the send
      */
-    public void sendToAllSignedUpEntrants(String eventId, String title, String message) {
-        db.collection("Events").document(eventId).get().addOnSuccessListener(eventDoc -> {
-            String organizerId = extractOrganizerId(eventDoc);
-            
-            // Send to waiting list
-            List<String> waitingList = (List<String>) eventDoc.get("waitingListEntrantIds");
-            sendBulkNotifications(waitingList, title, message, eventId, organizerId);
-            
-            // Send to selected entrants
-            List<String> selected = (List<String>) eventDoc.get("selectedEntrantIds");
-            sendBulkNotifications(selected, title, message, eventId, organizerId);
-            
-            // Send to accepted entrants
-            List<String> accepted = (List<String>) eventDoc.get("acceptedEntrantIds");
-            sendBulkNotifications(accepted, title, message, eventId, organizerId);
-        });
+    public CompletableFuture<FanOutReport> sendToAllSignedUpEntrants(String eventId, String title, String message) {
+        return sendToAllSignedUpEntrants(eventId, title, message, null);
+    }
+
+    /**
+     * Sends notifications to all entrants who signed up for the event.
+     * This includes waiting list, selected, and accepted entrants.
+     * An entrant found in more than one list is notified once.
+     *
+     * @param eventId the ID of the event
+     * @param title the notification title
+     * @param message the notification message body
+     * @param listener told about progress as recipients are processed, or null
+     * @return a CompletableFuture that completes with the report of the send
+     */
+    public CompletableFuture<FanOutReport> sendToAllSignedUpEntrants(String eventId, String title, String message, FanOutListener listener) {
+        return sendToAudience(eventId, Audience.allSignedUp(), title, message, listener);
+    }
+
+    /**
+     * Loads the event and sends one bulk notification to an audience drawn from its entrant lists.
+     * Each recipient is notified once, however many of the lists they are in.
+     *
+     * @param eventId the ID of the event
+     * @param audience the entrant lists to notify
+     * @param title the notification title
+     * @param message the notification message body
+     * @param listener told about progress as recipients are processed, or null
+     * @return a CompletableFuture that completes with the report of the send
+     */
+    public CompletableFuture<FanOutReport> sendToAudience(String eventId, Audience audience, String title, String message,
+                                                          FanOutListener listener) {
+        return loadEvent(eventId).thenCompose(eventDoc -> send(eventDoc, audience, title, message, listener, false));
+    }
+
+    /**
+     * Sends one bulk notification to an audience drawn from an event that has already
+     * been loaded, e.g. by a caller about to change or delete it.
+     *
+     * @param eventDoc the event
+     * @param audience the entrant lists to notify
+     * @param title the notification title
+     * @param message the notification message body
+     * @param listener told about progress as recipients are processed, or null
+     * @return a CompletableFuture that completes with the report once every notification is written
+     */
+    public CompletableFuture<FanOutReport> sendToAudience(DocumentSnapshot eventDoc, Audience audience, String title, String message,
+                                                          FanOutListener listener) {
+        return send(eventDoc, audience, title, message, listener, false);
+    }
+
+    private CompletableFuture<FanOutReport> send(DocumentSnapshot eventDoc, Audience audience, String title, String message,
+                                                 FanOutListener listener, boolean broadcast) {
+        return resolveAudience(eventDoc, audience).thenCompose(recipients ->
+            sendBulkNotifications(recipients, title, message, audience.getLabel(), eventDoc,
+                extractOrganizerId(eventDoc), listener, broadcast));
+    }
+
+    /**
+     * Works out an audience's recipients from an event. A sharded event's waiting list is
+     * not in an array, so it is loaded from the waitlist subcollection when the audience uses it.
+     *
+     * @param eventDoc the event
+     * @param audience the entrant lists to resolve
+     * @return a CompletableFuture that completes with the recipients, each once
+     */
+    public CompletableFuture<List<String>> resolveAudience(DocumentSnapshot eventDoc, Audience audience) {
+        boolean usesWaitingList = audience.getIncluded().contains(Audience.WAITING_LIST)
+            || audience.getExcluded().contains(Audience.WAITING_LIST);
+        if (!usesWaitingList || !WaitlistController.isSharded(eventDoc)) {
+            return CompletableFuture.completedFuture(audience.resolve(field -> (List<String>) eventDoc.get(field)));
+        }
+        return new WaitlistController(db).loadEntrantIds(eventDoc).thenApply(waitingList ->
+            audience.resolve(field -> Audience.WAITING_LIST.equals(field) ? waitingList : (List<String>) eventDoc.get(field)));
+    }
+
+    private CompletableFuture<DocumentSnapshot> loadEvent(String eventId) {
+        CompletableFuture<DocumentSnapshot> eventLoaded = new CompletableFuture<>();
+        db.collection("Events").document(eventId).get()
+            .addOnSuccessListener(eventLoaded::complete)
+            .addOnFailureListener(eventLoaded::completeExceptionally);
+        return eventLoaded;
     }
 
     /** Send notification to the organizer of an event */
@@ -249,8 +744,7 @@ public class NotificationController {
                     db.collection("users").document(organizerId).get().addOnSuccessListener(organizerDoc -> {
                         Boolean notificationsEnabled = organizerDoc.getBoolean("notificationPreference");
                         if (notificationsEnabled == null || notificationsEnabled) {
-                            System.out.println("Sending notification to organizer: " + organizerId);
-                            sendNotificationToUser(organizerDoc, title, message, eventId, null);
+                            sendNotificationToUser(organizerDoc, title, message, eventDoc, null);
                         }
                     });
                 }
@@ -258,4 +752,17 @@ public class NotificationController {
         });
     }
 
+    /**
+     * Callback for the progress of a bulk send.
+     */
+    public interface FanOutListener {
+        /**
+         * Called each time a chunk of recipients is read or a batch of notifications is written.
+         * May be called from several Firestore callbacks; read counts from the report.
+         *
+         * @param report the report so far
+         */
+        void onProgress(FanOutReport report);
+    }
+
 }
@@ -0,0 +1,148 @@
+package com.example.eventlotteryapp.Notifications;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The group of entrants a message goes to, described by the event's entrant lists it
+ * draws from and any lists whose members are left out. Resolving it against an event
+ * gives each recipient once, however many of the lists they appear in, so every
+ * "notify a group" send shares one deduplicated recipient set.
+ *
+ * @author Droids Team
+ */
+public class Audience {
+
+    /** Event field listing the entrants on the waiting list. */
+    public static final String WAITING_LIST = "waitingListEntrantIds";
+
+    /** Event field listing the entrants selected in the lottery. */
+    public static final String SELECTED = "selectedEntrantIds";
+
+    /** Event field listing the entrants who accepted their invitation. */
+    public static final String ACCEPTED = "acceptedEntrantIds";
+
+    /** Event field listing the entrants who declined their invitation. */
+    public static final String DECLINED = "declinedEntrantIds";
+
+    /** Event field listing the entrants who cancelled their registration. */
+    public static final String CANCELLED = "cancelledEntrantIds";
+
+    private final List<String> included;
+    private final List<String> excluded;
+
+    private Audience(List<String> included, List<String> excluded) {
+        this.included = included;
+        this.excluded = excluded;
+    }
+
+    /**
+     * Creates an audience of everyone in the given lists.
+     *
+     * @param listFields the event's list fields, e.g. {@link #SELECTED}
+     * @return the audience
+     */
+    public static Audience of(String... listFields) {
+        return new Audience(Collections.unmodifiableList(Arrays.asList(listFields)), Collections.emptyList());
+    }
+
+    /**
+     * Everyone on the waiting list except entrants who are also selected or accepted.
+     * Those have moved on from the waiting list, so a message meant for it would
+     * contradict their own.
+     *
+     * @return the audience
+     */
+    public static Audience waitingList() {
+        return of(WAITING_LIST).excluding(SELECTED, ACCEPTED);
+    }
+
+    /**
+     * Everyone who signed up and is still taking part: the waiting list, selected and
+     * accepted entrants.
+     *
+     * @return the audience
+     */
+    public static Audience allSignedUp() {
+        return of(WAITING_LIST, SELECTED, ACCEPTED);
+    }
+
+    /**
+     * Everyone who has ever been on one of the event's lists, including those who
+     * declined or cancelled.
+     *
+     * @return the audience
+     */
+    public static Audience everyone() {
+        return of(WAITING_LIST, SELECTED, ACCEPTED, DECLINED, CANCELLED);
+    }
+
+    /**
+     * Creates a copy of this audience that also leaves out the members of the given lists.
+     *
+     * @param listFields the event's list fields whose members are left out
+     * @return the narrower audience
+     */
+    public Audience excluding(String... listFields) {
+        List<String> allExcluded = new ArrayList<>(excluded);
+        allExcluded.addAll(Arrays.asList(listFields));
+        return new Audience(included, Collections.unmodifiableList(allExcluded));
+    }
+
+    /** @return the list fields the audience draws from */
+    public List<String> getIncluded() {
+        return included;
+    }
+
+    /** @return the list fields whose members are left out */
+    public List<String> getExcluded() {
+        return excluded;
+    }
+
+    /**
+     * Names the audience after the single list it draws from, which lets a digest tell
+     * which messages supersede others, or null if it draws from several.
+     *
+     * @return the list field, or null
+     */
+    public String getLabel() {
+        return (included.size() == 1) ? included.get(0) : null;
+    }
+
+    /**
+     * Works out the recipients, in one pass over each list. Blank and repeated IDs are
+     * dropped, and a missing list counts as empty.
+     *
+     * @param lists gets the contents of one of the event's list fields, e.g. {@code field -> (List<String>) eventDoc.get(field)}
+     * @return the recipients, in the order they are first found
+     */
+    public List<String> resolve(Function<String, ? extends Collection<String>> lists) {
+        Set<String> left = new HashSet<>();
+        for (String field : excluded) {
+            Collection<String> ids = lists.apply(field);
+            if (ids != null) {
+                left.addAll(ids);
+            }
+        }
+        Set<String> recipients = new LinkedHashSet<>();
+        for (String field : included) {
+            Collection<String> ids = lists.apply(field);
+            if (ids == null) {
+                continue;
+            }
+            for (String userId : ids) {
+                if (userId != null && !userId.isEmpty() && !left.contains(userId)) {
+                    recipients.add(userId);
+                }
+            }
+        }
+        return new ArrayList<>(recipients);
+    }
+}
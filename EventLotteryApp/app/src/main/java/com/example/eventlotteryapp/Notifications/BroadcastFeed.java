@@ -0,0 +1,101 @@
+package com.example.eventlotteryapp.Notifications;
+
+import com.example.eventlotteryapp.Controllers.WaitlistController;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Finds the {@link Broadcasts} meant for a user from the user's own membership, so that no
+ * broadcast has to list its recipients. Broadcasts go to an event's waiting list, so a user's
+ * broadcasts are those for the waiting lists they are on: sharded events are found through
+ * the user's waitlist entries, events not yet sharded through the legacy array. A user who
+ * turned notifications off gets none, the same as for personal notifications.
+ *
+ * A broadcast only reaches entrants who were already on the waiting list when it was sent:
+ * each event's query is bounded by the time the user's waitlist entry records they joined,
+ * compared with the broadcast's server-set TimeStamp. Entrants with no recorded join time,
+ * those on a legacy event from before entries were written and those copied over by a
+ * migration, are matched without a bound.
+ *
+ * @author Droids Team
+ */
+public final class BroadcastFeed {
+
+    private BroadcastFeed() { }
+
+    /**
+     * Builds the queries for a user's broadcasts: one per event they have a join time for,
+     * and one per {@link Broadcasts#EVENT_CHUNK_SIZE} of the other events they are waitlisted for.
+     * All of them can be ordered by, or further bounded on, "TimeStamp".
+     *
+     * @param db the Firestore instance
+     * @param userId the user
+     * @return a CompletableFuture that completes with the queries, empty if there are none
+     */
+    public static CompletableFuture<List<Query>> queriesFor(FirebaseFirestore db, String userId) {
+        CompletableFuture<DocumentSnapshot> user = new CompletableFuture<>();
+        db.collection("users").document(userId).get()
+            .addOnSuccessListener(user::complete)
+            .addOnFailureListener(user::completeExceptionally);
+
+        CompletableFuture<Map<String, Timestamp>> joinTimes = new WaitlistController(db).loadJoinTimes(userId);
+
+        CompletableFuture<List<String>> legacy = new CompletableFuture<>();
+        db.collection("Events").whereArrayContains(WaitlistController.LEGACY_ARRAY_FIELD, userId).get()
+            .addOnSuccessListener(snapshot -> {
+                List<String> eventIds = new ArrayList<>(snapshot.size());
+                for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                    eventIds.add(doc.getId());
+                }
+                legacy.complete(eventIds);
+            })
+            .addOnFailureListener(legacy::completeExceptionally);
+
+        return user.thenCompose(userDoc -> {
+            Boolean notificationsEnabled = userDoc.getBoolean("notificationPreference");
+            if (notificationsEnabled != null && !notificationsEnabled) {
+                return CompletableFuture.completedFuture(Collections.<Query>emptyList());
+            }
+            return joinTimes.thenCombine(legacy, (joined, legacyIds) -> {
+                Query waitingList = db.collection(Broadcasts.COLLECTION)
+                    .whereEqualTo(Broadcasts.AUDIENCE_FIELD, Audience.WAITING_LIST);
+                List<Query> queries = new ArrayList<>();
+                Set<String> unbounded = new LinkedHashSet<>();
+                for (Map.Entry<String, Timestamp> entry : joined.entrySet()) {
+                    if (entry.getValue() == null) {
+                        unbounded.add(entry.getKey());
+                    } else {
+                        queries.add(waitingList
+                            .whereEqualTo(Broadcasts.EVENT_FIELD, db.collection("Events").document(entry.getKey()))
+                            .whereGreaterThanOrEqualTo("TimeStamp", entry.getValue()));
+                    }
+                }
+                for (String eventId : legacyIds) {
+                    if (!joined.containsKey(eventId)) {
+                        unbounded.add(eventId);
+                    }
+                }
+
+                List<DocumentReference> eventRefs = new ArrayList<>(unbounded.size());
+                for (String eventId : unbounded) {
+                    eventRefs.add(db.collection("Events").document(eventId));
+                }
+                for (List<DocumentReference> chunk : Broadcasts.chunks(eventRefs)) {
+                    queries.add(waitingList.whereIn(Broadcasts.EVENT_FIELD, chunk));
+                }
+                return queries;
+            });
+        });
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.eventlotteryapp.Notifications;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for broadcast notifications: one document in the "Broadcasts" collection
+ * announces the same message to one of an event's entrant lists, instead of one
+ * "Notifications" document per recipient. The broadcast names only the event and the list,
+ * never the recipients; each inbox finds the broadcasts meant for it from the events its
+ * own user is on that list for (see {@link BroadcastFeed}), and keeps track of what it has
+ * read and dismissed in a per-user cursor document.
+ *
+ * @author Droids Team
+ */
+public class Broadcasts {
+
+    /** Collection holding broadcast documents. */
+    public static final String COLLECTION = "Broadcasts";
+
+    /** Broadcast field holding the reference of the event the broadcast is about. */
+    public static final String EVENT_FIELD = "EventId";
+
+    /** Broadcast field naming the entrant list the broadcast is for. */
+    public static final String AUDIENCE_FIELD = "Audience";
+
+    /** Maximum number of events one broadcast query can match, Firestore's limit for whereIn. */
+    public static final int EVENT_CHUNK_SIZE = 30;
+
+    /** Collection holding one read cursor per user, under the user's ID. */
+    public static final String CURSOR_COLLECTION = "BroadcastCursors";
+
+    /** Cursor field holding the time of the newest broadcast the user has seen. */
+    public static final String READ_THROUGH_FIELD = "ReadThrough";
+
+    /** Cursor field listing the broadcasts the user deleted from their inbox. */
+    public static final String DISMISSED_FIELD = "Dismissed";
+
+    /**
+     * Splits the events a user belongs to into the lists matched by each broadcast query.
+     *
+     * @param events all of the user's events
+     * @return lists of at most {@link #EVENT_CHUNK_SIZE} events
+     */
+    public static <T> List<List<T>> chunks(List<T> events) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < events.size(); i += EVENT_CHUNK_SIZE) {
+            chunks.add(new ArrayList<>(events.subList(i, Math.min(i + EVENT_CHUNK_SIZE, events.size()))));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.eventlotteryapp.Notifications;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Map;
+
+/**
+ * Utility class for copying a small summary of an event onto a notification when it is
+ * created. With the title stored on the notification, the inbox can show it without
+ * reading the event document (and its poster) for every notification.
+ *
+ * @author Droids Team
+ */
+public class EventSummary {
+
+    /** Notification field holding the event's title. */
+    public static final String TITLE_FIELD = "EventTitle";
+
+    /** Notification field holding the event's location. */
+    public static final String LOCATION_FIELD = "EventLocation";
+
+    /**
+     * Gets an event's display title, preferring "Name" and falling back to "title".
+     *
+     * @param eventDoc the event document
+     * @return the title, or null if the event has none
+     */
+    public static String titleOf(DocumentSnapshot eventDoc) {
+        String title = eventDoc.getString("Name");
+        if (title == null || title.isEmpty()) {
+            title = eventDoc.getString("title");
+        }
+        return (title == null || title.isEmpty()) ? null : title;
+    }
+
+    /**
+     * Adds the event's title and location to a notification being built.
+     * Fields the event does not have are left out.
+     *
+     * @param notification the notification fields
+     * @param eventDoc the event the notification is about
+     */
+    public static void addTo(Map<String, Object> notification, DocumentSnapshot eventDoc) {
+        String title = titleOf(eventDoc);
+        if (title != null) {
+            notification.put(TITLE_FIELD, title);
+        }
+        String location = eventDoc.getString("location");
+        if (location != null && !location.isEmpty()) {
+            notification.put(LOCATION_FIELD, location);
+        }
+    }
+}
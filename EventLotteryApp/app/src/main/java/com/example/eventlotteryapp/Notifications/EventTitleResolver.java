@@ -0,0 +1,158 @@
+package com.example.eventlotteryapp.Notifications;
+
+import android.util.Log;
+
+import com.example.eventlotteryapp.Helpers.BoundedParallel;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fills in event names for notifications created before the event title was stored on
+ * the notification. Each event is looked up once no matter how many notifications refer
+ * to it, {@link #CHUNK_SIZE} events per query, and the result is cached for the rest of
+ * the process. Resolved titles are then written back onto the notification documents
+ * in batches, so each older notification only needs resolving once.
+ *
+ * @author Droids Team
+ */
+public class EventTitleResolver {
+    private static final String TAG = "EventTitleResolver";
+
+    /** Maximum number of event IDs Firestore accepts in one {@code whereIn} filter. */
+    public static final int CHUNK_SIZE = 30;
+
+    /** Maximum number of event queries in flight at once. */
+    public static final int MAX_QUERIES_IN_FLIGHT = 4;
+
+    /** Maximum number of writes in one backfill WriteBatch. */
+    public static final int BACKFILL_BATCH_SIZE = 500;
+
+    /** Event titles already looked up, by event ID. Events with no title (or that no longer exist) map to "". */
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Constructs an EventTitleResolver using the default Firestore instance.
+     */
+    public EventTitleResolver() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * Constructs an EventTitleResolver.
+     *
+     * @param db the Firestore instance to read events from
+     */
+    public EventTitleResolver(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Sets the event name of every notification that has no stored event title.
+     * Notifications whose event can't be read keep their default name.
+     *
+     * @param notifications the notifications to fill in
+     * @return a CompletableFuture that completes with the number of names set
+     */
+    public CompletableFuture<Integer> resolve(List<Notification> notifications) {
+        Map<String, List<Notification>> byEvent = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            String eventId = notification.getEventId();
+            // Broadcasts are always written with the title, and don't live in Notifications
+            if (!notification.hasStoredEventTitle() && !notification.isBroadcast()
+                    && eventId != null && !eventId.isEmpty()) {
+                byEvent.computeIfAbsent(eventId, id -> new ArrayList<>()).add(notification);
+            }
+        }
+        if (byEvent.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        List<String> uncached = new ArrayList<>();
+        for (String eventId : byEvent.keySet()) {
+            if (!CACHE.containsKey(eventId)) {
+                uncached.add(eventId);
+            }
+        }
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < uncached.size(); i += CHUNK_SIZE) {
+            chunks.add(uncached.subList(i, Math.min(i + CHUNK_SIZE, uncached.size())));
+        }
+
+        return BoundedParallel.forEach(chunks, MAX_QUERIES_IN_FLIGHT, this::loadTitles).thenApply(loaded -> {
+            List<Notification> resolved = new ArrayList<>();
+            for (Map.Entry<String, List<Notification>> entry : byEvent.entrySet()) {
+                String title = CACHE.get(entry.getKey());
+                if (title == null || title.isEmpty()) {
+                    continue;
+                }
+                for (Notification notification : entry.getValue()) {
+                    notification.setEventName(title);
+                    // The backfill below stores it, so it isn't resolved or written again
+                    notification.markEventTitleStored();
+                    resolved.add(notification);
+                }
+            }
+            backfill(resolved);
+            return resolved.size();
+        });
+    }
+
+    private CompletableFuture<Boolean> loadTitles(List<String> eventIds) {
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        db.collection("Events").whereIn(FieldPath.documentId(), eventIds).get()
+            .addOnSuccessListener(snapshot -> {
+                for (String eventId : eventIds) {
+                    CACHE.put(eventId, "");
+                }
+                for (DocumentSnapshot eventDoc : snapshot.getDocuments()) {
+                    String title = EventSummary.titleOf(eventDoc);
+                    CACHE.put(eventDoc.getId(), (title != null) ? title : "");
+                }
+                done.complete(true);
+            })
+            .addOnFailureListener(e -> {
+                // Not cached, so the next load tries again
+                Log.e(TAG, "Error loading event titles", e);
+                done.complete(false);
+            });
+        return done;
+    }
+
+    /**
+     * Writes resolved titles onto the notification documents so they don't need
+     * resolving again.
+     */
+    private void backfill(List<Notification> resolved) {
+        for (int i = 0; i < resolved.size(); i += BACKFILL_BATCH_SIZE) {
+            List<Notification> chunk = resolved.subList(i, Math.min(i + BACKFILL_BATCH_SIZE, resolved.size()));
+            WriteBatch batch = db.batch();
+            int writes = 0;
+            for (Notification notification : chunk) {
+                String documentId = notification.getDocumentId();
+                if (documentId != null && !documentId.isEmpty()) {
+                    batch.update(db.collection("Notifications").document(documentId),
+                        EventSummary.TITLE_FIELD, notification.getEventName());
+                    writes++;
+                }
+            }
+            if (writes == 0) {
+                continue;
+            }
+            int written = writes;
+            batch.commit()
+                .addOnSuccessListener(aVoid -> Log.d(TAG, "Backfilled event titles on " + written + " notification(s)"))
+                .addOnFailureListener(e -> Log.e(TAG, "Error backfilling event titles", e));
+        }
+    }
+}
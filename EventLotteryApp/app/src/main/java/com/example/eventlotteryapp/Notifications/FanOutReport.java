@@ -0,0 +1,98 @@
+package com.example.eventlotteryapp.Notifications;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tally of a bulk notification send: how many recipients were notified, skipped
+ * (notifications turned off or no user profile) or failed, and how long it took.
+ * Safe to update from several Firestore callbacks at once.
+ *
+ * @author Droids Team
+ */
+public class FanOutReport {
+    private final int recipients;
+    private final long startedAtMillis;
+    private int sent;
+    private int skipped;
+    private final List<String> failedUserIds = new ArrayList<>();
+    private long elapsedMillis = -1;
+
+    /**
+     * Constructs a new FanOutReport.
+     *
+     * @param recipients the number of distinct recipients being notified
+     * @param startedAtMillis the time the send started, in milliseconds
+     */
+    public FanOutReport(int recipients, long startedAtMillis) {
+        this.recipients = recipients;
+        this.startedAtMillis = startedAtMillis;
+    }
+
+    /**
+     * Records recipients whose notifications were written.
+     *
+     * @param count the number of recipients
+     */
+    public synchronized void recordSent(int count) {
+        sent += count;
+    }
+
+    /**
+     * Records recipients who were not notified on purpose.
+     *
+     * @param count the number of recipients
+     */
+    public synchronized void recordSkipped(int count) {
+        skipped += count;
+    }
+
+    /**
+     * Records recipients whose preference read or notification write failed.
+     *
+     * @param userIds the recipients that failed
+     */
+    public synchronized void recordFailed(List<String> userIds) {
+        failedUserIds.addAll(userIds);
+    }
+
+    /**
+     * Marks the send as finished and fixes the elapsed time.
+     *
+     * @param finishedAtMillis the time the send finished, in milliseconds
+     */
+    public synchronized void finish(long finishedAtMillis) {
+        elapsedMillis = Math.max(0, finishedAtMillis - startedAtMillis);
+    }
+
+    /** @return the number of distinct recipients */
+    public int getRecipients() { return recipients; }
+
+    /** @return the number of recipients notified */
+    public synchronized int getSent() { return sent; }
+
+    /** @return the number of recipients skipped */
+    public synchronized int getSkipped() { return skipped; }
+
+    /** @return the number of recipients that failed */
+    public synchronized int getFailed() { return failedUserIds.size(); }
+
+    /** @return the recipients that failed, so the send can be retried for just them */
+    public synchronized List<String> getFailedUserIds() {
+        return Collections.unmodifiableList(new ArrayList<>(failedUserIds));
+    }
+
+    /** @return the number of recipients with a final outcome so far */
+    public synchronized int getProcessed() {
+        return sent + skipped + failedUserIds.size();
+    }
+
+    /** @return whether any recipient failed */
+    public synchronized boolean hasFailures() {
+        return !failedUserIds.isEmpty();
+    }
+
+    /** @return how long the send took in milliseconds, or -1 if it has not finished */
+    public synchronized long getElapsedMillis() { return elapsedMillis; }
+}
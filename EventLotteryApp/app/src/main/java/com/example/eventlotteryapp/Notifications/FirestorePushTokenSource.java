@@ -0,0 +1,95 @@
+package com.example.eventlotteryapp.Notifications;
+
+import android.util.Log;
+
+import com.example.eventlotteryapp.Helpers.BoundedParallel;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads device tokens from the "fcmToken" field of user profiles,
+ * {@link #CHUNK_SIZE} users per query.
+ *
+ * @author Droids Team
+ */
+public class FirestorePushTokenSource implements PushTokenSource {
+    private static final String TAG = "FirestorePushTokenSource";
+
+    /** User profile field holding the device token. */
+    public static final String TOKEN_FIELD = "fcmToken";
+
+    /** Maximum number of user IDs Firestore accepts in one {@code whereIn} filter. */
+    public static final int CHUNK_SIZE = 30;
+
+    /** Maximum number of user queries in flight at once. */
+    public static final int MAX_QUERIES_IN_FLIGHT = 4;
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Constructs a FirestorePushTokenSource using the default Firestore instance.
+     */
+    public FirestorePushTokenSource() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * Constructs a FirestorePushTokenSource.
+     *
+     * @param db the Firestore instance holding the user profiles
+     */
+    public FirestorePushTokenSource(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> load(List<String> userIds) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i += CHUNK_SIZE) {
+            chunks.add(userIds.subList(i, Math.min(i + CHUNK_SIZE, userIds.size())));
+        }
+
+        Map<String, String> tokens = new ConcurrentHashMap<>();
+        return BoundedParallel.forEach(chunks, MAX_QUERIES_IN_FLIGHT, chunk -> {
+            CompletableFuture<Boolean> done = new CompletableFuture<>();
+            db.collection("users").whereIn(FieldPath.documentId(), chunk).get()
+                .addOnSuccessListener(snapshot -> {
+                    for (DocumentSnapshot userDoc : snapshot.getDocuments()) {
+                        String token = userDoc.getString(TOKEN_FIELD);
+                        if (token != null && !token.isEmpty()) {
+                            tokens.put(userDoc.getId(), token);
+                        }
+                    }
+                    done.complete(true);
+                })
+                .addOnFailureListener(done::completeExceptionally);
+            return done;
+        }).thenApply(loaded -> {
+            if (loaded < chunks.size()) {
+                throw new IllegalStateException("Could not read push tokens for " + (chunks.size() - loaded) + " chunk(s)");
+            }
+            return tokens;
+        });
+    }
+
+    @Override
+    public void remove(String userId, String token) {
+        DocumentReference userRef = db.collection("users").document(userId);
+        db.runTransaction(transaction -> {
+            DocumentSnapshot userDoc = transaction.get(userRef);
+            if (token.equals(userDoc.getString(TOKEN_FIELD))) {
+                transaction.update(userRef, TOKEN_FIELD, FieldValue.delete());
+            }
+            return null;
+        }).addOnFailureListener(e -> Log.e(TAG, "Error removing invalid push token for " + userId, e));
+    }
+}
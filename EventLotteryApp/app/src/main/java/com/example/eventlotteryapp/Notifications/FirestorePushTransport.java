@@ -0,0 +1,61 @@
+package com.example.eventlotteryapp.Notifications;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Push transport that hands each multicast to the backend as one document in the
+ * "PushRequests" collection. The app cannot hold FCM server credentials, so a backend
+ * function watching the collection makes the actual multicast call. One document carries
+ * up to {@link #MAX_TOKENS_PER_MULTICAST} tokens, so a large broadcast writes a handful
+ * of requests rather than one per user.
+ *
+ * Tokens are reported delivered once the request is stored, and all of them are retried
+ * if it could not be stored.
+ *
+ * @author Droids Team
+ */
+public class FirestorePushTransport implements PushTransport {
+
+    /** Collection the backend reads push requests from. */
+    public static final String COLLECTION = "PushRequests";
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Constructs a FirestorePushTransport using the default Firestore instance.
+     */
+    public FirestorePushTransport() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * Constructs a FirestorePushTransport.
+     *
+     * @param db the Firestore instance to write requests to
+     */
+    public FirestorePushTransport(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    @Override
+    public CompletableFuture<List<Outcome>> sendMulticast(List<String> tokens, Map<String, String> payload) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("Tokens", new ArrayList<>(tokens));
+        request.put("Payload", new HashMap<>(payload));
+        request.put("CreatedAt", new Date());
+
+        CompletableFuture<List<Outcome>> sent = new CompletableFuture<>();
+        db.collection(COLLECTION).add(request)
+            .addOnSuccessListener(docRef -> sent.complete(Collections.nCopies(tokens.size(), Outcome.DELIVERED)))
+            .addOnFailureListener(e -> sent.complete(Collections.nCopies(tokens.size(), Outcome.RETRY)));
+        return sent;
+    }
+}
@@ -4,10 +4,8 @@ import com.example.eventlotteryapp.Helpers.DateTimeFormat;
 import com.example.eventlotteryapp.Helpers.RelativeTime;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.Date;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Represents a notification in the Event Lottery application.
@@ -35,6 +33,15 @@ public class Notification implements Comparable<Notification>{
     /** The Firestore document ID of this notification (used for deletion). */
     private String documentId;
 
+    /** Whether the notification document already carried the event title. */
+    private boolean hasStoredEventTitle;
+
+    /** Whether this is a broadcast shared by its whole audience rather than the user's own notification. */
+    private boolean broadcast;
+
+    /** Whether the user has read it; notifications from before the Read field existed count as read. */
+    private boolean read = true;
+
     /**
      * Constructs a new Notification with the specified information.
      * 
@@ -51,84 +58,81 @@ public class Notification implements Comparable<Notification>{
         this.documentId = null;
     }
 
-    /**
-     * Callback interface for asynchronous notification loading from Firestore.
-     */
-    public interface NotificationLoadCallback {
-        /**
-         * Called when a notification has been successfully loaded from a Firestore document.
-         * 
-         * @param notification the loaded notification object
-         */
-        void onNotificationLoaded(Notification notification);
-    }
-
     /**
      * Creates a Notification object from a Firestore document snapshot.
-     * Asynchronously loads the associated event name if an event reference exists.
+     * The event name comes from the event title stored on the notification. Older
+     * notifications don't have one; their event name stays the default until it is
+     * filled in with {@link EventTitleResolver}.
      * 
      * @param doc the Firestore document snapshot containing notification data
-     * @param callback the callback to invoke when the notification is fully loaded
+     * @return the notification
      */
-    public static void fromDocument(DocumentSnapshot doc, NotificationLoadCallback callback) {
+    public static Notification fromDocument(DocumentSnapshot doc) {
         String message = doc.getString("Message");
         String type = doc.getString("Type");
-        Date date;
-        try {
-            date = DateTimeFormat.toDate(doc.getString("TimeStamp"));
-        } catch (Exception e)  {
-            date = doc.getDate("TimeStamp");
-        }
-        DocumentReference eventRef = doc.getDocumentReference("EventId");
+        Date date = DateTimeFormat.fromFirestore(doc.get("TimeStamp"));
         Notification notification = new Notification(date, type, message);
         // Store the document ID for deletion
         notification.setDocumentId(doc.getId());
+        notification.read = !Boolean.FALSE.equals(doc.getBoolean("Read"));
 
-        // Try to get EventId as DocumentReference first
+        // Try to get EventId as DocumentReference first, then fall back to a string
+        DocumentReference eventRef = doc.getDocumentReference("EventId");
         if (eventRef != null) {
-            // Store the eventId from the DocumentReference
             notification.setEventId(eventRef.getId());
-            eventRef.get().addOnSuccessListener(eventSnap -> {
-                if (eventSnap.exists()) {
-                    String eventNameRaw = eventSnap.getString("Name");
-                    if (eventNameRaw == null || eventNameRaw.isEmpty()) {
-                        eventNameRaw = eventSnap.getString("title");
-                    }
-                    if (eventNameRaw != null && !eventNameRaw.isEmpty()) {
-                        notification.setEventName(eventNameRaw);
-                    }
-                }
-                callback.onNotificationLoaded(notification);
-            }).addOnFailureListener(e -> {
-                callback.onNotificationLoaded(notification);
-            });
         } else {
-            // Fallback: try to get EventId as a string
             String eventIdString = doc.getString("EventId");
             if (eventIdString != null && !eventIdString.isEmpty()) {
                 notification.setEventId(eventIdString);
-                // Try to load event name from the event ID
-                FirebaseFirestore.getInstance().collection("Events").document(eventIdString)
-                        .get()
-                        .addOnSuccessListener(eventSnap -> {
-                            if (eventSnap.exists()) {
-                                String eventNameRaw = eventSnap.getString("Name");
-                                if (eventNameRaw == null || eventNameRaw.isEmpty()) {
-                                    eventNameRaw = eventSnap.getString("title");
-                                }
-                                if (eventNameRaw != null && !eventNameRaw.isEmpty()) {
-                                    notification.setEventName(eventNameRaw);
-                                }
-                            }
-                            callback.onNotificationLoaded(notification);
-                        })
-                        .addOnFailureListener(e -> {
-                            callback.onNotificationLoaded(notification);
-                        });
-            } else {
-                callback.onNotificationLoaded(notification);
             }
         }
+
+        String eventTitle = doc.getString(EventSummary.TITLE_FIELD);
+        if (eventTitle != null && !eventTitle.isEmpty()) {
+            notification.setEventName(eventTitle);
+            notification.hasStoredEventTitle = true;
+        }
+        return notification;
+    }
+
+    /**
+     * Creates a Notification from a broadcast document in the {@link Broadcasts#COLLECTION} collection.
+     *
+     * @param doc the broadcast document
+     * @return the notification
+     */
+    public static Notification fromBroadcast(DocumentSnapshot doc) {
+        Notification notification = fromDocument(doc);
+        notification.broadcast = true;
+        return notification;
+    }
+
+    /**
+     * @return whether this is a broadcast, which is dismissed through the user's cursor
+     *         rather than deleted
+     */
+    public boolean isBroadcast() {
+        return broadcast;
+    }
+
+    /**
+     * @return whether the user has read the notification, and so it no longer counts as unread
+     */
+    public boolean isRead() {
+        return read;
+    }
+
+    /**
+     * @return whether the event title was stored on the notification document,
+     *         rather than needing to be looked up from the event
+     */
+    public boolean hasStoredEventTitle() {
+        return hasStoredEventTitle;
+    }
+
+    /** Records that the event title has been written onto the notification document. */
+    void markEventTitleStored() {
+        hasStoredEventTitle = true;
     }
 
     public String getRelevantTime() {
@@ -0,0 +1,270 @@
+package com.example.eventlotteryapp.Notifications;
+
+import android.util.Log;
+
+import com.example.eventlotteryapp.Helpers.DateTimeFormat;
+import com.example.eventlotteryapp.Helpers.DocumentSize;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Removes notifications that have outlived their {@link RetentionPolicy}, either deleting
+ * them or moving them to an archive collection, so the notification collections stop
+ * growing without bound.
+ *
+ * Notifications are read oldest first, and only those older than the policy's shortest
+ * TTL are read at all. Each page's removals are committed in one transaction together with
+ * a checkpoint of how far the run has got, so an interrupted run resumes after the last
+ * page it committed instead of reading everything again. The checkpoint is cleared once
+ * a run reaches the end. The transaction re-reads each notification before removing it,
+ * and unread ones come off their owner's {@link UnreadCounter} only if they are still
+ * unread then, so a notification marked read meanwhile is not taken off the count twice.
+ *
+ * @author Droids Team
+ */
+public class NotificationCompaction {
+    private static final String TAG = "NotificationCompaction";
+
+    /** Maximum number of writes in one transaction, including the checkpoint. */
+    public static final int BATCH_SIZE = 500;
+
+    /** Collection holding the checkpoints of maintenance jobs. */
+    public static final String CHECKPOINT_COLLECTION = "Maintenance";
+
+    /** Suffix of the collection archived notifications are moved to. */
+    public static final String ARCHIVE_SUFFIX = "Archive";
+
+    private static final String CHECKPOINT_TIMESTAMP_FIELD = "CheckpointTimeStamp";
+    private static final String CHECKPOINT_ID_FIELD = "CheckpointId";
+    private static final String CUTOFF_FIELD = "Cutoff";
+
+    /** Collections with a run in progress in this process. */
+    private static final Set<String> RUNNING = ConcurrentHashMap.newKeySet();
+
+    private final FirebaseFirestore db;
+    private final String collection;
+    private final RetentionPolicy policy;
+    private final boolean archive;
+
+    /**
+     * Constructs a NotificationCompaction that deletes expired notifications from the
+     * "Notifications" collection under the default policy.
+     */
+    public NotificationCompaction() {
+        this(FirebaseFirestore.getInstance(), "Notifications", RetentionPolicy.defaults(), false);
+    }
+
+    /**
+     * Constructs a NotificationCompaction.
+     *
+     * @param db the Firestore instance holding the notifications
+     * @param collection the collection to compact, e.g. "Notifications" or {@link Broadcasts#COLLECTION}
+     * @param policy decides which notifications have expired
+     * @param archive true to move expired notifications to {@code collection + "Archive"}, false to delete them
+     */
+    public NotificationCompaction(FirebaseFirestore db, String collection, RetentionPolicy policy, boolean archive) {
+        this.db = db;
+        this.collection = collection;
+        this.policy = policy;
+        this.archive = archive;
+    }
+
+    /**
+     * Removes every expired notification, resuming an interrupted run if there is one.
+     * Returns straight away with an empty report if a run on the same collection is
+     * already in progress in this process.
+     *
+     * @return a CompletableFuture that completes with what this run removed
+     */
+    public CompletableFuture<Report> run() {
+        Report report = new Report(collection, archive);
+        if (!RUNNING.add(collection)) {
+            return CompletableFuture.completedFuture(report);
+        }
+        CompletableFuture<Report> future = new CompletableFuture<>();
+        checkpointRef().get().addOnSuccessListener(checkpoint -> {
+            Date now = new Date();
+            Date cutoff = new Date(now.getTime() - policy.shortestTtl());
+            Query query;
+            if (checkpoint.exists() && checkpoint.getTimestamp(CUTOFF_FIELD) != null) {
+                // Keep the interrupted run's cutoff, so the pages after the checkpoint are the ones it would have read
+                cutoff = checkpoint.getTimestamp(CUTOFF_FIELD).toDate();
+                query = page(cutoff).startAfter(checkpoint.getTimestamp(CHECKPOINT_TIMESTAMP_FIELD),
+                    checkpoint.getString(CHECKPOINT_ID_FIELD));
+                Log.d(TAG, "Resuming compaction of " + collection + " after " + checkpoint.getString(CHECKPOINT_ID_FIELD));
+            } else {
+                query = page(cutoff);
+            }
+            compactPage(query, cutoff, now, report, future);
+        }).addOnFailureListener(future::completeExceptionally);
+        return future.whenComplete((result, e) -> {
+            RUNNING.remove(collection);
+            if (e != null) {
+                Log.e(TAG, "Compaction of " + collection + " stopped; it resumes from its checkpoint next run", e);
+            } else {
+                Log.d(TAG, result.toString());
+            }
+        });
+    }
+
+    /**
+     * Deleting takes one write per notification and archiving two, plus at most one for
+     * the owner's unread count; one write is kept for the checkpoint.
+     */
+    private int pageSize() {
+        return (BATCH_SIZE - 1) / (archive ? 3 : 2);
+    }
+
+    private Query page(Date cutoff) {
+        return db.collection(collection)
+            .whereLessThan("TimeStamp", new Timestamp(cutoff))
+            .orderBy("TimeStamp")
+            .orderBy(FieldPath.documentId())
+            .limit(pageSize());
+    }
+
+    private DocumentReference checkpointRef() {
+        return db.collection(CHECKPOINT_COLLECTION).document("compaction_" + collection);
+    }
+
+    /**
+     * Removes one page's expired notifications and records the page as done, then moves
+     * on to the next page.
+     */
+    private void compactPage(Query query, Date cutoff, Date now, Report report, CompletableFuture<Report> future) {
+        query.get().addOnSuccessListener(snapshot -> {
+            List<DocumentSnapshot> docs = snapshot.getDocuments();
+            if (docs.isEmpty()) {
+                finish(report, future);
+                return;
+            }
+
+            db.runTransaction((Transaction.Function<Report>) transaction -> {
+                // A transaction has to do all of its reads first
+                List<DocumentSnapshot> current = new ArrayList<>(docs.size());
+                for (DocumentSnapshot doc : docs) {
+                    current.add(transaction.get(doc.getReference()));
+                }
+                return removePage(transaction, current, docs.get(docs.size() - 1), cutoff, now);
+            }).addOnSuccessListener(page -> {
+                report.record(docs.size(), page.getRemoved(), page.getBytesReclaimed());
+                if (docs.size() < pageSize()) {
+                    finish(report, future);
+                } else {
+                    DocumentSnapshot last = docs.get(docs.size() - 1);
+                    compactPage(page(cutoff).startAfter(last.get("TimeStamp"), last.getId()), cutoff, now, report, future);
+                }
+            }).addOnFailureListener(future::completeExceptionally);
+        }).addOnFailureListener(future::completeExceptionally);
+    }
+
+    /**
+     * Removes the expired notifications among a page, as read inside the transaction, and
+     * writes the checkpoint after the page's last document.
+     *
+     * @return what was removed from the page
+     */
+    private Report removePage(Transaction transaction, List<DocumentSnapshot> docs, DocumentSnapshot last,
+                              Date cutoff, Date now) {
+        Map<String, Integer> unreadByUser = new HashMap<>();
+        int removed = 0;
+        long bytes = 0;
+        for (DocumentSnapshot doc : docs) {
+            if (!doc.exists()) {
+                continue;
+            }
+            Boolean read = doc.getBoolean(UnreadCounter.READ_FIELD);
+            Date timestamp = DateTimeFormat.fromFirestore(doc.get("TimeStamp"));
+            if (!policy.isExpired(doc.getString("Type"), Boolean.TRUE.equals(read), timestamp, now)) {
+                continue;
+            }
+            Map<String, Object> data = doc.getData();
+            if (archive) {
+                transaction.set(db.collection(collection + ARCHIVE_SUFFIX).document(doc.getId()), data);
+            }
+            transaction.delete(doc.getReference());
+            bytes += DocumentSize.of(doc.getReference().getPath(), data);
+            removed++;
+            String userId = doc.getString("UserId");
+            if (Boolean.FALSE.equals(read) && userId != null) {
+                unreadByUser.merge(userId, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> unread : unreadByUser.entrySet()) {
+            UnreadCounter.add(transaction, db, unread.getKey(), -unread.getValue());
+        }
+
+        Map<String, Object> checkpoint = new HashMap<>();
+        checkpoint.put(CHECKPOINT_TIMESTAMP_FIELD, last.get("TimeStamp"));
+        checkpoint.put(CHECKPOINT_ID_FIELD, last.getId());
+        checkpoint.put(CUTOFF_FIELD, new Timestamp(cutoff));
+        transaction.set(checkpointRef(), checkpoint);
+
+        Report page = new Report(collection, archive);
+        page.record(docs.size(), removed, bytes);
+        return page;
+    }
+
+    private void finish(Report report, CompletableFuture<Report> future) {
+        checkpointRef().delete()
+            .addOnSuccessListener(aVoid -> future.complete(report))
+            .addOnFailureListener(future::completeExceptionally);
+    }
+
+    /**
+     * What one run removed. Byte counts are estimates from {@link DocumentSize}.
+     */
+    public static class Report {
+        private final String collection;
+        private final boolean archived;
+        private int scanned;
+        private int removed;
+        private long bytesReclaimed;
+
+        Report(String collection, boolean archived) {
+            this.collection = collection;
+            this.archived = archived;
+        }
+
+        void record(int scanned, int removed, long bytes) {
+            this.scanned += scanned;
+            this.removed += removed;
+            this.bytesReclaimed += bytes;
+        }
+
+        /** @return the collection that was compacted */
+        public String getCollection() { return collection; }
+
+        /** @return whether removed notifications were archived rather than deleted */
+        public boolean isArchived() { return archived; }
+
+        /** @return the number of notifications old enough to be checked */
+        public int getScanned() { return scanned; }
+
+        /** @return the number of notifications deleted or archived */
+        public int getRemoved() { return removed; }
+
+        /** @return the estimated storage freed in the compacted collection, in bytes */
+        public long getBytesReclaimed() { return bytesReclaimed; }
+
+        @Override
+        public String toString() {
+            return "Compaction of " + collection + ": " + removed + " of " + scanned + " notification(s) "
+                + (archived ? "archived" : "deleted") + ", " + bytesReclaimed + " bytes reclaimed";
+        }
+    }
+}
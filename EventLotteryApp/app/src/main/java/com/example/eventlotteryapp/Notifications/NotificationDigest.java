@@ -0,0 +1,136 @@
+package com.example.eventlotteryapp.Notifications;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The messages sent to one user about one event within a coalescing window, merged
+ * into a single notification.
+ *
+ * A message addressed to the waiting list is dropped when the same digest also has a
+ * message addressed to the selected or accepted entrants: a user on both lists has
+ * moved on from the waiting list, so telling them they were not selected would
+ * contradict the message that matters. Repeats of the same message are also dropped.
+ *
+ * @author Droids Team
+ */
+public class NotificationDigest {
+
+    /** Separator between messages in a digest of more than one message. */
+    public static final String MESSAGE_SEPARATOR = "\n\n";
+
+    /** The entrant list whose messages are superseded by the lists in {@link #PROGRESSED_AUDIENCES}. */
+    public static final String WAITING_LIST_AUDIENCE = Audience.WAITING_LIST;
+
+    /** Entrant lists a user only reaches after leaving the waiting list. */
+    private static final List<String> PROGRESSED_AUDIENCES = Arrays.asList(Audience.SELECTED, Audience.ACCEPTED);
+
+    /**
+     * One message queued for the user.
+     */
+    public static class Entry {
+        private final String title;
+        private final String message;
+        private final String audience;
+
+        /**
+         * Constructs a new Entry.
+         *
+         * @param title the notification title
+         * @param message the notification message body
+         * @param audience the entrant list the message was sent to, or null if it went to several
+         */
+        public Entry(String title, String message, String audience) {
+            this.title = title;
+            this.message = message;
+            this.audience = audience;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public String getAudience() {
+            return audience;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Adds a message to the digest.
+     *
+     * @param title the notification title
+     * @param message the notification message body
+     * @param audience the entrant list the message was sent to, or null if it went to several
+     */
+    public void add(String title, String message, String audience) {
+        entries.add(new Entry(title, message, audience));
+    }
+
+    /** @return the number of messages added, including any that were dropped */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the messages the user will see, oldest first, after dropping superseded
+     * and repeated ones. Never empty once a message has been added.
+     *
+     * @return the messages to show
+     */
+    public List<Entry> getEntries() {
+        boolean progressed = false;
+        for (Entry entry : entries) {
+            if (PROGRESSED_AUDIENCES.contains(entry.audience)) {
+                progressed = true;
+                break;
+            }
+        }
+
+        List<Entry> shown = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (progressed && WAITING_LIST_AUDIENCE.equals(entry.audience)) {
+                continue;
+            }
+            if (!containsSameText(shown, entry)) {
+                shown.add(entry);
+            }
+        }
+        return Collections.unmodifiableList(shown);
+    }
+
+    /** @return the title of the newest message shown */
+    public String getTitle() {
+        List<Entry> shown = getEntries();
+        return shown.isEmpty() ? null : shown.get(shown.size() - 1).title;
+    }
+
+    /** @return the messages shown, oldest first, separated by {@link #MESSAGE_SEPARATOR} */
+    public String getMessage() {
+        StringBuilder message = new StringBuilder();
+        for (Entry entry : getEntries()) {
+            if (message.length() > 0) {
+                message.append(MESSAGE_SEPARATOR);
+            }
+            message.append(entry.message);
+        }
+        return message.toString();
+    }
+
+    private static boolean containsSameText(List<Entry> shown, Entry entry) {
+        for (Entry other : shown) {
+            if (Objects.equals(other.title, entry.title) && Objects.equals(other.message, entry.message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
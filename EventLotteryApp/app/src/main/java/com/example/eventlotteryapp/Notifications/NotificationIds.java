@@ -0,0 +1,49 @@
+package com.example.eventlotteryapp.Notifications;
+
+/**
+ * Utility class for building deterministic notification document IDs.
+ * A notification written with {@code set()} under one of these IDs is written once
+ * however many times the send is retried, so a retried transaction or a repeated
+ * tap collapses into a single document instead of adding duplicates.
+ *
+ * The sequence tells apart notifications that are meant to repeat, e.g. an entrant
+ * being selected again in a later lottery round.
+ *
+ * @author Droids Team
+ */
+public class NotificationIds {
+
+    /**
+     * Builds the ID of a notification about the recipient themselves.
+     *
+     * @param eventId the ID of the event the notification is about
+     * @param recipientId the ID of the user receiving the notification
+     * @param type the notification type, e.g. "invitation_accepted"
+     * @param sequence the draw or response this notification belongs to
+     * @return the notification document ID
+     */
+    public static String of(String eventId, String recipientId, String type, long sequence) {
+        return clean(eventId) + "_" + clean(recipientId) + "_" + clean(type) + "_" + sequence;
+    }
+
+    /**
+     * Builds the ID of a notification about another entrant, e.g. telling an organizer
+     * that an entrant accepted. Including the entrant keeps one entrant's notification
+     * from replacing another's.
+     *
+     * @param eventId the ID of the event the notification is about
+     * @param recipientId the ID of the user receiving the notification
+     * @param type the notification type, e.g. "entrant_accepted"
+     * @param entrantId the ID of the entrant the notification is about
+     * @param sequence the draw or response this notification belongs to
+     * @return the notification document ID
+     */
+    public static String of(String eventId, String recipientId, String type, String entrantId, long sequence) {
+        return of(eventId, recipientId, type + "-" + clean(entrantId), sequence);
+    }
+
+    /** Slashes would turn the ID into a path, so they are replaced. */
+    private static String clean(String part) {
+        return (part == null) ? "" : part.replace('/', '-');
+    }
+}
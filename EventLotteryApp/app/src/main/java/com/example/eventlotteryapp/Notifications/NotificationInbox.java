@@ -0,0 +1,107 @@
+package com.example.eventlotteryapp.Notifications;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The notifications currently loaded into the inbox, kept newest first.
+ * Changes from Firestore are applied one document at a time: each add, update or
+ * removal is a binary search plus a single insert or remove, so the list is never
+ * re-sorted or rebuilt as more pages load.
+ *
+ * @author Droids Team
+ */
+public class NotificationInbox {
+
+    /** Newest first; notifications without a timestamp go last. Ties are broken by document ID. */
+    static final Comparator<Notification> ORDER = (a, b) -> {
+        Date first = a.getTimeStamp();
+        Date second = b.getTimeStamp();
+        if (first == null || second == null) {
+            if (first != second) {
+                return (first == null) ? 1 : -1;
+            }
+        } else {
+            int byTime = second.compareTo(first);
+            if (byTime != 0) {
+                return byTime;
+            }
+        }
+        String firstId = (a.getDocumentId() != null) ? a.getDocumentId() : "";
+        String secondId = (b.getDocumentId() != null) ? b.getDocumentId() : "";
+        return firstId.compareTo(secondId);
+    };
+
+    private final List<Notification> items = new ArrayList<>();
+    private final Map<String, Notification> byDocumentId = new HashMap<>();
+
+    /**
+     * Adds a notification, or replaces the one with the same document ID.
+     * Notifications without a document ID are ignored.
+     *
+     * @param notification the notification to add or replace
+     */
+    public synchronized void upsert(Notification notification) {
+        String documentId = notification.getDocumentId();
+        if (documentId == null || documentId.isEmpty()) {
+            return;
+        }
+        remove(documentId);
+        int index = Collections.binarySearch(items, notification, ORDER);
+        items.add((index < 0) ? -index - 1 : index, notification);
+        byDocumentId.put(documentId, notification);
+    }
+
+    /**
+     * Removes the notification with the given document ID, if it is loaded.
+     *
+     * @param documentId the notification's document ID
+     * @return true if a notification was removed
+     */
+    public synchronized boolean remove(String documentId) {
+        Notification existing = byDocumentId.remove(documentId);
+        if (existing == null) {
+            return false;
+        }
+        int index = Collections.binarySearch(items, existing, ORDER);
+        if (index >= 0) {
+            items.remove(index);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the notification with the given document ID.
+     *
+     * @param documentId the notification's document ID
+     * @return the notification, or null if it is not loaded
+     */
+    public synchronized Notification get(String documentId) {
+        return byDocumentId.get(documentId);
+    }
+
+    /**
+     * @return a copy of the loaded notifications, newest first, for handing to the adapter
+     */
+    public synchronized List<Notification> snapshot() {
+        return new ArrayList<>(items);
+    }
+
+    /** @return the number of loaded notifications */
+    public synchronized int size() {
+        return items.size();
+    }
+
+    /**
+     * Removes every loaded notification.
+     */
+    public synchronized void clear() {
+        items.clear();
+        byDocumentId.clear();
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.eventlotteryapp.Notifications;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CheckBox;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.eventlotteryapp.R;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * RecyclerView adapter for displaying notifications in the inbox.
+ * Lists are diffed on a background thread, so a new or changed notification only
+ * rebinds its own row. Supports multi-selection of notifications for bulk deletion operations.
+ * Displays notification icons, timestamps, messages, and event names.
+ *
+ * @author Droids Team
+ */
+public class NotificationListAdapter extends ListAdapter<Notification, NotificationListAdapter.NotificationViewHolder> {
+
+    /** Payload for a row whose event name is the only thing that changed. */
+    public static final Object PAYLOAD_EVENT_NAME = new Object();
+
+    private static final DiffUtil.ItemCallback<Notification> DIFF = new DiffUtil.ItemCallback<Notification>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Notification oldItem, @NonNull Notification newItem) {
+            return Objects.equals(oldItem.getDocumentId(), newItem.getDocumentId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Notification oldItem, @NonNull Notification newItem) {
+            return Objects.equals(oldItem.getEventName(), newItem.getEventName())
+                && sameExceptEventName(oldItem, newItem);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Notification oldItem, @NonNull Notification newItem) {
+            return sameExceptEventName(oldItem, newItem) ? PAYLOAD_EVENT_NAME : null;
+        }
+
+        private boolean sameExceptEventName(Notification oldItem, Notification newItem) {
+            return Objects.equals(oldItem.getMessage(), newItem.getMessage())
+                && Objects.equals(oldItem.getType(), newItem.getType())
+                && Objects.equals(oldItem.getTimeStamp(), newItem.getTimeStamp());
+        }
+    };
+
+    /** Listener for selection change events. */
+    private OnSelectionChangeListener selectionChangeListener;
+
+    /** Listener for taps on a notification. */
+    private OnNotificationClickListener clickListener;
+
+    private final Set<String> selectedDocumentIds = new HashSet<>(); // Use documentId instead of Notification object
+
+    /**
+     * Interface for listening to selection changes in the adapter.
+     */
+    public interface OnSelectionChangeListener {
+        /**
+         * Called when the number of selected notifications changes.
+         *
+         * @param selectedCount the new number of selected notifications
+         */
+        void onSelectionChanged(int selectedCount);
+    }
+
+    /**
+     * Interface for listening to taps on a notification.
+     */
+    public interface OnNotificationClickListener {
+        /**
+         * Called when a notification is tapped.
+         *
+         * @param notification the tapped notification
+         */
+        void onNotificationClick(Notification notification);
+    }
+
+    /**
+     * Constructs a new NotificationListAdapter.
+     */
+    public NotificationListAdapter() {
+        super(DIFF);
+    }
+
+    /**
+     * Sets the listener for selection change events.
+     *
+     * @param listener the OnSelectionChangeListener to set
+     */
+    public void setOnSelectionChangeListener(OnSelectionChangeListener listener) {
+        this.selectionChangeListener = listener;
+    }
+
+    /**
+     * Sets the listener for taps on a notification.
+     *
+     * @param listener the OnNotificationClickListener to set
+     */
+    public void setOnNotificationClickListener(OnNotificationClickListener listener) {
+        this.clickListener = listener;
+    }
+
+    /**
+     * Gets a copy of the set of currently selected notifications.
+     *
+     * @return a new HashSet containing the selected notifications
+     */
+    public Set<Notification> getSelectedNotifications() {
+        Set<Notification> selected = new HashSet<>();
+        for (Notification notification : getCurrentList()) {
+            if (notification != null && selectedDocumentIds.contains(notification.getDocumentId())) {
+                selected.add(notification);
+            }
+        }
+        return selected;
+    }
+
+    public void clearSelection() {
+        if (selectedDocumentIds.isEmpty()) {
+            return;
+        }
+        selectedDocumentIds.clear();
+        notifyItemRangeChanged(0, getItemCount());
+        if (selectionChangeListener != null) {
+            selectionChangeListener.onSelectionChanged(0);
+        }
+    }
+
+    @NonNull
+    @Override
+    public NotificationViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.notification_list_item, parent, false);
+        return new NotificationViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull NotificationViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && allEventNamePayloads(payloads)) {
+            holder.title.setText(getItem(position).getEventName());
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull NotificationViewHolder holder, int position) {
+        Notification notification = getItem(position);
+
+        String type = notification.getType();
+        if (type != null && type.contains("lottery")) {
+            holder.icon.setImageResource(R.drawable.ticket);
+        } else {
+            holder.icon.setImageResource(R.drawable.mail_box);
+        }
+
+        holder.timeStamp.setText(notification.getTimeStamp() != null ? notification.getRelevantTime() : "");
+        holder.message.setText(notification.getMessage());
+        holder.title.setText(notification.getEventName());
+
+        // Set checkbox state - remove listener first to avoid triggering during state setting
+        holder.checkBox.setOnCheckedChangeListener(null);
+        String docId = notification.getDocumentId();
+        holder.checkBox.setChecked(docId != null && selectedDocumentIds.contains(docId));
+
+        holder.checkBox.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            if (docId == null || docId.isEmpty()) {
+                android.util.Log.w("NotificationAdapter", "DocumentId is null or empty, cannot track selection");
+                return;
+            }
+            if (isChecked) {
+                selectedDocumentIds.add(docId);
+            } else {
+                selectedDocumentIds.remove(docId);
+            }
+            if (selectionChangeListener != null) {
+                selectionChangeListener.onSelectionChanged(selectedDocumentIds.size());
+            }
+        });
+
+        holder.itemView.setOnClickListener(v -> {
+            if (clickListener != null) {
+                clickListener.onNotificationClick(notification);
+            }
+        });
+    }
+
+    private static boolean allEventNamePayloads(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_EVENT_NAME) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ViewHolder for a single notification row.
+     */
+    static class NotificationViewHolder extends RecyclerView.ViewHolder {
+        final TextView timeStamp;
+        final TextView message;
+        final TextView title;
+        final ImageView icon;
+        final CheckBox checkBox;
+
+        NotificationViewHolder(@NonNull View itemView) {
+            super(itemView);
+            timeStamp = itemView.findViewById(R.id.tvTimestamp);
+            message = itemView.findViewById(R.id.tvNotificationMessage);
+            title = itemView.findViewById(R.id.tvNotificationTitle);
+            icon = itemView.findViewById(R.id.ivNotificationIcon);
+            checkBox = itemView.findViewById(R.id.cbSelectNotification);
+        }
+    }
+}
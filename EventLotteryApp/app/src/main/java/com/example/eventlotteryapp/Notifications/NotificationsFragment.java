@@ -5,73 +5,149 @@ import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
-import android.widget.ListView;
 import android.widget.ProgressBar;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.eventlotteryapp.EntrantView.EventDetailsActivity;
+import com.example.eventlotteryapp.Helpers.DateTimeFormat;
+import com.example.eventlotteryapp.NotificationController;
 import com.example.eventlotteryapp.R;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Fragment displaying a list of notifications for the current user.
- * Supports loading notifications from Firestore, displaying them in a ListView,
- * selecting multiple notifications for bulk deletion, and navigating to event details
+ * Notifications are read newest first from one ordered query, {@link #PAGE_SIZE} at a time
+ * as the user scrolls. Each loaded page keeps a snapshot listener on its own range, and
+ * only the changed documents are applied to the list, so new notifications appear at the
+ * top without reloading the inbox.
+ * Supports selecting multiple notifications for bulk deletion, and navigating to event details
  * when a notification is clicked.
  * Filters notifications by user role (entrant or organizer) for proper separation.
- * 
+ * Broadcasts addressed to the user, such as waiting list announcements, are merged into the
+ * same list from their own listener. Opening the inbox moves the user's read cursor past them,
+ * and deleting one only dismisses it for this user.
+ * Notifications are marked read once the inbox has shown them, keeping the user's
+ * {@link UnreadCounter} in step.
+ *
  * @author Droids Team
  */
 public class NotificationsFragment extends Fragment {
+    private static final String TAG = "NotificationsFragment";
+
+    /** Number of notifications read per page. */
+    public static final int PAGE_SIZE = 25;
+
+    /** Load the next page when the user scrolls within this many rows of the end. */
+    private static final int PREFETCH_DISTANCE = 5;
+
+    /** Number of the newest broadcasts merged into the inbox from each broadcast query. */
+    public static final int BROADCAST_LIMIT = 50;
+
+    /** RecyclerView displaying the notifications. */
+    private RecyclerView notificationsList;
 
-    /** ListView displaying the notifications. */
-    private ListView notificationsList;
-    
     /** Progress bar shown while loading notifications. */
     private ProgressBar progressBar;
-    
+
     /** Button for deleting selected notifications. */
     private Button btnDeleteSelected;
-    
-    /** List of all notifications for the current user. */
-    private ArrayList<Notification> notificationsArray;
-    
-    /** Adapter for displaying notifications in the ListView. */
-    private NotificationArrayAdapter notificationAdapter;
-    
+
+    /** The notifications loaded so far, newest first. */
+    private final NotificationInbox inbox = new NotificationInbox();
+
+    /** Adapter for displaying notifications in the RecyclerView. */
+    private NotificationListAdapter notificationAdapter;
+
     /** Firestore database instance for querying notifications. */
     private FirebaseFirestore db = FirebaseFirestore.getInstance();
-    
+
     /** Reference to the Notifications collection in Firestore. */
     private CollectionReference notificationsRef;
-    
+
     /** Firebase Authentication instance for getting current user. */
     FirebaseAuth auth;
 
+    /** Looks up event titles for notifications created before titles were stored on them. */
+    private EventTitleResolver titleResolver;
+
+    /** The current user's notifications, newest first. */
+    private Query inboxQuery;
+
+    /** "entrant" or "organizer"; notifications for the other role are hidden. */
+    private String userType;
+
+    /** One listener per loaded page, each on that page's range of the inbox query. */
+    private final List<ListenerRegistration> pageListeners = new ArrayList<>();
+
+    /** The oldest document loaded so far; the next page starts after it. */
+    private DocumentSnapshot lastLoadedDoc;
+
+    /** The current user's broadcast cursor, holding what they have read and dismissed. */
+    private DocumentReference cursorRef;
+
+    private ListenerRegistration cursorListener;
+
+    /** One listener per query from {@link BroadcastFeed}, each on a chunk of the user's events. */
+    private final List<ListenerRegistration> broadcastListeners = new ArrayList<>();
+
+    /** Whether the broadcast queries have been asked for since the cursor listener started. */
+    private boolean broadcastsRequested;
+
+    /** Bumped whenever the broadcast listeners are removed, so late query results are dropped. */
+    private int broadcastGeneration;
+
+    /** Broadcasts the user deleted from their inbox. */
+    private final Set<String> dismissedBroadcasts = new HashSet<>();
+
+    /** Time of the newest broadcast the cursor says the user has seen. */
+    private Date broadcastsReadThrough;
+
+    /** The user whose inbox is shown. */
+    private String inboxUserId;
+
+    /** Notifications already being marked read, so they are not marked (and counted) twice. */
+    private final Set<String> markingRead = new HashSet<>();
+
+    private boolean loadingPage;
+    private boolean reachedEnd;
+
     /**
      * Default constructor for the fragment.
-     * Initializes an empty notifications list.
      */
     public NotificationsFragment() {
         super(R.layout.fragment_notifications);
-        notificationsArray = new ArrayList<>();
     }
-    
+
     /**
      * Creates a new instance of NotificationsFragment with a specific Firestore instance.
-     * 
+     *
      * @param firestore the Firestore instance to use for queries
      * @return a new NotificationsFragment instance
      */
@@ -84,40 +160,92 @@ public class NotificationsFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        notificationsList = view.findViewById(R.id.lvNotifications);
+        notificationsList = view.findViewById(R.id.rvNotifications);
         progressBar = view.findViewById(R.id.progressBar);
         btnDeleteSelected = view.findViewById(R.id.btnDeleteSelected);
-        
+
         if (btnDeleteSelected == null) {
-            android.util.Log.e("NotificationsFragment", "Delete button not found in layout!");
+            Log.e(TAG, "Delete button not found in layout!");
         } else {
-            android.util.Log.d("NotificationsFragment", "Delete button found and initialized");
             // Ensure button starts as GONE (will be shown when items are selected)
             btnDeleteSelected.setVisibility(View.GONE);
         }
-        
+
         if (db == null) {
             db = FirebaseFirestore.getInstance();
         }
+        titleResolver = new EventTitleResolver(db);
 
         // Set up delete selected button
         if (btnDeleteSelected != null) {
             btnDeleteSelected.setOnClickListener(v -> deleteSelectedNotifications());
         }
 
+        setUpList();
         loadNotifications();
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        markShownAsRead();
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        removePageListeners();
+        removeBroadcastListeners();
+    }
+
+    private void setUpList() {
+        notificationAdapter = new NotificationListAdapter();
+        notificationsList.setAdapter(notificationAdapter);
+
+        notificationAdapter.setOnSelectionChangeListener(selectedCount -> {
+            if (btnDeleteSelected == null) {
+                return;
+            }
+            if (selectedCount > 0) {
+                btnDeleteSelected.setVisibility(View.VISIBLE);
+                btnDeleteSelected.setText("Delete Selected (" + selectedCount + ")");
+            } else {
+                btnDeleteSelected.setVisibility(View.GONE);
+            }
+        });
+
+        // Navigate to event details when a notification is clicked
+        notificationAdapter.setOnNotificationClickListener(notification -> {
+            String eventId = notification.getEventId();
+            if (eventId != null && !eventId.isEmpty()) {
+                Intent intent = new Intent(getContext(), EventDetailsActivity.class);
+                intent.putExtra("eventId", eventId);
+                startActivity(intent);
+            }
+        });
+
+        // Load the next page as the user nears the end of the list
+        notificationsList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (dy > 0 && layoutManager != null
+                        && layoutManager.findLastVisibleItemPosition() >= notificationAdapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+    }
+
     private void loadNotifications() {
         progressBar.setVisibility(View.VISIBLE);
         notificationsList.setVisibility(View.GONE);
         auth = FirebaseAuth.getInstance();
         notificationsRef = db.collection("Notifications");
-        notificationsArray.clear();
 
         String currentUserId = auth.getUid();
         if (currentUserId == null) {
-            updateUI();
+            showList();
             return;
         }
 
@@ -127,174 +255,316 @@ public class NotificationsFragment extends Fragment {
                     // Check if user document exists
                     if (!userDoc.exists()) {
                         Log.e("notif", "User document does not exist");
-                        updateUI();
+                        showList();
                         return;
                     }
-                    
                     String userRole = userDoc.getString("role");
-                    String userType = (userRole != null && userRole.equals("organizer")) ? "organizer" : "entrant";
-                    
-                    // Query notifications by UserId and UserType to properly separate organizer and entrant notifications
-                    final ArrayList<DocumentSnapshot> filteredDocs = new ArrayList<>();
-                    final AtomicInteger queryCount = new AtomicInteger(0);
-                    final int totalQueries = 2;
-                    
-                    // Query 1: Get notifications with matching UserType
-                    notificationsRef.whereEqualTo("UserId", currentUserId)
-                            .whereEqualTo("UserType", userType)
-                            .get()
-                            .addOnCompleteListener((task) -> {
-                                if (task.isSuccessful()) {
-                                    for (DocumentSnapshot doc : task.getResult()) {
-                                        filteredDocs.add(doc);
-                                    }
-                                } else {
-                                    Log.e("notif", "error getting documents with UserType", task.getException());
-                                }
-                                
-                                if (queryCount.incrementAndGet() == totalQueries) {
-                                    processFilteredDocs(filteredDocs);
-                                }
-                            });
-                    
-                    // Query 2: Get all notifications for backward compatibility (those without UserType)
-                    notificationsRef.whereEqualTo("UserId", currentUserId)
-                            .get()
-                            .addOnCompleteListener((backwardTask) -> {
-                                if (backwardTask.isSuccessful()) {
-                                    for (DocumentSnapshot doc : backwardTask.getResult()) {
-                                        String docUserType = doc.getString("UserType");
-                                        // Only add if UserType is null (old notifications) and not already added
-                                        if (docUserType == null) {
-                                            boolean exists = false;
-                                            for (DocumentSnapshot existing : filteredDocs) {
-                                                if (existing.getId().equals(doc.getId())) {
-                                                    exists = true;
-                                                    break;
-                                                }
-                                            }
-                                            if (!exists) {
-                                                filteredDocs.add(doc);
-                                            }
-                                        }
-                                    }
-                                } else {
-                                    Log.e("notif", "error getting all documents", backwardTask.getException());
-                                }
-                                
-                                if (queryCount.incrementAndGet() == totalQueries) {
-                                    processFilteredDocs(filteredDocs);
-                                }
-                            });
+                    startInbox(currentUserId, (userRole != null && userRole.equals("organizer")) ? "organizer" : "entrant");
                 })
                 .addOnFailureListener(e -> {
                     Log.e("notif", "error getting user document", e);
-                    // Fallback: load without UserType filter for backward compatibility
-                    notificationsRef.whereEqualTo("UserId", currentUserId)
-                            .get()
-                            .addOnCompleteListener((task) -> {
-                                if (task.isSuccessful()) {
-                                    ArrayList<DocumentSnapshot> allDocs = new ArrayList<>();
-                                    for (DocumentSnapshot doc : task.getResult()) {
-                                        allDocs.add(doc);
-                                    }
-                                    processFilteredDocs(allDocs);
-                                } else {
-                                    Log.e("notif", "error getting documents", task.getException());
-                                    updateUI();
-                                }
-                            });
+                    // Fallback: show notifications of both roles
+                    startInbox(currentUserId, null);
+                });
+    }
+
+    private void startInbox(String currentUserId, String userType) {
+        this.userType = userType;
+        this.inboxUserId = currentUserId;
+        // UserType is filtered on the device so notifications from before it existed still show up
+        inboxQuery = notificationsRef.whereEqualTo("UserId", currentUserId)
+                .orderBy("TimeStamp", Query.Direction.DESCENDING);
+        removePageListeners();
+        removeBroadcastListeners();
+        inbox.clear();
+        lastLoadedDoc = null;
+        reachedEnd = false;
+        loadNextPage();
+        listenForBroadcasts(currentUserId);
+    }
+
+    /**
+     * Follows the user's broadcast cursor and, once it is known which broadcasts they
+     * dismissed, the newest broadcasts for the events they belong to.
+     */
+    private void listenForBroadcasts(String currentUserId) {
+        cursorRef = db.collection(Broadcasts.CURSOR_COLLECTION).document(currentUserId);
+        cursorListener = cursorRef.addSnapshotListener((cursor, e) -> {
+            if (e != null) {
+                Log.e("notif", "error listening for broadcast cursor", e);
+            }
+            if (!isAdded()) {
+                return;
+            }
+            if (cursor != null && cursor.exists()) {
+                broadcastsReadThrough = cursor.getDate(Broadcasts.READ_THROUGH_FIELD);
+                List<String> dismissed = (List<String>) cursor.get(Broadcasts.DISMISSED_FIELD);
+                if (dismissed != null && dismissedBroadcasts.addAll(dismissed)) {
+                    for (String broadcastId : dismissed) {
+                        inbox.remove(broadcastId);
+                    }
+                    publish();
+                }
+            }
+            if (!broadcastsRequested) {
+                broadcastsRequested = true;
+                int generation = broadcastGeneration;
+                BroadcastFeed.queriesFor(db, currentUserId).whenComplete((queries, error) -> {
+                    if (error != null) {
+                        Log.e("notif", "error finding broadcasts", error);
+                        return;
+                    }
+                    if (!isAdded() || generation != broadcastGeneration) {
+                        return;
+                    }
+                    for (Query query : queries) {
+                        broadcastListeners.add(query
+                                .orderBy("TimeStamp", Query.Direction.DESCENDING)
+                                .limit(BROADCAST_LIMIT)
+                                .addSnapshotListener(this::applyBroadcastChanges));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Applies the broadcasts that changed, then marks everything shown as read.
+     */
+    private void applyBroadcastChanges(@Nullable QuerySnapshot snapshot, @Nullable Exception e) {
+        if (e != null) {
+            Log.e("notif", "error listening for broadcasts", e);
+            return;
+        }
+        if (snapshot == null || !isAdded()) {
+            return;
+        }
+        List<DocumentChange> changes = snapshot.getDocumentChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (DocumentChange change : changes) {
+            DocumentSnapshot doc = change.getDocument();
+            if (change.getType() == DocumentChange.Type.REMOVED || dismissedBroadcasts.contains(doc.getId())) {
+                inbox.remove(doc.getId());
+            } else {
+                applyDocument(doc, true);
+            }
+        }
+        publish();
+
+        // The listener is newest first, so its first broadcast is the newest the user has now seen
+        if (!snapshot.isEmpty()) {
+            Date newest = DateTimeFormat.fromFirestore(snapshot.getDocuments().get(0).get("TimeStamp"));
+            if (newest != null && (broadcastsReadThrough == null || newest.after(broadcastsReadThrough))) {
+                broadcastsReadThrough = newest;
+                Map<String, Object> cursor = new HashMap<>();
+                cursor.put(Broadcasts.READ_THROUGH_FIELD, newest);
+                cursorRef.set(cursor, SetOptions.merge())
+                        .addOnFailureListener(error -> Log.e("notif", "error moving broadcast read cursor", error));
+            }
+        }
+    }
+
+    /**
+     * Reads the next page of the inbox, then keeps it up to date with a listener
+     * on exactly that page's range, so pages never overlap or shift as notifications arrive.
+     */
+    private void loadNextPage() {
+        if (inboxQuery == null || loadingPage || reachedEnd) {
+            return;
+        }
+        loadingPage = true;
+
+        DocumentSnapshot pageStart = lastLoadedDoc;
+        Query page = (pageStart == null) ? inboxQuery : inboxQuery.startAfter(pageStart);
+        page.limit(PAGE_SIZE).get()
+                .addOnSuccessListener(snapshot -> {
+                    loadingPage = false;
+                    if (!isAdded()) {
+                        return;
+                    }
+                    List<DocumentSnapshot> docs = snapshot.getDocuments();
+                    reachedEnd = docs.size() < PAGE_SIZE;
+                    if (docs.isEmpty()) {
+                        showList();
+                        return;
+                    }
+                    DocumentSnapshot pageEnd = docs.get(docs.size() - 1);
+                    lastLoadedDoc = pageEnd;
+
+                    // The first page has no newer bound, so new notifications arrive through it
+                    Query range = (pageStart == null)
+                            ? inboxQuery.endAt(pageEnd)
+                            : inboxQuery.startAfter(pageStart).endAt(pageEnd);
+                    pageListeners.add(range.addSnapshotListener(this::applyChanges));
+
+                    int visibleBefore = inbox.size();
+                    for (DocumentSnapshot doc : docs) {
+                        applyDocument(doc, false);
+                    }
+                    publish();
+
+                    // A page that was all hidden by the role filter doesn't let the user scroll further
+                    if (inbox.size() == visibleBefore) {
+                        loadNextPage();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    loadingPage = false;
+                    Log.e("notif", "error getting notifications", e);
+                    showList();
                 });
     }
 
-    private void processFilteredDocs(ArrayList<DocumentSnapshot> filteredDocs) {
-        int totalDocs = filteredDocs.size();
+    /**
+     * Applies only the documents that changed in a page's range.
+     */
+    private void applyChanges(@Nullable QuerySnapshot snapshot, @Nullable Exception e) {
+        if (e != null) {
+            Log.e("notif", "error listening for notification changes", e);
+            return;
+        }
+        if (snapshot == null || !isAdded()) {
+            return;
+        }
+        List<DocumentChange> changes = snapshot.getDocumentChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (DocumentChange change : changes) {
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                inbox.remove(change.getDocument().getId());
+            } else {
+                applyDocument(change.getDocument(), false);
+            }
+        }
+        publish();
+    }
 
-        if (totalDocs == 0) {
-            updateUI();
+    private void applyDocument(DocumentSnapshot doc, boolean broadcast) {
+        String docUserType = doc.getString("UserType");
+        // Notifications without a UserType predate it and are shown to both roles
+        if (userType != null && docUserType != null && !docUserType.equals(userType)) {
+            inbox.remove(doc.getId());
             return;
         }
+        Notification notification = broadcast ? Notification.fromBroadcast(doc) : Notification.fromDocument(doc);
+        // Keep a title that was already looked up rather than flashing back to the default
+        Notification existing = inbox.get(doc.getId());
+        if (!notification.hasStoredEventTitle() && existing != null) {
+            notification.setEventName(existing.getEventName());
+        }
+        inbox.upsert(notification);
+    }
 
-        AtomicInteger loadedCount = new AtomicInteger(0);
+    /**
+     * Hands the current inbox to the adapter, which diffs it against what is shown,
+     * then looks up any event titles that weren't stored on the notifications.
+     */
+    private void publish() {
+        List<Notification> notifications = inbox.snapshot();
+        notificationAdapter.submitList(notifications, this::showList);
+        markShownAsRead();
 
-        for (DocumentSnapshot doc : filteredDocs) {
-            Notification.fromDocument(doc, notification -> {
-                notificationsArray.add(notification);
+        // Older notifications without a stored title get it looked up in batches
+        titleResolver.resolve(notifications).whenComplete((resolved, e) -> {
+            if (e != null) {
+                Log.e("notif", "error resolving event titles", e);
+                return;
+            }
+            if (resolved > 0 && getActivity() != null) {
+                getActivity().runOnUiThread(() -> {
+                    if (isAdded()) {
+                        notificationAdapter.notifyItemRangeChanged(0, notificationAdapter.getItemCount(),
+                                NotificationListAdapter.PAYLOAD_EVENT_NAME);
+                    }
+                });
+            }
+        });
+    }
 
-                if (loadedCount.incrementAndGet() == totalDocs) {
-                    Collections.sort(notificationsArray);
-                    updateUI();
+    /**
+     * Marks the unread notifications in the inbox as read, and takes them off the user's
+     * unread count in the same transaction. The transaction re-reads each notification and
+     * only counts those still unread, so another device marking the same ones read, or a
+     * retried transaction, doesn't take them off the count twice. Only done while the inbox
+     * is on screen; a hidden tab catches up when it is shown.
+     */
+    private void markShownAsRead() {
+        if (!isResumed() || inboxUserId == null) {
+            return;
+        }
+        List<String> unread = new ArrayList<>();
+        for (Notification notification : inbox.snapshot()) {
+            String documentId = notification.getDocumentId();
+            if (!notification.isRead() && !notification.isBroadcast() && documentId != null
+                    && markingRead.add(documentId)) {
+                unread.add(documentId);
+            }
+        }
+        // One write per notification plus one for the counter
+        int perBatch = NotificationController.WRITE_BATCH_SIZE - 1;
+        String userId = inboxUserId;
+        for (int i = 0; i < unread.size(); i += perBatch) {
+            List<String> marked = new ArrayList<>(unread.subList(i, Math.min(i + perBatch, unread.size())));
+            db.runTransaction((Transaction.Function<Void>) transaction -> {
+                // A transaction has to do all of its reads first
+                List<DocumentReference> toMark = new ArrayList<>();
+                int stillUnread = 0;
+                for (String documentId : marked) {
+                    DocumentSnapshot doc = transaction.get(notificationsRef.document(documentId));
+                    Boolean read = doc.getBoolean(UnreadCounter.READ_FIELD);
+                    if (doc.exists() && !Boolean.TRUE.equals(read)) {
+                        toMark.add(doc.getReference());
+                        // Only notifications created unread are on the count
+                        if (Boolean.FALSE.equals(read)) stillUnread++;
+                    }
+                }
+                for (DocumentReference ref : toMark) {
+                    transaction.update(ref, UnreadCounter.READ_FIELD, true);
                 }
+                if (stillUnread > 0) {
+                    UnreadCounter.add(transaction, db, userId, -stillUnread);
+                }
+                return null;
+            }).addOnFailureListener(e -> {
+                Log.e(TAG, "Error marking notifications read", e);
+                // Let a later pass try again
+                markingRead.removeAll(marked);
             });
         }
     }
 
-    private void updateUI() {
-        // Check if fragment is still attached before accessing context
+    private void showList() {
+        // Check if fragment is still attached before accessing views
         if (!isAdded() || getContext() == null) {
             return;
         }
-        
         progressBar.setVisibility(View.GONE);
         notificationsList.setVisibility(View.VISIBLE);
+    }
 
-        // Create or update adapter
-        if (notificationAdapter == null) {
-            notificationAdapter = new NotificationArrayAdapter(requireContext(), notificationsArray);
-            notificationsList.setAdapter(notificationAdapter);
-        } else {
-            // Recreate adapter to ensure data is in sync
-            // The array will be repopulated by loadNotifications, so we just need to notify
-            // But wait, we're in updateUI which is called after data is loaded, so we need to update
-            // Actually, since we're passing the same array reference, we should just notify
-            // But ArrayAdapter doesn't automatically sync, so we need to recreate or manually update
-            // For now, let's recreate to ensure data is in sync
-            notificationAdapter = new NotificationArrayAdapter(requireContext(), notificationsArray);
-            notificationsList.setAdapter(notificationAdapter);
+    private void removePageListeners() {
+        for (ListenerRegistration registration : pageListeners) {
+            registration.remove();
         }
-        
-        // Always set up selection change listener (in case adapter was recreated)
-        if (notificationAdapter != null) {
-            notificationAdapter.setOnSelectionChangeListener(selectedCount -> {
-                android.util.Log.d("NotificationsFragment", "Selection changed: " + selectedCount);
-                if (btnDeleteSelected == null) {
-                    android.util.Log.e("NotificationsFragment", "Delete button is null in listener!");
-                    return;
-                }
-                // Ensure we're on the UI thread
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        if (selectedCount > 0) {
-                            android.util.Log.d("NotificationsFragment", "Showing delete button, count: " + selectedCount);
-                            btnDeleteSelected.setVisibility(View.VISIBLE);
-                            btnDeleteSelected.setText("Delete Selected (" + selectedCount + ")");
-                            // Force a layout update
-                            btnDeleteSelected.requestLayout();
-                        } else {
-                            android.util.Log.d("NotificationsFragment", "Hiding delete button");
-                            btnDeleteSelected.setVisibility(View.GONE);
-                        }
-                    });
-                }
-            });
-            android.util.Log.d("NotificationsFragment", "Selection listener set up on adapter");
-        } else {
-            android.util.Log.e("NotificationsFragment", "Adapter is null when setting up listener!");
-        }
-        
-        notificationAdapter.notifyDataSetChanged();
+        pageListeners.clear();
+    }
 
-        // Add click listener to navigate to event details
-        notificationsList.setOnItemClickListener((parent, view, position, id) -> {
-            Notification notification = notificationsArray.get(position);
-            String eventId = notification.getEventId();
-            
-            if (eventId != null && !eventId.isEmpty()) {
-                Intent intent = new Intent(getContext(), EventDetailsActivity.class);
-                intent.putExtra("eventId", eventId);
-                startActivity(intent);
-            }
-        });
+    private void removeBroadcastListeners() {
+        if (cursorListener != null) {
+            cursorListener.remove();
+            cursorListener = null;
+        }
+        for (ListenerRegistration registration : broadcastListeners) {
+            registration.remove();
+        }
+        broadcastListeners.clear();
+        broadcastsRequested = false;
+        broadcastGeneration++;
+        dismissedBroadcasts.clear();
+        broadcastsReadThrough = null;
     }
 
     private void deleteSelectedNotifications() {
@@ -302,9 +572,9 @@ public class NotificationsFragment extends Fragment {
             Toast.makeText(getContext(), "Notifications not loaded yet", Toast.LENGTH_SHORT).show();
             return;
         }
-        
+
         Set<Notification> selected = notificationAdapter.getSelectedNotifications();
-        
+
         if (selected.isEmpty()) {
             Toast.makeText(getContext(), "No notifications selected", Toast.LENGTH_SHORT).show();
             return;
@@ -317,15 +587,15 @@ public class NotificationsFragment extends Fragment {
 
         progressBar.setVisibility(View.VISIBLE);
         btnDeleteSelected.setEnabled(false);
-        
+
         AtomicInteger completedCount = new AtomicInteger(0);
         AtomicInteger skippedCount = new AtomicInteger(0);
         int totalToDelete = selected.size();
-        
+
         for (Notification notification : selected) {
             String documentId = notification.getDocumentId();
             if (documentId == null || documentId.isEmpty()) {
-                Log.w("NotificationsFragment", "Notification has no documentId, skipping deletion. Event: " + notification.getEventName());
+                Log.w(TAG, "Notification has no documentId, skipping deletion. Event: " + notification.getEventName());
                 skippedCount.incrementAndGet();
                 if (completedCount.incrementAndGet() == totalToDelete) {
                     finishDeletionWithMessage(skippedCount.get());
@@ -333,21 +603,27 @@ public class NotificationsFragment extends Fragment {
                 continue;
             }
 
-            // Delete from Firestore
-            db.collection("Notifications")
-                    .document(documentId)
-                    .delete()
+            // Delete from Firestore, or for a broadcast dismiss it for this user only;
+            // the listeners remove it from the list
+            Task<Void> deletion;
+            if (notification.isBroadcast()) {
+                Map<String, Object> cursor = new HashMap<>();
+                cursor.put(Broadcasts.DISMISSED_FIELD, FieldValue.arrayUnion(documentId));
+                deletion = cursorRef.set(cursor, SetOptions.merge());
+            } else if (!notification.isRead()) {
+                deletion = deleteUnread(notificationsRef.document(documentId));
+            } else {
+                deletion = db.collection("Notifications").document(documentId).delete();
+            }
+            deletion
                     .addOnSuccessListener(aVoid -> {
-                        Log.d("NotificationsFragment", "Successfully deleted notification: " + documentId);
-                        // Remove from local array
-                        notificationsArray.remove(notification);
-                        
+                        Log.d(TAG, "Successfully deleted notification: " + documentId);
                         if (completedCount.incrementAndGet() == totalToDelete) {
                             finishDeletionWithMessage(skippedCount.get());
                         }
                     })
                     .addOnFailureListener(e -> {
-                        Log.e("NotificationsFragment", "Error deleting notification: " + documentId, e);
+                        Log.e(TAG, "Error deleting notification: " + documentId, e);
                         if (completedCount.incrementAndGet() == totalToDelete) {
                             finishDeletionWithMessage(skippedCount.get());
                         }
@@ -355,8 +631,23 @@ public class NotificationsFragment extends Fragment {
         }
     }
 
-    private void finishDeletion() {
-        finishDeletionWithMessage(0);
+    /**
+     * Deletes a notification that may still be unread, and takes it off the user's unread
+     * count only if it still was, so a delete racing a mark-as-read counts it once.
+     */
+    private Task<Void> deleteUnread(DocumentReference ref) {
+        String userId = inboxUserId;
+        return db.runTransaction((Transaction.Function<Void>) transaction -> {
+            DocumentSnapshot doc = transaction.get(ref);
+            if (!doc.exists()) {
+                return null;
+            }
+            transaction.delete(ref);
+            if (Boolean.FALSE.equals(doc.getBoolean(UnreadCounter.READ_FIELD))) {
+                UnreadCounter.add(transaction, db, userId, -1);
+            }
+            return null;
+        });
     }
 
     private void finishDeletionWithMessage(int skippedCount) {
@@ -364,19 +655,13 @@ public class NotificationsFragment extends Fragment {
         if (!isAdded() || getContext() == null) {
             return;
         }
-        
+
         progressBar.setVisibility(View.GONE);
         btnDeleteSelected.setEnabled(true);
-        
-        // Clear selection and update UI
-        if (notificationAdapter != null) {
-            notificationAdapter.clearSelection();
-            notificationAdapter.notifyDataSetChanged();
-        }
-        
-        // Reload notifications to ensure sync
-        loadNotifications();
-        
+
+        // Clear selection; the list itself is already up to date
+        notificationAdapter.clearSelection();
+
         String message = "Notifications deleted";
         if (skippedCount > 0) {
             message += " (" + skippedCount + " skipped - missing document ID)";
@@ -0,0 +1,277 @@
+package com.example.eventlotteryapp.Notifications;
+
+import com.example.eventlotteryapp.Helpers.BoundedParallel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers push notifications through a {@link PushTransport}.
+ * Recipients' device tokens are cached per user, so repeated sends don't look them up
+ * again. Users found without a token are not cached, so a token they register later is
+ * picked up by the next send instead of being missed for the life of the process. All tokens sharing a payload go out in multicast requests of up to
+ * {@link PushTransport#MAX_TOKENS_PER_MULTICAST}. Tokens the transport reports invalid are
+ * removed from the user and the cache. Tokens that fail for other reasons are retried with
+ * exponential backoff and full jitter, up to {@link #DEFAULT_MAX_ATTEMPTS} attempts.
+ *
+ * @author Droids Team
+ */
+public class PushDispatcher {
+    /** Default number of attempts for a token, including the first. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /** Default upper bound of the delay before the first retry. */
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 1000;
+
+    /** Longest delay between retries, however many attempts have failed. */
+    public static final long MAX_DELAY_MILLIS = 30000;
+
+    /** Maximum number of multicast requests in flight at once. */
+    public static final int MAX_REQUESTS_IN_FLIGHT = 2;
+
+    private static final ScheduledExecutorService RETRY_TIMER = Executors.newSingleThreadScheduledExecutor();
+
+    private final PushTransport transport;
+    private final PushTokenSource tokenSource;
+    private final ScheduledExecutorService scheduler;
+    private final Random random;
+    private final long baseDelayMillis;
+    private final int maxAttempts;
+
+    /** Device tokens by user ID, only for users known to have one. */
+    private final Map<String, String> tokenCache = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a PushDispatcher with the default retry policy.
+     *
+     * @param transport sends the multicast requests
+     * @param tokenSource looks up and removes device tokens
+     */
+    public PushDispatcher(PushTransport transport, PushTokenSource tokenSource) {
+        this(transport, tokenSource, RETRY_TIMER, new Random(), DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Constructs a PushDispatcher.
+     *
+     * @param transport sends the multicast requests
+     * @param tokenSource looks up and removes device tokens
+     * @param scheduler runs retries once their delay has passed
+     * @param random source of the backoff jitter
+     * @param baseDelayMillis upper bound of the delay before the first retry
+     * @param maxAttempts number of attempts for a token, including the first
+     */
+    public PushDispatcher(PushTransport transport, PushTokenSource tokenSource, ScheduledExecutorService scheduler,
+                          Random random, long baseDelayMillis, int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        this.transport = transport;
+        this.tokenSource = tokenSource;
+        this.scheduler = scheduler;
+        this.random = random;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Forgets a user's cached token, e.g. after they register a new device.
+     * The next send to them looks it up again.
+     *
+     * @param userId the user whose token changed
+     */
+    public void invalidate(String userId) {
+        tokenCache.remove(userId);
+    }
+
+    /**
+     * Sends the same payload to a group of users.
+     *
+     * @param userIds the users to notify; duplicates are sent to once
+     * @param payload the push fields, e.g. "title" and "body"
+     * @return a CompletableFuture that completes with the result once every token is delivered, pruned or given up on
+     */
+    public CompletableFuture<Result> dispatch(Collection<String> userIds, Map<String, String> payload) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String userId : userIds) {
+            if (userId != null && !userId.isEmpty()) {
+                distinct.add(userId);
+            }
+        }
+        Result result = new Result(distinct.size());
+
+        List<String> uncached = new ArrayList<>();
+        for (String userId : distinct) {
+            if (!tokenCache.containsKey(userId)) {
+                uncached.add(userId);
+            }
+        }
+        CompletableFuture<Map<String, String>> loaded = uncached.isEmpty()
+            ? CompletableFuture.completedFuture(Collections.emptyMap())
+            : tokenSource.load(uncached);
+
+        return loaded.handle((tokens, e) -> {
+            Set<String> failedLookups = new HashSet<>();
+            if (e != null) {
+                // Not cached, so the next send looks them up again
+                failedLookups.addAll(uncached);
+                result.recordFailed(uncached.size());
+            } else {
+                for (String userId : uncached) {
+                    String token = tokens.get(userId);
+                    if (token != null && !token.isEmpty()) {
+                        tokenCache.put(userId, token);
+                    }
+                }
+            }
+
+            // Two accounts signed in on one device share a token; it only needs the push once
+            Map<String, List<String>> ownersByToken = new LinkedHashMap<>();
+            for (String userId : distinct) {
+                String token = tokenCache.get(userId);
+                if (token != null) {
+                    ownersByToken.computeIfAbsent(token, t -> new ArrayList<>()).add(userId);
+                } else if (!failedLookups.contains(userId)) {
+                    result.recordWithoutToken();
+                }
+            }
+            return ownersByToken;
+        }).thenCompose(ownersByToken -> {
+            List<String> tokens = new ArrayList<>(ownersByToken.keySet());
+            List<List<String>> multicasts = new ArrayList<>();
+            for (int i = 0; i < tokens.size(); i += PushTransport.MAX_TOKENS_PER_MULTICAST) {
+                multicasts.add(tokens.subList(i, Math.min(i + PushTransport.MAX_TOKENS_PER_MULTICAST, tokens.size())));
+            }
+            return BoundedParallel.forEach(multicasts, MAX_REQUESTS_IN_FLIGHT,
+                batch -> send(batch, payload, ownersByToken, 1, result));
+        }).thenApply(sent -> result);
+    }
+
+    /**
+     * Sends one multicast, prunes invalid tokens, and schedules a retry for the tokens
+     * that failed.
+     *
+     * @return a future that completes with whether every token ended up delivered or pruned
+     */
+    private CompletableFuture<Boolean> send(List<String> tokens, Map<String, String> payload,
+                                            Map<String, List<String>> ownersByToken, int attempt, Result result) {
+        result.recordRequest();
+        CompletableFuture<List<PushTransport.Outcome>> sending;
+        try {
+            sending = transport.sendMulticast(tokens, payload);
+        } catch (RuntimeException e) {
+            sending = new CompletableFuture<>();
+            sending.completeExceptionally(e);
+        }
+
+        return sending.handle((outcomes, e) -> {
+            // A request that failed outright is retried for every token in it
+            List<String> retry = new ArrayList<>();
+            for (int i = 0; i < tokens.size(); i++) {
+                PushTransport.Outcome outcome = (outcomes != null && i < outcomes.size())
+                    ? outcomes.get(i) : PushTransport.Outcome.RETRY;
+                String token = tokens.get(i);
+                if (outcome == PushTransport.Outcome.DELIVERED) {
+                    result.recordDelivered();
+                } else if (outcome == PushTransport.Outcome.INVALID_TOKEN) {
+                    prune(token, ownersByToken.get(token));
+                    result.recordInvalid();
+                } else {
+                    retry.add(token);
+                }
+            }
+            return retry;
+        }).thenCompose(retry -> {
+            if (retry.isEmpty()) {
+                return CompletableFuture.completedFuture(true);
+            }
+            if (attempt >= maxAttempts) {
+                result.recordFailed(retry.size());
+                return CompletableFuture.completedFuture(false);
+            }
+            CompletableFuture<Boolean> retried = new CompletableFuture<>();
+            scheduler.schedule(() -> send(retry, payload, ownersByToken, attempt + 1, result)
+                    .whenComplete((ok, e) -> retried.complete(ok != null && ok)),
+                backoffDelayMillis(attempt), TimeUnit.MILLISECONDS);
+            return retried;
+        });
+    }
+
+    private void prune(String token, List<String> owners) {
+        if (owners == null) {
+            return;
+        }
+        for (String userId : owners) {
+            tokenCache.remove(userId, token);
+            tokenSource.remove(userId, token);
+        }
+    }
+
+    /**
+     * Picks the delay before retrying after a failed attempt: a random time up to
+     * {@code baseDelayMillis * 2^(attempt - 1)}, capped at {@link #MAX_DELAY_MILLIS}.
+     * The randomness keeps failed batches from all retrying at the same moment.
+     *
+     * @param attempt the attempt that just failed, starting at 1
+     * @return the delay in milliseconds
+     */
+    long backoffDelayMillis(int attempt) {
+        long ceiling = baseDelayMillis << Math.min(attempt - 1, 20);
+        ceiling = Math.min(ceiling, MAX_DELAY_MILLIS);
+        return (long) (random.nextDouble() * ceiling);
+    }
+
+    /**
+     * Tally of one dispatch. Delivery counts are per device token, so users sharing a
+     * token count once between them. Safe to update from several callbacks at once.
+     */
+    public static class Result {
+        private final int recipients;
+        private int requests;
+        private int delivered;
+        private int invalid;
+        private int withoutToken;
+        private int failed;
+
+        Result(int recipients) {
+            this.recipients = recipients;
+        }
+
+        synchronized void recordRequest() { requests++; }
+        synchronized void recordDelivered() { delivered++; }
+        synchronized void recordInvalid() { invalid++; }
+        synchronized void recordWithoutToken() { withoutToken++; }
+        synchronized void recordFailed(int count) { failed += count; }
+
+        /** @return the number of distinct users the dispatch was for */
+        public int getRecipients() { return recipients; }
+
+        /** @return the number of multicast requests sent, including retries */
+        public synchronized int getRequests() { return requests; }
+
+        /** @return the number of tokens the push was delivered to */
+        public synchronized int getDelivered() { return delivered; }
+
+        /** @return the number of tokens pruned as invalid */
+        public synchronized int getInvalid() { return invalid; }
+
+        /** @return the number of users with no registered token */
+        public synchronized int getWithoutToken() { return withoutToken; }
+
+        /** @return the number of tokens (or users, if their token lookup failed) given up on */
+        public synchronized int getFailed() { return failed; }
+    }
+}
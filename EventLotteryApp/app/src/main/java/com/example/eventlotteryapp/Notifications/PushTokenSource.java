@@ -0,0 +1,30 @@
+package com.example.eventlotteryapp.Notifications;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where {@link PushDispatcher} looks up users' device tokens, and removes the ones a
+ * transport reported invalid.
+ *
+ * @author Droids Team
+ */
+public interface PushTokenSource {
+
+    /**
+     * Looks up the device tokens of some users.
+     *
+     * @param userIds the users to look up
+     * @return a CompletableFuture that completes with each user's token; users without one are left out
+     */
+    CompletableFuture<Map<String, String>> load(List<String> userIds);
+
+    /**
+     * Removes a token from a user, unless the user has since registered a different one.
+     *
+     * @param userId the user the token belongs to
+     * @param token the token to remove
+     */
+    void remove(String userId, String token);
+}
@@ -0,0 +1,38 @@
+package com.example.eventlotteryapp.Notifications;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends one push payload to many device tokens in a single request, the way FCM's
+ * multicast API does. {@link PushDispatcher} groups recipients into calls to this.
+ *
+ * @author Droids Team
+ */
+public interface PushTransport {
+
+    /** Maximum number of tokens FCM accepts in one multicast request. */
+    int MAX_TOKENS_PER_MULTICAST = 500;
+
+    /**
+     * What happened to the push sent to one token.
+     */
+    enum Outcome {
+        /** The push was accepted for delivery. */
+        DELIVERED,
+        /** The token is no longer registered and should not be used again. */
+        INVALID_TOKEN,
+        /** The push failed for a reason that may pass, e.g. the service was unavailable. */
+        RETRY
+    }
+
+    /**
+     * Sends a payload to a group of device tokens.
+     *
+     * @param tokens the device tokens, at most {@link #MAX_TOKENS_PER_MULTICAST}
+     * @param payload the push fields, e.g. "title" and "body"
+     * @return a CompletableFuture that completes with one outcome per token, in the same order
+     */
+    CompletableFuture<List<Outcome>> sendMulticast(List<String> tokens, Map<String, String> payload);
+}
@@ -0,0 +1,129 @@
+package com.example.eventlotteryapp.Notifications;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How long notifications are kept, by notification Type. A notification the user has
+ * read can be given a shorter time to live than an unread one of the same Type.
+ * Notifications without a readable TimeStamp never expire, since their age is unknown.
+ *
+ * @author Droids Team
+ */
+public class RetentionPolicy {
+    /** One day, in milliseconds. */
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    /** Means the Type (or read state) has no TTL of its own. */
+    private static final long NO_TTL = -1;
+
+    private final long defaultTtlMillis;
+    private final Map<String, Long> ttlByType = new HashMap<>();
+    private long readTtlMillis = NO_TTL;
+
+    /**
+     * Constructs a RetentionPolicy.
+     *
+     * @param defaultTtlMillis how long notifications of a Type without its own TTL are kept
+     */
+    public RetentionPolicy(long defaultTtlMillis) {
+        if (defaultTtlMillis <= 0) {
+            throw new IllegalArgumentException("defaultTtlMillis must be positive");
+        }
+        this.defaultTtlMillis = defaultTtlMillis;
+    }
+
+    /**
+     * The policy the app runs with: invitation responses and the organizer's activity
+     * updates for 30 days, everything else (lottery results and organizer messages)
+     * for 90 days, and anything the user has read for 14 days.
+     *
+     * @return the default policy
+     */
+    public static RetentionPolicy defaults() {
+        RetentionPolicy policy = new RetentionPolicy(90 * DAY_MILLIS);
+        policy.setTtl("invitation_accepted", 30 * DAY_MILLIS);
+        policy.setTtl("invitation_declined", 30 * DAY_MILLIS);
+        policy.setTtl("entrant_accepted", 30 * DAY_MILLIS);
+        policy.setTtl("entrant_declined", 30 * DAY_MILLIS);
+        policy.setTtl("entrant_cancelled", 30 * DAY_MILLIS);
+        policy.setReadTtl(14 * DAY_MILLIS);
+        return policy;
+    }
+
+    /**
+     * Sets how long notifications of one Type are kept.
+     *
+     * @param type the notification Type, e.g. "invitation_accepted"
+     * @param ttlMillis the time to live
+     */
+    public void setTtl(String type, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be positive");
+        }
+        ttlByType.put(type, ttlMillis);
+    }
+
+    /**
+     * Sets how long notifications are kept once read, when that is shorter than the
+     * TTL of their Type.
+     *
+     * @param ttlMillis the time to live of read notifications
+     */
+    public void setReadTtl(long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be positive");
+        }
+        readTtlMillis = ttlMillis;
+    }
+
+    /**
+     * Gets how long a notification is kept.
+     *
+     * @param type the notification Type, or null if it has none
+     * @param read whether the user has read it
+     * @return the time to live in milliseconds
+     */
+    public long ttlFor(String type, boolean read) {
+        Long typeTtl = (type != null) ? ttlByType.get(type) : null;
+        long ttl = (typeTtl != null) ? typeTtl : defaultTtlMillis;
+        if (read && readTtlMillis != NO_TTL) {
+            ttl = Math.min(ttl, readTtlMillis);
+        }
+        return ttl;
+    }
+
+    /**
+     * Gets the shortest TTL of any notification. Nothing newer than this can have
+     * expired, so a compaction only needs to look at notifications older than it.
+     *
+     * @return the shortest time to live in milliseconds
+     */
+    public long shortestTtl() {
+        long shortest = defaultTtlMillis;
+        for (long ttl : ttlByType.values()) {
+            shortest = Math.min(shortest, ttl);
+        }
+        if (readTtlMillis != NO_TTL) {
+            shortest = Math.min(shortest, readTtlMillis);
+        }
+        return shortest;
+    }
+
+    /**
+     * Checks whether a notification has outlived its TTL.
+     *
+     * @param type the notification Type, or null if it has none
+     * @param read whether the user has read it
+     * @param timestamp when it was sent, or null if unknown
+     * @param now the current time
+     * @return true if it should be removed
+     */
+    public boolean isExpired(String type, boolean read, Date timestamp, Date now) {
+        if (timestamp == null) {
+            return false;
+        }
+        return now.getTime() - timestamp.getTime() >= ttlFor(type, read);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.eventlotteryapp.Notifications;
+
+import android.util.Log;
+
+import com.example.eventlotteryapp.Helpers.DateTimeFormat;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rewrites notification TimeStamps that were stored as strings (from {@code Date.toString()})
+ * as native Firestore Timestamps, so the inbox can order them on the server.
+ *
+ * A range filter only matches values of its own type, so querying for TimeStamps
+ * {@code >= ""} finds exactly the string ones. Migrated notifications drop out of that
+ * query, which makes the migration resumable: a run that is interrupted simply picks up
+ * the remaining string timestamps the next time it runs. Strings that cannot be parsed
+ * are left alone and skipped.
+ *
+ * @author Droids Team
+ */
+public class TimestampMigration {
+    private static final String TAG = "TimestampMigration";
+
+    /** Number of notifications read and rewritten per batch. */
+    public static final int BATCH_SIZE = 500;
+
+    /** Stops a second run from starting while one is already going in this process. */
+    private static final AtomicBoolean RUNNING = new AtomicBoolean(false);
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Constructs a TimestampMigration using the default Firestore instance.
+     */
+    public TimestampMigration() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * Constructs a TimestampMigration.
+     *
+     * @param db the Firestore instance holding the notifications
+     */
+    public TimestampMigration(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Migrates every string TimeStamp. Returns straight away with 0 if a run is
+     * already in progress in this process.
+     *
+     * @return a CompletableFuture that completes with the number of notifications migrated
+     */
+    public CompletableFuture<Integer> run() {
+        if (!RUNNING.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(0);
+        }
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        migratePage(stringTimestamps(), 0, future);
+        return future.whenComplete((migrated, e) -> RUNNING.set(false));
+    }
+
+    private Query stringTimestamps() {
+        return db.collection("Notifications")
+            .whereGreaterThanOrEqualTo("TimeStamp", "")
+            .orderBy("TimeStamp")
+            .limit(BATCH_SIZE);
+    }
+
+    /**
+     * Rewrites one batch, then moves on to the notifications after it. The cursor
+     * skips past strings that could not be parsed, so they are not read again this run.
+     */
+    private void migratePage(Query query, int migratedSoFar, CompletableFuture<Integer> future) {
+        query.get().addOnSuccessListener(snapshot -> {
+            List<DocumentSnapshot> docs = snapshot.getDocuments();
+            WriteBatch batch = db.batch();
+            int migrated = 0;
+            for (DocumentSnapshot doc : docs) {
+                Date date = DateTimeFormat.parseOrNull(doc.getString("TimeStamp"));
+                if (date == null) {
+                    Log.w(TAG, "Skipping notification " + doc.getId() + " with unreadable TimeStamp");
+                    continue;
+                }
+                batch.update(doc.getReference(), "TimeStamp", new Timestamp(date));
+                migrated++;
+            }
+
+            int total = migratedSoFar + migrated;
+            Runnable next = () -> {
+                if (docs.size() < BATCH_SIZE) {
+                    Log.d(TAG, "Timestamp migration finished, " + total + " notification(s) migrated");
+                    future.complete(total);
+                } else {
+                    migratePage(stringTimestamps().startAfter(docs.get(docs.size() - 1)), total, future);
+                }
+            };
+            if (migrated == 0) {
+                next.run();
+                return;
+            }
+            batch.commit()
+                .addOnSuccessListener(aVoid -> next.run())
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error migrating notification timestamps", e);
+                    future.completeExceptionally(e);
+                });
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Error querying string timestamps", e);
+            future.completeExceptionally(e);
+        });
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.eventlotteryapp.Notifications;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.android.material.badge.BadgeDrawable;
+import com.google.android.material.tabs.TabLayout;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps a count of each user's unread notifications in a small document of its own,
+ * {@code UnreadCounters/{userId}}, so a badge can show it without loading the inbox.
+ *
+ * Whoever creates an unread notification increments the count in the same batch or
+ * transaction, and whoever marks one read or deletes it unread decrements it in a
+ * transaction that first confirms it is still unread, so the count moves together with the
+ * notifications and is never taken down twice for the same one. Users who have no counter yet, such
+ * as those with notifications from before the counter existed, get one from a recount the
+ * first time their badge is shown.
+ *
+ * Broadcasts are not counted here, since one broadcast reaches a whole audience; the badge
+ * adds the user's broadcasts newer than their {@link Broadcasts#READ_THROUGH_FIELD} cursor,
+ * counting only those sent after they joined the waiting list (see {@link BroadcastFeed}).
+ *
+ * @author Droids Team
+ */
+public class UnreadCounter {
+    private static final String TAG = "UnreadCounter";
+
+    /** Collection holding one counter document per user, under the user's ID. */
+    public static final String COLLECTION = "UnreadCounters";
+
+    /** Counter field holding the number of unread notifications. */
+    public static final String COUNT_FIELD = "Unread";
+
+    /** Notification field holding whether the user has read it. */
+    public static final String READ_FIELD = "Read";
+
+    /** Largest number the badge shows before showing "999+". */
+    public static final int MAX_BADGE_NUMBER = 999;
+
+    /** Told the user's unread total whenever it changes. */
+    public interface Listener {
+        void onUnreadCount(long count);
+    }
+
+    private static DocumentReference counterRef(FirebaseFirestore db, String userId) {
+        return db.collection(COLLECTION).document(userId);
+    }
+
+    private static Map<String, Object> delta(long delta) {
+        return Collections.singletonMap(COUNT_FIELD, FieldValue.increment(delta));
+    }
+
+    /**
+     * Adds to a user's count as part of a batch, creating the counter if needed.
+     *
+     * @param batch the batch creating, reading or deleting the notifications
+     * @param db the Firestore instance
+     * @param userId the recipient
+     * @param delta how many notifications became unread; negative when they were read or deleted
+     */
+    public static void add(WriteBatch batch, FirebaseFirestore db, String userId, long delta) {
+        batch.set(counterRef(db, userId), delta(delta), SetOptions.merge());
+    }
+
+    /**
+     * Adds to a user's count as part of a transaction, creating the counter if needed.
+     *
+     * @param transaction the transaction creating the notification
+     * @param db the Firestore instance
+     * @param userId the recipient
+     * @param delta how many notifications became unread; negative when they were read or deleted
+     */
+    public static void add(Transaction transaction, FirebaseFirestore db, String userId, long delta) {
+        transaction.set(counterRef(db, userId), delta(delta), SetOptions.merge());
+    }
+
+    /**
+     * Follows a user's unread total: their counter plus the broadcasts they have not seen.
+     * Broadcasts are counted when listening starts and each time the user's broadcast
+     * cursor moves, over the events {@link BroadcastFeed} finds the user belongs to.
+     *
+     * @param db the Firestore instance
+     * @param userId the user
+     * @param listener told the total whenever it changes
+     * @return a registration that stops both listeners when removed
+     */
+    public static ListenerRegistration listen(FirebaseFirestore db, String userId, Listener listener) {
+        long[] counts = new long[2]; // notifications, broadcasts
+        ListenerRegistration counter = counterRef(db, userId).addSnapshotListener((doc, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Error listening for unread count", e);
+                return;
+            }
+            if (doc == null || !doc.exists()) {
+                recount(db, userId);
+                return;
+            }
+            Long count = doc.getLong(COUNT_FIELD);
+            if (count != null && count < 0) {
+                // Decrements are confirmed against the notifications, so this is drift to repair, not to hide
+                Log.w(TAG, "Unread count for " + userId + " is " + count + "; recounting");
+                recount(db, userId);
+                return;
+            }
+            counts[0] = (count != null) ? count : 0;
+            listener.onUnreadCount(counts[0] + counts[1]);
+        });
+        CompletableFuture<List<Query>> feed = BroadcastFeed.queriesFor(db, userId);
+        ListenerRegistration cursor = db.collection(Broadcasts.CURSOR_COLLECTION).document(userId)
+            .addSnapshotListener((doc, e) -> {
+                if (e != null) {
+                    Log.e(TAG, "Error listening for broadcast cursor", e);
+                    return;
+                }
+                Timestamp readThrough = (doc != null && doc.exists()) ? doc.getTimestamp(Broadcasts.READ_THROUGH_FIELD) : null;
+                feed.thenAccept(queries -> {
+                    List<Task<AggregateQuerySnapshot>> unseenCounts = new ArrayList<>(queries.size());
+                    for (Query query : queries) {
+                        Query unseen = (readThrough != null) ? query.whereGreaterThan("TimeStamp", readThrough) : query;
+                        unseenCounts.add(unseen.count().get(AggregateSource.SERVER));
+                    }
+                    Tasks.whenAllSuccess(unseenCounts).addOnSuccessListener(snapshots -> {
+                        long unseen = 0;
+                        for (Object snapshot : snapshots) {
+                            unseen += ((AggregateQuerySnapshot) snapshot).getCount();
+                        }
+                        counts[1] = unseen;
+                        listener.onUnreadCount(counts[0] + counts[1]);
+                    }).addOnFailureListener(error -> Log.e(TAG, "Error counting unseen broadcasts", error));
+                }).exceptionally(error -> {
+                    Log.e(TAG, "Error finding broadcasts for user", error);
+                    return null;
+                });
+            });
+        return () -> {
+            counter.remove();
+            cursor.remove();
+        };
+    }
+
+    /**
+     * Shows a user's unread total as a badge on a tab, hiding it when there is nothing unread.
+     *
+     * @param tab the tab leading to the notifications inbox
+     * @param userId the user
+     * @return a registration that stops updating the badge when removed
+     */
+    public static ListenerRegistration showOn(TabLayout.Tab tab, String userId) {
+        BadgeDrawable badge = tab.getOrCreateBadge();
+        badge.setMaxNumber(MAX_BADGE_NUMBER);
+        badge.setVisible(false);
+        return listen(FirebaseFirestore.getInstance(), userId, count -> {
+            badge.setNumber((int) Math.min(count, Integer.MAX_VALUE));
+            badge.setVisible(count > 0);
+        });
+    }
+
+    /**
+     * Counts a user's unread notifications on the server and stores the result as their
+     * counter, replacing any count already there.
+     *
+     * @param db the Firestore instance
+     * @param userId the user
+     */
+    public static void recount(FirebaseFirestore db, String userId) {
+        db.collection("Notifications")
+            .whereEqualTo("UserId", userId)
+            .whereEqualTo(READ_FIELD, false)
+            .count()
+            .get(AggregateSource.SERVER)
+            .addOnSuccessListener(snapshot -> counterRef(db, userId)
+                .set(Collections.singletonMap(COUNT_FIELD, snapshot.getCount()), SetOptions.merge()))
+            .addOnFailureListener(e -> Log.e(TAG, "Error recounting unread notifications", e));
+    }
+}
@@ -8,12 +8,16 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 import androidx.fragment.app.Fragment;
+import com.example.eventlotteryapp.Controllers.AutoDrawScheduler;
 import com.example.eventlotteryapp.Notifications.NotificationsFragment;
+import com.example.eventlotteryapp.Notifications.UnreadCounter;
 import com.example.eventlotteryapp.organizer.CreateEventActivity;
 import com.example.eventlotteryapp.organizer.MyEventsFragment;
 import com.example.eventlotteryapp.ui.profile.ProfileFragment;
 import com.google.android.material.tabs.TabLayout;
+import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 
 /**
  * Main home page activity for organizers.
@@ -33,6 +37,9 @@ public class OrganizerHomePage extends AppCompatActivity {
     /** Tab layout for navigation between different sections. */
     private TabLayout tabLayout;
 
+    /** Keeps the unread badge on the Notifications tab up to date. */
+    private ListenerRegistration unreadBadge;
+
     /**
      * Called when the activity is first created.
      * Sets up edge-to-edge display, initializes the layout, configures tab navigation,
@@ -66,12 +73,27 @@ public class OrganizerHomePage extends AppCompatActivity {
         if (dashboardTab != null) {
             dashboardTab.select();
         }
+
+        String userId = FirebaseAuth.getInstance().getUid();
+        TabLayout.Tab notificationsTab = tabLayout.getTabAt(2);
+        if (userId != null && notificationsTab != null) {
+            unreadBadge = UnreadCounter.showOn(notificationsTab, userId);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (unreadBadge != null) {
+            unreadBadge.remove();
+        }
     }
 
     /**
      * Called when the activity is resumed.
      * Reloads events when returning to this activity (e.g., from CreateEventActivity)
-     * and fixes tab selection state if needed.
+     * and fixes tab selection state if needed. Also runs the automatic draw for any of the
+     * organizer's events whose registration has closed.
      */
     @Override
     protected void onResume() {
@@ -98,6 +120,12 @@ public class OrganizerHomePage extends AppCompatActivity {
         if (myEventsFragment != null && myEventsFragment.isAdded()) {
             myEventsFragment.loadEvents();
         }
+        
+        // Run the draw for any of this organizer's events whose registration has closed without one
+        String userId = FirebaseAuth.getInstance().getUid();
+        if (userId != null) {
+            new AutoDrawScheduler().runDueDraws(db.collection("users").document(userId));
+        }
     }
 
     /**
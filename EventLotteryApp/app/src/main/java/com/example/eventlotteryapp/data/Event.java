@@ -45,8 +45,8 @@ public class Event {
     /** Whether this event has been cancelled by the organizer (Firestore field: "cancelled"). */
     private boolean cancelled;
     
-    /** The event poster image stored as a base64-encoded string (Firestore field). */
-    private String Image;
+    /** The version of the event's poster in EventImages, or null if it has none (Firestore field). */
+    private String PosterVersion;
 
     /**
      * Default constructor required for Firestore deserialization.
@@ -133,20 +133,20 @@ public class Event {
     public boolean isCancelled() { return cancelled; }
     
     /**
-     * Gets the event poster image as a base64-encoded string.
+     * Gets the version of the event's poster, which is stored in its own image documents.
      * 
-     * @return the base64-encoded image string, or null if no image is set
+     * @return the poster version, or null if no poster is set
      */
-    public String getImage() {
-        return Image;
+    public String getPosterVersion() {
+        return PosterVersion;
     }
     
     /**
-     * Sets the event poster image as a base64-encoded string.
+     * Sets the version of the event's poster.
      * 
-     * @param image the base64-encoded image string to set
+     * @param posterVersion the poster version to set
      */
-    public void setImage(String image) {
-        this.Image = image;
+    public void setPosterVersion(String posterVersion) {
+        this.PosterVersion = posterVersion;
     }
 }
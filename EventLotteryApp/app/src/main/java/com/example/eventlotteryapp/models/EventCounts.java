@@ -0,0 +1,101 @@
+package com.example.eventlotteryapp.models;
+
+/**
+ * Per-status entrant counts for an event, summed from the event's counter shards.
+ *
+ * @author Droids Team
+ */
+public class EventCounts {
+    /** Status name for entrants on the waiting list. */
+    public static final String WAITING = "waiting";
+
+    /** Status name for entrants drawn in the lottery who have not responded yet. */
+    public static final String SELECTED = "selected";
+
+    /** Status name for entrants who accepted their invitation. */
+    public static final String ACCEPTED = "accepted";
+
+    /** Status name for entrants who declined their invitation. */
+    public static final String DECLINED = "declined";
+
+    /** Status name for entrants who were cancelled or cancelled their registration. */
+    public static final String CANCELLED = "cancelled";
+
+    /** Every status that has a counter. */
+    public static final String[] STATUSES = { WAITING, SELECTED, ACCEPTED, DECLINED, CANCELLED };
+
+    private long waiting;
+    private long selected;
+    private long accepted;
+    private long declined;
+    private long cancelled;
+
+    /**
+     * Adds a shard's value to the count for a status. Unknown statuses are ignored.
+     *
+     * @param status the status the shard counts
+     * @param value the shard's value
+     */
+    public void add(String status, long value) {
+        if (status == null) {
+            return;
+        }
+        switch (status) {
+            case WAITING: waiting += value; break;
+            case SELECTED: selected += value; break;
+            case ACCEPTED: accepted += value; break;
+            case DECLINED: declined += value; break;
+            case CANCELLED: cancelled += value; break;
+            default: break;
+        }
+    }
+
+    /**
+     * Gets the number of entrants with a status.
+     *
+     * @param status the status to look up
+     * @return the count, or 0 for an unknown status
+     */
+    public long get(String status) {
+        if (status == null) {
+            return 0;
+        }
+        switch (status) {
+            case WAITING: return waiting;
+            case SELECTED: return selected;
+            case ACCEPTED: return accepted;
+            case DECLINED: return declined;
+            case CANCELLED: return cancelled;
+            default: return 0;
+        }
+    }
+
+    /** @return the number of entrants on the waiting list */
+    public int getWaiting() { return clamp(waiting); }
+
+    /** @return the number of selected entrants who have not responded yet */
+    public int getSelected() { return clamp(selected); }
+
+    /** @return the number of entrants who accepted */
+    public int getAccepted() { return clamp(accepted); }
+
+    /** @return the number of entrants who declined */
+    public int getDeclined() { return clamp(declined); }
+
+    /** @return the number of cancelled entrants */
+    public int getCancelled() { return clamp(cancelled); }
+
+    /** @return the number of entrants across every status */
+    public int getTotal() {
+        return getWaiting() + getSelected() + getAccepted() + getDeclined() + getCancelled();
+    }
+
+    /**
+     * Deltas are applied in the transaction that reads the membership they come from, but
+     * counters seeded before that, or an event edited by hand, can still be off; never
+     * report a negative number.
+     */
+    private static int clamp(long value) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, value));
+    }
+}
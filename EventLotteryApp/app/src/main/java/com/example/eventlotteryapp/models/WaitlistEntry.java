@@ -0,0 +1,55 @@
+package com.example.eventlotteryapp.models;
+
+/**
+ * Represents one entrant on an event's waiting list, as stored in the
+ * {@code Events/{eventId}/waitlist/{userId}} subcollection.
+ *
+ * @author Droids Team
+ */
+public class WaitlistEntry {
+    /** The user ID of the waitlisted entrant (also the document ID). */
+    private String userId;
+
+    /** The lottery round the entrant joined in, used by weighted draws. */
+    private long joinRound;
+
+    /** A random number in [0, 1), used to read a few random entrants without loading them all. */
+    private double randomKey;
+
+    /**
+     * Default constructor required for Firestore deserialization.
+     */
+    public WaitlistEntry() { }
+
+    /**
+     * Constructs a new WaitlistEntry.
+     *
+     * @param userId the user ID of the waitlisted entrant
+     * @param joinRound the lottery round the entrant joined in
+     */
+    public WaitlistEntry(String userId, long joinRound) {
+        this.userId = userId;
+        this.joinRound = joinRound;
+    }
+
+    /**
+     * Gets the user ID of the waitlisted entrant.
+     *
+     * @return the user ID
+     */
+    public String getUserId() { return userId; }
+
+    /**
+     * Gets the lottery round the entrant joined in.
+     *
+     * @return the join round
+     */
+    public long getJoinRound() { return joinRound; }
+
+    /**
+     * Gets the entry's random key.
+     *
+     * @return the random key
+     */
+    public double getRandomKey() { return randomKey; }
+}
@@ -13,16 +13,25 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.viewpager2.widget.ViewPager2;
+import com.example.eventlotteryapp.Controllers.EventCounterController;
+import com.example.eventlotteryapp.Controllers.LotteryController;
+import com.example.eventlotteryapp.Controllers.LotteryDrawController;
+import com.example.eventlotteryapp.Controllers.WaitlistController;
+import com.example.eventlotteryapp.Helpers.PosterImages;
 import com.example.eventlotteryapp.OrganizerHomePage;
 import com.example.eventlotteryapp.R;
 import com.example.eventlotteryapp.data.Event;
 import com.example.eventlotteryapp.databinding.ActivityCreateEventBinding;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Activity for creating or editing events.
@@ -55,6 +64,9 @@ public class CreateEventActivity extends AppCompatActivity {
     /** Flag to prevent multiple simultaneous save operations. */
     private boolean isSaving = false;
 
+    /** The poster of the event being edited as it was loaded, null if creating or it has none. */
+    private String loadedPosterImage;
+
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -203,6 +215,7 @@ public class CreateEventActivity extends AppCompatActivity {
         Integer maxParticipants = viewModel.maxParticipants.getValue();
         Integer waitingListSize = viewModel.waitingListSize.getValue();
         Boolean requireGeolocation = viewModel.requireGeolocation.getValue();
+        Boolean autoReplaceOnDecline = viewModel.autoReplaceOnDecline.getValue();
         Boolean limitWaitingList = viewModel.limitWaitingList.getValue();
 
         // Check if any field has been filled
@@ -217,6 +230,7 @@ public class CreateEventActivity extends AppCompatActivity {
                (maxParticipants != null && maxParticipants > 0) ||
                (waitingListSize != null && waitingListSize > 0) ||
                (requireGeolocation != null && requireGeolocation) ||
+               (autoReplaceOnDecline != null && autoReplaceOnDecline) ||
                (limitWaitingList != null && limitWaitingList);
     }
 
@@ -279,6 +293,7 @@ public class CreateEventActivity extends AppCompatActivity {
         String organizerId = auth.getCurrentUser().getUid();
         Integer waitingListSize = viewModel.waitingListSize.getValue();
         Boolean requireGeolocation = viewModel.requireGeolocation.getValue();
+        Boolean autoReplaceOnDecline = viewModel.autoReplaceOnDecline.getValue();
         Boolean limitWaitingList = viewModel.limitWaitingList.getValue();
         String posterImageBase64 = viewModel.posterImageBase64.getValue();
         
@@ -292,9 +307,6 @@ public class CreateEventActivity extends AppCompatActivity {
         eventData.put("Name", title);  // Old field name
         eventData.put("Cost", price != null ? String.format("$%.2f", price) : "$0.00");  // Old field name, formatted as string
         eventData.put("Organizer", firestore.collection("users").document(organizerId));  // Old field name, as DocumentReference
-        if (posterImageBase64 != null && !posterImageBase64.isEmpty()) {
-            eventData.put("Image", posterImageBase64);  // Old field name, base64 string
-        }
         
         // Waitlist structure (old system format - array)
         eventData.put("Waitlist", new ArrayList<String>());  // Initialize with empty array
@@ -319,21 +331,63 @@ public class CreateEventActivity extends AppCompatActivity {
         
         // Event settings
         eventData.put("requireGeolocation", requireGeolocation != null ? requireGeolocation : false);
+        eventData.put(LotteryController.AUTO_REPLACE_FIELD, autoReplaceOnDecline != null ? autoReplaceOnDecline : false);
         
         // Only initialize empty lists for new events, preserve existing lists for edits
         if (eventId == null) {
-        eventData.put("waitingListEntrantIds", new ArrayList<String>());
         eventData.put("selectedEntrantIds", new ArrayList<String>());
         eventData.put("cancelledEntrantIds", new ArrayList<String>());
+            // New events keep their waitlist in the waitlist subcollection from the start
+        eventData.put(WaitlistController.SHARDED_FIELD, true);
+            // Drawn automatically once registration closes, unless the organizer draws first
+        eventData.put(LotteryDrawController.AUTO_DRAW_PENDING_FIELD, true);
             // createdAt will be set by Firestore server timestamp for new events
         eventData.put("createdAt", com.google.firebase.firestore.FieldValue.serverTimestamp());
         }
         // For edit mode, we don't overwrite existing lists or createdAt
 
+        // Only encode the poster when it was picked in this session, not when it was loaded for editing
+        boolean posterChanged = posterImageBase64 != null && !posterImageBase64.isEmpty()
+            && !posterImageBase64.equals(loadedPosterImage);
+        CompletableFuture<Map<String, String>> poster = posterChanged
+            ? PosterImages.encode(posterImageBase64)
+            : CompletableFuture.completedFuture(null);
+        poster.whenComplete((variants, e) -> runOnUiThread(() -> {
+            if (e != null || (posterChanged && variants == null)) {
+                android.util.Log.e("CreateEventActivity", "Error processing poster image", e);
+                isSaving = false;
+                enablePublishButtons();
+                Toast.makeText(this, "Could not process the poster image. Please pick another one.", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            writeEvent(eventData, variants, listener);
+        }));
+    }
+
+    /**
+     * Writes the event, and its poster variants if the poster changed, in one batch.
+     *
+     * @param eventData the event fields to write
+     * @param posterVariants the poster variants from {@link PosterImages#encode}, or null to leave the poster as it is
+     * @param listener told the event's ID once it is saved, or null to finish the activity
+     */
+    private void writeEvent(Map<String, Object> eventData, Map<String, String> posterVariants, OnEventSavedListener listener) {
+        DocumentReference eventRef = (eventId != null)
+            ? firestore.collection("Events").document(eventId)
+            : firestore.collection("Events").document();
+        WriteBatch batch = firestore.batch();
+        if (posterVariants != null) {
+            // The poster goes in its own documents; the event only keeps its version
+            eventData.put(PosterImages.VERSION_FIELD, PosterImages.put(batch, firestore, eventRef.getId(), posterVariants));
+            if (eventId != null) {
+                eventData.put(PosterImages.LEGACY_IMAGE_FIELD, FieldValue.delete());
+            }
+        }
+
         if (eventId != null) {
             // Update existing event
-            firestore.collection("Events").document(eventId)
-                    .update(eventData)
+            batch.update(eventRef, eventData);
+            batch.commit()
                     .addOnSuccessListener(aVoid -> {
                         android.util.Log.d("CreateEventActivity", "Event updated successfully with ID: " + eventId);
                         isSaving = false;
@@ -353,13 +407,13 @@ public class CreateEventActivity extends AppCompatActivity {
                         Toast.makeText(this, "Error updating event: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                     });
         } else {
-            // Create new event
-        firestore.collection("Events")
-                .add(eventData)
-                .addOnSuccessListener(documentReference -> {
-                        String newEventId = documentReference.getId();
+            // Create new event, with its counters starting from zero
+        batch.set(eventRef, eventData);
+        new EventCounterController(firestore).markSeeded(batch, eventRef.getId());
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                        String newEventId = eventRef.getId();
                         android.util.Log.d("CreateEventActivity", "Event saved successfully with ID: " + newEventId);
-                    android.util.Log.d("CreateEventActivity", "Event organizerId: " + organizerId);
                     
                     // Verify the saved event
                         firestore.collection("Events").document(newEventId).get()
@@ -441,14 +495,18 @@ public class CreateEventActivity extends AppCompatActivity {
                 Boolean requireGeolocation = documentSnapshot.getBoolean("requireGeolocation");
                 viewModel.requireGeolocation.setValue(requireGeolocation != null ? requireGeolocation : false);
                 
+                Boolean autoReplaceOnDecline = documentSnapshot.getBoolean(LotteryController.AUTO_REPLACE_FIELD);
+                viewModel.autoReplaceOnDecline.setValue(autoReplaceOnDecline != null ? autoReplaceOnDecline : false);
+                
                 Boolean limitWaitingList = documentSnapshot.getBoolean("limitWaitingList");
                 viewModel.limitWaitingList.setValue(limitWaitingList != null ? limitWaitingList : false);
                 
-                // Image
-                String posterImageBase64 = documentSnapshot.getString("Image");
-                if (posterImageBase64 != null && !posterImageBase64.isEmpty()) {
-                    viewModel.posterImageBase64.setValue(posterImageBase64);
-                    // Note: posterImageUri will be set by Step5Fragment when it observes posterImageBase64
+                // Image: the full variant, or the poster stored on events from before posters had their own documents
+                if (documentSnapshot.getString(PosterImages.VERSION_FIELD) != null) {
+                    PosterImages.ref(firestore, eventId, PosterImages.FULL).get()
+                        .addOnSuccessListener(imageDoc -> setLoadedPoster(imageDoc.getString(PosterImages.IMAGE_FIELD)));
+                } else {
+                    setLoadedPoster(documentSnapshot.getString(PosterImages.LEGACY_IMAGE_FIELD));
                 }
                 
                 android.util.Log.d("CreateEventActivity", "Event data loaded for editing");
@@ -460,6 +518,18 @@ public class CreateEventActivity extends AppCompatActivity {
                 });
     }
 
+    /**
+     * Shows the poster of the event being edited, remembering it so saving does not
+     * re-encode a poster that was not changed.
+     */
+    private void setLoadedPoster(String posterImageBase64) {
+        if (posterImageBase64 != null && !posterImageBase64.isEmpty()) {
+            loadedPosterImage = posterImageBase64;
+            viewModel.posterImageBase64.setValue(posterImageBase64);
+            // Note: posterImageUri will be set by Step5Fragment when it observes posterImageBase64
+        }
+    }
+
     /**
      * Disable publish buttons to prevent multiple clicks while saving
      */
@@ -60,6 +60,7 @@ public class CreateEventStep4Fragment extends Fragment {
         setupMaxParticipantsStepper();
         setupWaitingListStepper();
         setupGeolocationToggle();
+        setupAutoReplaceToggle();
         setupWaitingListToggle();
     }
 
@@ -208,6 +209,29 @@ public class CreateEventStep4Fragment extends Fragment {
         });
     }
 
+    /**
+     * Sets up the auto-replace toggle switch. When enabled, an entrant who declines
+     * is replaced from the waiting list straight away. Updates the ViewModel when the switch state changes.
+     */
+    private void setupAutoReplaceToggle() {
+        SwitchMaterial autoReplaceSwitch = binding.autoReplaceSwitch;
+
+        autoReplaceSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            viewModel.autoReplaceOnDecline.setValue(isChecked);
+        });
+
+        viewModel.autoReplaceOnDecline.observe(getViewLifecycleOwner(), isChecked -> {
+            if (isChecked != null && autoReplaceSwitch.isChecked() != isChecked) {
+                autoReplaceSwitch.setChecked(isChecked);
+            }
+        });
+
+        // Make the container clickable to toggle the switch
+        binding.autoReplaceToggleContainer.setOnClickListener(v -> {
+            autoReplaceSwitch.setChecked(!autoReplaceSwitch.isChecked());
+        });
+    }
+
     /**
      * Sets up the waiting list limit toggle switch.
      * When enabled, shows the waiting list size stepper. Updates the ViewModel when the switch state changes.
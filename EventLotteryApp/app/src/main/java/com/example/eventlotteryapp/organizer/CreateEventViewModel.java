@@ -24,6 +24,7 @@ public class CreateEventViewModel extends ViewModel {
     public final MutableLiveData<Integer> maxParticipants = new MutableLiveData<>(0);
     public final MutableLiveData<Integer> waitingListSize = new MutableLiveData<>(0);
     public final MutableLiveData<Boolean> requireGeolocation = new MutableLiveData<>(false);
+    public final MutableLiveData<Boolean> autoReplaceOnDecline = new MutableLiveData<>(false);
     public final MutableLiveData<Boolean> limitWaitingList = new MutableLiveData<>(false);
     public final MutableLiveData<Uri> posterImageUri = new MutableLiveData<>();
     public final MutableLiveData<String> posterImageBase64 = new MutableLiveData<>();
@@ -26,10 +26,13 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import com.example.eventlotteryapp.Controllers.EventCounterController;
+import com.example.eventlotteryapp.Controllers.WaitlistController;
 import com.example.eventlotteryapp.CsvExportController;
 import com.example.eventlotteryapp.NotificationController;
 import com.example.eventlotteryapp.R;
 import com.example.eventlotteryapp.models.Entrant;
+import com.example.eventlotteryapp.models.EventCounts;
 import com.example.eventlotteryapp.models.User;
 import org.osmdroid.api.IMapController;
 import org.osmdroid.config.Configuration;
@@ -61,6 +64,8 @@ public class EntrantListActivity extends AppCompatActivity {
     private FirebaseFirestore firestore;
     private NotificationController notificationController;
     private CsvExportController csvExportController;
+    private WaitlistController waitlistController;
+    private EventCounterController eventCounterController;
     
     // UI Components
     private TextView eventNameText;
@@ -107,6 +112,8 @@ public class EntrantListActivity extends AppCompatActivity {
         firestore = FirebaseFirestore.getInstance();
         notificationController = new NotificationController();
         csvExportController = new CsvExportController();
+        waitlistController = new WaitlistController(firestore);
+        eventCounterController = new EventCounterController(firestore);
         
         initializeViews();
         setupClickListeners();
@@ -358,175 +365,185 @@ public class EntrantListActivity extends AppCompatActivity {
     }
     
     private void updateStatistics(DocumentSnapshot document) {
+        // Counts come from the event's counter shards rather than the entrant arrays
+        eventCounterController.getCounts(eventId)
+            .thenAccept(counts -> runOnUiThread(() -> showStatistics(document, counts)))
+            .exceptionally(e -> {
+                Log.e(TAG, "Error loading entrant counts", e);
+                return null;
+            });
+    }
+
+    private void showStatistics(DocumentSnapshot document, EventCounts counts) {
         // Total Entrants (all entrants: waiting + selected + accepted + declined + cancelled)
-        List<String> waitingList = (List<String>) document.get("waitingListEntrantIds");
-        List<String> selectedList = (List<String>) document.get("selectedEntrantIds");
-        List<String> acceptedList = (List<String>) document.get("acceptedEntrantIds");
-        List<String> cancelledList = (List<String>) document.get("cancelledEntrantIds");
-        List<String> declinedList = (List<String>) document.get("declinedEntrantIds");
-        
-        int waitingCount = (waitingList != null) ? waitingList.size() : 0;
-        int selectedCount = (selectedList != null) ? selectedList.size() : 0;
-        int acceptedCount = (acceptedList != null) ? acceptedList.size() : 0;
-        int cancelledCount = (cancelledList != null) ? cancelledList.size() : 0;
-        int declinedCount = (declinedList != null) ? declinedList.size() : 0;
-        int totalEntrants = waitingCount + selectedCount + acceptedCount + cancelledCount + declinedCount;
-        
-        totalEntrantsText.setText("Total Entrants: " + totalEntrants);
-        
-        // Slots Available - use acceptedEntrantIds as finalized count
+        totalEntrantsText.setText("Total Entrants: " + counts.getTotal());
+        
+        // Slots Available - use the accepted count as finalized count
         Long maxParticipantsLong = document.getLong("maxParticipants");
         int maxParticipants = (maxParticipantsLong != null) ? maxParticipantsLong.intValue() : 0;
         
-        int slotsAvailable = Math.max(0, maxParticipants - acceptedCount);
+        int slotsAvailable = Math.max(0, maxParticipants - counts.getAccepted());
         slotsAvailableText.setText("Slots Available: " + slotsAvailable);
     }
     
     private void loadEntrants() {
         firestore.collection("Events").document(eventId)
             .get()
-            .addOnSuccessListener(document -> {
-                List<String> waitingListIds = (List<String>) document.get("waitingListEntrantIds");
-                List<String> selectedIds = (List<String>) document.get("selectedEntrantIds");
-                List<String> acceptedIds = (List<String>) document.get("acceptedEntrantIds");
-                List<String> cancelledIds = (List<String>) document.get("cancelledEntrantIds");
-                List<String> declinedIds = (List<String>) document.get("declinedEntrantIds");
-                
-                allEntrants.clear();
-                filteredEntrants.clear();
-                loadedEntrantIds.clear(); // Reset loaded IDs tracking
-                
-                // Load all entrant details - use Set to avoid duplicates
-                java.util.Set<String> allIdsSet = new java.util.HashSet<>();
-                if (waitingListIds != null) {
-                    Log.d(TAG, "Waiting list size: " + waitingListIds.size());
-                    allIdsSet.addAll(waitingListIds);
-                }
-                if (selectedIds != null) {
-                    Log.d(TAG, "Selected list size: " + selectedIds.size());
-                    allIdsSet.addAll(selectedIds);
-                }
-                if (acceptedIds != null) {
-                    Log.d(TAG, "Accepted list size: " + acceptedIds.size());
-                    allIdsSet.addAll(acceptedIds);
-                }
-                if (cancelledIds != null) {
-                    Log.d(TAG, "Cancelled list size: " + cancelledIds.size());
-                    allIdsSet.addAll(cancelledIds);
-                }
-                if (declinedIds != null) {
-                    Log.d(TAG, "Declined list size: " + declinedIds.size());
-                    allIdsSet.addAll(declinedIds);
-                }
-                
-                Log.d(TAG, "Total unique IDs after deduplication: " + allIdsSet.size());
-                List<String> allIds = new ArrayList<>(allIdsSet);
-                
-                final int[] loaded = {0};
-                final int total = allIds.size();
-                
-                if (total == 0) {
-                    filteredEntrants.clear();
-                    adapter.notifyDataSetChanged();
-                    return;
+            .addOnSuccessListener(document -> waitlistController.loadEntrantIds(document)
+                .thenAccept(waitingListIds -> runOnUiThread(() -> showEntrants(document, waitingListIds)))
+                .exceptionally(e -> {
+                    Log.e(TAG, "Error loading waiting list", e);
+                    runOnUiThread(() -> Toast.makeText(this, "Error loading entrants", Toast.LENGTH_SHORT).show());
+                    return null;
+                }))
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error loading entrants", e);
+                Toast.makeText(this, "Error loading entrants", Toast.LENGTH_SHORT).show();
+            });
+    }
+    
+    /**
+     * Loads user details for every entrant on the event and shows them in the list.
+     *
+     * @param document the event document holding the selected/accepted/declined/cancelled lists
+     * @param waitingListIds the waitlisted entrant IDs, streamed from the waitlist subcollection
+     */
+    private void showEntrants(DocumentSnapshot document, List<String> waitingListIds) {
+        List<String> selectedIds = (List<String>) document.get("selectedEntrantIds");
+        List<String> acceptedIds = (List<String>) document.get("acceptedEntrantIds");
+        List<String> cancelledIds = (List<String>) document.get("cancelledEntrantIds");
+        List<String> declinedIds = (List<String>) document.get("declinedEntrantIds");
+        
+        allEntrants.clear();
+        filteredEntrants.clear();
+        loadedEntrantIds.clear(); // Reset loaded IDs tracking
+        
+        // Load all entrant details - use Set to avoid duplicates
+        java.util.Set<String> allIdsSet = new java.util.HashSet<>();
+        if (waitingListIds != null) {
+            Log.d(TAG, "Waiting list size: " + waitingListIds.size());
+            allIdsSet.addAll(waitingListIds);
+        }
+        if (selectedIds != null) {
+            Log.d(TAG, "Selected list size: " + selectedIds.size());
+            allIdsSet.addAll(selectedIds);
+        }
+        if (acceptedIds != null) {
+            Log.d(TAG, "Accepted list size: " + acceptedIds.size());
+            allIdsSet.addAll(acceptedIds);
+        }
+        if (cancelledIds != null) {
+            Log.d(TAG, "Cancelled list size: " + cancelledIds.size());
+            allIdsSet.addAll(cancelledIds);
+        }
+        if (declinedIds != null) {
+            Log.d(TAG, "Declined list size: " + declinedIds.size());
+            allIdsSet.addAll(declinedIds);
+        }
+        
+        Log.d(TAG, "Total unique IDs after deduplication: " + allIdsSet.size());
+        List<String> allIds = new ArrayList<>(allIdsSet);
+        
+        final int[] loaded = {0};
+        final int total = allIds.size();
+        
+        if (total == 0) {
+            filteredEntrants.clear();
+            adapter.notifyDataSetChanged();
+            return;
+        }
+        
+        for (String entrantId : allIds) {
+            // Skip if we've already loaded this entrant (prevent duplicates)
+            if (loadedEntrantIds.contains(entrantId)) {
+                loaded[0]++;
+                if (loaded[0] == total) {
+                    filterEntrants();
                 }
-                
-                for (String entrantId : allIds) {
-                    // Skip if we've already loaded this entrant (prevent duplicates)
+                continue;
+            }
+            
+            // Determine status - check cancelled first, then accepted, then selected, then others
+            String status = "pending";
+            if (cancelledIds != null && cancelledIds.contains(entrantId)) {
+                status = "cancelled"; // Cancelled users have their own filter
+            } else if (acceptedIds != null && acceptedIds.contains(entrantId)) {
+                status = "selected"; // Accepted users show as "selected" in the waiting list view
+            } else if (selectedIds != null && selectedIds.contains(entrantId)) {
+                status = "selected";
+            } else if (declinedIds != null && declinedIds.contains(entrantId)) {
+                status = "declined";
+            }
+            
+            final String finalStatus = status;
+            
+            firestore.collection("users").document(entrantId)
+                .get()
+                .addOnSuccessListener(userDoc -> {
+                    // Double-check to prevent race condition duplicates
                     if (loadedEntrantIds.contains(entrantId)) {
                         loaded[0]++;
                         if (loaded[0] == total) {
                             filterEntrants();
                         }
-                        continue;
+                        return;
                     }
                     
-                    // Determine status - check cancelled first, then accepted, then selected, then others
-                    String status = "pending";
-                    if (cancelledIds != null && cancelledIds.contains(entrantId)) {
-                        status = "cancelled"; // Cancelled users have their own filter
-                    } else if (acceptedIds != null && acceptedIds.contains(entrantId)) {
-                        status = "selected"; // Accepted users show as "selected" in the waiting list view
-                    } else if (selectedIds != null && selectedIds.contains(entrantId)) {
-                        status = "selected";
-                    } else if (declinedIds != null && declinedIds.contains(entrantId)) {
-                        status = "declined";
+                    if (userDoc.exists()) {
+                        // Try both "Name" and "name" to handle field name inconsistencies
+                        String name = userDoc.getString("Name");
+                        if (name == null) name = userDoc.getString("name");
+                        String email = userDoc.getString("email");
+                        // Try to get join date from user's joined events timestamp, or use current date as fallback
+                        Date joinedDate = new Date(); // Default to current date
+                        // Note: In a real implementation, you might want to track when they joined the waiting list
+                        
+                        EntrantWithStatus entrant = new EntrantWithStatus(
+                            entrantId,
+                            name != null ? name : "Unknown",
+                            email != null ? email : "",
+                            finalStatus,
+                            joinedDate
+                        );
+                        
+                        loadedEntrantIds.add(entrantId); // Mark as loaded
+                        allEntrants.add(entrant);
+                        
+                        loaded[0]++;
+                        if (loaded[0] == total) {
+                            filterEntrants();
+                        }
+                    } else {
+                        // User document doesn't exist, but still add to list with placeholder info
+                        Log.w(TAG, "User document not found for entrant ID: " + entrantId);
+                        Date joinedDate = new Date(); // Default to current date
+                        
+                        EntrantWithStatus entrant = new EntrantWithStatus(
+                            entrantId,
+                            "Unknown User (ID: " + entrantId.substring(0, Math.min(8, entrantId.length())) + "...)",
+                            "",
+                            finalStatus,
+                            joinedDate
+                        );
+                        
+                        loadedEntrantIds.add(entrantId); // Mark as loaded
+                        allEntrants.add(entrant);
+                        
+                        loaded[0]++;
+                        if (loaded[0] == total) {
+                            filterEntrants();
+                        }
                     }
-                    
-                    final String finalStatus = status;
-                    
-                    firestore.collection("users").document(entrantId)
-                        .get()
-                        .addOnSuccessListener(userDoc -> {
-                            // Double-check to prevent race condition duplicates
-                            if (loadedEntrantIds.contains(entrantId)) {
-                                loaded[0]++;
-                                if (loaded[0] == total) {
-                                    filterEntrants();
-                                }
-                                return;
-                            }
-                            
-                            if (userDoc.exists()) {
-                                // Try both "Name" and "name" to handle field name inconsistencies
-                                String name = userDoc.getString("Name");
-                                if (name == null) name = userDoc.getString("name");
-                                String email = userDoc.getString("email");
-                                // Try to get join date from user's joined events timestamp, or use current date as fallback
-                                Date joinedDate = new Date(); // Default to current date
-                                // Note: In a real implementation, you might want to track when they joined the waiting list
-                                
-                                EntrantWithStatus entrant = new EntrantWithStatus(
-                                    entrantId,
-                                    name != null ? name : "Unknown",
-                                    email != null ? email : "",
-                                    finalStatus,
-                                    joinedDate
-                                );
-                                
-                                loadedEntrantIds.add(entrantId); // Mark as loaded
-                                allEntrants.add(entrant);
-                                
-                                loaded[0]++;
-                                if (loaded[0] == total) {
-                                    filterEntrants();
-                                }
-                            } else {
-                                // User document doesn't exist, but still add to list with placeholder info
-                                Log.w(TAG, "User document not found for entrant ID: " + entrantId);
-                                Date joinedDate = new Date(); // Default to current date
-                                
-                                EntrantWithStatus entrant = new EntrantWithStatus(
-                                    entrantId,
-                                    "Unknown User (ID: " + entrantId.substring(0, Math.min(8, entrantId.length())) + "...)",
-                                    "",
-                                    finalStatus,
-                                    joinedDate
-                                );
-                                
-                                loadedEntrantIds.add(entrantId); // Mark as loaded
-                                allEntrants.add(entrant);
-                                
-                                loaded[0]++;
-                                if (loaded[0] == total) {
-                                    filterEntrants();
-                                }
-                            }
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Error loading entrant: " + entrantId, e);
-                            loadedEntrantIds.add(entrantId); // Mark as processed even on error
-                            loaded[0]++;
-                            if (loaded[0] == total) {
-                                filterEntrants();
-                            }
-                        });
-                }
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error loading entrants", e);
-                Toast.makeText(this, "Error loading entrants", Toast.LENGTH_SHORT).show();
-            });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error loading entrant: " + entrantId, e);
+                    loadedEntrantIds.add(entrantId); // Mark as processed even on error
+                    loaded[0]++;
+                    if (loaded[0] == total) {
+                        filterEntrants();
+                    }
+                });
+        }
     }
     
     private void filterEntrants() {
@@ -705,139 +722,152 @@ public class EntrantListActivity extends AppCompatActivity {
         firestore.collection("Events").document(eventId)
             .get()
             .addOnSuccessListener(document -> {
-                List<String> waitingListIds = (List<String>) document.get("waitingListEntrantIds");
                 List<String> selectedIds = (List<String>) document.get("selectedEntrantIds");
                 List<String> cancelledIds = (List<String>) document.get("cancelledEntrantIds");
                 
-                List<String> allEntrantIds = new ArrayList<>();
-                if (waitingListIds != null) allEntrantIds.addAll(waitingListIds);
-                if (selectedIds != null) allEntrantIds.addAll(selectedIds);
-                if (cancelledIds != null) allEntrantIds.addAll(cancelledIds);
-                
-                if (allEntrantIds.isEmpty()) {
-                    return;
-                }
-                
-                final List<GeoPoint> locations = new ArrayList<>();
-                final int[] loaded = {0};
-                final int total = allEntrantIds.size();
-                
-                // Load location for each entrant
-                for (String entrantId : allEntrantIds) {
-                    // Check for location in event-specific join location subcollection
-                    firestore.collection("Events").document(eventId)
-                        .collection("joinLocations").document(entrantId)
-                        .get()
-                        .addOnSuccessListener(locationDoc -> {
-                            if (locationDoc.exists()) {
-                                Double latitude = locationDoc.getDouble("latitude");
-                                Double longitude = locationDoc.getDouble("longitude");
-                                
-                                if (latitude != null && longitude != null) {
-                                    GeoPoint location = new GeoPoint(latitude, longitude);
-                                    locations.add(location);
+                // Sharded events keep the waiting list in a subcollection
+                new WaitlistController(firestore).loadEntrantIds(document).whenComplete((waitingListIds, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Error loading waitlist for locations", e);
+                        return;
+                    }
+                    List<String> allEntrantIds = new ArrayList<>();
+                    if (waitingListIds != null) allEntrantIds.addAll(waitingListIds);
+                    if (selectedIds != null) allEntrantIds.addAll(selectedIds);
+                    if (cancelledIds != null) allEntrantIds.addAll(cancelledIds);
+                    
+                    if (!allEntrantIds.isEmpty()) {
+                        showEntrantLocations(allEntrantIds);
+                    }
+                });
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error loading event for locations", e);
+            });
+    }
+    
+    /**
+     * Adds a map marker for every entrant who shared their location when joining.
+     *
+     * @param allEntrantIds the entrants to show
+     */
+    private void showEntrantLocations(List<String> allEntrantIds) {
+        final List<GeoPoint> locations = new ArrayList<>();
+        final int[] loaded = {0};
+        final int total = allEntrantIds.size();
+        
+        // Load location for each entrant
+        for (String entrantId : allEntrantIds) {
+            // Check for location in event-specific join location subcollection
+            firestore.collection("Events").document(eventId)
+                .collection("joinLocations").document(entrantId)
+                .get()
+                .addOnSuccessListener(locationDoc -> {
+                    if (locationDoc.exists()) {
+                        Double latitude = locationDoc.getDouble("latitude");
+                        Double longitude = locationDoc.getDouble("longitude");
+                        
+                        if (latitude != null && longitude != null) {
+                            GeoPoint location = new GeoPoint(latitude, longitude);
+                            locations.add(location);
+                            
+                            // Get entrant name for marker
+                            firestore.collection("users").document(entrantId)
+                                .get()
+                                .addOnSuccessListener(userDoc -> {
+                                    String name = userDoc.getString("Name");
+                                    if (name == null) name = "Unknown";
                                     
-                                    // Get entrant name for marker
-                                    firestore.collection("users").document(entrantId)
-                                        .get()
-                                        .addOnSuccessListener(userDoc -> {
-                                            String name = userDoc.getString("Name");
-                                            if (name == null) name = "Unknown";
-                                            
-                                            // Create marker
-                                            Marker marker = new Marker(entrantsMapView);
-                                            marker.setPosition(location);
-                                            marker.setTitle(name);
-                                            marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
-                                            Drawable icon = ContextCompat.getDrawable(this, R.drawable.ic_location_pin);
-                                            marker.setIcon(icon);
+                                    // Create marker
+                                    Marker marker = new Marker(entrantsMapView);
+                                    marker.setPosition(location);
+                                    marker.setTitle(name);
+                                    marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
+                                    Drawable icon = ContextCompat.getDrawable(this, R.drawable.ic_location_pin);
+                                    marker.setIcon(icon);
 
-                                            // Set click listener to show user name
-                                            marker.setOnMarkerClickListener((marker1, mapView) -> {
-                                                String userName = marker1.getTitle();
-                                                if (userName != null && !userName.isEmpty()) {
-                                                    Toast.makeText(EntrantListActivity.this, userName, Toast.LENGTH_SHORT).show();
-                                                }
-                                                return true; // Return true to indicate the click was handled
-                                            });
-                                            
-                                            entrantsMapView.getOverlays().add(marker);
-                                            
-                                            loaded[0]++;
-                                            if (loaded[0] == total) {
-                                                // All loaded, adjust camera to show all markers
-                                                if (!locations.isEmpty()) {
-                                                    adjustCameraToMarkers(locations);
-                                                }
-                                            }
-                                            
-                                            entrantsMapView.invalidate();
-                                        })
-                                        .addOnFailureListener(e -> {
-                                            Log.e(TAG, "Error loading entrant name: " + entrantId, e);
-                                            
-                                            // Create marker without name
-                                            Marker marker = new Marker(entrantsMapView);
-                                            marker.setPosition(location);
-                                            marker.setTitle("Entrant");
-                                            marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
-                                            
-                                            // Set click listener to show user name
-                                            marker.setOnMarkerClickListener((marker1, mapView) -> {
-                                                String userName = marker1.getTitle();
-                                                if (userName != null && !userName.isEmpty()) {
-                                                    Toast.makeText(EntrantListActivity.this, userName, Toast.LENGTH_SHORT).show();
-                                                }
-                                                return true; // Return true to indicate the click was handled
-                                            });
-                                            
-                                            entrantsMapView.getOverlays().add(marker);
-                                            
-                                            loaded[0]++;
-                                            if (loaded[0] == total) {
-                                                adjustCameraToMarkers(locations);
-                                            }
-                                            
-                                            entrantsMapView.invalidate();
-                                        });
-                                } else {
+                                    // Set click listener to show user name
+                                    marker.setOnMarkerClickListener((marker1, mapView) -> {
+                                        String userName = marker1.getTitle();
+                                        if (userName != null && !userName.isEmpty()) {
+                                            Toast.makeText(EntrantListActivity.this, userName, Toast.LENGTH_SHORT).show();
+                                        }
+                                        return true; // Return true to indicate the click was handled
+                                    });
+                                    
+                                    entrantsMapView.getOverlays().add(marker);
+                                    
                                     loaded[0]++;
                                     if (loaded[0] == total) {
-                                        adjustCameraToMarkers(locations);
-                                    }
-                                }
-                            } else {
-                                // Try to get location from user document (if stored there)
-                                firestore.collection("users").document(entrantId)
-                                    .get()
-                                    .addOnSuccessListener(userDoc -> {
-                                        // Check for location in user's joined events data
-                                        // This would need to be implemented when users join
-                                        loaded[0]++;
-                                        if (loaded[0] == total) {
+                                        // All loaded, adjust camera to show all markers
+                                        if (!locations.isEmpty()) {
                                             adjustCameraToMarkers(locations);
                                         }
-                                    })
-                                    .addOnFailureListener(e -> {
-                                        loaded[0]++;
-                                        if (loaded[0] == total) {
-                                            adjustCameraToMarkers(locations);
+                                    }
+                                    
+                                    entrantsMapView.invalidate();
+                                })
+                                .addOnFailureListener(e -> {
+                                    Log.e(TAG, "Error loading entrant name: " + entrantId, e);
+                                    
+                                    // Create marker without name
+                                    Marker marker = new Marker(entrantsMapView);
+                                    marker.setPosition(location);
+                                    marker.setTitle("Entrant");
+                                    marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
+                                    
+                                    // Set click listener to show user name
+                                    marker.setOnMarkerClickListener((marker1, mapView) -> {
+                                        String userName = marker1.getTitle();
+                                        if (userName != null && !userName.isEmpty()) {
+                                            Toast.makeText(EntrantListActivity.this, userName, Toast.LENGTH_SHORT).show();
                                         }
+                                        return true; // Return true to indicate the click was handled
                                     });
-                            }
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Error loading location for entrant: " + entrantId, e);
+                                    
+                                    entrantsMapView.getOverlays().add(marker);
+                                    
+                                    loaded[0]++;
+                                    if (loaded[0] == total) {
+                                        adjustCameraToMarkers(locations);
+                                    }
+                                    
+                                    entrantsMapView.invalidate();
+                                });
+                        } else {
                             loaded[0]++;
                             if (loaded[0] == total) {
                                 adjustCameraToMarkers(locations);
                             }
-                        });
-                }
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error loading event for locations", e);
-            });
+                        }
+                    } else {
+                        // Try to get location from user document (if stored there)
+                        firestore.collection("users").document(entrantId)
+                            .get()
+                            .addOnSuccessListener(userDoc -> {
+                                // Check for location in user's joined events data
+                                // This would need to be implemented when users join
+                                loaded[0]++;
+                                if (loaded[0] == total) {
+                                    adjustCameraToMarkers(locations);
+                                }
+                            })
+                            .addOnFailureListener(e -> {
+                                loaded[0]++;
+                                if (loaded[0] == total) {
+                                    adjustCameraToMarkers(locations);
+                                }
+                            });
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error loading location for entrant: " + entrantId, e);
+                    loaded[0]++;
+                    if (loaded[0] == total) {
+                        adjustCameraToMarkers(locations);
+                    }
+                });
+        }
     }
     
     private void adjustCameraToMarkers(List<GeoPoint> locations) {
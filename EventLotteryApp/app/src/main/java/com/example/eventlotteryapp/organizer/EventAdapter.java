@@ -1,8 +1,5 @@
 package com.example.eventlotteryapp.organizer;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.util.Base64;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,16 +7,21 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.eventlotteryapp.Helpers.ListDiffer;
+import com.example.eventlotteryapp.Helpers.PosterImages;
+import com.example.eventlotteryapp.Helpers.PosterLoader;
 import com.example.eventlotteryapp.R;
 import com.example.eventlotteryapp.data.Event;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 /**
  * RecyclerView adapter for displaying event cards in the organizer's event list.
@@ -30,8 +32,15 @@ import java.util.Locale;
  */
 public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHolder> {
 
-    /** List of events with their IDs to display. */
-    private List<MyEventsFragment.EventWithId> events;
+    /** Payloads naming the fields of a card that changed, for partial binds. */
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_LOCATION = "location";
+    private static final String FIELD_DATE = "date";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_POSTER = "poster";
+
+    /** List of events with their IDs to display, diffed in the background. */
+    private final ListDiffer<MyEventsFragment.EventWithId> events;
     
     /** Date formatter for displaying event dates. */
     private SimpleDateFormat dateFormat = new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
@@ -57,7 +66,27 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
      * @param events the list of events to display
      */
     public EventAdapter(List<MyEventsFragment.EventWithId> events) {
-        this.events = new ArrayList<>(events);
+        this.events = new ListDiffer<>(new AdapterListUpdateCallback(this), new ListDiffer.ItemRules<MyEventsFragment.EventWithId>() {
+            @Override
+            public String idOf(MyEventsFragment.EventWithId item) {
+                return item.id;
+            }
+
+            @Override
+            public Set<String> changes(MyEventsFragment.EventWithId oldItem, MyEventsFragment.EventWithId newItem) {
+                Event oldEvent = oldItem.event;
+                Event newEvent = newItem.event;
+                Set<String> changes = new HashSet<>();
+                ListDiffer.compare(changes, FIELD_TITLE, oldEvent.getTitle(), newEvent.getTitle());
+                ListDiffer.compare(changes, FIELD_LOCATION, oldEvent.getLocation(), newEvent.getLocation());
+                ListDiffer.compare(changes, FIELD_DATE, oldEvent.getEventStartDate(), newEvent.getEventStartDate());
+                ListDiffer.compare(changes, FIELD_STATUS, statusOf(oldEvent), statusOf(newEvent));
+                ListDiffer.compare(changes, FIELD_POSTER, oldEvent.getPosterVersion(), newEvent.getPosterVersion());
+                return changes;
+            }
+        });
+        setHasStableIds(true);
+        this.events.submit(events);
     }
 
     /**
@@ -79,91 +108,116 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
 
     @Override
     public void onBindViewHolder(@NonNull EventViewHolder holder, int position) {
-        MyEventsFragment.EventWithId wrapper = events.get(position);
+        MyEventsFragment.EventWithId wrapper = events.getCurrentList().get(position);
         Event event = wrapper.event;
 
         // Title, date, location, status
         holder.titleText.setText(event.getTitle());
         holder.locationText.setText(event.getLocation());
+        bindDate(holder, event);
+        bindStatus(holder, event);
+        bindPoster(holder, wrapper);
 
+        holder.itemView.setOnClickListener(v -> {
+            if (clickListener != null) clickListener.onItemClick(wrapper.id);
+        });
+    }
+
+    /**
+     * Rebinds only the fields named in the payloads, so a change to one event does not
+     * reload the card's poster.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull EventViewHolder holder, int position, @NonNull List<Object> payloads) {
+        Set<String> fields = ListDiffer.changedFields(payloads);
+        if (payloads.isEmpty() || fields == null) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        MyEventsFragment.EventWithId wrapper = events.getCurrentList().get(position);
+        Event event = wrapper.event;
+        if (fields.contains(FIELD_TITLE)) {
+            holder.titleText.setText(event.getTitle());
+        }
+        if (fields.contains(FIELD_LOCATION)) {
+            holder.locationText.setText(event.getLocation());
+        }
+        if (fields.contains(FIELD_DATE)) {
+            bindDate(holder, event);
+        }
+        if (fields.contains(FIELD_STATUS)) {
+            bindStatus(holder, event);
+        }
+        if (fields.contains(FIELD_POSTER)) {
+            bindPoster(holder, wrapper);
+        }
+    }
+
+    private void bindDate(EventViewHolder holder, Event event) {
         if (event.getEventStartDate() != null) {
             holder.dateText.setText(dateFormat.format(event.getEventStartDate()));
         } else {
             holder.dateText.setText("Date TBD");
         }
+    }
 
-        Date now = new Date();
-        String status;
+    private void bindStatus(EventViewHolder holder, Event event) {
+        String status = statusOf(event);
         int indicator;
-
-        if (event.getEventStartDate() == null || event.getEventEndDate() == null) {
-            status = "Pending";
-            indicator = R.drawable.status_indicator_yellow;
-        } else if (now.before(event.getEventStartDate())) {
-            status = "Upcoming";
-            indicator = R.drawable.status_indicator_yellow;
-        } else if (now.after(event.getEventEndDate())) {
-            status = "Closed";
+        if ("Closed".equals(status)) {
             indicator = R.drawable.status_indicator_red;
-        } else {
-            status = "Open";
+        } else if ("Open".equals(status)) {
             indicator = R.drawable.status_indicator_green;
+        } else {
+            indicator = R.drawable.status_indicator_yellow;
         }
 
         holder.statusText.setText(status);
         holder.statusIndicator.setBackgroundResource(indicator);
+    }
 
-        // Loads event image
-        String base64 = event.getImage();
-        if (base64 != null && !base64.trim().isEmpty()) {
-            Bitmap bitmap = decodeBase64(base64);
-
-            if (bitmap != null) {
-                holder.eventImage.setImageBitmap(bitmap);
-            } else {
-                holder.eventImage.setImageResource(R.drawable.placeholder_image);
-            }
+    /**
+     * Works out an event's status from its dates.
+     *
+     * @param event the event
+     * @return "Pending", "Upcoming", "Closed" or "Open"
+     */
+    private static String statusOf(Event event) {
+        Date now = new Date();
+        if (event.getEventStartDate() == null || event.getEventEndDate() == null) {
+            return "Pending";
+        } else if (now.before(event.getEventStartDate())) {
+            return "Upcoming";
+        } else if (now.after(event.getEventEndDate())) {
+            return "Closed";
         } else {
-            holder.eventImage.setImageResource(R.drawable.placeholder_image);
+            return "Open";
         }
+    }
 
-        holder.itemView.setOnClickListener(v -> {
-            if (clickListener != null) clickListener.onItemClick(wrapper.id);
-        });
+    private void bindPoster(EventViewHolder holder, MyEventsFragment.EventWithId wrapper) {
+        // Loads event image
+        PosterLoader.get(holder.itemView.getContext())
+                .loadPoster(wrapper.id, wrapper.event.getPosterVersion(), PosterImages.THUMBNAIL, holder.eventImage, R.drawable.placeholder_image);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return events.stableId(events.getCurrentList().get(position));
     }
 
     @Override
     public int getItemCount() {
-        return events.size();
+        return events.getCurrentList().size();
     }
 
     /**
-     * Updates the list of events and notifies the adapter of the change.
+     * Updates the list of events. Only the cards that changed are rebound.
      * 
      * @param newEvents the new list of events to display
      */
     public void updateEvents(List<MyEventsFragment.EventWithId> newEvents) {
-        this.events = new ArrayList<>(newEvents);
-        notifyDataSetChanged();
-    }
-
-    /**
-     * Decodes a base64-encoded string into a Bitmap image.
-     * 
-     * @param base64Str the base64-encoded image string
-     * @return the decoded Bitmap, or null if decoding fails
-     */
-    private Bitmap decodeBase64(String base64Str) {
-        try {
-            // Removes prefix if present
-            if (base64Str.contains(",")) {
-                base64Str = base64Str.substring(base64Str.indexOf(",") + 1);
-            }
-            byte[] decoded = Base64.decode(base64Str, Base64.DEFAULT);
-            return BitmapFactory.decodeByteArray(decoded, 0, decoded.length);
-        } catch (Exception e) {
-            return null;
-        }
+        events.submit(newEvents);
     }
 
     /**
@@ -17,12 +17,17 @@ import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import com.example.eventlotteryapp.Controllers.EventCounterController;
 import com.example.eventlotteryapp.CsvExportController;
 import com.example.eventlotteryapp.R;
 import com.example.eventlotteryapp.models.Entrant;
+import com.example.eventlotteryapp.models.EventCounts;
 import com.google.android.material.tabs.TabLayout;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Transaction;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -42,6 +47,7 @@ public class FinalizedListActivity extends AppCompatActivity {
     private String eventId;
     private FirebaseFirestore firestore;
     private CsvExportController csvExportController;
+    private EventCounterController eventCounterController;
 
     private TextView eventTitle;
     private TextView totalAttendeesText;
@@ -79,6 +85,7 @@ public class FinalizedListActivity extends AppCompatActivity {
 
         firestore = FirebaseFirestore.getInstance();
         csvExportController = new CsvExportController();
+        eventCounterController = new EventCounterController(firestore);
 
         initializeViews();
         setupClickListeners();
@@ -458,49 +465,32 @@ public class FinalizedListActivity extends AppCompatActivity {
                 .setTitle("Cancel Participant")
                 .setMessage("Are you sure you want to cancel " + participant.name + "? They will be moved to the cancelled list.")
                 .setPositiveButton("Cancel Participant", (dialog, which) -> {
-                    // Move from selected to cancelled in Firestore
-                    firestore.collection("Events").document(eventId)
-                            .get()
-                            .addOnSuccessListener(document -> {
-                                List<String> selectedIds = (List<String>) document.get("selectedEntrantIds");
-                                List<String> acceptedIds = (List<String>) document.get("acceptedEntrantIds");
-                                List<String> cancelledIds = (List<String>) document.get("cancelledEntrantIds");
-
-                                if (selectedIds == null) selectedIds = new ArrayList<>();
-                                if (acceptedIds == null) acceptedIds = new ArrayList<>();
-                                if (cancelledIds == null) cancelledIds = new ArrayList<>();
-
-                                // Remove from selected AND accepted (they could be in either)
-                                selectedIds.remove(participant.entrantId);
-                                acceptedIds.remove(participant.entrantId);
-
-                                // Add to cancelled
-                                if (!cancelledIds.contains(participant.entrantId)) {
-                                    cancelledIds.add(participant.entrantId);
-                                }
-
-                                // Update Firestore - remove from both selected and accepted, add to cancelled
-                                firestore.collection("Events").document(eventId)
-                                        .update("selectedEntrantIds", selectedIds,
-                                                "acceptedEntrantIds", acceptedIds,
-                                                "cancelledEntrantIds", cancelledIds)
-                                        .addOnSuccessListener(aVoid -> {
-                                            Toast.makeText(this, participant.name + " has been cancelled", Toast.LENGTH_SHORT).show();
-                                            // Clear selection and update button visibility
-                                            selectedParticipant = null;
-                                            updateButtonVisibility();
-                                            // Reload data
-                                            loadEventData();
-                                        })
-                                        .addOnFailureListener(e -> {
-                                            Log.e(TAG, "Error cancelling participant", e);
-                                            Toast.makeText(this, "Error cancelling participant: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                                        });
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "Error loading event", e);
-                                Toast.makeText(this, "Error loading event", Toast.LENGTH_SHORT).show();
-                            });
+                    // Move from selected to cancelled in one transaction, so the
+                    // counter changes are based on the same read as the list changes
+                    DocumentReference eventRef = firestore.collection("Events").document(eventId);
+                    firestore.runTransaction((Transaction.Function<Void>) transaction -> {
+                        DocumentSnapshot document = transaction.get(eventRef);
+
+                        // Remove from selected AND accepted (they could be in either), add to cancelled
+                        transaction.update(eventRef,
+                                "selectedEntrantIds", FieldValue.arrayRemove(participant.entrantId),
+                                "acceptedEntrantIds", FieldValue.arrayRemove(participant.entrantId),
+                                "cancelledEntrantIds", FieldValue.arrayUnion(participant.entrantId));
+                        eventCounterController.apply(transaction, eventId, new EventCounterController.Delta(document)
+                                .remove(participant.entrantId, EventCounts.SELECTED, EventCounts.ACCEPTED)
+                                .add(participant.entrantId, EventCounts.CANCELLED));
+                        return null;
+                    }).addOnSuccessListener(aVoid -> {
+                        Toast.makeText(this, participant.name + " has been cancelled", Toast.LENGTH_SHORT).show();
+                        // Clear selection and update button visibility
+                        selectedParticipant = null;
+                        updateButtonVisibility();
+                        // Reload data
+                        loadEventData();
+                    }).addOnFailureListener(e -> {
+                        Log.e(TAG, "Error cancelling participant", e);
+                        Toast.makeText(this, "Error cancelling participant: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    });
                 })
                 .setNegativeButton("Keep Participant", null)
                 .show();
@@ -1,10 +1,7 @@
 package com.example.eventlotteryapp.organizer;
 
 import android.content.Intent;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.Bundle;
-import android.util.Base64;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -17,13 +14,17 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
+import com.example.eventlotteryapp.Controllers.WaitlistController;
 import com.example.eventlotteryapp.NotificationController;
+import com.example.eventlotteryapp.Notifications.FanOutReport;
+import com.example.eventlotteryapp.Helpers.PosterLoader;
 import com.example.eventlotteryapp.R;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Activity for notifying entrants (selected, waitlisted, or cancelled) about event updates.
@@ -210,10 +211,7 @@ public class NotifyEntrantsActivity extends AppCompatActivity {
             .get()
             .addOnSuccessListener(document -> {
                 // Load event image
-                String imageBase64 = document.getString("Image");
-                if (imageBase64 != null && !imageBase64.isEmpty()) {
-                    populateImage(imageBase64, eventImage);
-                }
+                populateImage(document, eventImage);
                 
                 // Load event title
                 String title = document.getString("title");
@@ -224,21 +222,27 @@ public class NotifyEntrantsActivity extends AppCompatActivity {
                 
                 // Load entrant lists
                 selectedEntrantIds = (List<String>) document.get("selectedEntrantIds");
-                waitlistedEntrantIds = (List<String>) document.get("waitingListEntrantIds");
                 cancelledEntrantIds = (List<String>) document.get("cancelledEntrantIds");
                 
                 if (selectedEntrantIds == null) selectedEntrantIds = new ArrayList<>();
-                if (waitlistedEntrantIds == null) waitlistedEntrantIds = new ArrayList<>();
                 if (cancelledEntrantIds == null) cancelledEntrantIds = new ArrayList<>();
                 
-                // Update participant counts
-                int selectedCount = selectedEntrantIds.size();
-                int waitlistedCount = waitlistedEntrantIds.size();
-                int cancelledCount = cancelledEntrantIds.size();
-                participantCounts.setText("Selected: " + selectedCount + ", Waitlisted: " + waitlistedCount + ", Cancelled: " + cancelledCount);
-                
-                // Update recipients
-                updateRecipients();
+                // Sharded events keep the waiting list in a subcollection
+                new WaitlistController(firestore).loadEntrantIds(document).whenComplete((waitlistIds, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Error loading waiting list", e);
+                    }
+                    waitlistedEntrantIds = (waitlistIds != null) ? waitlistIds : new ArrayList<>();
+                    
+                    // Update participant counts
+                    int selectedCount = selectedEntrantIds.size();
+                    int waitlistedCount = waitlistedEntrantIds.size();
+                    int cancelledCount = cancelledEntrantIds.size();
+                    participantCounts.setText("Selected: " + selectedCount + ", Waitlisted: " + waitlistedCount + ", Cancelled: " + cancelledCount);
+                    
+                    // Update recipients
+                    updateRecipients();
+                });
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Error loading event data", e);
@@ -246,22 +250,9 @@ public class NotifyEntrantsActivity extends AppCompatActivity {
             });
     }
     
-    private void populateImage(String base64Image, ImageView imageView) {
-        try {
-            // Remove the "data:image/jpeg;base64," or similar prefix
-            if (base64Image.startsWith("data:image")) {
-                base64Image = base64Image.substring(base64Image.indexOf(",") + 1);
-            }
-            
-            byte[] decodedBytes = Base64.decode(base64Image, Base64.DEFAULT);
-            Bitmap bitmap = BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length);
-            
-            if (bitmap != null) {
-                imageView.setImageBitmap(bitmap);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to decode image", e);
-        }
+    private void populateImage(DocumentSnapshot document, ImageView imageView) {
+        // Loaded off the main thread; the view keeps its current image until then
+        PosterLoader.get(this).loadPoster(document, imageView, 0);
     }
     
     private void updateRecipients() {
@@ -379,16 +370,43 @@ public class NotifyEntrantsActivity extends AppCompatActivity {
             return;
         }
         
+        sendNotificationsButton.setEnabled(false);
+        sendNotificationsButton.setText("Sending...");
+
+        CompletableFuture<FanOutReport> sending;
         if (currentMode == MODE_SELECTED) {
-            notificationController.sendToSelectedEntrants(eventId, title, message);
+            sending = notificationController.sendToSelectedEntrants(eventId, title, message, this::showSendProgress);
         } else if (currentMode == MODE_WAITLISTED) {
-            notificationController.sendToWaitingList(eventId, title, message);
+            sending = notificationController.sendToWaitingList(eventId, title, message, this::showSendProgress);
         } else {
-            notificationController.sendToCancelledEntrants(eventId, title, message);
+            sending = notificationController.sendToCancelledEntrants(eventId, title, message, this::showSendProgress);
         }
-        
-        Toast.makeText(this, "Notifications sent to " + targetList.size() + " recipient(s)", Toast.LENGTH_SHORT).show();
-        finish();
+
+        sending.whenComplete((report, e) -> runOnUiThread(() -> {
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            if (e != null) {
+                Log.e(TAG, "Error sending notifications", e);
+                sendNotificationsButton.setEnabled(true);
+                sendNotificationsButton.setText("Send Notifications");
+                Toast.makeText(this, "Failed to send notifications", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            Log.d(TAG, "Notifications sent to " + report.getSent() + " of " + report.getRecipients()
+                + " recipient(s) in " + report.getElapsedMillis() + "ms");
+            String summary = "Notifications sent to " + report.getSent() + " recipient(s)";
+            if (report.hasFailures()) {
+                summary += ", " + report.getFailed() + " failed";
+            }
+            Toast.makeText(this, summary, Toast.LENGTH_SHORT).show();
+            finish();
+        }));
+    }
+
+    private void showSendProgress(FanOutReport report) {
+        runOnUiThread(() -> sendNotificationsButton.setText(
+            "Sending... " + report.getProcessed() + "/" + report.getRecipients()));
     }
     
     private void showAllRecipients() {
@@ -2,8 +2,6 @@ package com.example.eventlotteryapp.organizer;
 
 import android.app.AlertDialog;
 import android.content.Intent;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
@@ -16,12 +14,24 @@ import android.widget.Toast;
 import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
 import com.example.eventlotteryapp.CsvExportController;
+import com.example.eventlotteryapp.Controllers.EventCounterController;
+import com.example.eventlotteryapp.Controllers.LotteryDrawController;
+import com.example.eventlotteryapp.Controllers.WaitlistController;
 import com.example.eventlotteryapp.EventStatsController;
 import com.example.eventlotteryapp.NotificationController;
+import com.example.eventlotteryapp.Notifications.Audience;
+import com.example.eventlotteryapp.Helpers.PosterImages;
+import com.example.eventlotteryapp.Helpers.PosterLoader;
 import com.example.eventlotteryapp.R;
 import com.example.eventlotteryapp.models.Entrant;
+import com.example.eventlotteryapp.models.EventCounts;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -31,6 +41,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Activity for displaying detailed information about an event from the organizer's perspective.
@@ -49,6 +60,7 @@ public class OrganizerEventDetailsActivity extends AppCompatActivity {
     private EventStatsController statsController;
     private NotificationController notificationController;
     private CsvExportController csvExportController;
+    private DocumentSnapshot eventDocument;
     
     // UI Components
     private ImageView eventImage;
@@ -204,8 +216,25 @@ public class OrganizerEventDetailsActivity extends AppCompatActivity {
                     return;
                 }
                 
+                eventDocument = documentSnapshot;
                 populateUI(documentSnapshot);
                 updateStatistics();
+                
+                // Move events created before the waitlist subcollection existed over to it
+                if (!WaitlistController.isSharded(documentSnapshot)) {
+                    new WaitlistController(firestore).migrate(eventId);
+                }
+                
+                // Events created before auto-draw existed are queued for it unless they have been drawn already
+                if (!documentSnapshot.contains(LotteryDrawController.AUTO_DRAW_PENDING_FIELD)) {
+                    Long lotteryRound = documentSnapshot.getLong("lotteryRound");
+                    List<String> selectedIds = (List<String>) documentSnapshot.get("selectedEntrantIds");
+                    List<String> acceptedIds = (List<String>) documentSnapshot.get("acceptedEntrantIds");
+                    boolean neverDrawn = (lotteryRound == null || lotteryRound == 0)
+                        && (selectedIds == null || selectedIds.isEmpty())
+                        && (acceptedIds == null || acceptedIds.isEmpty());
+                    documentSnapshot.getReference().update(LotteryDrawController.AUTO_DRAW_PENDING_FIELD, neverDrawn);
+                }
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Error loading event", e);
@@ -271,34 +300,18 @@ public class OrganizerEventDetailsActivity extends AppCompatActivity {
         }
         
         // Image
-        String imageBase64 = document.getString("Image");
-        if (imageBase64 != null && !imageBase64.isEmpty()) {
-            populateImage(imageBase64, eventImage);
-        }
+        populateImage(document, eventImage);
     }
 
     /**
-     * Decodes a Base64 image string and displays it in an ImageView.
+     * Displays the event's poster in an ImageView, loading it in the background with {@link PosterLoader}.
      *
-     * @param base64Image The Base64 encoded image string, optionally prefixed with "data:image/...;base64,".
+     * @param document The event document, which holds the poster's version.
      * @param imageView The ImageView to display the image in.
      */
-    private void populateImage(String base64Image, ImageView imageView) {
-        try {
-            // Remove the "data:image/jpeg;base64," or similar prefix
-            if (base64Image.startsWith("data:image")) {
-                base64Image = base64Image.substring(base64Image.indexOf(",") + 1);
-            }
-            
-            byte[] decodedBytes = android.util.Base64.decode(base64Image, android.util.Base64.DEFAULT);
-            Bitmap bitmap = BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length);
-            
-            if (bitmap != null) {
-                imageView.setImageBitmap(bitmap);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to decode image", e);
-        }
+    private void populateImage(DocumentSnapshot document, ImageView imageView) {
+        // Loaded off the main thread; the view keeps its current image until then
+        PosterLoader.get(this).loadPoster(document, imageView, 0);
     }
 
     /**
@@ -306,92 +319,104 @@ public class OrganizerEventDetailsActivity extends AppCompatActivity {
      * days left in registration, lottery draw date, and event status tag.
      */
     private void updateStatistics() {
-        firestore.collection("Events").document(eventId)
-            .get()
-            .addOnSuccessListener(document -> {
-                // Entrants Joined (from waitingListEntrantIds)
-                List<String> waitingList = (List<String>) document.get("waitingListEntrantIds");
-                int entrantsJoined = (waitingList != null) ? waitingList.size() : 0;
-                entrantsJoinedText.setText("Entrants Joined: " + entrantsJoined);
-                
-                // Slots Available (maxParticipants - acceptedEntrantIds count)
-                // Use acceptedEntrantIds as the finalized count since those are users who accepted invitations
-                Long maxParticipantsLong = document.getLong("maxParticipants");
-                int maxParticipants = (maxParticipantsLong != null) ? maxParticipantsLong.intValue() : 0;
-                
-                List<String> acceptedEntrants = (List<String>) document.get("acceptedEntrantIds");
-                int acceptedCount = (acceptedEntrants != null) ? acceptedEntrants.size() : 0;
-                
-                int slotsAvailable = Math.max(0, maxParticipants - acceptedCount);
-                slotsAvailableText.setText("Slots Available: " + slotsAvailable);
-                
-                // Days Left in Registration
-                Date registrationCloseDate = document.getDate("registrationCloseDate");
-                Date registrationOpenDate = document.getDate("registrationOpenDate");
-                Date now = new Date();
-                
-                if (registrationCloseDate != null) {
-                    long diffInMillis = registrationCloseDate.getTime() - now.getTime();
-                    long diffInDays = diffInMillis / (1000 * 60 * 60 * 24);
-                    
-                    if (diffInDays > 0) {
-                        daysLeftRegistrationText.setText("Days Left: " + diffInDays);
-                    } else if (diffInDays == 0) {
-                        daysLeftRegistrationText.setText("Days Left: 0");
-                    } else {
-                        daysLeftRegistrationText.setText("Days Left: Closed");
-                    }
-                } else {
-                    daysLeftRegistrationText.setText("Days Left: N/A");
-                }
-                
-                // Lottery Draw Date (using registrationCloseDate)
-                if (registrationCloseDate != null) {
-                    String drawDate = dateFormatWithYear.format(registrationCloseDate);
-                    lotteryDrawDateText.setText("Draw: " + drawDate);
-                } else {
-                    lotteryDrawDateText.setText("Draw: TBD");
-                }
-                
-                // Update status tag
-                boolean isOpen = true;
-                if (registrationOpenDate != null && now.before(registrationOpenDate)) {
-                    isOpen = false; // Registration not open yet
-                } else if (registrationCloseDate != null && now.after(registrationCloseDate)) {
-                    isOpen = false; // Registration closed
-                }
-                
-                // Check if waiting list is limited
-                Boolean limitWaitingList = document.getBoolean("limitWaitingList");
-                boolean isLimitEnabled = (limitWaitingList != null && limitWaitingList);
-                Long waitingListSizeLong = document.getLong("waitingListSize");
-                int waitingListSize = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
-                
-                // Build status text - use waiting list size as denominator if limited, otherwise show just numerator
-                // Numerator is the current waiting list count (entrantsJoined), denominator is waitingListSize
-                String statusText;
-                String countText;
-                if (isLimitEnabled && waitingListSize > 0) {
-                    // Waiting list is limited - show numerator/denominator
-                    countText = entrantsJoined + "/" + waitingListSize;
-                } else {
-                    // Waiting list is infinite - show just numerator without slash
-                    countText = String.valueOf(entrantsJoined);
-                }
-                
-                if (isOpen) {
-                    statusText = "🟢 Open - " + countText;
-                } else {
-                    statusText = "🔴 Closed - " + countText;
-                }
-                
-                eventStatusTag.setText(statusText);
-            })
-            .addOnFailureListener(e -> {
+        // Settings come from the event document loaded by loadEventData; the counts
+        // come from the counter shards, so refreshing never re-downloads the event
+        DocumentSnapshot document = eventDocument;
+        if (document == null) {
+            return;
+        }
+        statsController.getEntrantCounts(eventId)
+            .thenAccept(counts -> runOnUiThread(() -> showStatistics(document, counts)))
+            .exceptionally(e -> {
                 Log.e(TAG, "Error updating statistics", e);
+                return null;
             });
     }
 
+    /**
+     * Shows event statistics using the event's settings and its current entrant counts.
+     *
+     * @param document The Firestore DocumentSnapshot containing event settings.
+     * @param counts The event's current entrant counts.
+     */
+    private void showStatistics(DocumentSnapshot document, EventCounts counts) {
+        // Entrants Joined (waiting list count)
+        int entrantsJoined = counts.getWaiting();
+        entrantsJoinedText.setText("Entrants Joined: " + entrantsJoined);
+        
+        // Slots Available (maxParticipants - accepted count)
+        // Use the accepted count as the finalized count since those are users who accepted invitations
+        Long maxParticipantsLong = document.getLong("maxParticipants");
+        int maxParticipants = (maxParticipantsLong != null) ? maxParticipantsLong.intValue() : 0;
+        
+        int acceptedCount = counts.getAccepted();
+        
+        int slotsAvailable = Math.max(0, maxParticipants - acceptedCount);
+        slotsAvailableText.setText("Slots Available: " + slotsAvailable);
+        
+        // Days Left in Registration
+        Date registrationCloseDate = document.getDate("registrationCloseDate");
+        Date registrationOpenDate = document.getDate("registrationOpenDate");
+        Date now = new Date();
+        
+        if (registrationCloseDate != null) {
+            long diffInMillis = registrationCloseDate.getTime() - now.getTime();
+            long diffInDays = diffInMillis / (1000 * 60 * 60 * 24);
+            
+            if (diffInDays > 0) {
+                daysLeftRegistrationText.setText("Days Left: " + diffInDays);
+            } else if (diffInDays == 0) {
+                daysLeftRegistrationText.setText("Days Left: 0");
+            } else {
+                daysLeftRegistrationText.setText("Days Left: Closed");
+            }
+        } else {
+            daysLeftRegistrationText.setText("Days Left: N/A");
+        }
+        
+        // Lottery Draw Date (using registrationCloseDate)
+        if (registrationCloseDate != null) {
+            String drawDate = dateFormatWithYear.format(registrationCloseDate);
+            lotteryDrawDateText.setText("Draw: " + drawDate);
+        } else {
+            lotteryDrawDateText.setText("Draw: TBD");
+        }
+        
+        // Update status tag
+        boolean isOpen = true;
+        if (registrationOpenDate != null && now.before(registrationOpenDate)) {
+            isOpen = false; // Registration not open yet
+        } else if (registrationCloseDate != null && now.after(registrationCloseDate)) {
+            isOpen = false; // Registration closed
+        }
+        
+        // Check if waiting list is limited
+        Boolean limitWaitingList = document.getBoolean("limitWaitingList");
+        boolean isLimitEnabled = (limitWaitingList != null && limitWaitingList);
+        Long waitingListSizeLong = document.getLong("waitingListSize");
+        int waitingListSize = (waitingListSizeLong != null) ? waitingListSizeLong.intValue() : 0;
+        
+        // Build status text - use waiting list size as denominator if limited, otherwise show just numerator
+        // Numerator is the current waiting list count (entrantsJoined), denominator is waitingListSize
+        String statusText;
+        String countText;
+        if (isLimitEnabled && waitingListSize > 0) {
+            // Waiting list is limited - show numerator/denominator
+            countText = entrantsJoined + "/" + waitingListSize;
+        } else {
+            // Waiting list is infinite - show just numerator without slash
+            countText = String.valueOf(entrantsJoined);
+        }
+        
+        if (isOpen) {
+            statusText = "🟢 Open - " + countText;
+        } else {
+            statusText = "🔴 Closed - " + countText;
+        }
+        
+        eventStatusTag.setText(statusText);
+    }
+
     /**
      * Navigates to the RunLotteryActivity to perform a lottery draw for the event.
      */
@@ -552,84 +577,110 @@ public class OrganizerEventDetailsActivity extends AppCompatActivity {
                 // Make final for use in lambda
                 final String eventTitle = titleFromDoc;
                 
-                // Collect all user IDs from all arrays
-                List<String> waitingListIds = (List<String>) eventDoc.get("waitingListEntrantIds");
-                List<String> selectedIds = (List<String>) eventDoc.get("selectedEntrantIds");
-                List<String> acceptedIds = (List<String>) eventDoc.get("acceptedEntrantIds");
-                List<String> declinedIds = (List<String>) eventDoc.get("declinedEntrantIds");
-                List<String> cancelledIds = (List<String>) eventDoc.get("cancelledEntrantIds");
-                
-                // Combine all user IDs into a set to avoid duplicates
-                java.util.Set<String> allUserIds = new java.util.HashSet<>();
-                if (waitingListIds != null) allUserIds.addAll(waitingListIds);
-                if (selectedIds != null) allUserIds.addAll(selectedIds);
-                if (acceptedIds != null) allUserIds.addAll(acceptedIds);
-                if (declinedIds != null) allUserIds.addAll(declinedIds);
-                if (cancelledIds != null) allUserIds.addAll(cancelledIds);
-                
-                Log.d(TAG, "Found " + allUserIds.size() + " unique users to clean up references for");
-                
-                // Create event reference for removing from JoinedEvents
-                com.google.firebase.firestore.DocumentReference eventRef = 
-                    firestore.collection("Events").document(eventId);
+                // Everyone who was ever on one of the event's lists, each once
+                CompletableFuture<List<String>> allUserIds = notificationController.resolveAudience(eventDoc, Audience.everyone())
+                    .exceptionally(e -> {
+                        Log.e(TAG, "Error loading entrants to clean up references for", e);
+                        return new ArrayList<>();
+                    });
                 
-                // Send notifications BEFORE deleting (so we can still use eventId)
+                // Send notifications BEFORE deleting, from the event already loaded, and wait for them to be written
                 String notificationTitle = "Event Cancelled";
                 String notificationMessage = "The event \"" + eventTitle + "\" has been cancelled by the organizer.";
                 
                 Log.d(TAG, "Sending cancellation notifications to all signed-up entrants");
-                notificationController.sendToAllSignedUpEntrants(eventId, notificationTitle, notificationMessage);
+                notificationController.sendToAudience(eventDoc, Audience.allSignedUp(), notificationTitle, notificationMessage, null)
+                    .whenComplete((report, e) -> {
+                        if (e != null) {
+                            Log.e(TAG, "Error sending cancellation notifications", e);
+                        }
+                        allUserIds.thenAccept(userIds -> runOnUiThread(() -> {
+                            Log.d(TAG, "Found " + userIds.size() + " unique users to clean up references for");
+                            removeFromJoinedEvents(userIds, eventDoc.getReference());
+                        }));
+                    });
                 
                 // Send notification to the organizer
                 Log.d(TAG, "Sending cancellation notification to organizer");
                 notificationController.sendToOrganizer(eventId, notificationTitle, 
                     "You have cancelled the event \"" + eventTitle + "\". All participants have been notified.");
-                
-                // Remove event reference from all users' JoinedEvents arrays
-                if (!allUserIds.isEmpty()) {
-                    final int[] completed = {0};
-                    final int total = allUserIds.size();
-                    
-                    for (String userId : allUserIds) {
-                        firestore.collection("users").document(userId)
-                            .update("JoinedEvents", com.google.firebase.firestore.FieldValue.arrayRemove(eventRef))
-                            .addOnSuccessListener(aVoid -> {
-                                completed[0]++;
-                                Log.d(TAG, "Removed event from user's JoinedEvents: " + userId + " (" + completed[0] + "/" + total + ")");
-                                
-                                if (completed[0] >= total) {
-                                    // All user references cleaned up, now delete the event
-                                    deleteEventDocument();
-                                }
-                            })
-                            .addOnFailureListener(e -> {
-                                completed[0]++;
-                                Log.w(TAG, "Could not remove event from user's JoinedEvents: " + userId + " (may not exist): " + e.getMessage());
-                                
-                                if (completed[0] >= total) {
-                                    // All user references processed (even if some failed), now delete the event
-                                    deleteEventDocument();
-                                }
-                            });
-                    }
-                } else {
-                    // No users to clean up, delete event directly
-                    deleteEventDocument();
-                }
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Error loading event document: " + eventId, e);
                 Toast.makeText(this, "Error loading event: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             });
     }
+
+    /**
+     * Removes the event from every user's JoinedEvents, {@link NotificationController#WRITE_BATCH_SIZE}
+     * users per batch, then deletes the event. A batch fails as a whole if one of its users
+     * no longer exists, so a failed batch falls back to updating its users one by one.
+     *
+     * @param userIds the users who may have joined the event
+     * @param eventRef the event being cancelled
+     */
+    private void removeFromJoinedEvents(List<String> userIds, DocumentReference eventRef) {
+        if (userIds.isEmpty()) {
+            // No users to clean up, delete event directly
+            deleteEventDocument();
+            return;
+        }
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i += NotificationController.WRITE_BATCH_SIZE) {
+            chunks.add(userIds.subList(i, Math.min(i + NotificationController.WRITE_BATCH_SIZE, userIds.size())));
+        }
+        final int[] completed = {0};
+        for (List<String> chunk : chunks) {
+            WriteBatch batch = firestore.batch();
+            for (String userId : chunk) {
+                batch.update(firestore.collection("users").document(userId), "JoinedEvents", FieldValue.arrayRemove(eventRef));
+            }
+            batch.commit()
+                .continueWithTask(task -> {
+                    if (task.isSuccessful()) {
+                        return task;
+                    }
+                    Log.w(TAG, "Batch removal of JoinedEvents failed, retrying users one by one", task.getException());
+                    List<Task<Void>> updates = new ArrayList<>();
+                    for (String userId : chunk) {
+                        updates.add(firestore.collection("users").document(userId)
+                            .update("JoinedEvents", FieldValue.arrayRemove(eventRef))
+                            .addOnFailureListener(e -> Log.w(TAG, "Could not remove event from user's JoinedEvents: "
+                                + userId + " (may not exist): " + e.getMessage())));
+                    }
+                    return Tasks.whenAllComplete(updates).<Void>continueWith(all -> null);
+                })
+                .addOnCompleteListener(task -> {
+                    completed[0]++;
+                    Log.d(TAG, "Removed event from JoinedEvents for batch " + completed[0] + "/" + chunks.size());
+                    if (completed[0] == chunks.size()) {
+                        // All user references processed (even if some failed), now delete the event
+                        deleteEventDocument();
+                    }
+                });
+        }
+    }
     
     /**
-     * Deletes the event document from Firestore.
+     * Deletes the event document, its poster, waitlist entries and counters from Firestore.
      * Called after all user references have been cleaned up.
      */
     private void deleteEventDocument() {
-        firestore.collection("Events").document(eventId)
-            .delete()
+        // The waitlist can be large, so it is deleted page by page before the event
+        new WaitlistController(firestore).deleteAll(eventId).whenComplete((done, waitlistError) -> {
+            if (waitlistError != null) {
+                Log.e(TAG, "Error deleting waitlist for event: " + eventId, waitlistError);
+            }
+            runOnUiThread(this::deleteEventAndCounters);
+        });
+    }
+
+    private void deleteEventAndCounters() {
+        WriteBatch batch = firestore.batch();
+        PosterImages.delete(batch, firestore, eventId, false);
+        new EventCounterController(firestore).deleteAll(batch, eventId);
+        batch.delete(firestore.collection("Events").document(eventId));
+        batch.commit()
             .addOnSuccessListener(aVoid -> {
                 Log.d(TAG, "Event successfully deleted: " + eventId);
                 Toast.makeText(this, "Event cancelled and deleted successfully. All participants have been notified.", Toast.LENGTH_LONG).show();
@@ -11,18 +11,20 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
+import com.example.eventlotteryapp.Controllers.LotteryDrawController;
+import com.example.eventlotteryapp.Controllers.LotteryEngine;
 import com.example.eventlotteryapp.NotificationController;
 import com.example.eventlotteryapp.R;
+import com.google.android.material.switchmaterial.SwitchMaterial;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.firestore.FirebaseFirestore;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Activity for running a lottery draw with configurable number of participants.
  * All entrants are automatically notified of the results.
+ * Draws are uniform by default; organizers can opt into a weighted draw that favours
+ * entrants who lost earlier draws or were replaced.
  */
 public class RunLotteryActivity extends AppCompatActivity {
 
@@ -32,9 +34,11 @@ public class RunLotteryActivity extends AppCompatActivity {
     private String replacementForEntrantId; // ID of participant being replaced
     private FirebaseFirestore firestore;
     private NotificationController notificationController;
+    private LotteryDrawController lotteryDrawController;
     
     private EditText participantsCountEditText;
     private Button runDrawButton;
+    private SwitchMaterial weightedDrawSwitch;
     private TextView availableSlotsText;
     private TextView slotsInfoText;
 
@@ -54,6 +58,7 @@ public class RunLotteryActivity extends AppCompatActivity {
         
         firestore = FirebaseFirestore.getInstance();
         notificationController = new NotificationController();
+        lotteryDrawController = new LotteryDrawController(firestore, new LotteryEngine());
         
         initializeViews();
         setupClickListeners();
@@ -62,6 +67,7 @@ public class RunLotteryActivity extends AppCompatActivity {
     private void initializeViews() {
         participantsCountEditText = findViewById(R.id.participants_count_edit_text);
         runDrawButton = findViewById(R.id.run_draw_button);
+        weightedDrawSwitch = findViewById(R.id.weighted_draw_switch);
         availableSlotsText = findViewById(R.id.available_slots_text);
         slotsInfoText = findViewById(R.id.slots_info_text);
         
@@ -132,6 +138,10 @@ public class RunLotteryActivity extends AppCompatActivity {
                 
                 int availableSlots = Math.max(0, maxParticipants - selectedCount);
                 
+                // Restore the event's last draw mode
+                Boolean weightedLottery = document.getBoolean("weightedLottery");
+                weightedDrawSwitch.setChecked(weightedLottery != null && weightedLottery);
+                
                 // Update UI
                 availableSlotsText.setText(availableSlots + " / " + maxParticipants);
                 
@@ -182,159 +192,45 @@ public class RunLotteryActivity extends AppCompatActivity {
     }
     
     private void executeLotteryDraw(int participantsToDraw) {
-        firestore.collection("Events").document(eventId)
-            .get()
-            .addOnSuccessListener(document -> {
-                List<String> waitingList = (List<String>) document.get("waitingListEntrantIds");
-                Long maxParticipantsLong = document.getLong("maxParticipants");
-                int maxParticipants = (maxParticipantsLong != null) ? maxParticipantsLong.intValue() : 0;
-                
-                if (waitingList == null || waitingList.isEmpty()) {
-                    Toast.makeText(this, "No entrants in waiting list", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-                
-                // Get current selected entrants
-                List<String> selectedEntrants = (List<String>) document.get("selectedEntrantIds");
-                if (selectedEntrants == null) {
-                    selectedEntrants = new ArrayList<>();
-                }
-                
-                // Check available slots
-                int slotsRemaining = maxParticipants - selectedEntrants.size();
-                if (slotsRemaining <= 0) {
-                    Toast.makeText(this, "All slots are already filled", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-                
-                // Limit participantsToDraw to available slots and waiting list size
-                int actualDrawCount = Math.min(participantsToDraw, Math.min(slotsRemaining, waitingList.size()));
-                
-                if (actualDrawCount < participantsToDraw) {
-                    Toast.makeText(this, "Only " + actualDrawCount + " participant(s) can be selected (limited by available slots or waiting list size)", Toast.LENGTH_LONG).show();
-                }
-                
-                // Randomly select from waiting list
-                List<String> shuffled = new ArrayList<>(waitingList);
-                Collections.shuffle(shuffled, new Random());
-                
-                List<String> newlySelected = shuffled.subList(0, actualDrawCount);
-                
-                // Get accepted, declined, and cancelled lists to clean them up
-                List<String> acceptedEntrants = (List<String>) document.get("acceptedEntrantIds");
-                List<String> declinedEntrants = (List<String>) document.get("declinedEntrantIds");
-                List<String> cancelledEntrants = (List<String>) document.get("cancelledEntrantIds");
-                
-                if (acceptedEntrants == null) acceptedEntrants = new ArrayList<>();
-                if (declinedEntrants == null) declinedEntrants = new ArrayList<>();
-                if (cancelledEntrants == null) cancelledEntrants = new ArrayList<>();
-                
-                // Remove newly selected users from accepted/declined/cancelled lists
-                // They need to accept again, so start fresh
-                for (String userId : newlySelected) {
-                    acceptedEntrants.remove(userId);
-                    declinedEntrants.remove(userId);
-                    cancelledEntrants.remove(userId);
-                }
-                
-                // Update Firestore - add newly selected first
-                selectedEntrants.addAll(newlySelected);
-                waitingList.removeAll(newlySelected);
-                
-                // If this is a replacement draw, remove the original participant AFTER drawing
-                if (replacementForEntrantId != null && !replacementForEntrantId.isEmpty()) {
-                    // Remove replacement participant from all lists
-                    selectedEntrants.remove(replacementForEntrantId);
-                    cancelledEntrants.remove(replacementForEntrantId);
-                    declinedEntrants.remove(replacementForEntrantId);
-                    acceptedEntrants.remove(replacementForEntrantId);
-                    
-                    // Add back to waiting list if not already there
-                    if (!waitingList.contains(replacementForEntrantId)) {
-                        waitingList.add(replacementForEntrantId);
-                    }
-                    
-                    // Update with all lists
-                    firestore.collection("Events").document(eventId)
-                        .update("selectedEntrantIds", selectedEntrants, 
-                                "waitingListEntrantIds", waitingList,
-                                "cancelledEntrantIds", cancelledEntrants,
-                                "declinedEntrantIds", declinedEntrants,
-                                "acceptedEntrantIds", acceptedEntrants)
-                        .addOnSuccessListener(aVoid -> {
-                            String message = "Replacement drawn. " + actualDrawCount + " participant(s) selected.";
-                            Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
-                            
-                            // Always notify all entrants
-                            String eventTitle = document.getString("title");
-                            if (eventTitle == null) eventTitle = document.getString("Name");
-                            
-                            // Notify selected entrants
-                            notificationController.sendToSelectedEntrants(eventId, 
-                                "Lottery Selection", 
-                                "Congratulations! You've been selected for " + eventTitle);
-                            
-                            // Notify non-selected entrants (those still in waiting list) - rejection notification
-                            notificationController.sendToWaitingList(eventId,
-                                "Lottery Results - Not Selected",
-                                "The lottery draw for " + eventTitle + " has been completed. Unfortunately, you were not selected in this lottery draw. You remain on the waiting list in case spots become available.");
-                            
-                            // Navigate to Lottery Results screen
-                            Intent resultsIntent = new Intent(RunLotteryActivity.this, LotteryResultsActivity.class);
-                            resultsIntent.putExtra("eventId", eventId);
-                            resultsIntent.putStringArrayListExtra("selectedEntrantIds", new ArrayList<>(newlySelected));
-                            resultsIntent.putStringArrayListExtra("remainingEntrantIds", new ArrayList<>(waitingList));
-                            startActivity(resultsIntent);
-                            finish();
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Error updating event with replacement", e);
-                            Toast.makeText(this, "Error updating event", Toast.LENGTH_SHORT).show();
-                        });
+        lotteryDrawController.draw(eventId, participantsToDraw, weightedDrawSwitch.isChecked(), replacementForEntrantId)
+            .whenComplete((result, e) -> runOnUiThread(() -> {
+                if (e != null) {
+                    Log.e(TAG, "Error running lottery draw", e);
+                    Toast.makeText(this, "Error running lottery draw: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                } else if (result.errorMessage != null) {
+                    Toast.makeText(this, result.errorMessage, Toast.LENGTH_SHORT).show();
                 } else {
-                    // Normal lottery draw (not a replacement)
-                    firestore.collection("Events").document(eventId)
-                        .update("selectedEntrantIds", selectedEntrants, 
-                                "waitingListEntrantIds", waitingList,
-                                "acceptedEntrantIds", acceptedEntrants,
-                                "declinedEntrantIds", declinedEntrants,
-                                "cancelledEntrantIds", cancelledEntrants)
-                        .addOnSuccessListener(aVoid -> {
-                            String message = "Lottery draw completed. " + actualDrawCount + " participant(s) selected.";
-                            Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
-                            
-                            // Always notify all entrants
-                            String eventTitle = document.getString("title");
-                            if (eventTitle == null) eventTitle = document.getString("Name");
-                            
-                            // Notify selected entrants
-                            notificationController.sendToSelectedEntrants(eventId, 
-                                "Lottery Selection", 
-                                "Congratulations! You've been selected for " + eventTitle);
-                            
-                            // Notify non-selected entrants (those still in waiting list) - rejection notification
-                            notificationController.sendToWaitingList(eventId,
-                                "Lottery Results - Not Selected",
-                                "The lottery draw for " + eventTitle + " has been completed. Unfortunately, you were not selected in this lottery draw. You remain on the waiting list in case spots become available.");
-                            
-                            // Navigate to Lottery Results screen
-                            Intent resultsIntent = new Intent(RunLotteryActivity.this, LotteryResultsActivity.class);
-                            resultsIntent.putExtra("eventId", eventId);
-                            resultsIntent.putStringArrayListExtra("selectedEntrantIds", new ArrayList<>(newlySelected));
-                            resultsIntent.putStringArrayListExtra("remainingEntrantIds", new ArrayList<>(waitingList));
-                            startActivity(resultsIntent);
-                            finish();
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Error running lottery draw", e);
-                            Toast.makeText(this, "Error running lottery draw: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                        });
+                    onDrawCommitted(result);
                 }
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error loading event for lottery", e);
-                Toast.makeText(this, "Error loading event", Toast.LENGTH_SHORT).show();
-            });
+            }));
     }
-}
 
+    /**
+     * Notifies entrants about a committed draw and opens the results screen.
+     *
+     * @param result the outcome of the draw transaction
+     */
+    private void onDrawCommitted(LotteryDrawController.DrawResult result) {
+        int actualDrawCount = result.selected.size();
+        if (actualDrawCount < result.requestedCount) {
+            Toast.makeText(this, "Only " + actualDrawCount + " participant(s) can be selected (limited by available slots or waiting list size)", Toast.LENGTH_LONG).show();
+        }
+
+        boolean isReplacement = replacementForEntrantId != null && !replacementForEntrantId.isEmpty();
+        String message = isReplacement
+            ? "Replacement drawn. " + actualDrawCount + " participant(s) selected."
+            : "Lottery draw completed. " + actualDrawCount + " participant(s) selected.";
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+
+        // Notify selected entrants, and non-selected entrants that they remain on the waiting list
+        LotteryDrawController.notifyEntrants(notificationController, eventId, result);
+
+        // Navigate to Lottery Results screen
+        Intent resultsIntent = new Intent(RunLotteryActivity.this, LotteryResultsActivity.class);
+        resultsIntent.putExtra("eventId", eventId);
+        resultsIntent.putStringArrayListExtra("selectedEntrantIds", result.selected);
+        resultsIntent.putStringArrayListExtra("remainingEntrantIds", result.remaining);
+        startActivity(resultsIntent);
+        finish();
+    }
+}
@@ -15,17 +15,29 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.example.eventlotteryapp.Authorization.AuthActivity;
+import com.example.eventlotteryapp.Helpers.PosterImages;
+import com.example.eventlotteryapp.Controllers.EventCounterController;
+import com.example.eventlotteryapp.Controllers.WaitlistController;
 import com.example.eventlotteryapp.EntrantView.EntrantHomePageActivity;
+import com.example.eventlotteryapp.Notifications.Broadcasts;
+import com.example.eventlotteryapp.Notifications.UnreadCounter;
 import com.example.eventlotteryapp.OrganizerHomePage;
 import com.example.eventlotteryapp.R;
 import com.example.eventlotteryapp.databinding.FragmentProfileBinding;
+import com.example.eventlotteryapp.models.EventCounts;
 import com.google.android.material.button.MaterialButtonToggleGroup;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.firestore.FirebaseFirestore;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Fragment for managing user profile settings and information.
  * Allows users to view and edit their profile information, change notification preferences,
@@ -326,35 +338,60 @@ public class ProfileFragment extends Fragment {
         binding = null;
     }
     /**
-     * Removes user from all event arrays and old Waitlist field
+     * Removes user from all event arrays, waitlist entries and old Waitlist field
      */
     private void cleanEntrantFromAllEvents(String uid) {
-        DocumentReference userRef = firestore.collection("users").document(uid);
-        
         firestore.collection("Events").get()
                 .addOnSuccessListener(query -> {
                     for (DocumentSnapshot event : query.getDocuments()) {
-                        DocumentReference eventRef = event.getReference();
-                        
-                        // Remove from all entrant ID arrays
-                        eventRef.update(
-                                "waitingListEntrantIds", FieldValue.arrayRemove(uid),
-                                "selectedEntrantIds", FieldValue.arrayRemove(uid),
-                                "acceptedEntrantIds", FieldValue.arrayRemove(uid),
-                                "declinedEntrantIds", FieldValue.arrayRemove(uid),
-                                "cancelledEntrantIds", FieldValue.arrayRemove(uid),
-                                "Waitlist", FieldValue.arrayRemove(userRef) // Old system with DocumentReference
-                        ).addOnFailureListener(e -> {
-                            Log.e("ProfileFragment", "Error removing user from event: " + event.getId(), e);
-                        });
+                        removeEntrantFromEvent(event.getReference(), uid);
                     }
                 })
                 .addOnFailureListener(e -> {
                     Log.e("ProfileFragment", "Error fetching events for cleanup", e);
                 });
     }
+
     /**
-     * Deletes all events owned by the organizer
+     * Removes user from one event's entrant ID arrays, waitlist entry and counters in one
+     * transaction, reading the event and entry there so the counters match what is removed
+     */
+    private void removeEntrantFromEvent(DocumentReference eventRef, String uid) {
+        DocumentReference userRef = firestore.collection("users").document(uid);
+        WaitlistController waitlistController = new WaitlistController(firestore);
+        firestore.runTransaction((Transaction.Function<Void>) transaction -> {
+            DocumentSnapshot event = transaction.get(eventRef);
+            if (!event.exists()) {
+                return null;
+            }
+            boolean sharded = WaitlistController.isSharded(event);
+            DocumentSnapshot entryDoc = sharded ? transaction.get(waitlistController.entry(event.getId(), uid)) : null;
+
+            Map<String, Object> updates = new HashMap<>();
+            if (!sharded) {
+                updates.put(WaitlistController.LEGACY_ARRAY_FIELD, FieldValue.arrayRemove(uid));
+            }
+            updates.put("selectedEntrantIds", FieldValue.arrayRemove(uid));
+            updates.put("acceptedEntrantIds", FieldValue.arrayRemove(uid));
+            updates.put("declinedEntrantIds", FieldValue.arrayRemove(uid));
+            updates.put("cancelledEntrantIds", FieldValue.arrayRemove(uid));
+            updates.put("Waitlist", FieldValue.arrayRemove(userRef)); // Old system with DocumentReference
+
+            transaction.update(eventRef, updates);
+            waitlistController.removeEntry(transaction, event.getId(), uid);
+            new EventCounterController(firestore).apply(transaction, event.getId(),
+                    new EventCounterController.Delta(event)
+                            .waiting(WaitlistController.isWaiting(event, entryDoc, uid)
+                                    ? Collections.singletonList(uid) : Collections.emptyList())
+                            .remove(uid, EventCounts.STATUSES));
+            return null;
+        }).addOnFailureListener(e -> {
+            Log.e("ProfileFragment", "Error removing user from event: " + eventRef.getId(), e);
+        });
+    }
+
+    /**
+     * Deletes all events owned by the organizer, with their waitlist entries and counters
      */
     private void deleteEventsOwnedByOrganizer(String organizerUid) {
         DocumentReference organizerRef = firestore.collection("users").document(organizerUid);
@@ -364,10 +401,20 @@ public class ProfileFragment extends Fragment {
                 .get()
                 .addOnSuccessListener(query -> {
                     for (DocumentSnapshot event : query.getDocuments()) {
-                        event.getReference().delete()
-                                .addOnFailureListener(e -> {
-                                    Log.e("ProfileFragment", "Error deleting event: " + event.getId(), e);
-                                });
+                        // The waitlist can be large, so it is deleted page by page before the event
+                        new WaitlistController(firestore).deleteAll(event.getId()).whenComplete((done, e) -> {
+                            if (e != null) {
+                                Log.e("ProfileFragment", "Error deleting waitlist for event: " + event.getId(), e);
+                            }
+                            WriteBatch batch = firestore.batch();
+                            PosterImages.delete(batch, firestore, event.getId(), false);
+                            new EventCounterController(firestore).deleteAll(batch, event.getId());
+                            batch.delete(event.getReference());
+                            batch.commit()
+                                    .addOnFailureListener(e2 -> {
+                                        Log.e("ProfileFragment", "Error deleting event: " + event.getId(), e2);
+                                    });
+                        });
                     }
                 })
                 .addOnFailureListener(e -> {
@@ -376,7 +423,7 @@ public class ProfileFragment extends Fragment {
     }
 
     /**
-     * Deletes all notifications for the user
+     * Deletes all notifications for the user, along with their unread counter and broadcast cursor
      */
     private void deleteAllNotifications(String uid) {
         firestore.collection("Notifications")
@@ -393,6 +440,8 @@ public class ProfileFragment extends Fragment {
                 .addOnFailureListener(e -> {
                     Log.e("ProfileFragment", "Error fetching notifications for cleanup", e);
                 });
+        firestore.collection(UnreadCounter.COLLECTION).document(uid).delete();
+        firestore.collection(Broadcasts.CURSOR_COLLECTION).document(uid).delete();
     }
 
     /**
@@ -0,0 +1,76 @@
+package com.example.eventlotteryapp.Controllers;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * JVM benchmark for LotteryEngine.
+ * Times uniform and weighted draws of a few dozen entrants from a 100k waiting list.
+ * Skipped unless run with {@code -Dbenchmarks=true}, so timings never fail the default
+ * suite; when run, a draw slower than the limit fails with its measured time.
+ */
+public class LotteryEngineBenchmark {
+    private static final int WAITLIST_SIZE = 100_000;
+    private static final int DRAW_COUNT = 50;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    private static List<String> waitingList() {
+        List<String> ids = new ArrayList<>(WAITLIST_SIZE);
+        for (int i = 0; i < WAITLIST_SIZE; i++) {
+            ids.add("user" + i);
+        }
+        return ids;
+    }
+
+    @Before
+    public void onlyWhenRequested() {
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+    }
+
+    private static double weight(String id) {
+        return 1 + (id.hashCode() & 7);
+    }
+
+    @Test
+    public void benchmarkUniformDraw() {
+        LotteryEngine engine = new LotteryEngine(new Random(1));
+        List<String> ids = waitingList();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            engine.draw(ids, DRAW_COUNT);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            assertEquals(DRAW_COUNT, engine.draw(ids, DRAW_COUNT).size());
+        }
+        long perDrawNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+        assertTrue("Uniform draw of " + DRAW_COUNT + " from " + WAITLIST_SIZE + ": " + perDrawNanos / 1000 + " us/draw",
+            perDrawNanos < 50_000_000L);
+    }
+
+    @Test
+    public void benchmarkWeightedDraw() {
+        LotteryEngine engine = new LotteryEngine(new Random(2));
+        List<String> ids = waitingList();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            engine.drawWeighted(ids, LotteryEngineBenchmark::weight, DRAW_COUNT);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            assertEquals(DRAW_COUNT, engine.drawWeighted(ids, LotteryEngineBenchmark::weight, DRAW_COUNT).size());
+        }
+        long perDrawNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+        assertTrue("Weighted draw of " + DRAW_COUNT + " from " + WAITLIST_SIZE + ": " + perDrawNanos / 1000 + " us/draw",
+            perDrawNanos < 500_000_000L);
+    }
+}
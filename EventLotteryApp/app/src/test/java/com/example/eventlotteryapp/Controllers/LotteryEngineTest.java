@@ -0,0 +1,192 @@
+package com.example.eventlotteryapp.Controllers;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Unit tests for LotteryEngine.
+ * Tests that draws are distinct, bounded by the pool size, replayable with a seed
+ * and roughly uniform across the waiting list, and that weighted draws select
+ * entrants in proportion to their weights.
+ */
+public class LotteryEngineTest {
+
+    private static List<String> pool(int size) {
+        List<String> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add("user" + i);
+        }
+        return ids;
+    }
+
+    @Test
+    public void testDrawReturnsRequestedCountOfDistinctEntrants() {
+        LotteryEngine engine = new LotteryEngine(new Random(1));
+        List<String> waitingList = pool(10000);
+
+        List<String> drawn = engine.draw(waitingList, 25);
+
+        assertEquals(25, drawn.size());
+        assertEquals(25, new HashSet<>(drawn).size());
+        assertTrue(waitingList.containsAll(drawn));
+    }
+
+    @Test
+    public void testDrawDoesNotModifyPool() {
+        LotteryEngine engine = new LotteryEngine(new Random(2));
+        List<String> waitingList = pool(50);
+        List<String> copy = new ArrayList<>(waitingList);
+
+        engine.draw(waitingList, 20);
+
+        assertEquals(copy, waitingList);
+    }
+
+    @Test
+    public void testDrawCappedAtPoolSize() {
+        LotteryEngine engine = new LotteryEngine(new Random(3));
+        List<String> waitingList = Arrays.asList("a", "b", "c");
+
+        List<String> drawn = engine.draw(waitingList, 10);
+
+        assertEquals(3, drawn.size());
+        assertEquals(new HashSet<>(waitingList), new HashSet<>(drawn));
+    }
+
+    @Test
+    public void testDrawWithEmptyOrNullPool() {
+        LotteryEngine engine = new LotteryEngine(new Random(4));
+        assertTrue(engine.draw(null, 5).isEmpty());
+        assertTrue(engine.draw(new ArrayList<>(), 5).isEmpty());
+        assertTrue(engine.draw(pool(5), 0).isEmpty());
+    }
+
+    @Test
+    public void testSameSeedReplaysSameDraw() {
+        List<String> waitingList = pool(1000);
+        List<String> first = new LotteryEngine(new Random(42)).draw(waitingList, 30);
+        List<String> second = new LotteryEngine(new Random(42)).draw(waitingList, 30);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testDrawAsyncCompletesOnGivenExecutor() throws Exception {
+        LotteryEngine engine = new LotteryEngine(new Random(5), Runnable::run);
+        List<String> drawn = engine.drawAsync(pool(100), 10).get();
+        assertEquals(10, drawn.size());
+    }
+
+    @Test
+    public void testDrawIsRoughlyUniform() {
+        // Each of 10 entrants should be drawn about 30% of the time when picking 3
+        LotteryEngine engine = new LotteryEngine(new Random(6));
+        List<String> waitingList = pool(10);
+        int trials = 20000;
+        int[] hits = new int[10];
+
+        for (int t = 0; t < trials; t++) {
+            for (String id : engine.draw(waitingList, 3)) {
+                hits[Integer.parseInt(id.substring(4))]++;
+            }
+        }
+
+        double expected = trials * 0.3;
+        for (int count : hits) {
+            assertEquals(expected, count, expected * 0.05);
+        }
+    }
+
+    @Test
+    public void testWeightedDrawReturnsDistinctEntrants() {
+        LotteryEngine engine = new LotteryEngine(new Random(7));
+        List<String> waitingList = pool(1000);
+
+        List<String> drawn = engine.drawWeighted(waitingList, id -> 1.0 + id.length(), 40);
+
+        assertEquals(40, drawn.size());
+        assertEquals(40, new HashSet<>(drawn).size());
+        assertTrue(waitingList.containsAll(drawn));
+    }
+
+    @Test
+    public void testWeightedDrawSkipsZeroWeights() {
+        LotteryEngine engine = new LotteryEngine(new Random(8));
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("a", 0.0);
+        weights.put("b", -1.0);
+
+        List<String> drawn = engine.drawWeighted(Arrays.asList("a", "b", "c"), weights, 3);
+
+        assertEquals(Arrays.asList("c"), drawn);
+    }
+
+    @Test
+    public void testWeightedDrawMissingWeightsDefaultToOne() {
+        LotteryEngine engine = new LotteryEngine(new Random(9));
+        List<String> drawn = engine.drawWeighted(pool(20), new HashMap<>(), 5);
+        assertEquals(5, drawn.size());
+    }
+
+    @Test
+    public void testWeightedSingleDrawMatchesWeights() {
+        // With one slot, P(i) = w_i / sum(w) = 0.1, 0.2, 0.3, 0.4
+        LotteryEngine engine = new LotteryEngine(new Random(10));
+        List<String> waitingList = Arrays.asList("w1", "w2", "w3", "w4");
+        Map<String, Double> weights = new HashMap<>();
+        for (String id : waitingList) {
+            weights.put(id, Double.parseDouble(id.substring(1)));
+        }
+        int trials = 40000;
+        Map<String, Integer> hits = new HashMap<>();
+
+        for (int t = 0; t < trials; t++) {
+            String drawn = engine.drawWeighted(waitingList, weights, 1).get(0);
+            hits.merge(drawn, 1, Integer::sum);
+        }
+
+        for (String id : waitingList) {
+            double expected = trials * weights.get(id) / 10.0;
+            assertEquals(id, expected, hits.getOrDefault(id, 0), expected * 0.05);
+        }
+    }
+
+    @Test
+    public void testWeightedMultiDrawMatchesSuccessiveSampling() {
+        // Drawing 2 of {a:1, b:1, c:2} without replacement:
+        // P(c drawn) = 1/2 + 2 * (1/4 * 2/3) = 5/6, P(a drawn) = P(b drawn) = 7/12
+        LotteryEngine engine = new LotteryEngine(new Random(11));
+        List<String> waitingList = Arrays.asList("a", "b", "c");
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("a", 1.0);
+        weights.put("b", 1.0);
+        weights.put("c", 2.0);
+        int trials = 40000;
+        Map<String, Integer> hits = new HashMap<>();
+
+        for (int t = 0; t < trials; t++) {
+            for (String id : engine.drawWeighted(waitingList, weights, 2)) {
+                hits.merge(id, 1, Integer::sum);
+            }
+        }
+
+        assertEquals(trials * 5.0 / 6.0, hits.get("c"), trials * 0.02);
+        assertEquals(trials * 7.0 / 12.0, hits.get("a"), trials * 0.02);
+        assertEquals(trials * 7.0 / 12.0, hits.get("b"), trials * 0.02);
+    }
+
+    @Test
+    public void testWeightedDrawReplaysWithSameSeed() {
+        List<String> waitingList = pool(500);
+        List<String> first = new LotteryEngine(new Random(12)).drawWeighted(waitingList, id -> id.length(), 10);
+        List<String> second = new LotteryEngine(new Random(12)).drawWeighted(waitingList, id -> id.length(), 10);
+        assertEquals(first, second);
+    }
+}
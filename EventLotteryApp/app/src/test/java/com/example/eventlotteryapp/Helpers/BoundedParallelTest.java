@@ -0,0 +1,93 @@
+package com.example.eventlotteryapp.Helpers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for BoundedParallel.
+ * Tests that the parallelism cap is respected, every item runs once,
+ * and failures do not stop the remaining items.
+ */
+public class BoundedParallelTest {
+
+    @Test
+    public void testEmptyListCompletesWithZero() throws Exception {
+        CompletableFuture<Integer> done = BoundedParallel.forEach(Collections.<String>emptyList(), 4,
+                item -> CompletableFuture.completedFuture(true));
+        assertEquals(Integer.valueOf(0), done.get());
+    }
+
+    @Test
+    public void testNeverExceedsParallelism() throws Exception {
+        List<CompletableFuture<Boolean>> pending = new ArrayList<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(i);
+        }
+
+        CompletableFuture<Integer> done = BoundedParallel.forEach(items, 3, item -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<Boolean> task = new CompletableFuture<>();
+            pending.add(task);
+            return task;
+        });
+
+        // Finish tasks one at a time, oldest first, until everything has run
+        int finished = 0;
+        while (finished < pending.size()) {
+            inFlight.decrementAndGet();
+            pending.get(finished++).complete(true);
+        }
+
+        assertEquals(20, pending.size());
+        assertEquals(3, maxInFlight.get());
+        assertEquals(Integer.valueOf(20), done.get());
+    }
+
+    @Test
+    public void testFailuresAreCountedAndDoNotStopOtherItems() throws Exception {
+        List<String> ran = new ArrayList<>();
+        CompletableFuture<Integer> done = BoundedParallel.forEach(Arrays.asList("a", "b", "c", "d"), 2, item -> {
+            ran.add(item);
+            if (item.equals("b")) {
+                throw new IllegalStateException("boom");
+            }
+            CompletableFuture<Boolean> task = new CompletableFuture<>();
+            if (item.equals("c")) {
+                task.completeExceptionally(new RuntimeException("failed"));
+            } else {
+                task.complete(true);
+            }
+            return task;
+        });
+
+        assertEquals(Arrays.asList("a", "b", "c", "d"), ran);
+        assertEquals(Integer.valueOf(2), done.get());
+    }
+
+    @Test
+    public void testLongListOfSynchronousTasksDoesNotOverflow() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            items.add(i);
+        }
+        CompletableFuture<Integer> done = BoundedParallel.forEach(items, 1,
+                item -> CompletableFuture.completedFuture(item % 2 == 0));
+        assertEquals(Integer.valueOf(50_000), done.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNonPositiveParallelism() {
+        BoundedParallel.forEach(Arrays.asList(1, 2), 0, item -> CompletableFuture.completedFuture(true));
+    }
+}
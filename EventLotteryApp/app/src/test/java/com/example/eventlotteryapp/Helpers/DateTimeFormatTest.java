@@ -74,4 +74,33 @@ public class DateTimeFormatTest {
         assertTrue("Parsed date1 should be before or equal to parsed date2", 
                    parsed1.getTime() <= parsed2.getTime());
     }
+
+    @Test
+    public void testParseOrNullReadsDateToString() {
+        Date original = new Date();
+        Date parsed = DateTimeFormat.parseOrNull(original.toString());
+        assertNotNull(parsed);
+        assertTrue(Math.abs(original.getTime() - parsed.getTime()) < 1000);
+    }
+
+    @Test
+    public void testParseOrNullInvalidFormat() {
+        assertNull(DateTimeFormat.parseOrNull("invalid-date-format"));
+        assertNull(DateTimeFormat.parseOrNull(""));
+        assertNull(DateTimeFormat.parseOrNull(null));
+    }
+
+    @Test
+    public void testFromFirestore() {
+        Date original = new Date();
+        assertSame(original, DateTimeFormat.fromFirestore(original));
+
+        Date fromString = DateTimeFormat.fromFirestore(DateTimeFormat.toFireBaseDate(original));
+        assertNotNull(fromString);
+        assertTrue(Math.abs(original.getTime() - fromString.getTime()) < 1000);
+
+        assertNull(DateTimeFormat.fromFirestore(null));
+        assertNull(DateTimeFormat.fromFirestore("invalid-date-format"));
+        assertNull(DateTimeFormat.fromFirestore(42L));
+    }
 }
@@ -0,0 +1,57 @@
+package com.example.eventlotteryapp.Helpers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for DocumentSize.
+ * Tests the estimates against Firestore's storage size rules.
+ */
+public class DocumentSizeTest {
+
+    @Test
+    public void testNameSize() {
+        // "Notifications" 13+1, "abc" 3+1, plus 16
+        assertEquals(34, DocumentSize.nameSize("Notifications/abc"));
+    }
+
+    @Test
+    public void testValueSizes() {
+        assertEquals(1, DocumentSize.valueSize(null));
+        assertEquals(1, DocumentSize.valueSize(true));
+        assertEquals(8, DocumentSize.valueSize(42L));
+        assertEquals(8, DocumentSize.valueSize(new Date()));
+        assertEquals(6, DocumentSize.valueSize("hello"));
+        assertEquals(3, DocumentSize.valueSize("\u00e9"));
+        assertEquals(7, DocumentSize.valueSize(Arrays.asList("a", "b", "c", null)));
+    }
+
+    @Test
+    public void testNestedMapSize() {
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("a", 1L);
+        // "a" 2 + 8
+        assertEquals(10, DocumentSize.valueSize(inner));
+    }
+
+    @Test
+    public void testDocumentSize() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("Type", "MESSAGE");
+        fields.put("Read", false);
+        // name 34 + overhead 32 + "Type" 5 + "MESSAGE" 8 + "Read" 5 + false 1
+        assertEquals(85, DocumentSize.of("Notifications/abc", fields));
+    }
+
+    @Test
+    public void testDocumentWithoutFields() {
+        assertEquals(66, DocumentSize.of("Notifications/abc", null));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.eventlotteryapp.Helpers;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ListDiffer.
+ * Diffs run on executors controlled by the test instead of background threads.
+ */
+public class ListDifferTest {
+
+    /** A row with an ID and one shown field. */
+    private static class Item {
+        final String id;
+        final String title;
+
+        Item(String id, String title) {
+            this.id = id;
+            this.title = title;
+        }
+    }
+
+    private static final ListDiffer.ItemRules<Item> RULES = new ListDiffer.ItemRules<Item>() {
+        @Override
+        public String idOf(Item item) {
+            return item.id;
+        }
+
+        @Override
+        public Set<String> changes(Item oldItem, Item newItem) {
+            Set<String> changes = new HashSet<>();
+            ListDiffer.compare(changes, "title", oldItem.title, newItem.title);
+            return changes;
+        }
+    };
+
+    private final List<String> updates = new ArrayList<>();
+    private final Queue<Runnable> background = new ArrayDeque<>();
+    private ListDiffer<Item> differ;
+
+    @Before
+    public void setUp() {
+        ListUpdateCallback callback = new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                updates.add("inserted " + position + " " + count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                updates.add("removed " + position + " " + count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                updates.add("moved " + fromPosition + " " + toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                updates.add("changed " + position + " " + count + " " + payload);
+            }
+        };
+        differ = new ListDiffer<>(callback, RULES, background::add, Runnable::run);
+    }
+
+    private void runBackground() {
+        while (!background.isEmpty()) {
+            background.poll().run();
+        }
+    }
+
+    @Test
+    public void testFillingEmptyListIsImmediate() {
+        differ.submit(Arrays.asList(new Item("a", "A"), new Item("b", "B")));
+
+        assertEquals(2, differ.getCurrentList().size());
+        assertEquals(Collections.singletonList("inserted 0 2"), updates);
+        assertTrue(background.isEmpty());
+    }
+
+    @Test
+    public void testChangedRowGetsChangedFieldsAsPayload() {
+        differ.submit(Arrays.asList(new Item("a", "A"), new Item("b", "B")));
+        updates.clear();
+
+        differ.submit(Arrays.asList(new Item("a", "A"), new Item("b", "B2")));
+        assertEquals("B", differ.getCurrentList().get(1).title);
+        runBackground();
+
+        assertEquals("B2", differ.getCurrentList().get(1).title);
+        assertEquals(Collections.singletonList("changed 1 1 [title]"), updates);
+    }
+
+    @Test
+    public void testUnchangedRowsAreNotRebound() {
+        differ.submit(Arrays.asList(new Item("a", "A"), new Item("b", "B")));
+        updates.clear();
+
+        differ.submit(Arrays.asList(new Item("a", "A"), new Item("b", "B")));
+        runBackground();
+
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    public void testOnlyLatestSubmissionIsApplied() {
+        differ.submit(Collections.singletonList(new Item("a", "A")));
+        differ.submit(Collections.singletonList(new Item("a", "A2")));
+        differ.submit(Collections.singletonList(new Item("a", "A3")));
+        updates.clear();
+        runBackground();
+
+        assertEquals("A3", differ.getCurrentList().get(0).title);
+        assertEquals(Collections.singletonList("changed 0 1 [title]"), updates);
+    }
+
+    @Test
+    public void testEmptyingListIsImmediate() {
+        differ.submit(Collections.singletonList(new Item("a", "A")));
+        updates.clear();
+
+        differ.submit(Collections.emptyList());
+
+        assertTrue(differ.getCurrentList().isEmpty());
+        assertEquals(Collections.singletonList("removed 0 1"), updates);
+    }
+
+    @Test
+    public void testStableIdsFollowItemIds() {
+        long a = differ.stableId(new Item("a", "A"));
+        long b = differ.stableId(new Item("b", "B"));
+
+        assertNotEquals(a, b);
+        assertEquals(a, differ.stableId(new Item("a", "changed")));
+    }
+
+    @Test
+    public void testChangedFieldsMergesPayloads() {
+        List<Object> payloads = Arrays.asList(Collections.singleton("title"), Collections.singleton("poster"));
+
+        assertEquals(new HashSet<>(Arrays.asList("title", "poster")), ListDiffer.changedFields(payloads));
+        assertNull(ListDiffer.changedFields(Collections.singletonList("unknown")));
+    }
+}
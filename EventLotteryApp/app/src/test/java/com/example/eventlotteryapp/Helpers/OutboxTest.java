@@ -0,0 +1,183 @@
+package com.example.eventlotteryapp.Helpers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for Outbox.
+ * Tests that queued writes survive reopening the file, coalesce by key,
+ * and drain in order with metrics.
+ */
+public class OutboxTest {
+
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("outbox").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        folder.delete();
+    }
+
+    private File logFile() {
+        return new File(folder, "outbox.log");
+    }
+
+    private static int drain(Outbox outbox, Outbox.Handler handler) throws Exception {
+        return outbox.drain(handler).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testEntriesSurviveReopening() {
+        Outbox outbox = new Outbox(logFile());
+        assertTrue(outbox.enqueue("invitation:event1:user1", "accept_invitation", "event1", "user1"));
+        outbox.enqueue("invitation:event2:user1", "decline_invitation", "event2", "user1");
+
+        Outbox reopened = new Outbox(logFile());
+        List<Outbox.Entry> pending = reopened.pending();
+        assertEquals(2, pending.size());
+        assertEquals("accept_invitation", pending.get(0).getType());
+        assertEquals(Arrays.asList("event1", "user1"), pending.get(0).getArgs());
+        assertEquals("invitation:event2:user1", pending.get(1).getKey());
+    }
+
+    @Test
+    public void testSameKeyKeepsLatestWrite() {
+        Outbox outbox = new Outbox(logFile());
+        outbox.enqueue("invitation:event1:user1", "accept_invitation", "event1", "user1");
+        outbox.enqueue("invitation:event1:user1", "decline_invitation", "event1", "user1");
+
+        assertEquals(1, outbox.size());
+        assertEquals("decline_invitation", outbox.pending().get(0).getType());
+        assertEquals(1, outbox.getMetrics().getCoalesced());
+        assertEquals("decline_invitation", new Outbox(logFile()).pending().get(0).getType());
+    }
+
+    @Test
+    public void testValuesWithSeparatorsRoundTrip() {
+        Outbox outbox = new Outbox(logFile());
+        outbox.enqueue("key\twith\ttabs", "type", "line one\nline two", "back\\slash", "");
+
+        Outbox.Entry entry = new Outbox(logFile()).pending().get(0);
+        assertEquals("key\twith\ttabs", entry.getKey());
+        assertEquals(Arrays.asList("line one\nline two", "back\\slash", ""), entry.getArgs());
+    }
+
+    @Test
+    public void testLineCutShortIsIgnored() throws IOException {
+        Outbox outbox = new Outbox(logFile());
+        outbox.enqueue("invitation:event1:user1", "accept_invitation", "event1", "user1");
+        try (FileOutputStream out = new FileOutputStream(logFile(), true)) {
+            out.write("P\tinvitation:event2:user1\taccept_invitation\t5\tevent2\tus".getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Outbox.Entry> pending = new Outbox(logFile()).pending();
+        assertEquals(1, pending.size());
+        assertEquals("invitation:event1:user1", pending.get(0).getKey());
+    }
+
+    @Test
+    public void testDrainDeliversOldestFirstAndRemovesEntries() throws Exception {
+        Outbox outbox = new Outbox(logFile());
+        for (int i = 0; i < 45; i++) {
+            outbox.enqueue("key" + i, "type", String.valueOf(i));
+        }
+        List<String> delivered = new ArrayList<>();
+
+        int count = drain(outbox, entry -> {
+            synchronized (delivered) {
+                delivered.add(entry.getArgs().get(0));
+            }
+            return CompletableFuture.completedFuture(true);
+        });
+
+        assertEquals(45, count);
+        assertEquals(0, outbox.size());
+        assertEquals(0, new Outbox(logFile()).size());
+        assertEquals("0", delivered.get(0));
+        assertEquals(45, outbox.getMetrics().getDelivered());
+    }
+
+    @Test
+    public void testDrainStopsAtFailedBatch() throws Exception {
+        Outbox outbox = new Outbox(logFile());
+        for (int i = 0; i < 30; i++) {
+            outbox.enqueue("key" + i, "type", String.valueOf(i));
+        }
+
+        int count = drain(outbox, entry -> CompletableFuture.completedFuture(!entry.getKey().equals("key3")));
+
+        assertEquals(Outbox.DRAIN_BATCH_SIZE - 1, count);
+        assertEquals(30 - count, outbox.size());
+        assertEquals("key3", outbox.pending().get(0).getKey());
+        assertEquals(1, outbox.getMetrics().getFailedAttempts());
+    }
+
+    @Test
+    public void testFailedDeliveryKeepsEntry() throws Exception {
+        Outbox outbox = new Outbox(logFile());
+        outbox.enqueue("key", "type");
+
+        CompletableFuture<Boolean> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("offline"));
+        assertEquals(0, drain(outbox, entry -> failed));
+
+        assertEquals(1, new Outbox(logFile()).size());
+    }
+
+    @Test
+    public void testMetricsTrackDepthAndLatency() throws Exception {
+        AtomicLong now = new AtomicLong(1000);
+        Outbox outbox = new Outbox(logFile(), now::get);
+        outbox.enqueue("a", "type");
+        now.set(1500);
+        outbox.enqueue("b", "type");
+        assertEquals(2, outbox.getMetrics().getDepth());
+        assertEquals(-1, outbox.getMetrics().getLastDrainLatencyMillis());
+
+        now.set(4000);
+        drain(outbox, entry -> CompletableFuture.completedFuture(true));
+
+        Outbox.Metrics metrics = outbox.getMetrics();
+        assertEquals(0, metrics.getDepth());
+        assertEquals(3000, metrics.getMaxDrainLatencyMillis());
+        assertEquals(2500, metrics.getLastDrainLatencyMillis());
+    }
+
+    @Test
+    public void testLogIsCompacted() {
+        Outbox outbox = new Outbox(logFile());
+        for (int i = 0; i < Outbox.COMPACT_THRESHOLD * 2; i++) {
+            outbox.enqueue("same", "type", String.valueOf(i));
+        }
+
+        Outbox reopened = new Outbox(logFile());
+        assertEquals(1, reopened.size());
+        assertEquals(String.valueOf(Outbox.COMPACT_THRESHOLD * 2 - 1), reopened.pending().get(0).getArgs().get(0));
+        assertTrue(logFile().length() < 100);
+    }
+}
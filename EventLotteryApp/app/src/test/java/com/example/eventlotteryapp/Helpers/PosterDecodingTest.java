@@ -0,0 +1,77 @@
+package com.example.eventlotteryapp.Helpers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PosterDecoding.
+ * Tests cache keys and downsampling of event posters.
+ */
+public class PosterDecodingTest {
+
+    @Test
+    public void testStripDataUri() {
+        assertEquals("QUJD", PosterDecoding.stripDataUri("data:image/jpeg;base64,QUJD"));
+        assertEquals("QUJD", PosterDecoding.stripDataUri("QUJD"));
+    }
+
+    @Test
+    public void testCacheKeyChangesWithContent() {
+        String key = PosterDecoding.cacheKey("event1", "QUJD", 300, 200);
+
+        assertEquals(key, PosterDecoding.cacheKey("event1", "QUJD", 300, 200));
+        assertNotEquals(key, PosterDecoding.cacheKey("event1", "QUJE", 300, 200));
+        assertNotEquals(key, PosterDecoding.cacheKey("event2", "QUJD", 300, 200));
+        assertNotEquals(key, PosterDecoding.cacheKey("event1", "QUJD", 600, 400));
+    }
+
+    @Test
+    public void testCacheKeyIsSafeFileName() {
+        String key = PosterDecoding.cacheKey("../events/1", "QUJD", 10, 10);
+
+        assertFalse(key.contains("/"));
+        assertTrue(PosterDecoding.cacheKey(null, "QUJD", 10, 10).startsWith("none_"));
+    }
+
+    @Test
+    public void testInSampleSizeKeepsImageAtLeastViewSize() {
+        assertEquals(1, PosterDecoding.inSampleSize(1000, 800, 1000, 800));
+        assertEquals(2, PosterDecoding.inSampleSize(2000, 1600, 1000, 800));
+        assertEquals(2, PosterDecoding.inSampleSize(2000, 1600, 600, 500));
+        assertEquals(4, PosterDecoding.inSampleSize(4000, 3000, 500, 500));
+    }
+
+    @Test
+    public void testInSampleSizeLimitedBySmallerRatio() {
+        // Wide image in a tall view: the height decides
+        assertEquals(1, PosterDecoding.inSampleSize(4000, 500, 500, 400));
+    }
+
+    @Test
+    public void testInSampleSizeWithoutViewSize() {
+        assertEquals(1, PosterDecoding.inSampleSize(4000, 3000, 0, 0));
+    }
+
+    @Test
+    public void testVersionChangesWithContent() {
+        assertEquals(PosterDecoding.version("QUJD"), PosterDecoding.version("QUJD"));
+        assertNotEquals(PosterDecoding.version("QUJD"), PosterDecoding.version("QUJE"));
+    }
+
+    @Test
+    public void testFitWithinScalesLongestEdge() {
+        assertArrayEquals(new int[] {480, 360}, PosterDecoding.fitWithin(1600, 1200, 480));
+        assertArrayEquals(new int[] {360, 480}, PosterDecoding.fitWithin(1200, 1600, 480));
+    }
+
+    @Test
+    public void testFitWithinKeepsSmallImages() {
+        assertArrayEquals(new int[] {300, 200}, PosterDecoding.fitWithin(300, 200, 480));
+    }
+
+    @Test
+    public void testFitWithinNeverReachesZero() {
+        assertArrayEquals(new int[] {480, 1}, PosterDecoding.fitWithin(10000, 2, 480));
+    }
+}
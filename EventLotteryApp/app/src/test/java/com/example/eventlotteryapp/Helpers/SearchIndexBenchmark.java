@@ -0,0 +1,76 @@
+package com.example.eventlotteryapp.Helpers;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Random;
+
+/**
+ * JVM benchmark for SearchIndex.
+ * Indexes 10k generated events and times searches of different lengths against them.
+ * In the app the index only holds the events the paged feed has loaded, so this is the
+ * cost once that many have been read. Skipped unless run with {@code -Dbenchmarks=true},
+ * so timings never fail the default suite; when run, a search slower than the limit
+ * fails with its measured time.
+ */
+public class SearchIndexBenchmark {
+    private static final int EVENT_COUNT = 10_000;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    private static final String[] WORDS = {
+        "summer", "winter", "community", "concert", "basketball", "pottery", "workshop",
+        "garden", "festival", "night", "market", "yoga", "coding", "family", "charity",
+        "run", "music", "art", "film", "trivia", "hockey", "swim", "dance", "book", "club",
+        "centre", "park", "hall", "library", "street", "downtown", "north", "south", "river"
+    };
+
+    private static final String[] QUERIES = {"c", "co", "con", "concert", "community garden", "zebra"};
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static SearchIndex events() {
+        Random random = new Random(1);
+        SearchIndex index = new SearchIndex();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            index.put("event" + i, words(random, 3) + " " + i, words(random, 25), words(random, 2) + " " + (i % 500));
+        }
+        return index;
+    }
+
+    @Before
+    public void onlyWhenRequested() {
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+    }
+
+    @Test
+    public void benchmarkSearch() {
+        SearchIndex index = events();
+
+        for (String query : QUERIES) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                index.search(query);
+            }
+            int hits = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                hits = index.search(query).size();
+            }
+            long perSearchNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+            assertTrue("Search \"" + query + "\" over " + EVENT_COUNT + " (" + hits + " hits): " + perSearchNanos / 1000 + " us/search",
+                perSearchNanos < 50_000_000L);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.eventlotteryapp.Helpers;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for SearchIndex.
+ */
+public class SearchIndexTest {
+
+    private SearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new SearchIndex();
+        index.put("e1", "Summer Concert", "Live music in the park", "Hawrelak Park");
+        index.put("e2", "Basketball Night", "Pickup games, bring a concert shirt", "Kinsmen Centre");
+        index.put("e3", "Pottery Workshop", "Learn to throw clay", "Concert Hall Annex");
+    }
+
+    @Test
+    public void testMatchesRecordFirstFieldMatched() {
+        Map<String, Integer> hits = index.search("concert");
+
+        assertEquals(3, hits.size());
+        assertEquals(Integer.valueOf(SearchIndex.TITLE), hits.get("e1"));
+        assertEquals(Integer.valueOf(SearchIndex.DESCRIPTION), hits.get("e2"));
+        assertEquals(Integer.valueOf(SearchIndex.LOCATION), hits.get("e3"));
+    }
+
+    @Test
+    public void testSubstringsAcrossWordsIgnoringCase() {
+        assertEquals(Arrays.asList("e1"), Arrays.asList(index.search("MER CON").keySet().toArray()));
+        assertTrue(index.search("concerts").isEmpty());
+        assertTrue(index.search("zzz").isEmpty());
+    }
+
+    @Test
+    public void testShortQueriesScanEveryEvent() {
+        assertEquals(3, index.search("").size());
+        assertEquals(Integer.valueOf(SearchIndex.DESCRIPTION), index.search("cl").get("e3"));
+        assertEquals(Integer.valueOf(SearchIndex.TITLE), index.search("k").get("e2"));
+    }
+
+    @Test
+    public void testUpdatedEventIsSearchedByItsNewFields() {
+        index.put("e1", "Winter Gala", null, null);
+
+        assertFalse(index.search("concert").containsKey("e1"));
+        assertEquals(Integer.valueOf(SearchIndex.TITLE), index.search("gala").get("e1"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testRemovedEventsAreNotFound() {
+        index.remove("e2");
+        index.retainAll(Arrays.asList("e1", "e2"));
+
+        assertEquals(1, index.size());
+        assertEquals(Arrays.asList("e1"), Arrays.asList(index.search("concert").keySet().toArray()));
+        assertTrue(index.search("a").containsKey("e1"));
+    }
+
+    @Test
+    public void testManyUpdatesKeepResultsExact() {
+        for (int i = 0; i < 3000; i++) {
+            index.put("e1", "Summer Concert " + i, null, null);
+        }
+
+        Map<String, Integer> hits = index.search("concert 2999");
+        assertEquals(1, hits.size());
+        assertTrue(hits.containsKey("e1"));
+        assertEquals(3, index.size());
+    }
+}
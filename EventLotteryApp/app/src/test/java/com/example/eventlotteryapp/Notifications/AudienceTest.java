@@ -0,0 +1,84 @@
+package com.example.eventlotteryapp.Notifications;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for Audience.
+ * Tests how an event's entrant lists are merged into one recipient list.
+ */
+public class AudienceTest {
+
+    private static Map<String, List<String>> event(String... fieldsAndIds) {
+        Map<String, List<String>> lists = new HashMap<>();
+        for (int i = 0; i < fieldsAndIds.length; i += 2) {
+            lists.put(fieldsAndIds[i], Arrays.asList(fieldsAndIds[i + 1].split(",")));
+        }
+        return lists;
+    }
+
+    @Test
+    public void testSingleListKeepsOrder() {
+        Map<String, List<String>> lists = event(Audience.SELECTED, "user3,user1,user2");
+
+        assertEquals(Arrays.asList("user3", "user1", "user2"), Audience.of(Audience.SELECTED).resolve(lists::get));
+    }
+
+    @Test
+    public void testEntrantInSeveralListsIsNotifiedOnce() {
+        Map<String, List<String>> lists = event(
+                Audience.WAITING_LIST, "user1,user2",
+                Audience.SELECTED, "user2,user3",
+                Audience.ACCEPTED, "user3,user4");
+
+        assertEquals(Arrays.asList("user1", "user2", "user3", "user4"), Audience.allSignedUp().resolve(lists::get));
+    }
+
+    @Test
+    public void testWaitingListExcludesProgressedEntrants() {
+        Map<String, List<String>> lists = event(
+                Audience.WAITING_LIST, "user1,user2,user3",
+                Audience.SELECTED, "user2",
+                Audience.ACCEPTED, "user3");
+
+        assertEquals(Arrays.asList("user1"), Audience.waitingList().resolve(lists::get));
+    }
+
+    @Test
+    public void testDropsBlankIds() {
+        Map<String, List<String>> lists = new HashMap<>();
+        lists.put(Audience.CANCELLED, Arrays.asList("user1", null, "", "user1", "user2"));
+
+        assertEquals(Arrays.asList("user1", "user2"), Audience.of(Audience.CANCELLED).resolve(lists::get));
+    }
+
+    @Test
+    public void testMissingListsCountAsEmpty() {
+        Map<String, List<String>> lists = event(Audience.DECLINED, "user1");
+
+        assertEquals(Arrays.asList("user1"), Audience.everyone().resolve(lists::get));
+        assertTrue(Audience.waitingList().resolve(lists::get).isEmpty());
+    }
+
+    @Test
+    public void testLabelNamesSingleList() {
+        assertEquals(Audience.WAITING_LIST, Audience.waitingList().getLabel());
+        assertNull(Audience.allSignedUp().getLabel());
+    }
+
+    @Test
+    public void testExcludingReturnsNewAudience() {
+        Audience signedUp = Audience.allSignedUp();
+        Audience narrowed = signedUp.excluding(Audience.ACCEPTED);
+
+        assertTrue(signedUp.getExcluded().isEmpty());
+        assertEquals(Arrays.asList(Audience.ACCEPTED), narrowed.getExcluded());
+        assertEquals(signedUp.getIncluded(), narrowed.getIncluded());
+    }
+}
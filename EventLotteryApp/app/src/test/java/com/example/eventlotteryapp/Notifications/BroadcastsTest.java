@@ -0,0 +1,37 @@
+package com.example.eventlotteryapp.Notifications;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for Broadcasts.
+ * Tests how a user's events are split across broadcast queries.
+ */
+public class BroadcastsTest {
+
+    @Test
+    public void testChunksSplitManyEvents() {
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < Broadcasts.EVENT_CHUNK_SIZE * 2 + 1; i++) {
+            events.add("event" + i);
+        }
+
+        List<List<String>> chunks = Broadcasts.chunks(events);
+
+        assertEquals(3, chunks.size());
+        assertEquals(Broadcasts.EVENT_CHUNK_SIZE, chunks.get(0).size());
+        assertEquals(Broadcasts.EVENT_CHUNK_SIZE, chunks.get(1).size());
+        assertEquals(Arrays.asList("event" + Broadcasts.EVENT_CHUNK_SIZE * 2), chunks.get(2));
+    }
+
+    @Test
+    public void testChunksOfNoEvents() {
+        assertTrue(Broadcasts.chunks(Collections.emptyList()).isEmpty());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.eventlotteryapp.Notifications;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * In-process PushTransport for tests. Records every multicast it is given and answers
+ * each token from a script: tokens marked invalid always fail as invalid, and tokens
+ * given a number of failures are answered with RETRY that many times first.
+ */
+public class FakePushTransport implements PushTransport {
+    private final List<List<String>> requests = new ArrayList<>();
+    private final List<String> invalidTokens = new ArrayList<>();
+    private final Map<String, Integer> failuresLeft = new HashMap<>();
+    private final Queue<RuntimeException> requestErrors = new LinkedList<>();
+
+    /** Makes every push to a token come back as an invalid token. */
+    public synchronized void markInvalid(String token) {
+        invalidTokens.add(token);
+    }
+
+    /** Makes the next {@code times} pushes to a token fail with RETRY. */
+    public synchronized void failTimes(String token, int times) {
+        failuresLeft.put(token, times);
+    }
+
+    /** Makes the next request fail outright. */
+    public synchronized void failNextRequest(RuntimeException error) {
+        requestErrors.add(error);
+    }
+
+    /** @return the tokens of every multicast sent, in order */
+    public synchronized List<List<String>> getRequests() {
+        return new ArrayList<>(requests);
+    }
+
+    @Override
+    public synchronized CompletableFuture<List<Outcome>> sendMulticast(List<String> tokens, Map<String, String> payload) {
+        requests.add(Collections.unmodifiableList(new ArrayList<>(tokens)));
+        CompletableFuture<List<Outcome>> sent = new CompletableFuture<>();
+        if (!requestErrors.isEmpty()) {
+            sent.completeExceptionally(requestErrors.remove());
+            return sent;
+        }
+
+        List<Outcome> outcomes = new ArrayList<>();
+        for (String token : tokens) {
+            int failures = failuresLeft.getOrDefault(token, 0);
+            if (invalidTokens.contains(token)) {
+                outcomes.add(Outcome.INVALID_TOKEN);
+            } else if (failures > 0) {
+                failuresLeft.put(token, failures - 1);
+                outcomes.add(Outcome.RETRY);
+            } else {
+                outcomes.add(Outcome.DELIVERED);
+            }
+        }
+        sent.complete(outcomes);
+        return sent;
+    }
+}
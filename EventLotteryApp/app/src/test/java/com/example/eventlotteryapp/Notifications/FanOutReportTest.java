@@ -0,0 +1,61 @@
+package com.example.eventlotteryapp.Notifications;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for FanOutReport.
+ * Tests that sent, skipped and failed recipients are tallied and that
+ * the elapsed time is only set once the send finishes.
+ */
+public class FanOutReportTest {
+
+    @Test
+    public void testNewReportIsEmpty() {
+        FanOutReport report = new FanOutReport(10, 1_000L);
+        assertEquals(10, report.getRecipients());
+        assertEquals(0, report.getProcessed());
+        assertFalse(report.hasFailures());
+        assertEquals(-1, report.getElapsedMillis());
+    }
+
+    @Test
+    public void testTalliesOutcomes() {
+        FanOutReport report = new FanOutReport(10, 1_000L);
+        report.recordSent(5);
+        report.recordSent(1);
+        report.recordSkipped(2);
+        report.recordFailed(Arrays.asList("a", "b"));
+
+        assertEquals(6, report.getSent());
+        assertEquals(2, report.getSkipped());
+        assertEquals(2, report.getFailed());
+        assertEquals(Arrays.asList("a", "b"), report.getFailedUserIds());
+        assertEquals(10, report.getProcessed());
+        assertTrue(report.hasFailures());
+    }
+
+    @Test
+    public void testEmptyFailureListIsNotAFailure() {
+        FanOutReport report = new FanOutReport(1, 0L);
+        report.recordFailed(Collections.emptyList());
+        assertFalse(report.hasFailures());
+    }
+
+    @Test
+    public void testFinishSetsElapsedTime() {
+        FanOutReport report = new FanOutReport(1, 1_000L);
+        report.finish(1_250L);
+        assertEquals(250, report.getElapsedMillis());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFailedUserIdsAreReadOnly() {
+        FanOutReport report = new FanOutReport(1, 0L);
+        report.getFailedUserIds().add("a");
+    }
+}
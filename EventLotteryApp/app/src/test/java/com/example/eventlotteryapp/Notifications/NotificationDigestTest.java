@@ -0,0 +1,69 @@
+package com.example.eventlotteryapp.Notifications;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for NotificationDigest.
+ * Tests how messages to the same user about the same event are merged.
+ */
+public class NotificationDigestTest {
+
+    @Test
+    public void testSingleMessageIsUnchanged() {
+        NotificationDigest digest = new NotificationDigest();
+        digest.add("Event Update", "The venue has changed.", "waitingListEntrantIds");
+
+        assertEquals(1, digest.size());
+        assertEquals("Event Update", digest.getTitle());
+        assertEquals("The venue has changed.", digest.getMessage());
+    }
+
+    @Test
+    public void testMessagesAreMergedInOrder() {
+        NotificationDigest digest = new NotificationDigest();
+        digest.add("Event Update", "The venue has changed.", "selectedEntrantIds");
+        digest.add("Reminder", "Please respond by Friday.", "selectedEntrantIds");
+
+        assertEquals(2, digest.size());
+        assertEquals("Reminder", digest.getTitle());
+        assertEquals("The venue has changed." + NotificationDigest.MESSAGE_SEPARATOR + "Please respond by Friday.",
+                digest.getMessage());
+    }
+
+    @Test
+    public void testSelectionSupersedesWaitingListMessage() {
+        NotificationDigest digest = new NotificationDigest();
+        digest.add("Lottery Selection", "Congratulations! You've been selected.", "selectedEntrantIds");
+        digest.add("Lottery Results - Not Selected", "Unfortunately, you were not selected.", "waitingListEntrantIds");
+
+        List<NotificationDigest.Entry> shown = digest.getEntries();
+        assertEquals(1, shown.size());
+        assertEquals("Lottery Selection", digest.getTitle());
+        assertEquals("Congratulations! You've been selected.", digest.getMessage());
+        assertEquals(2, digest.size());
+    }
+
+    @Test
+    public void testWaitingListMessageKeptWithoutProgressedAudience() {
+        NotificationDigest digest = new NotificationDigest();
+        digest.add("Lottery Results", "You were not selected.", "waitingListEntrantIds");
+        digest.add("Event Cancelled", "The event has been cancelled.", null);
+
+        assertEquals(2, digest.getEntries().size());
+        assertEquals("Event Cancelled", digest.getTitle());
+    }
+
+    @Test
+    public void testRepeatedMessageShownOnce() {
+        NotificationDigest digest = new NotificationDigest();
+        digest.add("Event Update", "The venue has changed.", "waitingListEntrantIds");
+        digest.add("Event Update", "The venue has changed.", "waitingListEntrantIds");
+
+        assertEquals(1, digest.getEntries().size());
+        assertEquals("The venue has changed.", digest.getMessage());
+    }
+}
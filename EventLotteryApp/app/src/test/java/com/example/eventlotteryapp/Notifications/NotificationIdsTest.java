@@ -0,0 +1,50 @@
+package com.example.eventlotteryapp.Notifications;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for NotificationIds.
+ * Tests that the same notification always gets the same ID and that
+ * notifications meant to be separate get different ones.
+ */
+public class NotificationIdsTest {
+
+    @Test
+    public void testSameInputsGiveSameId() {
+        assertEquals(NotificationIds.of("event1", "user1", "invitation_accepted", 2),
+                NotificationIds.of("event1", "user1", "invitation_accepted", 2));
+    }
+
+    @Test
+    public void testSequenceSeparatesRounds() {
+        assertNotEquals(NotificationIds.of("event1", "user1", "invitation_accepted", 1),
+                NotificationIds.of("event1", "user1", "invitation_accepted", 2));
+    }
+
+    @Test
+    public void testTypeAndRecipientSeparateNotifications() {
+        String accepted = NotificationIds.of("event1", "user1", "invitation_accepted", 1);
+        assertNotEquals(accepted, NotificationIds.of("event1", "user1", "invitation_declined", 1));
+        assertNotEquals(accepted, NotificationIds.of("event1", "user2", "invitation_accepted", 1));
+        assertNotEquals(accepted, NotificationIds.of("event2", "user1", "invitation_accepted", 1));
+    }
+
+    @Test
+    public void testEntrantSeparatesOrganizerNotifications() {
+        assertNotEquals(NotificationIds.of("event1", "organizer", "entrant_accepted", "user1", 1),
+                NotificationIds.of("event1", "organizer", "entrant_accepted", "user2", 1));
+    }
+
+    @Test
+    public void testIdIsNeverAPath() {
+        String id = NotificationIds.of("a/b", "user/1", "type", "x/y", 0);
+        assertFalse(id.contains("/"));
+    }
+
+    @Test
+    public void testNullPartsDoNotThrow() {
+        assertNotNull(NotificationIds.of(null, null, "type", 0));
+    }
+}
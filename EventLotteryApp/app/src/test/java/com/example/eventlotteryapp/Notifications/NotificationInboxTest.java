@@ -0,0 +1,105 @@
+package com.example.eventlotteryapp.Notifications;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for NotificationInbox.
+ * Tests that notifications stay newest first as they are added, updated and removed
+ * one at a time, and that updates replace rather than duplicate.
+ */
+public class NotificationInboxTest {
+    private NotificationInbox inbox;
+
+    @Before
+    public void setUp() {
+        inbox = new NotificationInbox();
+    }
+
+    private static Notification notification(String documentId, long time, String message) {
+        Notification notification = new Notification(new Date(time), "MESSAGE", message);
+        notification.setDocumentId(documentId);
+        return notification;
+    }
+
+    private static String ids(List<Notification> notifications) {
+        StringBuilder ids = new StringBuilder();
+        for (Notification notification : notifications) {
+            ids.append(notification.getDocumentId());
+        }
+        return ids.toString();
+    }
+
+    @Test
+    public void testKeepsNewestFirstWhateverTheArrivalOrder() {
+        inbox.upsert(notification("b", 2000, "b"));
+        inbox.upsert(notification("d", 4000, "d"));
+        inbox.upsert(notification("a", 1000, "a"));
+        inbox.upsert(notification("c", 3000, "c"));
+
+        assertEquals("dcba", ids(inbox.snapshot()));
+    }
+
+    @Test
+    public void testUpsertReplacesExistingNotification() {
+        inbox.upsert(notification("a", 1000, "old"));
+        inbox.upsert(notification("b", 2000, "b"));
+        inbox.upsert(notification("a", 3000, "new"));
+
+        List<Notification> notifications = inbox.snapshot();
+        assertEquals("ab", ids(notifications));
+        assertEquals("new", notifications.get(0).getMessage());
+        assertEquals(2, inbox.size());
+    }
+
+    @Test
+    public void testRemove() {
+        inbox.upsert(notification("a", 1000, "a"));
+        inbox.upsert(notification("b", 2000, "b"));
+
+        assertTrue(inbox.remove("a"));
+        assertFalse(inbox.remove("a"));
+        assertEquals("b", ids(inbox.snapshot()));
+        assertNull(inbox.get("a"));
+    }
+
+    @Test
+    public void testSameTimestampIsOrderedByDocumentId() {
+        inbox.upsert(notification("b", 1000, "b"));
+        inbox.upsert(notification("a", 1000, "a"));
+        inbox.remove("b");
+
+        assertEquals("a", ids(inbox.snapshot()));
+    }
+
+    @Test
+    public void testNotificationsWithoutTimestampGoLast() {
+        Notification undated = new Notification(null, "MESSAGE", "undated");
+        undated.setDocumentId("z");
+        inbox.upsert(undated);
+        inbox.upsert(notification("a", 1000, "a"));
+
+        assertEquals("az", ids(inbox.snapshot()));
+    }
+
+    @Test
+    public void testIgnoresNotificationsWithoutDocumentId() {
+        inbox.upsert(new Notification(new Date(), "MESSAGE", "no id"));
+        assertEquals(0, inbox.size());
+    }
+
+    @Test
+    public void testSnapshotIsACopy() {
+        inbox.upsert(notification("a", 1000, "a"));
+        List<Notification> snapshot = inbox.snapshot();
+        inbox.clear();
+
+        assertEquals(1, snapshot.size());
+        assertEquals(0, inbox.size());
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.eventlotteryapp.Notifications;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PushDispatcher, using FakePushTransport and an in-memory token source.
+ * Tests multicast batching, token caching and pruning, and retries.
+ */
+public class PushDispatcherTest {
+
+    private static final Map<String, String> PAYLOAD = Collections.singletonMap("title", "Event Update");
+
+    private FakePushTransport transport;
+    private MemoryTokenSource tokens;
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void setUp() {
+        transport = new FakePushTransport();
+        tokens = new MemoryTokenSource();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private PushDispatcher dispatcher(int maxAttempts) {
+        return new PushDispatcher(transport, tokens, scheduler, new Random(1), 1, maxAttempts);
+    }
+
+    private static PushDispatcher.Result await(CompletableFuture<PushDispatcher.Result> dispatch) throws Exception {
+        return dispatch.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testLargeBroadcastIsSentInMulticasts() throws Exception {
+        List<String> userIds = new ArrayList<>();
+        for (int i = 0; i < 1201; i++) {
+            userIds.add("user" + i);
+            tokens.put("user" + i, "token" + i);
+        }
+
+        PushDispatcher.Result result = await(dispatcher(3).dispatch(userIds, PAYLOAD));
+
+        assertEquals(3, transport.getRequests().size());
+        for (List<String> request : transport.getRequests()) {
+            assertTrue(request.size() <= PushTransport.MAX_TOKENS_PER_MULTICAST);
+        }
+        assertEquals(1201, result.getDelivered());
+        assertEquals(3, result.getRequests());
+    }
+
+    @Test
+    public void testTokensAreCachedUntilInvalidated() throws Exception {
+        tokens.put("user1", "token1");
+        PushDispatcher dispatcher = dispatcher(3);
+
+        await(dispatcher.dispatch(Collections.singletonList("user1"), PAYLOAD));
+        await(dispatcher.dispatch(Collections.singletonList("user1"), PAYLOAD));
+        assertEquals(1, tokens.loads);
+
+        tokens.put("user1", "token2");
+        dispatcher.invalidate("user1");
+        await(dispatcher.dispatch(Collections.singletonList("user1"), PAYLOAD));
+        assertEquals(2, tokens.loads);
+        assertEquals(Collections.singletonList("token2"), transport.getRequests().get(2));
+    }
+
+    @Test
+    public void testUsersWithoutTokensAreCounted() throws Exception {
+        tokens.put("user1", "token1");
+
+        PushDispatcher.Result result = await(dispatcher(3).dispatch(Arrays.asList("user1", "user2"), PAYLOAD));
+
+        assertEquals(2, result.getRecipients());
+        assertEquals(1, result.getDelivered());
+        assertEquals(1, result.getWithoutToken());
+    }
+
+    @Test
+    public void testUserWithoutTokenIsLookedUpAgain() throws Exception {
+        PushDispatcher dispatcher = dispatcher(3);
+
+        PushDispatcher.Result result = await(dispatcher.dispatch(Collections.singletonList("user1"), PAYLOAD));
+        assertEquals(1, result.getWithoutToken());
+
+        tokens.put("user1", "token1");
+        result = await(dispatcher.dispatch(Collections.singletonList("user1"), PAYLOAD));
+        assertEquals(2, tokens.loads);
+        assertEquals(1, result.getDelivered());
+    }
+
+    @Test
+    public void testInvalidTokenIsPruned() throws Exception {
+        tokens.put("user1", "token1");
+        transport.markInvalid("token1");
+        PushDispatcher dispatcher = dispatcher(3);
+
+        PushDispatcher.Result result = await(dispatcher.dispatch(Collections.singletonList("user1"), PAYLOAD));
+        assertEquals(1, result.getInvalid());
+        assertEquals(Collections.singletonList("user1:token1"), tokens.removed);
+
+        result = await(dispatcher.dispatch(Collections.singletonList("user1"), PAYLOAD));
+        assertEquals(1, result.getWithoutToken());
+        assertEquals(1, transport.getRequests().size());
+    }
+
+    @Test
+    public void testFailedTokensAreRetriedAlone() throws Exception {
+        tokens.put("user1", "token1");
+        tokens.put("user2", "token2");
+        transport.failTimes("token2", 2);
+
+        PushDispatcher.Result result = await(dispatcher(5).dispatch(Arrays.asList("user1", "user2"), PAYLOAD));
+
+        assertEquals(2, result.getDelivered());
+        assertEquals(0, result.getFailed());
+        assertEquals(3, transport.getRequests().size());
+        assertEquals(Collections.singletonList("token2"), transport.getRequests().get(1));
+    }
+
+    @Test
+    public void testFailedRequestIsRetried() throws Exception {
+        tokens.put("user1", "token1");
+        transport.failNextRequest(new IllegalStateException("unavailable"));
+
+        PushDispatcher.Result result = await(dispatcher(3).dispatch(Collections.singletonList("user1"), PAYLOAD));
+
+        assertEquals(1, result.getDelivered());
+        assertEquals(2, result.getRequests());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() throws Exception {
+        tokens.put("user1", "token1");
+        transport.failTimes("token1", 10);
+
+        PushDispatcher.Result result = await(dispatcher(3).dispatch(Collections.singletonList("user1"), PAYLOAD));
+
+        assertEquals(0, result.getDelivered());
+        assertEquals(1, result.getFailed());
+        assertEquals(3, transport.getRequests().size());
+    }
+
+    @Test
+    public void testBackoffGrowsAndIsCapped() {
+        PushDispatcher dispatcher = new PushDispatcher(transport, tokens, scheduler, new Random(7), 1000, 5);
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long ceiling = Math.min(1000L << (attempt - 1), PushDispatcher.MAX_DELAY_MILLIS);
+            for (int i = 0; i < 50; i++) {
+                long delay = dispatcher.backoffDelayMillis(attempt);
+                assertTrue(delay >= 0 && delay <= ceiling);
+            }
+        }
+    }
+
+    /** Token source backed by a map, recording loads and removals. */
+    private static class MemoryTokenSource implements PushTokenSource {
+        final Map<String, String> tokensByUser = new HashMap<>();
+        final List<String> removed = new ArrayList<>();
+        int loads;
+
+        void put(String userId, String token) {
+            tokensByUser.put(userId, token);
+        }
+
+        @Override
+        public synchronized CompletableFuture<Map<String, String>> load(List<String> userIds) {
+            loads++;
+            Map<String, String> found = new HashMap<>();
+            for (String userId : userIds) {
+                if (tokensByUser.containsKey(userId)) {
+                    found.put(userId, tokensByUser.get(userId));
+                }
+            }
+            return CompletableFuture.completedFuture(found);
+        }
+
+        @Override
+        public synchronized void remove(String userId, String token) {
+            removed.add(userId + ":" + token);
+            tokensByUser.remove(userId, token);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.eventlotteryapp.Notifications;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for RetentionPolicy.
+ * Tests which notifications expire under per-Type and read TTLs.
+ */
+public class RetentionPolicyTest {
+    private static final long DAY = RetentionPolicy.DAY_MILLIS;
+    private final Date now = new Date(1000 * DAY);
+
+    private Date daysAgo(long days) {
+        return new Date(now.getTime() - days * DAY);
+    }
+
+    @Test
+    public void testDefaultTtlAppliesToUnlistedTypes() {
+        RetentionPolicy policy = new RetentionPolicy(90 * DAY);
+
+        assertFalse(policy.isExpired("MESSAGE", false, daysAgo(89), now));
+        assertTrue(policy.isExpired("MESSAGE", false, daysAgo(90), now));
+        assertTrue(policy.isExpired(null, false, daysAgo(91), now));
+    }
+
+    @Test
+    public void testTypeTtlOverridesDefault() {
+        RetentionPolicy policy = new RetentionPolicy(90 * DAY);
+        policy.setTtl("invitation_accepted", 30 * DAY);
+
+        assertTrue(policy.isExpired("invitation_accepted", false, daysAgo(31), now));
+        assertFalse(policy.isExpired("MESSAGE", false, daysAgo(31), now));
+    }
+
+    @Test
+    public void testReadNotificationsExpireSooner() {
+        RetentionPolicy policy = new RetentionPolicy(90 * DAY);
+        policy.setReadTtl(14 * DAY);
+
+        assertTrue(policy.isExpired("MESSAGE", true, daysAgo(15), now));
+        assertFalse(policy.isExpired("MESSAGE", false, daysAgo(15), now));
+    }
+
+    @Test
+    public void testReadTtlNeverLengthensTypeTtl() {
+        RetentionPolicy policy = new RetentionPolicy(90 * DAY);
+        policy.setTtl("entrant_cancelled", 7 * DAY);
+        policy.setReadTtl(14 * DAY);
+
+        assertEquals(7 * DAY, policy.ttlFor("entrant_cancelled", true));
+    }
+
+    @Test
+    public void testMissingTimestampNeverExpires() {
+        RetentionPolicy policy = new RetentionPolicy(DAY);
+
+        assertFalse(policy.isExpired("MESSAGE", true, null, now));
+    }
+
+    @Test
+    public void testShortestTtl() {
+        RetentionPolicy policy = RetentionPolicy.defaults();
+
+        assertEquals(14 * DAY, policy.shortestTtl());
+        assertEquals(90 * DAY, new RetentionPolicy(90 * DAY).shortestTtl());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNonPositiveTtl() {
+        new RetentionPolicy(90 * DAY).setTtl("MESSAGE", 0);
+    }
+}
@@ -92,13 +92,13 @@ public class EventTest {
     }
 
     @Test
-    public void testImageGetterAndSetter() {
-        String imageBase64 = "base64encodedstring";
-        event.setImage(imageBase64);
-        assertEquals(imageBase64, event.getImage());
+    public void testPosterVersionGetterAndSetter() {
+        String posterVersion = "1a2b3c4d1f4";
+        event.setPosterVersion(posterVersion);
+        assertEquals(posterVersion, event.getPosterVersion());
         
-        event.setImage(null);
-        assertNull(event.getImage());
+        event.setPosterVersion(null);
+        assertNull(event.getPosterVersion());
     }
 
     @Test
@@ -115,6 +115,6 @@ public class EventTest {
         assertEquals(0, event.getMaxParticipants());
         assertNull(event.getOrganizerId());
         assertFalse(event.isCancelled());
-        assertNull(event.getImage());
+        assertNull(event.getPosterVersion());
     }
 }
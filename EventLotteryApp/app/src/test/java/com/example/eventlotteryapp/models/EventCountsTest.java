@@ -0,0 +1,67 @@
+package com.example.eventlotteryapp.models;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the EventCounts class.
+ * Tests summing counter shards per status and the derived totals.
+ */
+public class EventCountsTest {
+    private EventCounts counts;
+
+    @Before
+    public void setUp() {
+        counts = new EventCounts();
+    }
+
+    @Test
+    public void testNewCountsAreZero() {
+        for (String status : EventCounts.STATUSES) {
+            assertEquals(0, counts.get(status));
+        }
+        assertEquals(0, counts.getTotal());
+    }
+
+    @Test
+    public void testShardsAreSummedPerStatus() {
+        counts.add(EventCounts.WAITING, 3);
+        counts.add(EventCounts.WAITING, 4);
+        counts.add(EventCounts.SELECTED, 2);
+        counts.add(EventCounts.ACCEPTED, 1);
+        counts.add(EventCounts.DECLINED, 5);
+        counts.add(EventCounts.CANCELLED, 6);
+
+        assertEquals(7, counts.getWaiting());
+        assertEquals(2, counts.getSelected());
+        assertEquals(1, counts.getAccepted());
+        assertEquals(5, counts.getDeclined());
+        assertEquals(6, counts.getCancelled());
+        assertEquals(21, counts.getTotal());
+    }
+
+    @Test
+    public void testNegativeShardsCancelOut() {
+        counts.add(EventCounts.WAITING, 5);
+        counts.add(EventCounts.WAITING, -2);
+        assertEquals(3, counts.getWaiting());
+    }
+
+    @Test
+    public void testNegativeSumIsReportedAsZero() {
+        counts.add(EventCounts.SELECTED, -1);
+        assertEquals(-1, counts.get(EventCounts.SELECTED));
+        assertEquals(0, counts.getSelected());
+        assertEquals(0, counts.getTotal());
+    }
+
+    @Test
+    public void testUnknownAndNullStatusesAreIgnored() {
+        counts.add("unknown", 10);
+        counts.add(null, 10);
+        assertEquals(0, counts.get("unknown"));
+        assertEquals(0, counts.get(null));
+        assertEquals(0, counts.getTotal());
+    }
+}